@@ -38,7 +38,7 @@ public class SecurityConfig {
     @Bean
     SecurityFilterChain web(HttpSecurity http) throws Exception {
 
-        String actuatorExpression =
+        String adminExpression =
                 String.format("isAuthenticated() and authentication.name == '%s'", adminEmail);
 
         http.cors(Customizer.withDefaults())
@@ -54,6 +54,8 @@ public class SecurityConfig {
                                                 "/oauth2/**",
                                                 "/login/oauth2/code/**",
                                                 "/api/save-metric",
+                                                "/api/save-metrics/batch",
+                                                "/api/save-timings",
                                                 "/api/auth/**",
                                                 "/api/test/**"))
                 .addFilterBefore(
@@ -61,10 +63,14 @@ public class SecurityConfig {
                 .authorizeHttpRequests(
                         (authorize ->
                                 authorize
-                                        .requestMatchers("/actuator/**")
+                                        .requestMatchers(
+                                                "/actuator/health/liveness",
+                                                "/actuator/health/readiness")
+                                        .permitAll()
+                                        .requestMatchers("/actuator/**", "/api/metrics/**")
                                         .access(
                                                 new WebExpressionAuthorizationManager(
-                                                        actuatorExpression))
+                                                        adminExpression))
                                         .requestMatchers(
                                                 "/",
                                                 "/index.html",
@@ -79,7 +85,10 @@ public class SecurityConfig {
                                                 "/oauth2/**",
                                                 "/api/public/**",
                                                 "/api/save-metric",
-                                                "/api/fixtures/**")
+                                                "/api/save-metrics/batch",
+                                                "/api/save-timings",
+                                                "/api/fixtures/**",
+                                                "/api/media/**")
                                         .permitAll()
                                         .requestMatchers("/api/test/**")
                                         .permitAll()
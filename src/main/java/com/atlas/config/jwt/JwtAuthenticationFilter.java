@@ -96,6 +96,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return path.startsWith("/oauth2/")
                 || path.startsWith("/login/oauth2/")
                 || path.equals("/api/auth/login")
+                || path.startsWith("/api/media/")
                 || path.startsWith("/error");
     }
 }
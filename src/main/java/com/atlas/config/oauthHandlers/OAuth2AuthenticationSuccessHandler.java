@@ -1,9 +1,8 @@
 package com.atlas.config.oauthHandlers;
 
 import com.atlas.config.jwt.JwtTokenProvider;
-import com.atlas.metrics.controller.model.MetricEventDTO;
 import com.atlas.metrics.controller.model.MetricEventType;
-import com.atlas.metrics.service.MetricsService;
+import com.atlas.metrics.service.model.InternalMetricEvent;
 import com.atlas.user.repository.model.UserEntity;
 import com.atlas.user.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,8 +15,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
-import net.minidev.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -28,17 +27,17 @@ import org.springframework.stereotype.Component;
 public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
     private final UserService userService;
-    private final MetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
     private final JwtTokenProvider jwtTokenProvider;
     private final String frontendUrl;
 
     public OAuth2AuthenticationSuccessHandler(
             UserService userService,
-            MetricsService metricsService,
+            ApplicationEventPublisher eventPublisher,
             JwtTokenProvider jwtTokenProvider,
             @Value("${app.frontend.url:}") String frontendUrl) {
         this.userService = userService;
-        this.metricsService = metricsService;
+        this.eventPublisher = eventPublisher;
         this.jwtTokenProvider = jwtTokenProvider;
         this.frontendUrl = frontendUrl;
     }
@@ -141,19 +140,10 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
 
     private void captureLoginMetric(UserEntity user) {
         try {
-            JSONObject eventMetadata = new JSONObject();
-            eventMetadata.put("triggerId", "OAuth Success");
-            eventMetadata.put("screen", "N/A");
-
-            MetricEventDTO loginMetric =
-                    MetricEventDTO.builder()
-                            .event(MetricEventType.LOGIN)
-                            .eventMetadata(eventMetadata)
-                            .userId(user.getId())
-                            .build();
-
-            metricsService.saveMetricEvent(loginMetric);
-            log.info("Login success metric captured for user: {}", user.getId());
+            eventPublisher.publishEvent(
+                    new InternalMetricEvent(
+                            MetricEventType.LOGIN, user.getId(), "OAuth Success", "N/A"));
+            log.info("Login success metric published for user: {}", user.getId());
 
         } catch (Exception e) {
             log.error("Failed to capture login metric for user: {}", user.getId(), e);
@@ -1,5 +1,7 @@
 package com.atlas.config.redis;
 
+import com.atlas.externalAPIs.apiFootball.service.FixtureTtlPolicy;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
 import java.time.Duration;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -17,6 +19,8 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @EnableCaching
 public class RedisConfig {
 
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -33,7 +37,8 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(
+            RedisConnectionFactory connectionFactory, FixtureTtlPolicy fixtureTtlPolicy) {
         RedisCacheConfiguration config =
                 RedisCacheConfiguration.defaultCacheConfig()
                         .serializeKeysWith(
@@ -42,7 +47,11 @@ public class RedisConfig {
                         .serializeValuesWith(
                                 RedisSerializationContext.SerializationPair.fromSerializer(
                                         RedisSerializer.json()))
-                        .entryTtl(Duration.ofHours(1));
+                        .entryTtl(
+                                (key, value) ->
+                                        value instanceof FixtureResponse fixtures
+                                                ? fixtureTtlPolicy.ttlFor(fixtures).ttl()
+                                                : DEFAULT_TTL);
 
         return RedisCacheManager.builder(connectionFactory).cacheDefaults(config).build();
     }
@@ -0,0 +1,13 @@
+package com.atlas.config.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} jobs. They share the scheduler pool sized by {@code
+ * spring.task.scheduling.pool.size}; jobs that can run for a long time, such as the fixture
+ * backfill, hand their work to their own executor instead of holding a pool thread.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
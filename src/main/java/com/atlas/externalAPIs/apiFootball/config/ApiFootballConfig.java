@@ -12,4 +12,6 @@ public class ApiFootballConfig {
     private String apiKey;
     private String apiHost;
     private int timeoutSeconds = 30;
+    private int requestsPerMinute = 10;
+    private int dailyQuotaReserve = 25;
 }
@@ -0,0 +1,14 @@
+package com.atlas.externalAPIs.apiFootball.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "apis.football.backfill")
+@Data
+public class FixtureBackfillConfig {
+    private boolean enabled = false;
+    private int firstSeason = 2018;
+    private Integer lastSeason;
+}
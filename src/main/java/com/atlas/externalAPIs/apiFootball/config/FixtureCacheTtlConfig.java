@@ -0,0 +1,19 @@
+package com.atlas.externalAPIs.apiFootball.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "apis.football.cache.ttl")
+@Data
+public class FixtureCacheTtlConfig {
+    private Duration inPlay = Duration.ofSeconds(30);
+    private Duration beforeKickoff = Duration.ofMinutes(5);
+    private Duration kickoffWindow = Duration.ofHours(2);
+    private Duration matchDay = Duration.ofHours(1);
+    private Duration idle = Duration.ofHours(12);
+    private Duration maxMatchLength = Duration.ofHours(3);
+    private Duration refreshAhead = Duration.ofMinutes(1);
+}
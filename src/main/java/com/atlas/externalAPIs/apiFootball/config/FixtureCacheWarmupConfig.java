@@ -0,0 +1,15 @@
+package com.atlas.externalAPIs.apiFootball.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "apis.football.cache.warmup")
+@Data
+public class FixtureCacheWarmupConfig {
+    private boolean enabled = true;
+    private Duration retryDelay = Duration.ofSeconds(30);
+    private Duration failOpenAfter = Duration.ofMinutes(5);
+}
@@ -0,0 +1,18 @@
+package com.atlas.externalAPIs.apiFootball.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "apis.football.leagues")
+@Data
+public class LeagueRegistryConfig {
+    private int defaultLookaheadFixtures = 30;
+    private Duration defaultRefreshInterval = Duration.ofHours(1);
+    private String defaultTimezone = "UTC";
+    private int refreshThreads = 4;
+    private int maxRefreshesPerTick = 50;
+    private Duration failureRetryDelay = Duration.ofMinutes(5);
+}
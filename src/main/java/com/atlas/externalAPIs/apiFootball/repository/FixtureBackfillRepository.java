@@ -0,0 +1,213 @@
+package com.atlas.externalAPIs.apiFootball.repository;
+
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueSeason;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.FixtureDetails;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.Goals;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.Team;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk loader for historical fixtures. Each season is streamed into a transaction-scoped staging
+ * table with COPY and then merged into {@code fixtures} with a single set-based upsert, so a season
+ * costs a handful of statements regardless of how many fixtures it contains.
+ */
+@Repository
+@Slf4j
+public class FixtureBackfillRepository {
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE fixtures_staging (LIKE fixtures INCLUDING DEFAULTS) ON COMMIT DROP";
+
+    private static final String STAGING_COLUMNS =
+            "id, league_id, season, kickoff, status_short, status_long, home_team_id,"
+                    + " home_team_name, away_team_id, away_team_name, home_goals, away_goals,"
+                    + " venue_name, venue_city, round";
+
+    private static final String COPY_SQL =
+            "COPY fixtures_staging (" + STAGING_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_SQL =
+            "INSERT INTO fixtures ("
+                    + STAGING_COLUMNS
+                    + ") SELECT DISTINCT ON (id) "
+                    + STAGING_COLUMNS
+                    + " FROM fixtures_staging ORDER BY id"
+                    + " ON CONFLICT (id) DO UPDATE SET"
+                    + " league_id = EXCLUDED.league_id,"
+                    + " season = EXCLUDED.season,"
+                    + " kickoff = EXCLUDED.kickoff,"
+                    + " status_short = EXCLUDED.status_short,"
+                    + " status_long = EXCLUDED.status_long,"
+                    + " home_team_id = EXCLUDED.home_team_id,"
+                    + " home_team_name = EXCLUDED.home_team_name,"
+                    + " away_team_id = EXCLUDED.away_team_id,"
+                    + " away_team_name = EXCLUDED.away_team_name,"
+                    + " home_goals = EXCLUDED.home_goals,"
+                    + " away_goals = EXCLUDED.away_goals,"
+                    + " venue_name = EXCLUDED.venue_name,"
+                    + " venue_city = EXCLUDED.venue_city,"
+                    + " round = EXCLUDED.round,"
+                    + " updated_at = CURRENT_TIMESTAMP";
+
+    private static final String CHECKPOINT_SQL =
+            "INSERT INTO fixture_backfill_checkpoints (league_id, season, fixtures_loaded)"
+                    + " VALUES (?, ?, ?) ON CONFLICT (league_id, season) DO UPDATE SET"
+                    + " fixtures_loaded = EXCLUDED.fixtures_loaded, completed_at = CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public FixtureBackfillRepository(
+            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public Set<LeagueSeason> findCompletedSeasons() {
+        return new HashSet<>(
+                jdbcTemplate.query(
+                        "SELECT league_id, season FROM fixture_backfill_checkpoints",
+                        (rs, rowNum) ->
+                                new LeagueSeason(rs.getLong("league_id"), rs.getInt("season"))));
+    }
+
+    /**
+     * Loads one league season and records its checkpoint in the same transaction, so an
+     * interrupted backfill resumes from the first season that was not fully merged.
+     *
+     * @return the number of fixtures inserted or updated
+     */
+    public int loadSeason(LeagueSeason leagueSeason, List<Fixture> fixtures) {
+        Integer merged =
+                transactionTemplate.execute(
+                        status ->
+                                jdbcTemplate.execute(
+                                        (ConnectionCallback<Integer>)
+                                                connection ->
+                                                        copyAndMerge(
+                                                                connection,
+                                                                leagueSeason,
+                                                                fixtures)));
+        return merged == null ? 0 : merged;
+    }
+
+    private int copyAndMerge(
+            Connection connection, LeagueSeason leagueSeason, List<Fixture> fixtures)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+        }
+
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        long copied;
+        try {
+            for (Fixture fixture : fixtures) {
+                String row = toCsvRow(fixture, leagueSeason);
+                if (row != null) {
+                    byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+            }
+            copied = copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        int merged;
+        try (Statement statement = connection.createStatement()) {
+            merged = statement.executeUpdate(MERGE_SQL);
+        }
+
+        try (PreparedStatement checkpoint = connection.prepareStatement(CHECKPOINT_SQL)) {
+            checkpoint.setLong(1, leagueSeason.leagueId());
+            checkpoint.setInt(2, leagueSeason.season());
+            checkpoint.setInt(3, merged);
+            checkpoint.executeUpdate();
+        }
+
+        log.info(
+                "Backfilled league {} season {}: {} rows copied, {} merged",
+                leagueSeason.leagueId(),
+                leagueSeason.season(),
+                copied,
+                merged);
+        return merged;
+    }
+
+    String toCsvRow(Fixture fixture, LeagueSeason leagueSeason) {
+        FixtureDetails details = fixture.getFixture();
+        if (details == null || details.getId() == null) {
+            return null;
+        }
+
+        Instant kickoff = kickoffOf(details);
+        if (kickoff == null) {
+            return null;
+        }
+
+        Team home = fixture.getTeams() != null ? fixture.getTeams().getHome() : null;
+        Team away = fixture.getTeams() != null ? fixture.getTeams().getAway() : null;
+        Goals goals = fixture.getGoals();
+
+        StringBuilder row = new StringBuilder(256);
+        appendValue(row, details.getId());
+        appendValue(row, leagueSeason.leagueId());
+        appendValue(row, leagueSeason.season());
+        appendValue(row, kickoff.toString());
+        appendValue(row, details.getStatus() != null ? details.getStatus().getShortStatus() : null);
+        appendValue(row, details.getStatus() != null ? details.getStatus().getLongStatus() : null);
+        appendValue(row, home != null ? home.getId() : null);
+        appendValue(row, home != null ? home.getName() : null);
+        appendValue(row, away != null ? away.getId() : null);
+        appendValue(row, away != null ? away.getName() : null);
+        appendValue(row, goals != null ? goals.getHome() : null);
+        appendValue(row, goals != null ? goals.getAway() : null);
+        appendValue(row, details.getVenue() != null ? details.getVenue().getName() : null);
+        appendValue(row, details.getVenue() != null ? details.getVenue().getCity() : null);
+        appendValue(row, fixture.getLeague() != null ? fixture.getLeague().getRound() : null);
+        row.setCharAt(row.length() - 1, '\n');
+        return row.toString();
+    }
+
+    private Instant kickoffOf(FixtureDetails details) {
+        if (details.getTimestamp() != null) {
+            return Instant.ofEpochSecond(details.getTimestamp());
+        }
+        if (details.getDate() != null) {
+            return OffsetDateTime.parse(details.getDate()).toInstant();
+        }
+        return null;
+    }
+
+    // CSV format treats an unquoted empty field as NULL and a quoted one as an empty string.
+    private void appendValue(StringBuilder row, Object value) {
+        if (value != null) {
+            String text = value.toString();
+            if (value instanceof String) {
+                row.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(text);
+            }
+        }
+        row.append(',');
+    }
+}
@@ -0,0 +1,12 @@
+package com.atlas.externalAPIs.apiFootball.repository;
+
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeagueRepository extends JpaRepository<LeagueEntity, Long> {
+
+    List<LeagueEntity> findByEnabledTrueOrderByPriorityAsc();
+}
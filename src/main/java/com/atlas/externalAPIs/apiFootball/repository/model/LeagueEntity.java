@@ -0,0 +1,40 @@
+package com.atlas.externalAPIs.apiFootball.repository.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "leagues")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class LeagueEntity {
+
+    @Id private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "lookahead_fixtures", nullable = false)
+    private Integer lookaheadFixtures;
+
+    @Column(name = "refresh_interval_seconds", nullable = false)
+    private Integer refreshIntervalSeconds;
+
+    @Column(nullable = false)
+    private Integer priority;
+
+    @Column(nullable = false)
+    private String timezone;
+
+    @Column(nullable = false)
+    private Boolean enabled;
+
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private OffsetDateTime updatedAt;
+}
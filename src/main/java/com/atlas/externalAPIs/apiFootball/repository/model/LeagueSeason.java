@@ -0,0 +1,3 @@
+package com.atlas.externalAPIs.apiFootball.repository.model;
+
+public record LeagueSeason(long leagueId, int season) {}
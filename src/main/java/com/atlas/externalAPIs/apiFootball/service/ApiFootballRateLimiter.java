@@ -0,0 +1,74 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.ApiFootballConfig;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the RapidAPI request quota reported on every API-Football response and paces background
+ * callers so that they stay inside the per-minute limit. Interactive requests only report quota;
+ * they are never delayed.
+ */
+@Component
+@Slf4j
+public class ApiFootballRateLimiter {
+
+    static final String REMAINING_REQUESTS_HEADER = "x-ratelimit-requests-remaining";
+
+    private final ApiFootballConfig config;
+    private final AtomicLong remainingRequests = new AtomicLong(Long.MAX_VALUE);
+
+    // Guarded by "this".
+    private long nextPermitAtNanos;
+
+    public ApiFootballRateLimiter(ApiFootballConfig config) {
+        this.config = config;
+        this.nextPermitAtNanos = System.nanoTime();
+    }
+
+    /** Blocks until the caller may issue another request without exceeding the per-minute rate. */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long intervalNanos =
+                    TimeUnit.MINUTES.toNanos(1) / Math.max(1, config.getRequestsPerMinute());
+            long permitAt = Math.max(now, nextPermitAtNanos);
+            nextPermitAtNanos = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public void recordQuota(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+
+        String remaining = headers.getFirst(REMAINING_REQUESTS_HEADER);
+        if (remaining == null) {
+            return;
+        }
+
+        try {
+            remainingRequests.set(Long.parseLong(remaining.trim()));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring unparseable quota header value: {}", remaining);
+        }
+    }
+
+    /** True while the daily quota is above the reserve kept back for live fixture requests. */
+    public boolean hasQuotaToSpare() {
+        return remainingRequests.get() > config.getDailyQuotaReserve();
+    }
+
+    public long getRemainingRequests() {
+        return remainingRequests.get();
+    }
+}
@@ -3,13 +3,16 @@ package com.atlas.externalAPIs.apiFootball.service;
 import com.atlas.externalAPIs.apiFootball.config.ApiFootballConfig;
 import com.atlas.externalAPIs.apiFootball.service.model.ExceptionTypes.ApiFootballException;
 import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
-import com.atlas.externalAPIs.apiFootball.service.model.LeagueEnum;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
 import com.atlas.externalAPIs.apiFootball.service.model.request.FixtureRequest;
 import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -20,33 +23,68 @@ import org.springframework.web.util.UriComponentsBuilder;
 @Slf4j
 public class ApiFootballService {
 
+    static final String FIXTURES_CACHE = "football-fixtures";
+    static final String COMBINED_FIXTURES_KEY = "top-5-leagues-combined";
+
     private final RestTemplate restTemplate;
     private final ApiFootballConfig config;
-
-    public ApiFootballService(RestTemplate restTemplate, ApiFootballConfig config) {
+    private final ApiFootballRateLimiter rateLimiter;
+    private final LeagueRegistry leagueRegistry;
+    private final CacheManager cacheManager;
+
+    public ApiFootballService(
+            RestTemplate restTemplate,
+            ApiFootballConfig config,
+            ApiFootballRateLimiter rateLimiter,
+            LeagueRegistry leagueRegistry,
+            CacheManager cacheManager) {
         this.restTemplate = restTemplate;
         this.config = config;
+        this.rateLimiter = rateLimiter;
+        this.leagueRegistry = leagueRegistry;
+        this.cacheManager = cacheManager;
     }
 
-    @Cacheable(value = "football-fixtures", key = "'top-5-leagues-combined'")
+    @Cacheable(value = FIXTURES_CACHE, key = "'" + COMBINED_FIXTURES_KEY + "'")
     public FixtureResponse getUpcomingFixturesForTopFiveLeagues() {
-        log.info("FOOTBALL FIXTURES API: Data stale - fetching top 5 league matches");
+        log.info("FOOTBALL FIXTURES API: Data stale - assembling fixtures for registered leagues");
+        return combineLeagueFixtures();
+    }
+
+    /**
+     * Rebuilds the combined entry served by {@link #getUpcomingFixturesForTopFiveLeagues()} from
+     * the per-league entries, so requests never wait on the upstream API once leagues are warm.
+     */
+    @CachePut(value = FIXTURES_CACHE, key = "'" + COMBINED_FIXTURES_KEY + "'")
+    public FixtureResponse refreshCombinedFixtures() {
+        return combineLeagueFixtures();
+    }
+
+    /** Fetches the upcoming fixtures for one league and stores them in its per-league entry. */
+    public FixtureResponse refreshLeague(RegisteredLeague league) {
+        FixtureResponse response = getFixturesForLeague(league);
+        Cache cache = fixturesCache();
+        if (cache != null && response != null) {
+            cache.put(leagueCacheKey(league), response);
+        }
+        return response;
+    }
 
-        List<LeagueEnum> topLeagueEnums = LeagueEnum.getTopFiveLeagues();
+    private FixtureResponse combineLeagueFixtures() {
+        List<RegisteredLeague> leagues = leagueRegistry.getLeagues();
 
         List<CompletableFuture<FixtureResponse>> futures =
-                topLeagueEnums.stream()
+                leagues.stream()
                         .map(
-                                leagueEnum ->
+                                league ->
                                         CompletableFuture.supplyAsync(
                                                 () -> {
                                                     try {
-                                                        return getFixturesForLeague(
-                                                                leagueEnum.getId());
+                                                        return cachedOrFetched(league);
                                                     } catch (Exception e) {
                                                         log.warn(
                                                                 "Failed to fetch fixtures for league {}: {}",
-                                                                leagueEnum.getName(),
+                                                                league.name(),
                                                                 e.getMessage());
                                                         return createEmptyResponse();
                                                     }
@@ -69,6 +107,25 @@ public class ApiFootballService {
         return combinedResponse;
     }
 
+    private FixtureResponse cachedOrFetched(RegisteredLeague league) {
+        Cache cache = fixturesCache();
+        if (cache != null) {
+            FixtureResponse cached = cache.get(leagueCacheKey(league), FixtureResponse.class);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return refreshLeague(league);
+    }
+
+    private Cache fixturesCache() {
+        return cacheManager.getCache(FIXTURES_CACHE);
+    }
+
+    static String leagueCacheKey(RegisteredLeague league) {
+        return "league:" + league.id();
+    }
+
     String buildUrl(FixtureRequest request) {
         UriComponentsBuilder builder =
                 UriComponentsBuilder.fromUriString(config.getBaseUrl() + "/fixtures");
@@ -79,6 +136,9 @@ public class ApiFootballService {
         if (request.getLeague() != null) {
             builder.queryParam("league", request.getLeague());
         }
+        if (request.getSeason() != null) {
+            builder.queryParam("season", request.getSeason());
+        }
         if (request.getTimezone() != null) {
             builder.queryParam("timezone", request.getTimezone());
         }
@@ -99,6 +159,7 @@ public class ApiFootballService {
                     restTemplate.exchange(url, HttpMethod.GET, entity, FixtureResponse.class);
 
             log.info("Raw response status: {}", response.getStatusCode());
+            rateLimiter.recordQuota(response.getHeaders());
             assert response.getBody() != null;
             log.info("Raw response body type: {}", response.getBody().getClass().getSimpleName());
 
@@ -128,11 +189,22 @@ public class ApiFootballService {
         return empty;
     }
 
-    FixtureResponse getFixturesForLeague(String leagueId) {
+    FixtureResponse getFixturesForLeague(RegisteredLeague league) {
+        FixtureRequest request =
+                FixtureRequest.builder()
+                        .next(String.valueOf(league.lookaheadFixtures()))
+                        .league(league.id())
+                        .timezone(league.timezone())
+                        .build();
+
+        return callFixturesApi(request);
+    }
+
+    public FixtureResponse getFixturesForSeason(String leagueId, int season) {
         FixtureRequest request =
                 FixtureRequest.builder()
-                        .next(String.valueOf(30))
                         .league(leagueId)
+                        .season(String.valueOf(season))
                         .timezone("UTC")
                         .build();
 
@@ -0,0 +1,198 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureBackfillConfig;
+import com.atlas.externalAPIs.apiFootball.repository.FixtureBackfillRepository;
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueSeason;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads completed seasons for the registered leagues into the {@code fixtures} table. API-Football
+ * returns a whole season per request, so the unit of work (and of checkpointing) is one league
+ * season. Each run stops as soon as the daily quota drops to the reserve kept for live traffic and
+ * picks up from the last checkpoint on the next run.
+ *
+ * <p>A run waits on the rate limiter between requests and can take hours, so the scheduler only
+ * hands it to the service's own thread; holding a scheduler thread that long would delay every
+ * other scheduled job behind it.
+ */
+@Service
+@Slf4j
+public class FixtureBackfillService {
+
+    private final ApiFootballService apiFootballService;
+    private final ApiFootballRateLimiter rateLimiter;
+    private final LeagueRegistry leagueRegistry;
+    private final FixtureBackfillRepository backfillRepository;
+    private final FixtureBackfillConfig config;
+    private final Clock clock;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public FixtureBackfillService(
+            ApiFootballService apiFootballService,
+            ApiFootballRateLimiter rateLimiter,
+            LeagueRegistry leagueRegistry,
+            FixtureBackfillRepository backfillRepository,
+            FixtureBackfillConfig config) {
+        this(
+                apiFootballService,
+                rateLimiter,
+                leagueRegistry,
+                backfillRepository,
+                config,
+                Clock.systemUTC(),
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "fixture-backfill");
+                            thread.setDaemon(true);
+                            return thread;
+                        }));
+    }
+
+    FixtureBackfillService(
+            ApiFootballService apiFootballService,
+            ApiFootballRateLimiter rateLimiter,
+            LeagueRegistry leagueRegistry,
+            FixtureBackfillRepository backfillRepository,
+            FixtureBackfillConfig config,
+            Clock clock,
+            ExecutorService executor) {
+        this.apiFootballService = apiFootballService;
+        this.rateLimiter = rateLimiter;
+        this.leagueRegistry = leagueRegistry;
+        this.backfillRepository = backfillRepository;
+        this.config = config;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    /** Starts a run on the backfill thread, unless the previous run is still going. */
+    @Scheduled(
+            initialDelayString = "${apis.football.backfill.initial-delay:PT1M}",
+            fixedDelayString = "${apis.football.backfill.interval:PT6H}")
+    public void scheduleBackfill() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Fixture backfill still running, skipping this run");
+            return;
+        }
+
+        try {
+            executor.execute(
+                    () -> {
+                        try {
+                            runBackfill();
+                        } finally {
+                            running.set(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            running.set(false);
+            log.warn("Could not start fixture backfill: {}", e.getMessage());
+        }
+    }
+
+    public void runBackfill() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        Set<LeagueSeason> completed = backfillRepository.findCompletedSeasons();
+        int lastSeason =
+                config.getLastSeason() != null ? config.getLastSeason() : currentSeason() - 1;
+        int loaded = 0;
+
+        for (int season = lastSeason; season >= config.getFirstSeason(); season--) {
+            for (RegisteredLeague league : leagueRegistry.getLeagues()) {
+                LeagueSeason leagueSeason = new LeagueSeason(Long.parseLong(league.id()), season);
+                if (completed.contains(leagueSeason)) {
+                    continue;
+                }
+
+                if (!rateLimiter.hasQuotaToSpare()) {
+                    log.info(
+                            "Fixture backfill paused after {} seasons: {} requests left today",
+                            loaded,
+                            rateLimiter.getRemainingRequests());
+                    return;
+                }
+
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Fixture backfill interrupted after {} seasons", loaded);
+                    return;
+                }
+
+                if (backfill(league, leagueSeason)) {
+                    loaded++;
+                }
+            }
+        }
+
+        log.info("Fixture backfill run finished: {} seasons loaded", loaded);
+    }
+
+    private boolean backfill(RegisteredLeague league, LeagueSeason leagueSeason) {
+        try {
+            FixtureResponse response =
+                    apiFootballService.getFixturesForSeason(league.id(), leagueSeason.season());
+            List<Fixture> fixtures =
+                    response != null && response.getResponse() != null
+                            ? response.getResponse()
+                            : List.of();
+
+            if (fixtures.isEmpty()) {
+                log.warn(
+                        "No fixtures returned for {} season {}, will retry on next run",
+                        league.name(),
+                        leagueSeason.season());
+                return false;
+            }
+
+            backfillRepository.loadSeason(leagueSeason, fixtures);
+            return true;
+        } catch (Exception e) {
+            log.warn(
+                    "Failed to backfill {} season {}: {}",
+                    league.name(),
+                    leagueSeason.season(),
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // The run stops at its next rate limiter wait; its checkpoints are already saved.
+        executor.shutdownNow();
+    }
+
+    // European seasons are named after the year they start in. The new season is taken to begin
+    // in July, when its pre-season fixtures and the first qualifying rounds are scheduled.
+    int currentSeason() {
+        LocalDate today = LocalDate.now(clock);
+        return today.getMonthValue() >= Month.JULY.getValue()
+                ? today.getYear()
+                : today.getYear() - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheTtlConfig;
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheWarmupConfig;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Primes the combined fixtures entry when the application starts and keeps replacing it shortly
+ * before it expires, so no request has to wait for the upstream fan-out. Until the first priming
+ * succeeds the node reports itself as not ready through {@link FixtureCacheWarmupHealthIndicator}.
+ */
+@Component
+@Slf4j
+public class FixtureCacheWarmer {
+
+    static final String COMBINED_FIXTURES_REDIS_KEY =
+            ApiFootballService.FIXTURES_CACHE + "::" + ApiFootballService.COMBINED_FIXTURES_KEY;
+
+    // Returned by Redis for a key that does not exist.
+    private static final long MISSING_KEY = -2;
+
+    public enum WarmupState {
+        DISABLED,
+        PENDING,
+        WARM
+    }
+
+    private final ApiFootballService apiFootballService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final FixtureCacheWarmupConfig warmupConfig;
+    private final FixtureCacheTtlConfig ttlConfig;
+    private final Clock clock;
+    private final ExecutorService warmupExecutor =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "fixture-cache-warmup");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    private volatile WarmupState state = WarmupState.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant warmedAt;
+    private volatile String lastError;
+
+    @Autowired
+    public FixtureCacheWarmer(
+            ApiFootballService apiFootballService,
+            RedisTemplate<String, Object> redisTemplate,
+            FixtureCacheWarmupConfig warmupConfig,
+            FixtureCacheTtlConfig ttlConfig) {
+        this(apiFootballService, redisTemplate, warmupConfig, ttlConfig, Clock.systemUTC());
+    }
+
+    FixtureCacheWarmer(
+            ApiFootballService apiFootballService,
+            RedisTemplate<String, Object> redisTemplate,
+            FixtureCacheWarmupConfig warmupConfig,
+            FixtureCacheTtlConfig ttlConfig,
+            Clock clock) {
+        this.apiFootballService = apiFootballService;
+        this.redisTemplate = redisTemplate;
+        this.warmupConfig = warmupConfig;
+        this.ttlConfig = ttlConfig;
+        this.clock = clock;
+        this.startedAt = clock.instant();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!warmupConfig.isEnabled()) {
+            state = WarmupState.DISABLED;
+            return;
+        }
+
+        startedAt = clock.instant();
+        warmupExecutor.execute(this::primeUntilWarm);
+    }
+
+    void primeUntilWarm() {
+        while (state != WarmupState.WARM && !Thread.currentThread().isInterrupted()) {
+            if (prime()) {
+                return;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(warmupConfig.getRetryDelay().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    boolean prime() {
+        try {
+            FixtureResponse response = apiFootballService.refreshCombinedFixtures();
+            if (response == null || response.getResults() == null || response.getResults() == 0) {
+                lastError = "Upstream returned no fixtures";
+                log.warn("Fixture cache warm-up returned no fixtures, will retry");
+                return false;
+            }
+
+            warmedAt = clock.instant();
+            lastError = null;
+            if (state != WarmupState.WARM) {
+                log.info(
+                        "Fixture cache warmed with {} fixtures in {} ms",
+                        response.getResults(),
+                        Duration.between(startedAt, warmedAt).toMillis());
+            }
+            state = WarmupState.WARM;
+            return true;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Fixture cache warm-up failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the combined entry once its remaining TTL drops inside the refresh-ahead window,
+     * or if it has been evicted.
+     */
+    @Scheduled(
+            initialDelayString = "${apis.football.cache.warmup.check-interval:PT15S}",
+            fixedDelayString = "${apis.football.cache.warmup.check-interval:PT15S}")
+    public void refreshAheadOfExpiry() {
+        if (state != WarmupState.WARM) {
+            return;
+        }
+
+        Long remainingSeconds;
+        try {
+            remainingSeconds =
+                    redisTemplate.getExpire(COMBINED_FIXTURES_REDIS_KEY, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Failed to read fixtures cache TTL: {}", e.getMessage());
+            return;
+        }
+
+        boolean missing = remainingSeconds == null || remainingSeconds == MISSING_KEY;
+        boolean expiringSoon =
+                remainingSeconds != null
+                        && remainingSeconds >= 0
+                        && remainingSeconds <= ttlConfig.getRefreshAhead().toSeconds();
+        if (missing || expiringSoon) {
+            log.debug("Refreshing combined fixtures ahead of expiry ({}s left)", remainingSeconds);
+            prime();
+        }
+    }
+
+    public WarmupState getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getWarmedAt() {
+        return warmedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        warmupExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,62 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheWarmupConfig;
+import com.atlas.externalAPIs.apiFootball.service.FixtureCacheWarmer.WarmupState;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports out of service until the fixtures cache has been primed. It is part of the readiness
+ * group only, so a cold node is kept out of the load balancer without being restarted. If priming
+ * keeps failing past the fail-open delay the node is let in anyway, since a fleet that never
+ * becomes ready is worse than one that serves a slow first request.
+ */
+@Component
+public class FixtureCacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final FixtureCacheWarmer warmer;
+    private final FixtureCacheWarmupConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public FixtureCacheWarmupHealthIndicator(
+            FixtureCacheWarmer warmer, FixtureCacheWarmupConfig config) {
+        this(warmer, config, Clock.systemUTC());
+    }
+
+    FixtureCacheWarmupHealthIndicator(
+            FixtureCacheWarmer warmer, FixtureCacheWarmupConfig config, Clock clock) {
+        this.warmer = warmer;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Override
+    public Health health() {
+        WarmupState state = warmer.getState();
+
+        if (state == WarmupState.DISABLED) {
+            return Health.up().withDetail("state", "disabled").build();
+        }
+        if (state == WarmupState.WARM) {
+            return Health.up()
+                    .withDetail("state", "warm")
+                    .withDetail("warmedAt", String.valueOf(warmer.getWarmedAt()))
+                    .build();
+        }
+
+        Duration waiting = Duration.between(warmer.getStartedAt(), clock.instant());
+        Health.Builder builder =
+                waiting.compareTo(config.getFailOpenAfter()) >= 0
+                        ? Health.up().withDetail("state", "fail-open")
+                        : Health.outOfService().withDetail("state", "warming");
+        if (warmer.getLastError() != null) {
+            builder.withDetail("lastError", warmer.getLastError());
+        }
+        return builder.withDetail("waitingSeconds", waiting.toSeconds()).build();
+    }
+}
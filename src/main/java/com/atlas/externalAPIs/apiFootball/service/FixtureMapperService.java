@@ -5,6 +5,7 @@ import com.atlas.externalAPIs.apiFootball.controller.model.supportingTypes.*;
 import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
 import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
 import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.*;
+import com.atlas.media.service.model.LogoType;
 import java.util.Collections;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
@@ -89,7 +90,9 @@ public class FixtureMapperService {
             TeamDto homeDto = new TeamDto();
             homeDto.setId(teams.getHome().getId());
             homeDto.setName(teams.getHome().getName());
-            homeDto.setLogo(teams.getHome().getLogo());
+            homeDto.setLogo(
+                    proxiedLogoUrl(
+                            LogoType.TEAMS, teams.getHome().getId(), teams.getHome().getLogo()));
             homeDto.setWinner(teams.getHome().getWinner());
             dto.setHome(homeDto);
         }
@@ -98,7 +101,9 @@ public class FixtureMapperService {
             TeamDto awayDto = new TeamDto();
             awayDto.setId(teams.getAway().getId());
             awayDto.setName(teams.getAway().getName());
-            awayDto.setLogo(teams.getAway().getLogo());
+            awayDto.setLogo(
+                    proxiedLogoUrl(
+                            LogoType.TEAMS, teams.getAway().getId(), teams.getAway().getLogo()));
             awayDto.setWinner(teams.getAway().getWinner());
             dto.setAway(awayDto);
         }
@@ -111,7 +116,7 @@ public class FixtureMapperService {
         dto.setId(league.getId());
         dto.setName(league.getName());
         dto.setCountry(league.getCountry());
-        dto.setLogo(league.getLogo());
+        dto.setLogo(proxiedLogoUrl(LogoType.LEAGUES, league.getId(), league.getLogo()));
         dto.setSeason(league.getSeason());
         dto.setRound(league.getRound());
         return dto;
@@ -143,6 +148,17 @@ public class FixtureMapperService {
         return dto;
     }
 
+    /**
+     * Points logos at the local media cache instead of the upstream host. Logos without an id are
+     * passed through unchanged because the cache cannot key them.
+     */
+    String proxiedLogoUrl(LogoType type, Long id, String upstreamLogoUrl) {
+        if (upstreamLogoUrl == null || id == null) {
+            return upstreamLogoUrl;
+        }
+        return type.proxyUrl(id);
+    }
+
     private FixtureResponseDto createEmptyResponse() {
         FixtureResponseDto dto = new FixtureResponseDto();
         dto.setResults(0);
@@ -0,0 +1,175 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheTtlConfig;
+import com.atlas.externalAPIs.apiFootball.service.model.CacheTtl;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.RefreshReason;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.FixtureDetails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes how long a fixtures response may be cached from the fixtures it contains: seconds while
+ * a match is being played, minutes in the run-up to kickoff and hours when the next match is days
+ * away. Every decision is recorded so that the upstream spend can be traced back to its reason.
+ */
+@Component
+public class FixtureTtlPolicy {
+
+    static final String TTL_METRIC = "football.fixtures.cache.ttl";
+    static final String REFRESH_METRIC = "football.fixtures.cache.refreshes";
+
+    private static final Set<String> IN_PLAY_STATUSES =
+            Set.of("1H", "HT", "2H", "ET", "BT", "P", "SUSP", "INT", "LIVE");
+
+    private static final Set<String> FINISHED_STATUSES =
+            Set.of("FT", "AET", "PEN", "PST", "CANC", "ABD", "AWD", "WO");
+
+    private final FixtureCacheTtlConfig config;
+    private final Clock clock;
+    private final Map<RefreshReason, DistributionSummary> ttlSummaries =
+            new EnumMap<>(RefreshReason.class);
+    private final Map<RefreshReason, Counter> refreshCounters = new EnumMap<>(RefreshReason.class);
+
+    @Autowired
+    public FixtureTtlPolicy(FixtureCacheTtlConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, Clock.systemUTC());
+    }
+
+    FixtureTtlPolicy(FixtureCacheTtlConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+
+        for (RefreshReason reason : RefreshReason.values()) {
+            String tag = reason.name().toLowerCase();
+            ttlSummaries.put(
+                    reason,
+                    DistributionSummary.builder(TTL_METRIC)
+                            .description("TTL assigned to cached fixture responses")
+                            .baseUnit("seconds")
+                            .tag("reason", tag)
+                            .register(meterRegistry));
+            refreshCounters.put(
+                    reason,
+                    Counter.builder(REFRESH_METRIC)
+                            .description("Upstream fixture refreshes by the reason they were due")
+                            .tag("reason", tag)
+                            .register(meterRegistry));
+        }
+    }
+
+    /** Computes the TTL for a response being written to the cache and records it. */
+    public CacheTtl ttlFor(FixtureResponse response) {
+        CacheTtl decision = decide(response);
+        ttlSummaries.get(decision.reason()).record(decision.ttl().toSeconds());
+        return decision;
+    }
+
+    public void recordRefresh(RefreshReason reason) {
+        refreshCounters.get(reason).increment();
+    }
+
+    /**
+     * How long after a write the entry should be refreshed so that it is replaced before it
+     * expires. Refreshes are brought forward by the configured lead, but never by more than half
+     * of the TTL.
+     */
+    public Duration refreshAfter(CacheTtl ttl) {
+        Duration halfTtl = ttl.ttl().dividedBy(2);
+        Duration lead = config.getRefreshAhead();
+        if (lead.compareTo(halfTtl) > 0) {
+            lead = halfTtl;
+        }
+        return ttl.ttl().minus(lead);
+    }
+
+    CacheTtl decide(FixtureResponse response) {
+        if (response == null || response.getResponse() == null) {
+            return new CacheTtl(config.getIdle(), RefreshReason.NO_FIXTURES);
+        }
+
+        Instant now = clock.instant();
+        Instant nextKickoff = null;
+
+        for (Fixture fixture : response.getResponse()) {
+            FixtureDetails details = fixture.getFixture();
+            if (details == null) {
+                continue;
+            }
+
+            String status =
+                    details.getStatus() != null ? details.getStatus().getShortStatus() : null;
+            if (status != null && IN_PLAY_STATUSES.contains(status)) {
+                return new CacheTtl(config.getInPlay(), RefreshReason.IN_PLAY);
+            }
+            if (status != null && FINISHED_STATUSES.contains(status)) {
+                continue;
+            }
+
+            Instant kickoff = kickoffOf(details);
+            if (kickoff == null) {
+                continue;
+            }
+
+            // Kicked off but not yet reported as started or finished: treat it as live.
+            if (!kickoff.isAfter(now) && kickoff.plus(config.getMaxMatchLength()).isAfter(now)) {
+                return new CacheTtl(config.getInPlay(), RefreshReason.IN_PLAY);
+            }
+            if (kickoff.isAfter(now) && (nextKickoff == null || kickoff.isBefore(nextKickoff))) {
+                nextKickoff = kickoff;
+            }
+        }
+
+        if (nextKickoff == null) {
+            return new CacheTtl(config.getIdle(), RefreshReason.NO_FIXTURES);
+        }
+
+        Duration untilKickoff = Duration.between(now, nextKickoff);
+
+        if (untilKickoff.compareTo(config.getKickoffWindow()) <= 0) {
+            // Expire at kickoff at the latest so the first in-play refresh is not missed.
+            return new CacheTtl(
+                    clamp(untilKickoff, config.getInPlay(), config.getBeforeKickoff()),
+                    RefreshReason.KICKOFF_SOON);
+        }
+
+        Duration untilWindow = untilKickoff.minus(config.getKickoffWindow());
+        if (untilKickoff.compareTo(Duration.ofDays(1)) <= 0) {
+            return new CacheTtl(
+                    clamp(untilWindow, config.getBeforeKickoff(), config.getMatchDay()),
+                    RefreshReason.MATCH_DAY);
+        }
+
+        return new CacheTtl(
+                clamp(untilWindow, config.getMatchDay(), config.getIdle()),
+                RefreshReason.NO_MATCH_SOON);
+    }
+
+    private Instant kickoffOf(FixtureDetails details) {
+        if (details.getTimestamp() != null) {
+            return Instant.ofEpochSecond(details.getTimestamp());
+        }
+        if (details.getDate() != null) {
+            return OffsetDateTime.parse(details.getDate()).toInstant();
+        }
+        return null;
+    }
+
+    private static Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        return value.compareTo(max) > 0 ? max : value;
+    }
+}
@@ -0,0 +1,208 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.LeagueRegistryConfig;
+import com.atlas.externalAPIs.apiFootball.service.model.CacheTtl;
+import com.atlas.externalAPIs.apiFootball.service.model.RefreshReason;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refreshes each registered league on its own cadence. Leagues wait in a priority queue ordered by
+ * their next due time (and by league priority on ties), so each tick only touches the leagues that
+ * are due rather than scanning the whole registry. Refreshes run on a small bounded pool; the
+ * combined fixtures entry is rebuilt from the per-league cache entries once a batch has landed.
+ *
+ * <p>A league is next refreshed shortly before its cached fixtures expire under {@link
+ * FixtureTtlPolicy}, but never later than the league's configured refresh interval.
+ */
+@Component
+@Slf4j
+public class LeagueRefreshScheduler {
+
+    private static final Comparator<ScheduledRefresh> DUE_ORDER =
+            Comparator.comparing(ScheduledRefresh::dueAt)
+                    .thenComparingInt(refresh -> refresh.league().priority());
+
+    private final ApiFootballService apiFootballService;
+    private final ApiFootballRateLimiter rateLimiter;
+    private final LeagueRegistry leagueRegistry;
+    private final LeagueRegistryConfig config;
+    private final FixtureTtlPolicy ttlPolicy;
+    private final Clock clock;
+    private final ExecutorService refreshExecutor;
+
+    // All guarded by "this". A league is absent from "scheduled" while its refresh is in flight.
+    private final PriorityQueue<ScheduledRefresh> queue = new PriorityQueue<>(DUE_ORDER);
+    private final Map<String, ScheduledRefresh> scheduled = new HashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+
+    private final AtomicBoolean combinedStale = new AtomicBoolean(false);
+
+    @Autowired
+    public LeagueRefreshScheduler(
+            ApiFootballService apiFootballService,
+            ApiFootballRateLimiter rateLimiter,
+            LeagueRegistry leagueRegistry,
+            LeagueRegistryConfig config,
+            FixtureTtlPolicy ttlPolicy) {
+        this(
+                apiFootballService,
+                rateLimiter,
+                leagueRegistry,
+                config,
+                ttlPolicy,
+                Clock.systemUTC(),
+                Executors.newFixedThreadPool(Math.max(1, config.getRefreshThreads())));
+    }
+
+    LeagueRefreshScheduler(
+            ApiFootballService apiFootballService,
+            ApiFootballRateLimiter rateLimiter,
+            LeagueRegistry leagueRegistry,
+            LeagueRegistryConfig config,
+            FixtureTtlPolicy ttlPolicy,
+            Clock clock,
+            ExecutorService refreshExecutor) {
+        this.apiFootballService = apiFootballService;
+        this.rateLimiter = rateLimiter;
+        this.leagueRegistry = leagueRegistry;
+        this.config = config;
+        this.ttlPolicy = ttlPolicy;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Scheduled(
+            initialDelayString = "${apis.football.leagues.refresh-tick:PT15S}",
+            fixedDelayString = "${apis.football.leagues.refresh-tick:PT15S}")
+    public void refreshDueLeagues() {
+        if (combinedStale.getAndSet(false)) {
+            try {
+                apiFootballService.refreshCombinedFixtures();
+            } catch (Exception e) {
+                combinedStale.set(true);
+                log.warn("Failed to rebuild combined fixtures: {}", e.getMessage());
+            }
+        }
+
+        for (ScheduledRefresh refresh : pollDue()) {
+            refreshExecutor.execute(() -> refresh(refresh));
+        }
+    }
+
+    private synchronized List<ScheduledRefresh> pollDue() {
+        synchronizeWithRegistry();
+
+        Instant now = clock.instant();
+        List<ScheduledRefresh> due = new ArrayList<>();
+        while (!queue.isEmpty()
+                && !queue.peek().dueAt().isAfter(now)
+                && due.size() < config.getMaxRefreshesPerTick()) {
+            ScheduledRefresh next = queue.poll();
+            String leagueId = next.league().id();
+
+            // Entries superseded by a settings change or removed from the registry are skipped.
+            if (scheduled.get(leagueId) != next) {
+                continue;
+            }
+            scheduled.remove(leagueId);
+            inFlight.add(leagueId);
+            due.add(next);
+        }
+        return due;
+    }
+
+    private void synchronizeWithRegistry() {
+        Map<String, RegisteredLeague> current = new HashMap<>();
+        for (RegisteredLeague league : leagueRegistry.getLeagues()) {
+            current.put(league.id(), league);
+        }
+
+        scheduled.keySet().removeIf(leagueId -> !current.containsKey(leagueId));
+
+        Instant now = clock.instant();
+        for (RegisteredLeague league : current.values()) {
+            if (inFlight.contains(league.id())) {
+                continue;
+            }
+            ScheduledRefresh existing = scheduled.get(league.id());
+            if (existing == null) {
+                schedule(league, now, RefreshReason.FIRST_LOAD);
+            } else if (!existing.league().equals(league)) {
+                schedule(league, existing.dueAt(), existing.reason());
+            }
+        }
+    }
+
+    private void refresh(ScheduledRefresh refresh) {
+        RegisteredLeague league = refresh.league();
+        Duration nextRefresh = league.refreshInterval();
+        RefreshReason nextReason = refresh.reason();
+        try {
+            rateLimiter.acquire();
+            ttlPolicy.recordRefresh(refresh.reason());
+            FixtureResponse response = apiFootballService.refreshLeague(league);
+            combinedStale.set(true);
+
+            CacheTtl ttl = ttlPolicy.decide(response);
+            nextRefresh = min(nextRefresh, ttlPolicy.refreshAfter(ttl));
+            nextReason = ttl.reason();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Shutting down; if not, the next registry sync schedules the league again.
+            nextRefresh = null;
+        } catch (Exception e) {
+            log.warn("Failed to refresh fixtures for league {}: {}", league.name(), e.getMessage());
+            nextRefresh = min(nextRefresh, config.getFailureRetryDelay());
+        } finally {
+            // A league left in flight is skipped by every later registry sync.
+            synchronized (this) {
+                inFlight.remove(league.id());
+                if (nextRefresh != null) {
+                    schedule(league, clock.instant().plus(nextRefresh), nextReason);
+                }
+            }
+        }
+    }
+
+    private void schedule(RegisteredLeague league, Instant dueAt, RefreshReason reason) {
+        ScheduledRefresh refresh = new ScheduledRefresh(league, dueAt, reason);
+        scheduled.put(league.id(), refresh);
+        queue.add(refresh);
+    }
+
+    synchronized int scheduledCount() {
+        return scheduled.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private record ScheduledRefresh(
+            RegisteredLeague league, Instant dueAt, RefreshReason reason) {}
+}
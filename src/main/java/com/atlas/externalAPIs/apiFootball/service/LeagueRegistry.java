@@ -0,0 +1,96 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import com.atlas.externalAPIs.apiFootball.config.LeagueRegistryConfig;
+import com.atlas.externalAPIs.apiFootball.repository.LeagueRepository;
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueEntity;
+import com.atlas.externalAPIs.apiFootball.service.model.LeagueEnum;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the set of enabled leagues. The list is reloaded from the {@code leagues} table on a fixed
+ * delay, so leagues can be added, disabled or re-prioritised without a redeploy. Readers always see
+ * a complete, immutable snapshot.
+ */
+@Component
+@Slf4j
+public class LeagueRegistry {
+
+    private final LeagueRepository leagueRepository;
+    private final LeagueRegistryConfig config;
+
+    private volatile List<RegisteredLeague> leagues = List.of();
+
+    public LeagueRegistry(LeagueRepository leagueRepository, LeagueRegistryConfig config) {
+        this.leagueRepository = leagueRepository;
+        this.config = config;
+    }
+
+    @PostConstruct
+    void initialize() {
+        reload();
+    }
+
+    @Scheduled(
+            initialDelayString = "${apis.football.leagues.reload-interval:PT1M}",
+            fixedDelayString = "${apis.football.leagues.reload-interval:PT1M}")
+    public void reload() {
+        try {
+            List<RegisteredLeague> loaded =
+                    leagueRepository.findByEnabledTrueOrderByPriorityAsc().stream()
+                            .map(this::toRegisteredLeague)
+                            .toList();
+
+            if (!loaded.equals(leagues)) {
+                log.info("League registry loaded {} enabled leagues", loaded.size());
+            }
+            leagues = loaded;
+        } catch (Exception e) {
+            log.warn("Failed to reload league registry: {}", e.getMessage());
+            if (leagues.isEmpty()) {
+                leagues = defaultLeagues();
+            }
+        }
+    }
+
+    /** Enabled leagues ordered by priority, highest priority (lowest number) first. */
+    public List<RegisteredLeague> getLeagues() {
+        return leagues;
+    }
+
+    private RegisteredLeague toRegisteredLeague(LeagueEntity entity) {
+        return new RegisteredLeague(
+                String.valueOf(entity.getId()),
+                entity.getName(),
+                entity.getLookaheadFixtures() != null
+                        ? entity.getLookaheadFixtures()
+                        : config.getDefaultLookaheadFixtures(),
+                entity.getRefreshIntervalSeconds() != null
+                        ? Duration.ofSeconds(entity.getRefreshIntervalSeconds())
+                        : config.getDefaultRefreshInterval(),
+                entity.getPriority() != null ? entity.getPriority() : Integer.MAX_VALUE,
+                entity.getTimezone() != null ? entity.getTimezone() : config.getDefaultTimezone());
+    }
+
+    // Used only until the first successful load so that fixtures keep working if the
+    // database is briefly unavailable at startup.
+    private List<RegisteredLeague> defaultLeagues() {
+        List<LeagueEnum> defaults = LeagueEnum.getTopFiveLeagues();
+        return defaults.stream()
+                .map(
+                        league ->
+                                new RegisteredLeague(
+                                        league.getId(),
+                                        league.getName(),
+                                        config.getDefaultLookaheadFixtures(),
+                                        config.getDefaultRefreshInterval(),
+                                        defaults.indexOf(league),
+                                        config.getDefaultTimezone()))
+                .toList();
+    }
+}
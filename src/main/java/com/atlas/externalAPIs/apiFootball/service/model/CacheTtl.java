@@ -0,0 +1,5 @@
+package com.atlas.externalAPIs.apiFootball.service.model;
+
+import java.time.Duration;
+
+public record CacheTtl(Duration ttl, RefreshReason reason) {}
@@ -0,0 +1,11 @@
+package com.atlas.externalAPIs.apiFootball.service.model;
+
+/** Why a cached fixtures entry was given its TTL; used as a metric tag. */
+public enum RefreshReason {
+    FIRST_LOAD,
+    IN_PLAY,
+    KICKOFF_SOON,
+    MATCH_DAY,
+    NO_MATCH_SOON,
+    NO_FIXTURES
+}
@@ -0,0 +1,12 @@
+package com.atlas.externalAPIs.apiFootball.service.model;
+
+import java.time.Duration;
+
+/** Immutable view of a league row together with the settings used to refresh its fixtures. */
+public record RegisteredLeague(
+        String id,
+        String name,
+        int lookaheadFixtures,
+        Duration refreshInterval,
+        int priority,
+        String timezone) {}
@@ -12,4 +12,5 @@ public class FixtureRequest {
     private String league;
     private String status;
     private String next;
+    private String season;
 }
@@ -0,0 +1,21 @@
+package com.atlas.media.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "media.cache")
+@Data
+public class MediaCacheConfig {
+    private String upstreamBaseUrl = "https://media.api-sports.io/football";
+    private String directory = System.getProperty("java.io.tmpdir") + "/atlas-media";
+    private long maxSizeBytes = 256L * 1024 * 1024;
+    private long maxObjectSizeBytes = 1024L * 1024;
+    private long maxAgeSeconds = 365L * 24 * 60 * 60;
+
+    /** How long an id that upstream answered 404 for is answered locally with 404. */
+    private long notFoundTtlSeconds = 10L * 60;
+
+    private int maxNotFoundEntries = 10_000;
+}
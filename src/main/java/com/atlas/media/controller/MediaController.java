@@ -0,0 +1,66 @@
+package com.atlas.media.controller;
+
+import com.atlas.media.config.MediaCacheConfig;
+import com.atlas.media.service.MediaCacheService;
+import com.atlas.media.service.model.ExceptionTypes.MediaFetchException;
+import com.atlas.media.service.model.ExceptionTypes.MediaNotFoundException;
+import com.atlas.media.service.model.LogoType;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/media")
+@RequiredArgsConstructor
+@Slf4j
+public class MediaController {
+
+    private final MediaCacheService mediaCacheService;
+    private final MediaCacheConfig config;
+
+    /**
+     * Serves a logo straight from the cache file. The file is returned as a {@link Resource} so
+     * that the container writes it from disk itself, with sendfile where it supports it, rather
+     * than copying it through the application.
+     */
+    @GetMapping("/{type}/{id}")
+    public ResponseEntity<Resource> getLogo(@PathVariable String type, @PathVariable long id) {
+        Optional<LogoType> logoType = LogoType.fromPath(type);
+        if (logoType.isEmpty() || id <= 0) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            FileSystemResource logo =
+                    new FileSystemResource(mediaCacheService.getLogo(logoType.get(), id));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .cacheControl(
+                            CacheControl.maxAge(Duration.ofSeconds(config.getMaxAgeSeconds()))
+                                    .cachePublic()
+                                    .immutable())
+                    .body(logo);
+        } catch (MediaNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .cacheControl(
+                            CacheControl.maxAge(
+                                            Duration.ofSeconds(config.getNotFoundTtlSeconds()))
+                                    .cachePublic())
+                    .build();
+        } catch (MediaFetchException e) {
+            log.error("Media cache error for {}/{}: {}", type, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.atlas.media.service;
+
+import com.atlas.media.config.MediaCacheConfig;
+import com.atlas.media.service.model.ExceptionTypes.MediaFetchException;
+import com.atlas.media.service.model.ExceptionTypes.MediaNotFoundException;
+import com.atlas.media.service.model.LogoType;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Size-bounded, least-recently-used disk cache for team and league logos. Each logo is fetched
+ * from the upstream media host at most once per cache lifetime and then served from local disk.
+ * Ids the upstream host does not know are remembered for a short while, so that requests for
+ * unknown ids, which anyone can make, are answered locally instead of each reaching upstream.
+ */
+@Service
+@Slf4j
+public class MediaCacheService {
+
+    private static final String FILE_EXTENSION = ".png";
+
+    private final RestTemplate restTemplate;
+    private final MediaCacheConfig config;
+    private final Clock clock;
+
+    // Access-ordered so that iteration starts at the least recently used file. Guarded by "this".
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<Path>> inFlightDownloads =
+            new ConcurrentHashMap<>();
+
+    // File name to the time, in epoch millis, until which upstream is not asked again. Insertion
+    // ordered, so that the oldest entry is dropped first when the map is full. Guarded by itself.
+    private final LinkedHashMap<String, Long> notFound = new LinkedHashMap<>();
+
+    private long currentSizeBytes;
+    private Path cacheDirectory;
+
+    @Autowired
+    public MediaCacheService(RestTemplate restTemplate, MediaCacheConfig config) {
+        this(restTemplate, config, Clock.systemUTC());
+    }
+
+    MediaCacheService(RestTemplate restTemplate, MediaCacheConfig config, Clock clock) {
+        this.restTemplate = restTemplate;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void initialize() throws IOException {
+        cacheDirectory = Paths.get(config.getDirectory());
+        Files.createDirectories(cacheDirectory);
+
+        try (Stream<Path> partialDownloads = Files.list(cacheDirectory)) {
+            partialDownloads
+                    .filter(file -> file.getFileName().toString().endsWith(".tmp"))
+                    .forEach(this::deleteQuietly);
+        }
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                    .sorted(Comparator.comparingLong(this::lastModifiedMillis))
+                    .forEach(file -> register(file.getFileName().toString(), sizeOf(file)));
+        }
+
+        evictIfNecessary();
+        log.info(
+                "Media cache initialised at {} with {} files ({} bytes)",
+                cacheDirectory,
+                entries.size(),
+                currentSizeBytes);
+    }
+
+    /**
+     * Returns the cached file for the requested logo, downloading it from upstream on a cache
+     * miss. The file was just marked most recently used, so it is the last to be evicted.
+     *
+     * @throws MediaNotFoundException if upstream has no logo with this id
+     * @throws MediaFetchException if the logo could not be fetched or stored
+     */
+    public Path getLogo(LogoType type, long id) {
+        String fileName = type.getPath() + "-" + id + FILE_EXTENSION;
+
+        Path cached = cachedFile(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        if (isKnownMissing(fileName)) {
+            throw new MediaNotFoundException("Upstream has no logo " + fileName);
+        }
+
+        return downloadOnce(type, id, fileName);
+    }
+
+    public synchronized long getCurrentSizeBytes() {
+        return currentSizeBytes;
+    }
+
+    private synchronized Path cachedFile(String fileName) {
+        if (entries.get(fileName) == null) {
+            return null;
+        }
+
+        Path file = cacheDirectory.resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            log.warn("Cached logo {} was removed from disk, fetching it again", fileName);
+            currentSizeBytes -= entries.remove(fileName);
+            return null;
+        }
+        return file;
+    }
+
+    private boolean isKnownMissing(String fileName) {
+        synchronized (notFound) {
+            Long until = notFound.get(fileName);
+            if (until == null) {
+                return false;
+            }
+            if (until > clock.millis()) {
+                return true;
+            }
+            notFound.remove(fileName);
+            return false;
+        }
+    }
+
+    private void rememberMissing(String fileName) {
+        synchronized (notFound) {
+            notFound.remove(fileName);
+            Iterator<String> oldestFirst = notFound.keySet().iterator();
+            while (notFound.size() >= config.getMaxNotFoundEntries() && oldestFirst.hasNext()) {
+                oldestFirst.next();
+                oldestFirst.remove();
+            }
+            notFound.put(fileName, clock.millis() + config.getNotFoundTtlSeconds() * 1000);
+        }
+    }
+
+    private Path downloadOnce(LogoType type, long id, String fileName) {
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlightDownloads.putIfAbsent(fileName, download);
+
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof MediaNotFoundException notFoundException) {
+                    throw notFoundException;
+                }
+                throw new MediaFetchException("Failed to fetch logo " + fileName, e.getCause());
+            }
+        }
+
+        try {
+            Path path = download(type, id, fileName);
+            download.complete(path);
+            return path;
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightDownloads.remove(fileName);
+        }
+    }
+
+    private Path download(LogoType type, long id, String fileName) {
+        String url = config.getUpstreamBaseUrl() + "/" + type.getPath() + "/" + id + FILE_EXTENSION;
+        log.info("MEDIA CACHE: Miss - fetching {}", url);
+
+        byte[] body;
+        try {
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
+            body = response.getBody();
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                rememberMissing(fileName);
+                throw new MediaNotFoundException("Upstream has no logo at " + url);
+            }
+            throw new MediaFetchException("Failed to fetch logo from " + url, e);
+        } catch (Exception e) {
+            throw new MediaFetchException("Failed to fetch logo from " + url, e);
+        }
+
+        if (body == null || body.length == 0) {
+            throw new MediaFetchException("Upstream returned an empty logo for " + url);
+        }
+        if (body.length > config.getMaxObjectSizeBytes()) {
+            throw new MediaFetchException(
+                    "Upstream logo "
+                            + url
+                            + " exceeds "
+                            + config.getMaxObjectSizeBytes()
+                            + " bytes");
+        }
+
+        Path target = cacheDirectory.resolve(fileName);
+        try {
+            Path temporary = Files.createTempFile(cacheDirectory, fileName, ".tmp");
+            Files.write(temporary, body);
+            Files.move(
+                    temporary,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new MediaFetchException("Failed to store logo " + fileName, e);
+        }
+
+        synchronized (this) {
+            register(fileName, body.length);
+            evictIfNecessary();
+        }
+
+        return target;
+    }
+
+    private synchronized void register(String fileName, long sizeBytes) {
+        Long previous = entries.put(fileName, sizeBytes);
+        if (previous != null) {
+            currentSizeBytes -= previous;
+        }
+        currentSizeBytes += sizeBytes;
+    }
+
+    private synchronized void evictIfNecessary() {
+        Iterator<Map.Entry<String, Long>> eldestFirst = entries.entrySet().iterator();
+
+        while (currentSizeBytes > config.getMaxSizeBytes() && entries.size() > 1) {
+            Map.Entry<String, Long> eldest = eldestFirst.next();
+            eldestFirst.remove();
+            currentSizeBytes -= eldest.getValue();
+
+            deleteQuietly(cacheDirectory.resolve(eldest.getKey()));
+            log.debug("MEDIA CACHE: Evicted {}", eldest.getKey());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete media cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
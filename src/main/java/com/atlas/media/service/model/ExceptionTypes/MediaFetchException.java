@@ -0,0 +1,11 @@
+package com.atlas.media.service.model.ExceptionTypes;
+
+public class MediaFetchException extends RuntimeException {
+    public MediaFetchException(String message) {
+        super(message);
+    }
+
+    public MediaFetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
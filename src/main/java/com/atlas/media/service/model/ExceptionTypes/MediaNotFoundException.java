@@ -0,0 +1,7 @@
+package com.atlas.media.service.model.ExceptionTypes;
+
+public class MediaNotFoundException extends RuntimeException {
+    public MediaNotFoundException(String message) {
+        super(message);
+    }
+}
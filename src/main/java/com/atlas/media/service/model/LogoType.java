@@ -0,0 +1,25 @@
+package com.atlas.media.service.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+
+@Getter
+public enum LogoType {
+    TEAMS("teams"),
+    LEAGUES("leagues");
+
+    private final String path;
+
+    LogoType(String path) {
+        this.path = path;
+    }
+
+    public static Optional<LogoType> fromPath(String path) {
+        return Arrays.stream(values()).filter(type -> type.path.equals(path)).findFirst();
+    }
+
+    public String proxyUrl(Long id) {
+        return "/api/media/" + path + "/" + id;
+    }
+}
@@ -0,0 +1,35 @@
+package com.atlas.metrics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.archive")
+@Data
+public class MetricArchiveConfig {
+    /**
+     * Off by default: archived days are read back from {@link #directory}, so every instance must
+     * see the same directory (shared storage), or archiving must be enabled on a single designated
+     * node that also serves the archive queries.
+     */
+    private boolean enabled = false;
+
+    /** Root of the archive; files are laid out as {@code yyyy/MM/yyyy-MM-dd.mcol}. */
+    private String directory = "data/metrics-archive";
+
+    /**
+     * Whole months before the current one that stay in PostgreSQL. Older monthly partitions are
+     * written to the archive and dropped.
+     */
+    private int hotMonths = 3;
+
+    /** Rows buffered in memory and written together as one row group. */
+    private int rowGroupSize = 10_000;
+
+    /** Rows fetched from the server-side cursor per round trip while archiving. */
+    private int fetchSize = 5000;
+
+    /** Archived days older than this many months are deleted; 0 keeps them forever. */
+    private int retentionMonths = 13;
+}
@@ -0,0 +1,48 @@
+package com.atlas.metrics.config;
+
+import com.atlas.metrics.controller.model.MetricEventType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.funnels")
+@Data
+public class MetricFunnelConfig {
+    private boolean enabled = true;
+
+    /**
+     * How far behind the clock the watermark stays, so in-flight batches can commit first. Events
+     * are read once, by event time: one committed more than this after its event time (a client
+     * that was offline, a stream backlog after an outage) is never counted. Raise it if that
+     * undercount matters more than how fresh the funnels are.
+     */
+    private Duration settleDelay = Duration.ofMinutes(2);
+
+    /** Largest span of raw events processed in one transaction while catching up. */
+    private Duration maxChunk = Duration.ofHours(1);
+
+    private int maxChunksPerRun = 8;
+
+    /** Inactivity after which a user's session is closed. */
+    private Duration sessionGap = Duration.ofMinutes(30);
+
+    private List<Funnel> definitions = new ArrayList<>();
+
+    @Data
+    public static class Funnel {
+        /**
+         * Stable identifier; counts and in-flight attempts are stored under it, so changing the
+         * steps of a funnel should also give it a new name.
+         */
+        private String name;
+
+        private List<MetricEventType> steps = new ArrayList<>();
+
+        /** Time from the first step within which the remaining steps must happen. */
+        private Duration window = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,37 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.live")
+@Data
+public class MetricLiveConfig {
+    private boolean enabled = true;
+
+    /** Length of the sliding window, in whole seconds; one counter slot is kept per second. */
+    private Duration window = Duration.ofSeconds(60);
+
+    /** How often a snapshot is pushed to every subscriber. */
+    private Duration pushInterval = Duration.ofSeconds(1);
+
+    private int maxSubscribers = 200;
+
+    /**
+     * A subscriber whose send has not finished after this long is dropped; until then it skips
+     * the snapshots pushed in the meantime.
+     */
+    private Duration sendTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Threads sending snapshots to subscribers. A send stuck on a slow connection keeps its thread
+     * until the container's socket write timeout fails it, so this also caps the threads that
+     * stuck subscribers can hold.
+     */
+    private int senderThreads = 8;
+
+    /** Subscriptions are closed after this long; dashboards reconnect on their own. */
+    private Duration subscriptionTimeout = Duration.ofMinutes(30);
+}
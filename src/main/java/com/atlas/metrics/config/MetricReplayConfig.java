@@ -0,0 +1,56 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.replay")
+@Data
+public class MetricReplayConfig {
+
+    public enum Format {
+        /** Picked from the file extension: {@code .csv} is CSV, anything else NDJSON. */
+        AUTO,
+        NDJSON,
+        CSV
+    }
+
+    public enum Target {
+        /** One {@code saveMetricEvent} call per event, as the single-event endpoint makes. */
+        SINGLE,
+        /** {@code saveMetricEvents} with up to {@code batchSize} events, as the batch endpoint. */
+        BATCH
+    }
+
+    /** The events to replay, in the export's NDJSON or CSV layout. */
+    private String file;
+
+    private Format format = Format.AUTO;
+    private Target target = Target.SINGLE;
+
+    /** Target rate in events per second across all threads; 0 replays as fast as possible. */
+    private double rate = 0;
+
+    private int batchSize = 100;
+    private int threads = 4;
+
+    /** Stops after this many events; 0 replays the whole file. */
+    private long maxEvents = 0;
+
+    /**
+     * Gives every event that carries an {@code eventId} a new random one, so that replaying the
+     * same file twice is not dropped by deduplication while still paying for the check.
+     */
+    private boolean freshEventIds = true;
+
+    /** How much of the file is memory-mapped at a time. */
+    private DataSize mapWindow = DataSize.ofMegabytes(64);
+
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    /** How long to wait after the last call for the writer to finish the accepted events. */
+    private Duration drainTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,26 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.rollups")
+@Data
+public class MetricRollupConfig {
+    private boolean enabled = true;
+
+    /** How far behind the clock the watermark stays, so in-flight batches can commit first. */
+    private Duration settleDelay = Duration.ofMinutes(1);
+
+    /** How much already rolled-up time is recomputed on every run to pick up late events. */
+    private Duration lookback = Duration.ofMinutes(15);
+
+    /** Largest span of raw events rolled up in one transaction while catching up. */
+    private Duration maxChunk = Duration.ofHours(6);
+
+    private int maxChunksPerRun = 8;
+    private Duration minuteRetention = Duration.ofDays(7);
+    private Duration hourRetention = Duration.ofDays(90);
+}
@@ -0,0 +1,32 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.sketches")
+@Data
+public class MetricSketchConfig {
+    private boolean enabled = true;
+
+    /** Events waiting to be folded into the sketches; further events are skipped and counted. */
+    private int capacity = 65536;
+
+    /**
+     * Count-Min Sketch dimensions. Estimates exceed the true count by at most e / width of the
+     * day's total with probability 1 - e^-depth.
+     */
+    private int depth = 4;
+
+    private int width = 2048;
+
+    /** Trigger ids tracked per event and day; queries can ask for up to this many. */
+    private int topK = 50;
+
+    /** How long daily sketches are kept in Redis. */
+    private Duration retention = Duration.ofDays(35);
+
+    private int maxRangeDays = 31;
+}
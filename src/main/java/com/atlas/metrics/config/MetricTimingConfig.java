@@ -0,0 +1,36 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.timings")
+@Data
+public class MetricTimingConfig {
+    private boolean enabled = true;
+
+    /** Samples above this are recorded as this value. */
+    private long highestTrackableMillis = 600_000;
+
+    /** Histogram precision; 2 keeps every percentile within 1% of the true value. */
+    private int significantDigits = 2;
+
+    /**
+     * Distinct (type, route) series tracked; samples for further routes are recorded under
+     * {@code (other)} so that client-supplied routes cannot grow memory without bound.
+     */
+    private int maxSeries = 500;
+
+    /** A series with no samples for this long is dropped and no longer counts toward the limit. */
+    private Duration seriesIdleTimeout = Duration.ofHours(1);
+
+    private int maxRouteLength = 100;
+    private int maxBatchItems = 100;
+
+    /** Longest range a percentile query may merge; every minute in it is one stored histogram. */
+    private Duration maxQueryRange = Duration.ofDays(7);
+
+    private Duration retention = Duration.ofDays(30);
+}
@@ -0,0 +1,38 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.admission")
+@Data
+public class MetricsAdmissionConfig {
+    private boolean enabled = true;
+
+    /**
+     * Buffer fill ratio at which requests start being shed. The shed probability rises linearly
+     * from here to 1 at {@code shed-all}.
+     */
+    private double shedStart = 0.75;
+
+    private double shedAll = 0.95;
+
+    /**
+     * Requests are shed while more than this many threads are waiting for a database connection,
+     * so metrics never queue in front of login or fixtures for the shared pool.
+     */
+    private int maxAwaitingConnections = 2;
+
+    /** Lower bound of the Retry-After sent with a 429; clients are spread up to twice this. */
+    private Duration retryAfter = Duration.ofSeconds(2);
+
+    /**
+     * Fraction of events kept per event type, e.g. {@code PAGE_VIEW: 0.1}. Types not listed are
+     * always kept.
+     */
+    private Map<String, Double> sampleRates = new HashMap<>();
+}
@@ -0,0 +1,34 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.datasource")
+@Data
+public class MetricsDataSourceConfig {
+
+    /**
+     * Whether metrics get a connection pool of their own. When false they share the application
+     * pool and join its transactions, which tests that roll back around metric writes rely on.
+     */
+    private boolean separatePool = true;
+
+    /** Connection settings; each one left unset is taken from {@code spring.datasource}. */
+    private String url;
+
+    private String username;
+    private String password;
+
+    private String poolName = "atlas-metrics";
+    private int maximumPoolSize = 5;
+    private int minimumIdle = 1;
+
+    /**
+     * How long a metrics query waits for a connection before failing. Kept short, since metric
+     * writers retry or shed load rather than queue behind a saturated pool.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+}
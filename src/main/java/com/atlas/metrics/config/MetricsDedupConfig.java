@@ -0,0 +1,31 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.dedup")
+@Data
+public class MetricsDedupConfig {
+    private boolean enabled = true;
+
+    /**
+     * How long an event id is remembered in memory. Ids are kept for between one and two windows,
+     * as the filter rotates one generation per window.
+     */
+    private Duration window = Duration.ofMinutes(10);
+
+    /** Distinct event ids expected per window; the filter is sized for this many. */
+    private int expectedEventsPerWindow = 1_000_000;
+
+    /**
+     * Chance that a new id is mistaken for a repeat and dropped. Memory grows with the log of its
+     * inverse: about 2.4 MB per generation at 1,000,000 ids and 0.0001.
+     */
+    private double falsePositiveRate = 0.0001;
+
+    /** How long claimed ids are kept in the metric_event_ids backstop table. */
+    private Duration backstopRetention = Duration.ofDays(2);
+}
@@ -0,0 +1,23 @@
+package com.atlas.metrics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.export")
+@Data
+public class MetricsExportConfig {
+
+    /** Rows fetched from the server-side cursor per round trip. */
+    private int fetchSize = 1000;
+
+    /** Size of the buffer between the row writer and the (compressed) response. */
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * Exports allowed at once. Each holds a metrics pool connection for as long as the download
+     * takes, so this stays below the pool size to leave connections for ingestion.
+     */
+    private int maxConcurrent = 2;
+}
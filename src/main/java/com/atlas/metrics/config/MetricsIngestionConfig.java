@@ -0,0 +1,68 @@
+package com.atlas.metrics.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.ingestion")
+@Data
+public class MetricsIngestionConfig {
+
+    public enum Mode {
+        /** Events are queued in memory and written in batches by a background writer. */
+        BUFFERED,
+        /** Events are written on the calling thread before the request returns. */
+        SYNCHRONOUS,
+        /**
+         * Events are appended to a Redis Stream and written by a consumer group, so they survive
+         * restarts and database outages.
+         */
+        STREAM
+    }
+
+    private Mode mode = Mode.BUFFERED;
+    private int capacity = 65536;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(500);
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+    private int maxBatchItems = 1000;
+    private Stream stream = new Stream();
+    private InternalEvents internalEvents = new InternalEvents();
+
+    @Data
+    public static class Stream {
+        private String key = "metrics:events";
+        private String deadLetterKey = "metrics:events:dead";
+
+        /**
+         * Hash counting, per pending entry, the deliveries that failed because the database was
+         * unavailable. Those deliveries do not count toward {@code max-deliveries}.
+         */
+        private String outageKey = "metrics:events:outages";
+
+        private String group = "metrics-writers";
+        private int consumers = 2;
+
+        private Duration blockTimeout = Duration.ofSeconds(2);
+
+        /** Wait between retries while the database is unavailable. */
+        private Duration retryBackoff = Duration.ofSeconds(5);
+
+        /** How long a delivered entry may stay unacknowledged before another consumer takes it. */
+        private Duration claimIdle = Duration.ofMinutes(1);
+
+        /** Deliveries after which an entry is moved to the dead-letter stream. */
+        private int maxDeliveries = 5;
+    }
+
+    /** Queue for metrics the server raises itself, such as logins and logouts. */
+    @Data
+    public static class InternalEvents {
+        /** 0 records the events on the publishing thread. */
+        private int threads = 1;
+        private int queueCapacity = 10000;
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+    }
+}
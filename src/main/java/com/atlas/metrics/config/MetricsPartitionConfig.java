@@ -0,0 +1,23 @@
+package com.atlas.metrics.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "metrics.partitions")
+@Data
+public class MetricsPartitionConfig {
+
+    public enum RetentionAction {
+        /** Expired partitions are dropped together with their data. */
+        DROP,
+        /** Expired partitions are detached and left as standalone tables, e.g. for archival. */
+        DETACH
+    }
+
+    private boolean enabled = true;
+    private int monthsAhead = 3;
+    private int retentionMonths = 13;
+    private RetentionAction retentionAction = RetentionAction.DROP;
+}
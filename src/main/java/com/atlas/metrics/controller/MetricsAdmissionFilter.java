@@ -0,0 +1,54 @@
+package com.atlas.metrics.controller;
+
+import com.atlas.metrics.service.MetricsAdmissionControl;
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Refuses metric ingestion requests with 429 while {@link MetricsAdmissionControl} is shedding
+ * load. It runs before the body is read, so a shed request costs no parsing and no database work.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> INGESTION_PATHS =
+            Set.of("/api/save-metric", "/api/save-metrics/batch");
+
+    private final MetricsAdmissionControl admissionControl;
+
+    @Override
+    protected boolean shouldNotFilter(@Nonnull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !INGESTION_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<Duration> retryAfter = admissionControl.checkCapacity();
+        if (retryAfter.isPresent()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(
+                    HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.get().toSeconds()));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
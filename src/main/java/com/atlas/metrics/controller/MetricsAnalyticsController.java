@@ -0,0 +1,282 @@
+package com.atlas.metrics.controller;
+
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.service.MetricAnalyticsService;
+import com.atlas.metrics.service.MetricExportService;
+import com.atlas.metrics.service.MetricFunnelService;
+import com.atlas.metrics.service.MetricLiveBroadcaster;
+import com.atlas.metrics.service.MetricSketchService;
+import com.atlas.metrics.service.MetricTimingService;
+import com.atlas.metrics.service.model.BreakdownDimension;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricLiveViewUnavailableException;
+import com.atlas.metrics.service.model.ExportFormat;
+import com.atlas.metrics.service.model.FunnelReport;
+import com.atlas.metrics.service.model.MetricBreakdown;
+import com.atlas.metrics.service.model.MetricCounts;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.RollupGranularity;
+import com.atlas.metrics.service.model.SessionSummary;
+import com.atlas.metrics.service.model.TimingPercentiles;
+import com.atlas.metrics.service.model.TopTriggers;
+import com.atlas.metrics.service.model.UniqueUserCount;
+import com.atlas.metrics.service.model.UserTimelinePage;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** Admin-only analytics over recorded metric events. Times are ISO-8601 instants. */
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@Slf4j
+public class MetricsAnalyticsController {
+
+    private static final String EXPORT_RETRY_AFTER_SECONDS = "30";
+
+    private final MetricAnalyticsService analyticsService;
+    private final MetricSketchService sketchService;
+    private final MetricExportService exportService;
+    private final MetricFunnelService funnelService;
+    private final MetricTimingService timingService;
+    private final MetricLiveBroadcaster liveBroadcaster;
+
+    @GetMapping("/counts")
+    public ResponseEntity<MetricCounts> getCounts(
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) String event) {
+        try {
+            return ResponseEntity.ok(analyticsService.getCounts(granularity, from, to, event));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected metric counts query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @GetMapping("/breakdown")
+    public ResponseEntity<MetricBreakdown> getBreakdown(
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(defaultValue = "EVENT") BreakdownDimension by,
+            @RequestParam(required = false) String event) {
+        try {
+            return ResponseEntity.ok(analyticsService.getBreakdown(by, from, to, event));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected metric breakdown query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @GetMapping("/users/{userId}/timeline")
+    public ResponseEntity<UserTimelinePage> getUserTimeline(
+            @PathVariable long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(analyticsService.getUserTimeline(userId, cursor, limit));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected user timeline query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Raw events in {@code [from, to)}, newest first, filtered on any of the event type, trigger
+     * id, screen or a metadata containment object such as {@code {"team":33}}.
+     */
+    @GetMapping("/events")
+    public ResponseEntity<UserTimelinePage> searchEvents(
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(required = false) String event,
+            @RequestParam(required = false) String triggerId,
+            @RequestParam(required = false) String screen,
+            @RequestParam(required = false) String contains,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            MetricEventFilter filter = new MetricEventFilter(event, triggerId, screen, contains);
+            return ResponseEntity.ok(
+                    analyticsService.searchEvents(filter, from, to, cursor, limit));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected metric event search: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Every event in {@code [from, to)} matching the same filters as {@code /events}, oldest
+     * first, as CSV or NDJSON. The body is streamed as rows are read and is gzip-compressed when
+     * the client accepts it, e.g. {@code curl --compressed}. Refused with 503 while the maximum
+     * number of exports is already running.
+     */
+    @GetMapping("/export")
+    public void exportEvents(
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) String event,
+            @RequestParam(required = false) String triggerId,
+            @RequestParam(required = false) String screen,
+            @RequestParam(required = false) String contains,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false)
+                    String acceptEncoding,
+            HttpServletResponse response)
+            throws IOException {
+        MetricEventFilter filter = new MetricEventFilter(event, triggerId, screen, contains);
+        try {
+            exportService.validate(filter, from, to);
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected metric export: {}", e.getMessage());
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        if (!exportService.tryReserve()) {
+            log.debug("Refused metric export: too many exports running");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, EXPORT_RETRY_AFTER_SECONDS);
+            return;
+        }
+        try {
+            writeExport(format, filter, from, to, acceptEncoding, response);
+        } finally {
+            exportService.release();
+        }
+    }
+
+    private void writeExport(
+            ExportFormat format,
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            String acceptEncoding,
+            HttpServletResponse response)
+            throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment()
+                        .filename("metrics-export." + format.getExtension())
+                        .build()
+                        .toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        OutputStream body = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(body, 8192)) {
+                exportService.export(format, filter, from, to, compressed);
+            }
+        } else {
+            exportService.export(format, filter, from, to, body);
+        }
+    }
+
+    /** Approximate distinct users for an event over whole UTC days, read from the sketches. */
+    @GetMapping("/unique-users")
+    public ResponseEntity<UniqueUserCount> getUniqueUsers(
+            @RequestParam String event,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(sketchService.getUniqueUsers(event, from, to));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected unique users query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @GetMapping("/top-triggers")
+    public ResponseEntity<TopTriggers> getTopTriggers(
+            @RequestParam String event,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(sketchService.getTopTriggers(event, from, to, limit));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected top triggers query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /** Attempts at a configured funnel started on UTC days {@code [from, to]}, by step. */
+    @GetMapping("/funnels/{name}")
+    public ResponseEntity<FunnelReport> getFunnel(
+            @PathVariable String name,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(funnelService.getFunnel(name, from, to));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected funnel query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @GetMapping("/sessions")
+    public ResponseEntity<SessionSummary> getSessions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(funnelService.getSessions(from, to));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected session query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Timing percentiles over {@code [from, to)} widened to whole minutes, for one route or, when
+     * no route is given, across all of them.
+     */
+    @GetMapping("/timings")
+    public ResponseEntity<TimingPercentiles> getTimings(
+            @RequestParam MetricTimingType type,
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(required = false) String route) {
+        try {
+            return ResponseEntity.ok(timingService.getPercentiles(type, route, from, to));
+        } catch (InvalidMetricsQueryException e) {
+            log.debug("Rejected timing query: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /** Events per second by type, pushed as a {@code snapshot} event every second. */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getLive() {
+        try {
+            return ResponseEntity.ok(liveBroadcaster.subscribe());
+        } catch (MetricLiveViewUnavailableException e) {
+            log.debug("Refused live metrics subscription: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
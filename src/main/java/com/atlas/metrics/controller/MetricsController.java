@@ -1,8 +1,20 @@
 package com.atlas.metrics.controller;
 
 import com.atlas.metrics.controller.model.MetricEventDTO;
+import com.atlas.metrics.controller.model.MetricTimingDTO;
+import com.atlas.metrics.service.MetricBatchReader;
+import com.atlas.metrics.service.MetricTimingService;
+import com.atlas.metrics.service.MetricsAdmissionControl;
 import com.atlas.metrics.service.MetricsService;
+import com.atlas.metrics.service.model.ExceptionTypes.MalformedMetricBatchException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,14 +26,65 @@ import org.springframework.web.bind.annotation.RestController;
 public class MetricsController {
 
     private final MetricsService metricsService;
+    private final MetricBatchReader metricBatchReader;
+    private final MetricTimingService metricTimingService;
+    private final MetricsAdmissionControl admissionControl;
 
     @PostMapping("/api/save-metric")
     public ResponseEntity<Void> saveMetricEvent(@RequestBody MetricEventDTO metricEventDTO) {
         try {
             metricsService.saveMetricEvent(metricEventDTO);
             return ResponseEntity.status(HttpStatus.CREATED).build();
+        } catch (MetricIngestionRejectedException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Accepts a JSON array or newline-delimited JSON, optionally gzip-compressed. The body is read
+     * from the raw request stream so any content type works, including the {@code text/plain}
+     * blobs sent by {@code navigator.sendBeacon}.
+     */
+    @PostMapping("/api/save-metrics/batch")
+    public ResponseEntity<MetricBatchResult> saveMetricEvents(HttpServletRequest request) {
+        try {
+            MetricBatch batch = metricBatchReader.read(request.getInputStream());
+            return ResponseEntity.ok(metricsService.saveMetricEvents(batch));
+        } catch (MalformedMetricBatchException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (MetricBatchTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        } catch (MetricIngestionRejectedException e) {
+            return tooManyRequests();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Client performance timings. Samples are folded into per-minute histograms and not stored
+     * individually; malformed samples are skipped rather than failing the batch.
+     */
+    @PostMapping("/api/save-timings")
+    public ResponseEntity<Void> saveTimings(@RequestBody List<MetricTimingDTO> timings) {
+        try {
+            metricTimingService.record(timings);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (MetricBatchTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /** A full buffer is back-pressure like admission shedding, so the client gets the same 429. */
+    private <T> ResponseEntity<T> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(
+                        HttpHeaders.RETRY_AFTER,
+                        String.valueOf(admissionControl.retryAfter().toSeconds()))
+                .build();
+    }
 }
@@ -1,7 +1,7 @@
 package com.atlas.metrics.controller.model;
 
+import java.util.UUID;
 import lombok.*;
-import net.minidev.json.JSONObject;
 
 @Getter
 @Setter
@@ -11,6 +11,9 @@ import net.minidev.json.JSONObject;
 @NoArgsConstructor
 public class MetricEventDTO {
     MetricEventType event;
-    JSONObject eventMetadata;
+    RawJson eventMetadata;
     Long userId;
+
+    /** Optional; events repeated with the same id are only recorded once. */
+    UUID eventId;
 }
@@ -0,0 +1,18 @@
+package com.atlas.metrics.controller.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class MetricTimingDTO {
+    MetricTimingType type;
+
+    /** The route or API path the timing belongs to, without query string, e.g. /fixtures. */
+    String route;
+
+    Double durationMs;
+}
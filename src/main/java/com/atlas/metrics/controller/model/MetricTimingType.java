@@ -0,0 +1,8 @@
+package com.atlas.metrics.controller.model;
+
+/** Client-measured durations, recorded as latency distributions rather than as events. */
+public enum MetricTimingType {
+    PAGE_LOAD,
+    FIXTURE_RENDER,
+    API_ROUND_TRIP
+}
@@ -0,0 +1,125 @@
+package com.atlas.metrics.controller.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A JSON object kept as its compact text. It is captured token by token straight from the request
+ * parser, so metadata is never built into an object tree and is bound to the insert as-is; the
+ * size and nesting limits are checked during the same pass.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public record RawJson(String json) {
+
+    /** Largest accepted object, measured on the request body, in bytes (or chars). */
+    public static final int MAX_LENGTH = 16 * 1024;
+
+    public static final int MAX_DEPTH = 16;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** Wraps JSON text that is already known to be a valid object, without re-reading it. */
+    public static RawJson of(String json) {
+        return new RawJson(json);
+    }
+
+    /**
+     * Copies the object starting at the parser's current token. The parser is always left on the
+     * object's closing token, including when the object is rejected, so the caller can carry on
+     * with the next value.
+     *
+     * @throws IllegalArgumentException if the value is not an object or exceeds the limits
+     */
+    public static RawJson read(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("eventMetadata must be a JSON object");
+        }
+
+        long start = offsetOf(parser.currentTokenLocation());
+        StringWriter out = new StringWriter(64);
+        String error = null;
+        int depth = 0;
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            JsonToken token = parser.currentToken();
+            while (true) {
+                if (token == null) {
+                    throw new IllegalArgumentException("eventMetadata is truncated");
+                }
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    depth++;
+                    if (error == null && depth > MAX_DEPTH) {
+                        error = "eventMetadata is nested deeper than " + MAX_DEPTH + " levels";
+                    }
+                } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    depth--;
+                }
+
+                if (error == null
+                        && offsetOf(parser.currentLocation()) - start > MAX_LENGTH) {
+                    error = "eventMetadata is larger than " + MAX_LENGTH + " bytes";
+                }
+                if (error == null) {
+                    generator.copyCurrentEvent(parser);
+                } else if (token.isStructStart()) {
+                    // Nothing more is kept once the object is rejected; skip whole subtrees.
+                    parser.skipChildren();
+                    depth--;
+                }
+
+                if (depth == 0) {
+                    break;
+                }
+                token = parser.nextToken();
+            }
+        }
+
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return new RawJson(out.toString());
+    }
+
+    private static long offsetOf(JsonLocation location) {
+        long bytes = location.getByteOffset();
+        return bytes >= 0 ? bytes : location.getCharOffset();
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    public static class Serializer extends JsonSerializer<RawJson> {
+        @Override
+        public void serialize(RawJson value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeRawValue(value.json());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<RawJson> {
+        @Override
+        public RawJson deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            try {
+                return read(parser);
+            } catch (IllegalArgumentException e) {
+                return context.reportInputMismatch(RawJson.class, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.service.model.BreakdownDimension;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricBreakdownEntry;
+import com.atlas.metrics.service.model.MetricCountBucket;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.RollupGranularity;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read side of the metrics tables. Aggregates come from the rollup tables; user timelines and
+ * event searches read raw events, through the {@code (user_id, event_time, id)} index and the
+ * indexes on the generated metadata columns respectively. Exports stream raw events through a
+ * cursor.
+ */
+@Repository
+public class MetricAnalyticsRepository {
+
+    private static final String SELECT_EVENTS_SQL =
+            "SELECT id, event, event_time, metadata::text AS metadata FROM metrics";
+
+    private static final String EXPORT_COLUMNS_SQL =
+            "SELECT id, event, event_time, user_id, event_id, trigger_id, screen,"
+                    + " metadata::text AS metadata FROM ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MetricAnalyticsRepository(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.readOnlyTransaction =
+                new TransactionTemplate(
+                        metricsDatabase.getTransactionTemplate().getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<MetricCountBucket> findCounts(
+            RollupGranularity granularity, Instant from, Instant to, String event) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(from), Timestamp.from(to)));
+        String sql =
+                "SELECT bucket_start, event, SUM(event_count) AS event_count FROM "
+                        + granularity.getTable()
+                        + " WHERE bucket_start >= ? AND bucket_start < ?";
+        if (event != null) {
+            sql += " AND event = ?";
+            args.add(event);
+        }
+        sql += " GROUP BY bucket_start, event ORDER BY bucket_start, event";
+
+        return jdbcTemplate.query(
+                sql,
+                (rs, rowNum) ->
+                        new MetricCountBucket(
+                                rs.getTimestamp("bucket_start").toInstant(),
+                                rs.getString("event"),
+                                rs.getLong("event_count")),
+                args.toArray());
+    }
+
+    public List<MetricBreakdownEntry> findBreakdown(
+            RollupGranularity granularity,
+            BreakdownDimension dimension,
+            Instant from,
+            Instant to,
+            String event) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(from), Timestamp.from(to)));
+        String sql =
+                "SELECT "
+                        + dimension.getColumn()
+                        + " AS breakdown_key, SUM(event_count) AS event_count FROM "
+                        + granularity.getTable()
+                        + " WHERE bucket_start >= ? AND bucket_start < ?";
+        if (event != null) {
+            sql += " AND event = ?";
+            args.add(event);
+        }
+        sql += " GROUP BY 1 ORDER BY event_count DESC, breakdown_key";
+
+        return jdbcTemplate.query(
+                sql,
+                (rs, rowNum) ->
+                        new MetricBreakdownEntry(
+                                rs.getString("breakdown_key"), rs.getLong("event_count")),
+                args.toArray());
+    }
+
+    /**
+     * Returns up to {@code limit} of the user's events, newest first, that sort strictly before
+     * {@code (beforeTime, beforeId)}; both null for the first page.
+     */
+    public List<UserTimelineEvent> findUserTimeline(
+            long userId, Instant beforeTime, Long beforeId, int limit) {
+        List<Object> args = new ArrayList<>(List.of(userId));
+        return findEvents(" WHERE user_id = ?", args, beforeTime, beforeId, limit);
+    }
+
+    /**
+     * Returns up to {@code limit} events in {@code [from, to)} matching the filter, newest first,
+     * paged the same way as {@link #findUserTimeline}.
+     */
+    public List<UserTimelineEvent> searchEvents(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            Instant beforeTime,
+            Long beforeId,
+            int limit) {
+        List<Object> args = new ArrayList<>();
+        String where = filterClause(filter, from, to, args);
+        return findEvents(where, args, beforeTime, beforeId, limit);
+    }
+
+    /**
+     * Passes every event in {@code [from, to)} matching the filter to {@code consumer}, oldest
+     * first. Rows are read through a forward-only server-side cursor {@code fetchSize} at a time
+     * (the PostgreSQL driver only uses a cursor inside a transaction), so memory use does not
+     * depend on how many rows match.
+     *
+     * @return the number of rows read
+     */
+    public long streamEvents(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            int fetchSize,
+            Consumer<ExportedMetricEvent> consumer) {
+        return stream("metrics", filter, from, to, fetchSize, consumer);
+    }
+
+    /**
+     * Like {@link #streamEvents}, unfiltered, but reads a detached partition rather than {@code
+     * metrics}.
+     */
+    public long streamDetachedPartition(
+            String table,
+            Instant from,
+            Instant to,
+            int fetchSize,
+            Consumer<ExportedMetricEvent> consumer) {
+        return stream(
+                MetricsPartitionRepository.checked(table),
+                new MetricEventFilter(null, null, null, null),
+                from,
+                to,
+                fetchSize,
+                consumer);
+    }
+
+    private long stream(
+            String table,
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            int fetchSize,
+            Consumer<ExportedMetricEvent> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql =
+                EXPORT_COLUMNS_SQL
+                        + table
+                        + filterClause(filter, from, to, args)
+                        + " ORDER BY event_time, id";
+        long[] rows = {0};
+
+        readOnlyTransaction.executeWithoutResult(
+                status ->
+                        jdbcTemplate.query(
+                                connection -> {
+                                    PreparedStatement statement =
+                                            connection.prepareStatement(
+                                                    sql,
+                                                    ResultSet.TYPE_FORWARD_ONLY,
+                                                    ResultSet.CONCUR_READ_ONLY);
+                                    statement.setFetchSize(fetchSize);
+                                    new ArgumentPreparedStatementSetter(args.toArray())
+                                            .setValues(statement);
+                                    return statement;
+                                },
+                                (RowCallbackHandler)
+                                        rs -> {
+                                            consumer.accept(toExportedEvent(rs));
+                                            rows[0]++;
+                                        }));
+        return rows[0];
+    }
+
+    private static String filterClause(
+            MetricEventFilter filter, Instant from, Instant to, List<Object> args) {
+        args.add(Timestamp.from(from));
+        args.add(Timestamp.from(to));
+        StringBuilder where = new StringBuilder(" WHERE event_time >= ? AND event_time < ?");
+        if (filter.event() != null) {
+            where.append(" AND event = ?");
+            args.add(filter.event());
+        }
+        if (filter.triggerId() != null) {
+            where.append(" AND trigger_id = ?");
+            args.add(filter.triggerId());
+        }
+        if (filter.screen() != null) {
+            where.append(" AND screen = ?");
+            args.add(filter.screen());
+        }
+        if (filter.contains() != null) {
+            where.append(" AND metadata @> ?::jsonb");
+            args.add(filter.contains());
+        }
+        return where.toString();
+    }
+
+    private static ExportedMetricEvent toExportedEvent(ResultSet rs) throws SQLException {
+        long userId = rs.getLong("user_id");
+        boolean anonymous = rs.wasNull();
+        return new ExportedMetricEvent(
+                rs.getLong("id"),
+                rs.getString("event"),
+                rs.getTimestamp("event_time").toInstant(),
+                anonymous ? null : userId,
+                rs.getObject("event_id", UUID.class),
+                rs.getString("trigger_id"),
+                rs.getString("screen"),
+                rs.getString("metadata"));
+    }
+
+    private List<UserTimelineEvent> findEvents(
+            String where, List<Object> args, Instant beforeTime, Long beforeId, int limit) {
+        String sql = SELECT_EVENTS_SQL + where;
+        if (beforeTime != null && beforeId != null) {
+            sql += " AND (event_time, id) < (?, ?)";
+            args.add(Timestamp.from(beforeTime));
+            args.add(beforeId);
+        }
+        sql += " ORDER BY event_time DESC, id DESC LIMIT ?";
+        args.add(limit);
+
+        return jdbcTemplate.query(
+                sql,
+                (rs, rowNum) ->
+                        new UserTimelineEvent(
+                                rs.getLong("id"),
+                                rs.getString("event"),
+                                rs.getTimestamp("event_time").toInstant(),
+                                rs.getString("metadata")),
+                args.toArray());
+    }
+}
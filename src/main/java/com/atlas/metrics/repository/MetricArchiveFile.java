@@ -0,0 +1,627 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The columnar file that holds one UTC day of archived metric events. The layout is Parquet in
+ * miniature:
+ *
+ * <pre>
+ * MAGIC
+ * row group 1: one deflated chunk per column, in {@link MetricArchiveColumn} order
+ * ...
+ * row group n
+ * footer: the column names, then per row group its row count, its event time range, its user
+ *         id index and the offset and length of each chunk
+ * footer length (int), MAGIC
+ * </pre>
+ *
+ * Readers load the footer first, skip row groups whose time range does not overlap the query and
+ * read only the chunks of the columns they were asked for. A scan for one user also skips the row
+ * groups whose user id index rules the user out: each group records its smallest and largest user
+ * id and a Bloom filter of the ids, so a user's events are found without decompressing the rest
+ * of the day. Writers buffer one row group at a time,
+ * so writing a day needs memory for one row group however many events the day holds.
+ *
+ * <p>Within a chunk, ids and event times (in microseconds, the precision PostgreSQL stores) are
+ * zig-zag varint deltas, the event, trigger and screen columns are dictionary encoded and
+ * metadata is length-prefixed UTF-8.
+ */
+final class MetricArchiveFile {
+
+    private static final byte[] MAGIC = "ATLASMC1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    /** Files written before the user id index; still read, but never skipped for a user. */
+    private static final int VERSION_WITHOUT_USER_INDEX = 1;
+    private static final int TAIL_LENGTH = Integer.BYTES + MAGIC.length;
+    private static final MetricArchiveColumn[] COLUMNS = MetricArchiveColumn.values();
+
+    private MetricArchiveFile() {}
+
+    /** Appends rows to a new file. Nothing is readable until {@link #finish()} has run. */
+    static final class Writer {
+
+        private final FileChannel channel;
+        private final int rowGroupSize;
+        private final List<ExportedMetricEvent> rows = new ArrayList<>();
+        private final List<RowGroup> rowGroups = new ArrayList<>();
+        private long position;
+        private long rowCount;
+
+        Writer(FileChannel channel, int rowGroupSize) throws IOException {
+            this.channel = channel;
+            this.rowGroupSize = Math.max(1, rowGroupSize);
+            write(MAGIC);
+        }
+
+        void append(ExportedMetricEvent row) throws IOException {
+            rows.add(row);
+            if (rows.size() >= rowGroupSize) {
+                flushRowGroup();
+            }
+        }
+
+        long rowCount() {
+            return rowCount + rows.size();
+        }
+
+        /** Writes the last row group and the footer. The channel is neither synced nor closed. */
+        void finish() throws IOException {
+            flushRowGroup();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(bytes);
+            footer.writeInt(VERSION);
+            footer.writeInt(COLUMNS.length);
+            for (MetricArchiveColumn column : COLUMNS) {
+                footer.writeUTF(column.name());
+            }
+            footer.writeInt(rowGroups.size());
+            for (RowGroup group : rowGroups) {
+                footer.writeInt(group.rows());
+                footer.writeLong(group.minTime());
+                footer.writeLong(group.maxTime());
+                group.userIds().writeTo(footer);
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    footer.writeLong(group.offsets()[i]);
+                    footer.writeInt(group.lengths()[i]);
+                }
+            }
+            footer.flush();
+
+            write(bytes.toByteArray());
+            write(ByteBuffer.allocate(TAIL_LENGTH).putInt(bytes.size()).put(MAGIC).array());
+        }
+
+        private void flushRowGroup() throws IOException {
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            long minTime = Long.MAX_VALUE;
+            long maxTime = Long.MIN_VALUE;
+            for (ExportedMetricEvent row : rows) {
+                long time = toMicros(row.eventTime());
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+            }
+            UserIdIndex userIds = UserIdIndex.of(rows);
+
+            long[] offsets = new long[COLUMNS.length];
+            int[] lengths = new int[COLUMNS.length];
+            for (int i = 0; i < COLUMNS.length; i++) {
+                byte[] chunk = encode(COLUMNS[i], rows);
+                offsets[i] = position;
+                lengths[i] = chunk.length;
+                write(chunk);
+            }
+
+            rowGroups.add(new RowGroup(rows.size(), minTime, maxTime, userIds, offsets, lengths));
+            rowCount += rows.size();
+            rows.clear();
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+    /** Reads a finished file. The footer is loaded up front; chunks are read on demand. */
+    static final class Reader {
+
+        private final FileChannel channel;
+        private final Map<MetricArchiveColumn, Integer> columnIndexes =
+                new EnumMap<>(MetricArchiveColumn.class);
+        private final List<RowGroup> rowGroups = new ArrayList<>();
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+
+            long size = channel.size();
+            if (size < MAGIC.length + TAIL_LENGTH) {
+                throw new IOException("Not a metrics archive file");
+            }
+            ByteBuffer tail = read(size - TAIL_LENGTH, TAIL_LENGTH);
+            int footerLength = tail.getInt();
+            byte[] magic = new byte[MAGIC.length];
+            tail.get(magic);
+            if (!Arrays.equals(magic, MAGIC)
+                    || footerLength < 0
+                    || footerLength > size - MAGIC.length - TAIL_LENGTH) {
+                throw new IOException("Not a metrics archive file");
+            }
+
+            DataInputStream footer =
+                    new DataInputStream(
+                            new ByteArrayInputStream(
+                                    read(size - TAIL_LENGTH - footerLength, footerLength)
+                                            .array()));
+            int version = footer.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_USER_INDEX) {
+                throw new IOException("Unsupported metrics archive version " + version);
+            }
+            int columnCount = footer.readInt();
+            for (int i = 0; i < columnCount; i++) {
+                columnIndexes.put(MetricArchiveColumn.valueOf(footer.readUTF()), i);
+            }
+            int groupCount = footer.readInt();
+            for (int g = 0; g < groupCount; g++) {
+                int rows = footer.readInt();
+                long minTime = footer.readLong();
+                long maxTime = footer.readLong();
+                UserIdIndex userIds =
+                        version == VERSION ? UserIdIndex.readFrom(footer) : UserIdIndex.UNKNOWN;
+                long[] offsets = new long[columnCount];
+                int[] lengths = new int[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    offsets[i] = footer.readLong();
+                    lengths[i] = footer.readInt();
+                }
+                rowGroups.add(new RowGroup(rows, minTime, maxTime, userIds, offsets, lengths));
+            }
+        }
+
+        /**
+         * Passes every row with an event time in {@code [from, to)} to {@code consumer}, in the
+         * order they were written. Only the requested columns (and the event time, which the range
+         * needs) are read; the others are null, or 0 for the id.
+         *
+         * @return the number of rows passed on
+         */
+        long scan(
+                Instant from,
+                Instant to,
+                Set<MetricArchiveColumn> columns,
+                Consumer<ExportedMetricEvent> consumer)
+                throws IOException {
+            return scan(from, to, null, columns, consumer);
+        }
+
+        /**
+         * As {@link #scan(Instant, Instant, Set, Consumer)}, keeping only the rows of {@code
+         * userId} when it is not null. Row groups the user id index rules out are skipped, and in
+         * the others the user id column is read first so that a group with none of the user's rows
+         * is dropped before its other columns are decompressed.
+         */
+        long scan(
+                Instant from,
+                Instant to,
+                Long userId,
+                Set<MetricArchiveColumn> columns,
+                Consumer<ExportedMetricEvent> consumer)
+                throws IOException {
+            long fromMicros = toMicros(from);
+            long toMicros = toMicros(to);
+            long passed = 0;
+
+            for (RowGroup group : rowGroups) {
+                if (group.maxTime() < fromMicros || group.minTime() >= toMicros) {
+                    continue;
+                }
+                if (userId != null && !group.userIds().mightContain(userId)) {
+                    continue;
+                }
+
+                Map<MetricArchiveColumn, Object> values = new EnumMap<>(MetricArchiveColumn.class);
+                if (userId != null) {
+                    Long[] groupUserIds = (Long[]) decode(MetricArchiveColumn.USER_ID, group);
+                    if (!Arrays.asList(groupUserIds).contains(userId)) {
+                        continue;
+                    }
+                    values.put(MetricArchiveColumn.USER_ID, groupUserIds);
+                }
+                values.put(
+                        MetricArchiveColumn.EVENT_TIME,
+                        decode(MetricArchiveColumn.EVENT_TIME, group));
+                for (MetricArchiveColumn column : columns) {
+                    if (!values.containsKey(column)) {
+                        values.put(column, decode(column, group));
+                    }
+                }
+
+                long[] ids = (long[]) values.get(MetricArchiveColumn.ID);
+                long[] times = (long[]) values.get(MetricArchiveColumn.EVENT_TIME);
+                String[] events = (String[]) values.get(MetricArchiveColumn.EVENT);
+                Long[] userIds = (Long[]) values.get(MetricArchiveColumn.USER_ID);
+                UUID[] eventIds = (UUID[]) values.get(MetricArchiveColumn.EVENT_ID);
+                String[] triggerIds = (String[]) values.get(MetricArchiveColumn.TRIGGER_ID);
+                String[] screens = (String[]) values.get(MetricArchiveColumn.SCREEN);
+                String[] metadata = (String[]) values.get(MetricArchiveColumn.METADATA);
+
+                for (int row = 0; row < group.rows(); row++) {
+                    if (times[row] < fromMicros || times[row] >= toMicros) {
+                        continue;
+                    }
+                    if (userId != null && !userId.equals(userIds[row])) {
+                        continue;
+                    }
+                    consumer.accept(
+                            new ExportedMetricEvent(
+                                    ids != null ? ids[row] : 0,
+                                    events != null ? events[row] : null,
+                                    fromMicros(times[row]),
+                                    userIds != null && columns.contains(MetricArchiveColumn.USER_ID)
+                                            ? userIds[row]
+                                            : null,
+                                    eventIds != null ? eventIds[row] : null,
+                                    triggerIds != null ? triggerIds[row] : null,
+                                    screens != null ? screens[row] : null,
+                                    metadata != null ? metadata[row] : null));
+                    passed++;
+                }
+            }
+            return passed;
+        }
+
+        private Object decode(MetricArchiveColumn column, RowGroup group) throws IOException {
+            Integer index = columnIndexes.get(column);
+            if (index == null) {
+                throw new IOException("Metrics archive file has no column " + column);
+            }
+            byte[] chunk = read(group.offsets()[index], group.lengths()[index]).array();
+            try (DataInputStream in =
+                    new DataInputStream(
+                            new InflaterInputStream(new ByteArrayInputStream(chunk)))) {
+                int rows = group.rows();
+                return switch (column) {
+                    case ID, EVENT_TIME -> readDeltas(in, rows);
+                    case USER_ID -> readNullableLongs(in, rows);
+                    case EVENT_ID -> readUuids(in, rows);
+                    case EVENT, TRIGGER_ID, SCREEN -> readDictionary(in, rows);
+                    case METADATA -> readStrings(in, rows);
+                };
+            }
+        }
+
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Metrics archive file is truncated");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static byte[] encode(MetricArchiveColumn column, List<ExportedMetricEvent> rows)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            switch (column) {
+                case ID -> writeDeltas(out, rows, ExportedMetricEvent::id);
+                case EVENT_TIME -> writeDeltas(out, rows, row -> toMicros(row.eventTime()));
+                case USER_ID -> {
+                    for (ExportedMetricEvent row : rows) {
+                        out.writeBoolean(row.userId() != null);
+                        if (row.userId() != null) {
+                            writeVarint(out, zigZag(row.userId()));
+                        }
+                    }
+                }
+                case EVENT_ID -> {
+                    for (ExportedMetricEvent row : rows) {
+                        out.writeBoolean(row.eventId() != null);
+                        if (row.eventId() != null) {
+                            out.writeLong(row.eventId().getMostSignificantBits());
+                            out.writeLong(row.eventId().getLeastSignificantBits());
+                        }
+                    }
+                }
+                case EVENT -> writeDictionary(out, rows, ExportedMetricEvent::event);
+                case TRIGGER_ID -> writeDictionary(out, rows, ExportedMetricEvent::triggerId);
+                case SCREEN -> writeDictionary(out, rows, ExportedMetricEvent::screen);
+                case METADATA -> {
+                    for (ExportedMetricEvent row : rows) {
+                        writeString(out, row.metadata());
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeDeltas(
+            DataOutput out, List<ExportedMetricEvent> rows, ToLongFunction<ExportedMetricEvent> f)
+            throws IOException {
+        long previous = 0;
+        for (ExportedMetricEvent row : rows) {
+            long value = f.applyAsLong(row);
+            writeVarint(out, zigZag(value - previous));
+            previous = value;
+        }
+    }
+
+    private static long[] readDeltas(DataInput in, int rows) throws IOException {
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unZigZag(readVarint(in));
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static Long[] readNullableLongs(DataInput in, int rows) throws IOException {
+        Long[] values = new Long[rows];
+        for (int i = 0; i < rows; i++) {
+            if (in.readBoolean()) {
+                values[i] = unZigZag(readVarint(in));
+            }
+        }
+        return values;
+    }
+
+    private static UUID[] readUuids(DataInput in, int rows) throws IOException {
+        UUID[] values = new UUID[rows];
+        for (int i = 0; i < rows; i++) {
+            if (in.readBoolean()) {
+                values[i] = new UUID(in.readLong(), in.readLong());
+            }
+        }
+        return values;
+    }
+
+    // The dictionary is written first, then one index per row; index 0 stands for null.
+    private static void writeDictionary(
+            DataOutput out, List<ExportedMetricEvent> rows, Function<ExportedMetricEvent, String> f)
+            throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = f.apply(rows.get(i));
+            if (value != null) {
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = dictionary.size() + 1;
+                    dictionary.put(value, index);
+                }
+                indexes[i] = index;
+            }
+        }
+
+        writeVarint(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+        for (int index : indexes) {
+            writeVarint(out, index);
+        }
+    }
+
+    private static String[] readDictionary(DataInput in, int rows) throws IOException {
+        String[] dictionary = new String[(int) readVarint(in) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[(int) readVarint(in)];
+        }
+        return values;
+    }
+
+    private static String[] readStrings(DataInput in, int rows) throws IOException {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    // Length + 1 so that 0 can stand for null.
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        long length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in metrics archive file");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long toMicros(Instant instant) {
+        return Math.addExact(
+                Math.multiplyExact(instant.getEpochSecond(), 1_000_000L),
+                instant.getNano() / 1000);
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000);
+    }
+
+    private record RowGroup(
+            int rows,
+            long minTime,
+            long maxTime,
+            UserIdIndex userIds,
+            long[] offsets,
+            int[] lengths) {}
+
+    /**
+     * The user ids of one row group: their range and a Bloom filter of ten bits per distinct user,
+     * so that about one in a hundred of the groups without the user is still read.
+     */
+    private record UserIdIndex(long minUserId, long maxUserId, int hashes, long[] bits) {
+
+        private static final int BITS_PER_USER = 10;
+        private static final int HASHES = 7;
+
+        /** A group with no user ids; no user can be in it. */
+        static final UserIdIndex NONE = new UserIdIndex(1, 0, 0, new long[0]);
+
+        /** A group from a file without the index; any user may be in it. */
+        static final UserIdIndex UNKNOWN =
+                new UserIdIndex(Long.MIN_VALUE, Long.MAX_VALUE, 0, new long[0]);
+
+        static UserIdIndex of(List<ExportedMetricEvent> rows) {
+            long[] userIds =
+                    rows.stream()
+                            .map(ExportedMetricEvent::userId)
+                            .filter(Objects::nonNull)
+                            .mapToLong(Long::longValue)
+                            .distinct()
+                            .toArray();
+            if (userIds.length == 0) {
+                return NONE;
+            }
+
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long[] bits = new long[Math.max(1, (userIds.length * BITS_PER_USER + 63) / 64)];
+            for (long userId : userIds) {
+                min = Math.min(min, userId);
+                max = Math.max(max, userId);
+                long hash = mix(userId);
+                for (int i = 1; i <= HASHES; i++) {
+                    long bit = bitFor(hash, i, bits.length);
+                    bits[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            return new UserIdIndex(min, max, HASHES, bits);
+        }
+
+        boolean mightContain(long userId) {
+            if (userId < minUserId || userId > maxUserId) {
+                return false;
+            }
+            long hash = mix(userId);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = bitFor(hash, i, bits.length);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeBoolean(bits.length > 0);
+            if (bits.length == 0) {
+                return;
+            }
+            out.writeLong(minUserId);
+            out.writeLong(maxUserId);
+            out.writeInt(hashes);
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        static UserIdIndex readFrom(DataInput in) throws IOException {
+            if (!in.readBoolean()) {
+                return NONE;
+            }
+            long min = in.readLong();
+            long max = in.readLong();
+            int hashes = in.readInt();
+            long[] bits = new long[in.readInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new UserIdIndex(min, max, hashes, bits);
+        }
+
+        // Double hashing: the i-th probe of k is first + i * second, over the filter's bits.
+        private static long bitFor(long hash, int i, int words) {
+            return Integer.toUnsignedLong((int) hash + i * (int) (hash >>> 32)) % (words * 64L);
+        }
+
+        // The SplitMix64 finalizer, so that consecutive user ids spread over the whole filter.
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+            value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+            return value ^ (value >>> 31);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.config.MetricArchiveConfig;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Archived metric events on local disk, one {@link MetricArchiveFile} per UTC day under {@code
+ * yyyy/MM/}. A day is written to a temporary file that replaces the day's file only once it is
+ * complete and synced, so readers never see a partial day and an interrupted archive run can
+ * simply write the day again.
+ */
+@Repository
+public class MetricArchiveStore {
+
+    private static final String FILE_SUFFIX = ".mcol";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final MetricArchiveConfig config;
+
+    public MetricArchiveStore(MetricArchiveConfig config) {
+        this.config = config;
+    }
+
+    /** Supplies the rows of one day, oldest first, to the writer. */
+    @FunctionalInterface
+    public interface DaySource {
+        void streamTo(Consumer<ExportedMetricEvent> consumer);
+    }
+
+    /**
+     * Writes the rows of {@code day}, replacing any earlier file for it. No file is written when
+     * the day has no rows.
+     *
+     * @return the number of rows written
+     */
+    public long writeDay(LocalDate day, DaySource source) throws IOException {
+        Path target = pathFor(day);
+        Files.createDirectories(target.getParent());
+        Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_SUFFIX);
+
+        long rows;
+        try (FileChannel channel =
+                FileChannel.open(
+                        temporary,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            MetricArchiveFile.Writer writer =
+                    new MetricArchiveFile.Writer(channel, config.getRowGroupSize());
+            try {
+                source.streamTo(
+                        row -> {
+                            try {
+                                writer.append(row);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows = writer.rowCount();
+            writer.finish();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        if (rows == 0) {
+            Files.delete(temporary);
+            return 0;
+        }
+        Files.move(
+                temporary,
+                target,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        return rows;
+    }
+
+    /** Archived days from {@code first} to {@code last}, both inclusive, oldest first. */
+    public List<LocalDate> findDays(LocalDate first, LocalDate last) throws IOException {
+        List<LocalDate> days = new ArrayList<>();
+        YearMonth firstMonth = YearMonth.from(first);
+        YearMonth lastMonth = YearMonth.from(last);
+        // Open-ended ranges start at the oldest archived year rather than walking every month.
+        Integer oldestYear = oldestArchivedYear();
+        if (oldestYear == null) {
+            return days;
+        }
+        if (firstMonth.getYear() < oldestYear) {
+            firstMonth = YearMonth.of(oldestYear, 1);
+        }
+        for (YearMonth month = firstMonth;
+                !month.isAfter(lastMonth);
+                month = month.plusMonths(1)) {
+            for (LocalDate day : daysIn(month)) {
+                if (!day.isBefore(first) && !day.isAfter(last)) {
+                    days.add(day);
+                }
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Passes the day's rows with an event time in {@code [from, to)} to {@code consumer}, reading
+     * only the given columns. A day that is not archived has no rows.
+     *
+     * @return the number of rows passed on
+     */
+    public long scanDay(
+            LocalDate day,
+            Instant from,
+            Instant to,
+            Set<MetricArchiveColumn> columns,
+            Consumer<ExportedMetricEvent> consumer)
+            throws IOException {
+        return scanDay(day, from, to, null, columns, consumer);
+    }
+
+    /**
+     * As {@link #scanDay(LocalDate, Instant, Instant, Set, Consumer)}, passing on only the rows of
+     * {@code userId} when it is not null. Row groups, and so whole days, whose user id index rules
+     * the user out are skipped after reading just the file's footer.
+     */
+    public long scanDay(
+            LocalDate day,
+            Instant from,
+            Instant to,
+            Long userId,
+            Set<MetricArchiveColumn> columns,
+            Consumer<ExportedMetricEvent> consumer)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(pathFor(day), StandardOpenOption.READ)) {
+            return new MetricArchiveFile.Reader(channel).scan(from, to, userId, columns, consumer);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the archived days of every month before {@code month}.
+     *
+     * @return the number of days deleted
+     */
+    public int deleteMonthsBefore(YearMonth month) throws IOException {
+        Path root = Path.of(config.getDirectory());
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+
+        int deleted = 0;
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(root)) {
+            for (Path yearDirectory : years) {
+                if (!Files.isDirectory(yearDirectory)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> months = Files.newDirectoryStream(yearDirectory)) {
+                    for (Path monthDirectory : months) {
+                        YearMonth archived = monthOf(yearDirectory, monthDirectory);
+                        if (archived == null
+                                || !archived.isBefore(month)
+                                || !Files.isDirectory(monthDirectory)) {
+                            continue;
+                        }
+                        deleted += daysIn(archived).size();
+                        deleteDirectory(monthDirectory);
+                    }
+                }
+                if (isEmpty(yearDirectory)) {
+                    Files.delete(yearDirectory);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    Path pathFor(LocalDate day) {
+        return monthDirectory(YearMonth.from(day)).resolve(day + FILE_SUFFIX);
+    }
+
+    private Path monthDirectory(YearMonth month) {
+        return Path.of(
+                config.getDirectory(),
+                String.format("%04d", month.getYear()),
+                String.format("%02d", month.getMonthValue()));
+    }
+
+    private List<LocalDate> daysIn(YearMonth month) throws IOException {
+        Path directory = monthDirectory(month);
+        List<LocalDate> days = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return days;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    days.add(
+                            LocalDate.parse(
+                                    name.substring(0, name.length() - FILE_SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    // Not one of ours; leave it alone.
+                }
+            }
+        }
+        days.sort(null);
+        return days;
+    }
+
+    private Integer oldestArchivedYear() throws IOException {
+        Path root = Path.of(config.getDirectory());
+        if (!Files.isDirectory(root)) {
+            return null;
+        }
+        Integer oldest = null;
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path yearDirectory : years) {
+                try {
+                    int year = Integer.parseInt(yearDirectory.getFileName().toString());
+                    if (oldest == null || year < oldest) {
+                        oldest = year;
+                    }
+                } catch (NumberFormatException e) {
+                    // Not one of ours; leave it alone.
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private static YearMonth monthOf(Path yearDirectory, Path monthDirectory) {
+        try {
+            return YearMonth.of(
+                    Integer.parseInt(yearDirectory.getFileName().toString()),
+                    Integer.parseInt(monthDirectory.getFileName().toString()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static boolean isEmpty(Path directory) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes metric events with plain JDBC batches. With {@code reWriteBatchedInserts} enabled on the
+ * connection the driver turns each batch into multi-row INSERT statements, which is far cheaper
+ * than one JPA {@code save} per event.
+ *
+ * <p>Events that carry a client id are inserted only if the id can be claimed in {@code
+ * metric_event_ids}; the claim and the insert are one statement, so deduplication adds no round
+ * trip. These statements are not rewritten into multi-row inserts but still go in one batch.
+ *
+ * <p>Ids come from {@code metrics_id_seq}, which hands out blocks of {@value #ID_BLOCK_SIZE} for
+ * Hibernate's pooled optimizer. The column default would spend a whole block on every row, so the
+ * writer takes blocks the same way Hibernate does, fetching as many as a batch needs in one query,
+ * and assigns the ids itself. Ids of events dropped as duplicates are skipped, leaving gaps.
+ */
+@Repository
+public class MetricEventWriter {
+
+    /** Must match the sequence's INCREMENT BY and allocationSize on MetricEventEntity. */
+    static final int ID_BLOCK_SIZE = 50;
+
+    static final String NEXT_ID_BLOCKS_SQL =
+            "SELECT nextval('metrics_id_seq') FROM generate_series(1, ?)";
+
+    static final String INSERT_SQL =
+            "INSERT INTO metrics (id, event, event_time, metadata, user_id)"
+                    + " VALUES (?, ?, ?, ?::jsonb, ?)";
+
+    static final String INSERT_WITH_ID_SQL =
+            "WITH claimed AS (INSERT INTO metric_event_ids (event_id) VALUES (?)"
+                    + " ON CONFLICT DO NOTHING RETURNING event_id)"
+                    + " INSERT INTO metrics (id, event, event_time, metadata, user_id, event_id)"
+                    + " SELECT ?, ?, ?, ?::jsonb, ?, event_id FROM claimed";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // The unused rest of the last fetched block. Guarded by "this".
+    private long nextId;
+    private long lastId = -1;
+
+    public MetricEventWriter(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.transactionTemplate = metricsDatabase.getTransactionTemplate();
+    }
+
+    /** Writes all events in one transaction; nothing is written if any row fails. */
+    public void writeBatch(List<PendingMetricEvent> events) {
+        long[] ids = allocateIds(events.size());
+        List<Row> withoutId = new ArrayList<>(events.size());
+        List<Row> withId = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            Row row = new Row(ids[i], events.get(i));
+            if (row.event().eventId() == null) {
+                withoutId.add(row);
+            } else {
+                withId.add(row);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    if (!withoutId.isEmpty()) {
+                        jdbcTemplate.batchUpdate(
+                                INSERT_SQL, withoutId, withoutId.size(), this::bind);
+                    }
+                    if (!withId.isEmpty()) {
+                        jdbcTemplate.batchUpdate(
+                                INSERT_WITH_ID_SQL, withId, withId.size(), this::bindWithId);
+                    }
+                });
+    }
+
+    public void writeOne(PendingMetricEvent event) {
+        Row row = new Row(allocateIds(1)[0], event);
+        if (event.eventId() == null) {
+            jdbcTemplate.update(INSERT_SQL, statement -> bind(statement, row));
+        } else {
+            jdbcTemplate.update(INSERT_WITH_ID_SQL, statement -> bindWithId(statement, row));
+        }
+    }
+
+    public int deleteEventIdsReceivedBefore(Instant cutoff) {
+        return jdbcTemplate.update(
+                "DELETE FROM metric_event_ids WHERE received_at < ?", Timestamp.from(cutoff));
+    }
+
+    /**
+     * Takes {@code count} ids, first from the rest of the current block and then from as many new
+     * blocks as needed. As with Hibernate's pooled optimizer, a fetched value is the top of its
+     * block, so the two never hand out the same id.
+     */
+    synchronized long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count && nextId <= lastId) {
+            ids[filled++] = nextId++;
+        }
+        if (filled == count) {
+            return ids;
+        }
+
+        int blocks = (count - filled + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        for (long top : jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks)) {
+            long id = top - ID_BLOCK_SIZE + 1;
+            while (filled < count && id <= top) {
+                ids[filled++] = id++;
+            }
+            nextId = id;
+            lastId = top;
+        }
+        return ids;
+    }
+
+    private void bind(PreparedStatement statement, Row row) throws SQLException {
+        bindEvent(statement, row, 1);
+    }
+
+    private void bindWithId(PreparedStatement statement, Row row) throws SQLException {
+        statement.setObject(1, row.event().eventId());
+        bindEvent(statement, row, 2);
+    }
+
+    private void bindEvent(PreparedStatement statement, Row row, int first) throws SQLException {
+        PendingMetricEvent event = row.event();
+        statement.setLong(first, row.id());
+        statement.setString(first + 1, event.event());
+        statement.setTimestamp(first + 2, Timestamp.from(event.eventTime()));
+        statement.setString(first + 3, event.metadata());
+        if (event.userId() != null) {
+            statement.setLong(first + 4, event.userId());
+        } else {
+            statement.setNull(first + 4, Types.BIGINT);
+        }
+    }
+
+    private record Row(long id, PendingMetricEvent event) {}
+}
@@ -0,0 +1,269 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.FunnelProgress;
+import com.atlas.metrics.service.model.FunnelState;
+import com.atlas.metrics.service.model.OpenSession;
+import com.atlas.metrics.service.model.UserMetricEvent;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Storage for the incremental funnel and session aggregates. The open attempts and sessions are
+ * replaced as a whole and the counts added to, together with the watermark, in one transaction
+ * per processed span, so a failed span is simply processed again. The counts are deltas, so a span
+ * saved twice would be counted twice: a save only goes through if the watermark is still the one
+ * the span started from, checked under an advisory lock.
+ */
+@Repository
+public class MetricFunnelRepository {
+
+    static final String WATERMARK_NAME = "funnels";
+
+    private static final int BATCH_SIZE = 500;
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_USER_EVENTS_SQL =
+            "SELECT user_id, event, event_time FROM metrics"
+                    + " WHERE event_time >= ? AND event_time < ? AND user_id IS NOT NULL"
+                    + " ORDER BY user_id, event_time, id";
+
+    private static final String INSERT_PROGRESS_SQL =
+            "INSERT INTO metric_funnel_progress (funnel, user_id, step, started_at)"
+                    + " VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_SESSION_SQL =
+            "INSERT INTO metric_sessions_open (user_id, started_at, last_event_at, event_count)"
+                    + " VALUES (?, ?, ?, ?)";
+
+    private static final String ADD_STEP_COUNT_SQL =
+            "INSERT INTO metric_funnel_counts (funnel, cohort_day, step, entries)"
+                    + " VALUES (?, ?, ?, ?) ON CONFLICT (funnel, cohort_day, step) DO UPDATE SET"
+                    + " entries = metric_funnel_counts.entries + EXCLUDED.entries";
+
+    private static final String ADD_SESSION_COUNT_SQL =
+            "INSERT INTO metric_session_stats"
+                    + " (day, sessions, total_duration_seconds, total_events)"
+                    + " VALUES (?, ?, ?, ?) ON CONFLICT (day) DO UPDATE SET"
+                    + " sessions = metric_session_stats.sessions + EXCLUDED.sessions,"
+                    + " total_duration_seconds = metric_session_stats.total_duration_seconds"
+                    + " + EXCLUDED.total_duration_seconds,"
+                    + " total_events = metric_session_stats.total_events + EXCLUDED.total_events";
+
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext(?))";
+
+    private static final String SAVE_WATERMARK_SQL =
+            "INSERT INTO metric_rollup_watermarks (name, watermark) VALUES (?, ?)"
+                    + " ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark,"
+                    + " updated_at = CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MetricFunnelRepository(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.transactionTemplate = metricsDatabase.getTransactionTemplate();
+        this.readOnlyTransaction =
+                new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public Optional<Instant> findWatermark() {
+        List<Timestamp> watermark =
+                jdbcTemplate.queryForList(
+                        "SELECT watermark FROM metric_rollup_watermarks WHERE name = ?",
+                        Timestamp.class,
+                        WATERMARK_NAME);
+        return watermark.stream().findFirst().map(Timestamp::toInstant);
+    }
+
+    public Optional<Instant> findEarliestEventTime() {
+        Timestamp earliest =
+                jdbcTemplate.queryForObject(
+                        "SELECT MIN(event_time) FROM metrics WHERE user_id IS NOT NULL",
+                        Timestamp.class);
+        return Optional.ofNullable(earliest).map(Timestamp::toInstant);
+    }
+
+    public void saveWatermark(Instant watermark) {
+        jdbcTemplate.update(SAVE_WATERMARK_SQL, WATERMARK_NAME, Timestamp.from(watermark));
+    }
+
+    public List<FunnelProgress> findOpenProgress() {
+        return jdbcTemplate.query(
+                "SELECT funnel, user_id, step, started_at FROM metric_funnel_progress",
+                (rs, rowNum) ->
+                        new FunnelProgress(
+                                rs.getString("funnel"),
+                                rs.getLong("user_id"),
+                                rs.getInt("step"),
+                                rs.getTimestamp("started_at").toInstant()));
+    }
+
+    public List<OpenSession> findOpenSessions() {
+        return jdbcTemplate.query(
+                "SELECT user_id, started_at, last_event_at, event_count FROM metric_sessions_open",
+                (rs, rowNum) ->
+                        new OpenSession(
+                                rs.getLong("user_id"),
+                                rs.getTimestamp("started_at").toInstant(),
+                                rs.getTimestamp("last_event_at").toInstant(),
+                                rs.getInt("event_count")));
+    }
+
+    /**
+     * Passes the events of identified users in {@code [from, to)} to {@code consumer}, grouped by
+     * user and in time order within each user, through a server-side cursor. Rows whose event
+     * name is no longer a {@link MetricEventType} are skipped.
+     */
+    public void streamUserEvents(Instant from, Instant to, Consumer<UserMetricEvent> consumer) {
+        readOnlyTransaction.executeWithoutResult(
+                status ->
+                        jdbcTemplate.query(
+                                connection -> {
+                                    PreparedStatement statement =
+                                            connection.prepareStatement(
+                                                    SELECT_USER_EVENTS_SQL,
+                                                    ResultSet.TYPE_FORWARD_ONLY,
+                                                    ResultSet.CONCUR_READ_ONLY);
+                                    statement.setFetchSize(FETCH_SIZE);
+                                    statement.setTimestamp(1, Timestamp.from(from));
+                                    statement.setTimestamp(2, Timestamp.from(to));
+                                    return statement;
+                                },
+                                (RowCallbackHandler)
+                                        rs -> {
+                                            MetricEventType event;
+                                            try {
+                                                event = MetricEventType.valueOf(rs.getString(2));
+                                            } catch (IllegalArgumentException e) {
+                                                return;
+                                            }
+                                            consumer.accept(
+                                                    new UserMetricEvent(
+                                                            rs.getLong(1),
+                                                            event,
+                                                            rs.getTimestamp(3).toInstant()));
+                                        }));
+    }
+
+    /**
+     * Stores the state left after processing events from {@code expectedWatermark} up to {@code
+     * watermark}. {@code expectedWatermark} is null if no watermark had been saved yet.
+     *
+     * @throws OptimisticLockingFailureException if another instance is saving or has already
+     *     moved the watermark; nothing is written
+     */
+    public void save(FunnelState state, Instant expectedWatermark, Instant watermark) {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    Boolean locked =
+                            jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class, WATERMARK_NAME);
+                    if (!Boolean.TRUE.equals(locked)) {
+                        throw new OptimisticLockingFailureException(
+                                "Funnels are being saved by another instance");
+                    }
+                    Optional<Instant> current = findWatermark();
+                    if (!current.equals(Optional.ofNullable(expectedWatermark))) {
+                        throw new OptimisticLockingFailureException(
+                                "Funnel watermark moved from "
+                                        + expectedWatermark
+                                        + " to "
+                                        + current.orElse(null));
+                    }
+
+                    jdbcTemplate.update("DELETE FROM metric_funnel_progress");
+                    jdbcTemplate.batchUpdate(
+                            INSERT_PROGRESS_SQL,
+                            state.progress(),
+                            BATCH_SIZE,
+                            (ps, attempt) -> {
+                                ps.setString(1, attempt.funnel());
+                                ps.setLong(2, attempt.userId());
+                                ps.setInt(3, attempt.step());
+                                ps.setTimestamp(4, Timestamp.from(attempt.startedAt()));
+                            });
+
+                    jdbcTemplate.update("DELETE FROM metric_sessions_open");
+                    jdbcTemplate.batchUpdate(
+                            INSERT_SESSION_SQL,
+                            state.sessions(),
+                            BATCH_SIZE,
+                            (ps, session) -> {
+                                ps.setLong(1, session.userId());
+                                ps.setTimestamp(2, Timestamp.from(session.startedAt()));
+                                ps.setTimestamp(3, Timestamp.from(session.lastEventAt()));
+                                ps.setInt(4, session.eventCount());
+                            });
+
+                    jdbcTemplate.batchUpdate(
+                            ADD_STEP_COUNT_SQL,
+                            state.stepCounts(),
+                            BATCH_SIZE,
+                            (ps, count) -> {
+                                ps.setString(1, count.funnel());
+                                ps.setDate(2, Date.valueOf(count.cohortDay()));
+                                ps.setInt(3, count.step());
+                                ps.setLong(4, count.entries());
+                            });
+                    jdbcTemplate.batchUpdate(
+                            ADD_SESSION_COUNT_SQL,
+                            state.sessionCounts(),
+                            BATCH_SIZE,
+                            (ps, count) -> {
+                                ps.setDate(1, Date.valueOf(count.day()));
+                                ps.setLong(2, count.sessions());
+                                ps.setLong(3, count.totalDurationSeconds());
+                                ps.setLong(4, count.totalEvents());
+                            });
+
+                    saveWatermark(watermark);
+                });
+    }
+
+    /** Attempts started on days {@code [from, to]} that reached each step, keyed by step. */
+    public Map<Integer, Long> findStepCounts(String funnel, LocalDate from, LocalDate to) {
+        Map<Integer, Long> counts = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT step, SUM(entries) AS entries FROM metric_funnel_counts"
+                        + " WHERE funnel = ? AND cohort_day >= ? AND cohort_day <= ?"
+                        + " GROUP BY step",
+                (RowCallbackHandler) rs -> counts.put(rs.getInt("step"), rs.getLong("entries")),
+                funnel,
+                Date.valueOf(from),
+                Date.valueOf(to));
+        return counts;
+    }
+
+    /** Totals of the sessions started on days {@code [from, to]}; the day is not set. */
+    public FunnelState.SessionCount findSessionCounts(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(sessions), 0) AS sessions,"
+                        + " COALESCE(SUM(total_duration_seconds), 0) AS total_duration_seconds,"
+                        + " COALESCE(SUM(total_events), 0) AS total_events"
+                        + " FROM metric_session_stats WHERE day >= ? AND day <= ?",
+                (rs, rowNum) ->
+                        new FunnelState.SessionCount(
+                                null,
+                                rs.getLong("sessions"),
+                                rs.getLong("total_duration_seconds"),
+                                rs.getLong("total_events")),
+                Date.valueOf(from),
+                Date.valueOf(to));
+    }
+}
@@ -0,0 +1,118 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.service.model.RollupGranularity;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the metric rollup tables. A range is always recomputed rather than incremented, so
+ * re-running it after late events have arrived simply replaces the affected buckets with the
+ * correct counts.
+ */
+@Repository
+public class MetricRollupRepository {
+
+    static final String WATERMARK_NAME = "metrics";
+
+    private static final String ROLLUP_RAW_SQL =
+            "INSERT INTO metric_rollups_minute (bucket_start, event, trigger_id, event_count)"
+                    + " SELECT date_trunc('minute', event_time, 'UTC'), event,"
+                    + " COALESCE(trigger_id, ''), COUNT(*)"
+                    + " FROM metrics WHERE event_time >= ? AND event_time < ?"
+                    + " GROUP BY 1, 2, 3";
+
+    private static final String SAVE_WATERMARK_SQL =
+            "INSERT INTO metric_rollup_watermarks (name, watermark) VALUES (?, ?)"
+                    + " ON CONFLICT (name) DO UPDATE SET"
+                    + " watermark ="
+                    + " GREATEST(metric_rollup_watermarks.watermark, EXCLUDED.watermark),"
+                    + " updated_at = CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MetricRollupRepository(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.transactionTemplate = metricsDatabase.getTransactionTemplate();
+    }
+
+    public Optional<Instant> findWatermark() {
+        List<Timestamp> watermark =
+                jdbcTemplate.queryForList(
+                        "SELECT watermark FROM metric_rollup_watermarks WHERE name = ?",
+                        Timestamp.class,
+                        WATERMARK_NAME);
+        return watermark.stream().findFirst().map(Timestamp::toInstant);
+    }
+
+    public Optional<Instant> findEarliestEventTime() {
+        Timestamp earliest =
+                jdbcTemplate.queryForObject("SELECT MIN(event_time) FROM metrics", Timestamp.class);
+        return Optional.ofNullable(earliest).map(Timestamp::toInstant);
+    }
+
+    /** Moves the watermark forward to {@code watermark}; it never moves back. */
+    public void saveWatermark(Instant watermark) {
+        jdbcTemplate.update(SAVE_WATERMARK_SQL, WATERMARK_NAME, Timestamp.from(watermark));
+    }
+
+    /**
+     * Recomputes the minute buckets in {@code [from, to)} from raw events, then the hour and day
+     * buckets that overlap the range, and advances the watermark to {@code to}, all in one
+     * transaction. {@code from} and {@code to} must be minute-aligned.
+     */
+    public void rollup(Instant from, Instant to) {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    replace(RollupGranularity.MINUTE, from, to);
+                    jdbcTemplate.update(ROLLUP_RAW_SQL, Timestamp.from(from), Timestamp.from(to));
+
+                    rollupFromFinerLevel(
+                            RollupGranularity.HOUR, RollupGranularity.MINUTE, from, to);
+                    rollupFromFinerLevel(RollupGranularity.DAY, RollupGranularity.HOUR, from, to);
+
+                    saveWatermark(to);
+                });
+    }
+
+    public int deleteOlderThan(RollupGranularity granularity, Instant cutoff) {
+        return jdbcTemplate.update(
+                "DELETE FROM " + granularity.getTable() + " WHERE bucket_start < ?",
+                Timestamp.from(cutoff));
+    }
+
+    private void rollupFromFinerLevel(
+            RollupGranularity target, RollupGranularity source, Instant from, Instant to) {
+        Instant bucketFrom = target.floor(from);
+        Instant bucketTo = target.ceil(to);
+
+        replace(target, bucketFrom, bucketTo);
+        jdbcTemplate.update(
+                "INSERT INTO "
+                        + target.getTable()
+                        + " (bucket_start, event, trigger_id, event_count)"
+                        + " SELECT date_trunc('"
+                        + target.getTruncateField()
+                        + "', bucket_start, 'UTC'), event, trigger_id, SUM(event_count)"
+                        + " FROM "
+                        + source.getTable()
+                        + " WHERE bucket_start >= ? AND bucket_start < ?"
+                        + " GROUP BY 1, 2, 3",
+                Timestamp.from(bucketFrom),
+                Timestamp.from(bucketTo));
+    }
+
+    private void replace(RollupGranularity granularity, Instant from, Instant to) {
+        jdbcTemplate.update(
+                "DELETE FROM "
+                        + granularity.getTable()
+                        + " WHERE bucket_start >= ? AND bucket_start < ?",
+                Timestamp.from(from),
+                Timestamp.from(to));
+    }
+}
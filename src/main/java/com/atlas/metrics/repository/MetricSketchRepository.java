@@ -0,0 +1,167 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.config.MetricSketchConfig;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Daily metric sketches kept in Redis, so that every instance adds to the same ones:
+ *
+ * <ul>
+ *   <li>a HyperLogLog of user ids per event, which Redis merges natively when several days are
+ *       counted together;
+ *   <li>a Count-Min Sketch of trigger ids per event, stored as a hash of {@code row:column}
+ *       counters. Instances merge by incrementing the same counters;
+ *   <li>a sorted set holding the heaviest trigger ids seen so far with their estimates.
+ * </ul>
+ */
+@Repository
+public class MetricSketchRepository {
+
+    static final String KEY_PREFIX = "metrics:sketch:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MetricSketchConfig config;
+
+    public MetricSketchRepository(StringRedisTemplate redisTemplate, MetricSketchConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+
+    public void addUsers(String event, LocalDate day, Collection<Long> userIds) {
+        String key = usersKey(event, day);
+        String[] values = userIds.stream().map(String::valueOf).toArray(String[]::new);
+        redisTemplate.executePipelined(
+                (RedisCallback<Object>)
+                        connection -> {
+                            StringRedisConnection strings = (StringRedisConnection) connection;
+                            strings.pfAdd(key, values);
+                            strings.expire(key, config.getRetention().toSeconds());
+                            return null;
+                        });
+    }
+
+    /**
+     * Adds the counts to the day's Count-Min Sketch and refreshes the heavy hitters with the new
+     * estimates. Costs two pipelined round trips however many trigger ids there are.
+     */
+    public void addTriggers(String event, LocalDate day, Map<String, Long> counts) {
+        String cmsKey = cmsKey(event, day);
+        String topKey = topKey(event, day);
+        List<String> triggerIds = new ArrayList<>(counts.keySet());
+        int depth = config.getDepth();
+
+        List<Object> totals =
+                redisTemplate.executePipelined(
+                        (RedisCallback<Object>)
+                                connection -> {
+                                    StringRedisConnection strings =
+                                            (StringRedisConnection) connection;
+                                    for (String triggerId : triggerIds) {
+                                        long count = counts.get(triggerId);
+                                        for (int row = 0; row < depth; row++) {
+                                            strings.hIncrBy(cmsKey, cell(triggerId, row), count);
+                                        }
+                                    }
+                                    return null;
+                                });
+
+        redisTemplate.executePipelined(
+                (RedisCallback<Object>)
+                        connection -> {
+                            StringRedisConnection strings = (StringRedisConnection) connection;
+                            for (int i = 0; i < triggerIds.size(); i++) {
+                                long estimate = Long.MAX_VALUE;
+                                for (int row = 0; row < depth; row++) {
+                                    estimate =
+                                            Math.min(
+                                                    estimate,
+                                                    ((Number) totals.get(i * depth + row))
+                                                            .longValue());
+                                }
+                                strings.zAdd(topKey, estimate, triggerIds.get(i));
+                            }
+                            // Keep only the top K; an evicted id returns if it grows again.
+                            strings.zRemRange(topKey, 0, -(config.getTopK() + 1));
+                            strings.expire(cmsKey, config.getRetention().toSeconds());
+                            strings.expire(topKey, config.getRetention().toSeconds());
+                            return null;
+                        });
+    }
+
+    /** Distinct users across all the given days, counted as the union of their HyperLogLogs. */
+    public long countUniqueUsers(String event, List<LocalDate> days) {
+        String[] keys = days.stream().map(day -> usersKey(event, day)).toArray(String[]::new);
+        Long count = redisTemplate.opsForHyperLogLog().size(keys);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * The heaviest trigger ids across the given days, with their estimates summed. An id that was
+     * heavy on only some of the days contributes only those days.
+     */
+    public List<Map.Entry<String, Long>> findTopTriggers(
+            String event, List<LocalDate> days, int limit) {
+        List<String> keys = days.stream().map(day -> topKey(event, day)).toList();
+        Set<TypedTuple<String>> tuples =
+                keys.size() == 1
+                        ? redisTemplate
+                                .opsForZSet()
+                                .reverseRangeWithScores(keys.get(0), 0, limit - 1)
+                        : redisTemplate
+                                .opsForZSet()
+                                .unionWithScores(keys.get(0), keys.subList(1, keys.size()));
+        if (tuples == null) {
+            return List.of();
+        }
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(tuples.size());
+        for (TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                entries.add(Map.entry(tuple.getValue(), tuple.getScore().longValue()));
+            }
+        }
+        entries.sort(
+                Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()));
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    String cell(String triggerId, int row) {
+        return row + ":" + Math.floorMod(hash(triggerId, row), config.getWidth());
+    }
+
+    // One independent-enough hash per row: the string's bytes mixed with a per-row seed.
+    private static long hash(String value, int row) {
+        long hash = 0x9e3779b97f4a7c15L * (row + 1);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    static String usersKey(String event, LocalDate day) {
+        return KEY_PREFIX + "users:" + event + ":" + day;
+    }
+
+    static String cmsKey(String event, LocalDate day) {
+        return KEY_PREFIX + "cms:" + event + ":" + day;
+    }
+
+    static String topKey(String event, LocalDate day) {
+        return KEY_PREFIX + "top:" + event + ":" + day;
+    }
+}
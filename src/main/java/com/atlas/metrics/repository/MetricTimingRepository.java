@@ -0,0 +1,143 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.service.model.TimingBucket;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import org.HdrHistogram.Histogram;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores per-minute timing histograms. Several instances, or a retried flush, may write the same
+ * minute, so a histogram that already exists is merged with the new one under a row lock rather
+ * than replaced.
+ */
+@Repository
+public class MetricTimingRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO metric_timing_histograms"
+                    + " (timing, route, bucket_start, sample_count, histogram)"
+                    + " VALUES (?, ?, ?, ?, ?)"
+                    + " ON CONFLICT (timing, route, bucket_start) DO NOTHING";
+
+    private static final String SELECT_FOR_UPDATE_SQL =
+            "SELECT histogram FROM metric_timing_histograms"
+                    + " WHERE timing = ? AND route = ? AND bucket_start = ? FOR UPDATE";
+
+    private static final String UPDATE_SQL =
+            "UPDATE metric_timing_histograms SET sample_count = ?, histogram = ?"
+                    + " WHERE timing = ? AND route = ? AND bucket_start = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MetricTimingRepository(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.transactionTemplate = metricsDatabase.getTransactionTemplate();
+    }
+
+    /** Adds each bucket's samples to the stored histogram for its minute, in one transaction. */
+    public void merge(List<TimingBucket> buckets) {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    for (TimingBucket bucket : buckets) {
+                        merge(bucket);
+                    }
+                });
+    }
+
+    /**
+     * Passes the stored histograms for {@code type} with buckets in {@code [from, to)} to {@code
+     * consumer}, for one route or for all of them when {@code route} is null.
+     */
+    public void findHistograms(
+            MetricTimingType type,
+            String route,
+            Instant from,
+            Instant to,
+            Consumer<Histogram> consumer) {
+        List<Object> args =
+                new ArrayList<>(List.of(type.name(), Timestamp.from(from), Timestamp.from(to)));
+        String sql =
+                "SELECT histogram FROM metric_timing_histograms"
+                        + " WHERE timing = ? AND bucket_start >= ? AND bucket_start < ?";
+        if (route != null) {
+            sql += " AND route = ?";
+            args.add(route);
+        }
+
+        jdbcTemplate.query(
+                sql,
+                (RowCallbackHandler) rs -> consumer.accept(decode(rs.getBytes(1))),
+                args.toArray());
+    }
+
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update(
+                "DELETE FROM metric_timing_histograms WHERE bucket_start < ?",
+                Timestamp.from(cutoff));
+    }
+
+    private void merge(TimingBucket bucket) {
+        Timestamp bucketStart = Timestamp.from(bucket.bucketStart());
+        Histogram histogram = bucket.histogram();
+
+        int inserted =
+                jdbcTemplate.update(
+                        INSERT_SQL,
+                        bucket.type().name(),
+                        bucket.route(),
+                        bucketStart,
+                        histogram.getTotalCount(),
+                        encode(histogram));
+        if (inserted > 0) {
+            return;
+        }
+
+        byte[] stored =
+                jdbcTemplate.queryForObject(
+                        SELECT_FOR_UPDATE_SQL,
+                        byte[].class,
+                        bucket.type().name(),
+                        bucket.route(),
+                        bucketStart);
+        Histogram merged = decode(stored);
+        merged.add(histogram);
+        jdbcTemplate.update(
+                UPDATE_SQL,
+                merged.getTotalCount(),
+                encode(merged),
+                bucket.type().name(),
+                bucket.route(),
+                bucketStart);
+    }
+
+    static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    static Histogram decode(byte[] encoded) {
+        try {
+            Histogram histogram =
+                    Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+            // Histograms written under a different highest trackable value can still be merged.
+            histogram.setAutoResize(true);
+            return histogram;
+        } catch (DataFormatException e) {
+            throw new DataRetrievalFailureException("Stored timing histogram is corrupt", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.atlas.metrics.repository;
+
+import com.atlas.metrics.config.MetricsDataSourceConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The connection pool, JDBC template and transactions used by the metrics repositories. Metrics
+ * get a Hikari pool of their own so that a burst of metric writes queues for metrics connections
+ * only, and never for the ones that authentication and user lookups run on.
+ *
+ * <p>The pool connects as the application pool does: it takes the URL, credentials and driver the
+ * application pool was built with, then binds {@code spring.datasource.hikari} the same way Spring
+ * Boot does, so driver and SSL settings under {@code data-source-properties} carry over. Only the
+ * pool's name, size and connection timeout come from {@link MetricsDataSourceConfig}.
+ *
+ * <p>The pool is deliberately not a {@code DataSource} bean: the application's pool, JPA
+ * transaction manager and templates stay exactly as auto-configured. Its wait times and usage are
+ * published under the {@code hikaricp.*} meters, tagged with the pool name.
+ */
+@Component
+@Slf4j
+public class MetricsDatabase {
+
+    private static final String HIKARI_PROPERTIES = "spring.datasource.hikari";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HikariDataSource ownPool;
+
+    public MetricsDatabase(
+            MetricsDataSourceConfig config,
+            DataSource applicationDataSource,
+            PlatformTransactionManager applicationTransactionManager,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        if (!config.isSeparatePool()) {
+            this.ownPool = null;
+            this.dataSource = applicationDataSource;
+            this.transactionTemplate = new TransactionTemplate(applicationTransactionManager);
+        } else {
+            this.ownPool = createPool(config, applicationDataSource, environment, meterRegistry);
+            this.dataSource = ownPool;
+            this.transactionTemplate =
+                    new TransactionTemplate(new DataSourceTransactionManager(ownPool));
+            log.info(
+                    "Metrics connection pool {} configured with up to {} connections",
+                    config.getPoolName(),
+                    config.getMaximumPoolSize());
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
+    }
+
+    @PreDestroy
+    void close() {
+        if (ownPool != null) {
+            ownPool.close();
+        }
+    }
+
+    private static HikariDataSource createPool(
+            MetricsDataSourceConfig config,
+            DataSource applicationDataSource,
+            Environment environment,
+            MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        HikariDataSource application = unwrapHikari(applicationDataSource);
+        if (application != null) {
+            pool.setJdbcUrl(application.getJdbcUrl());
+            pool.setUsername(application.getUsername());
+            pool.setPassword(application.getPassword());
+            if (application.getDriverClassName() != null) {
+                pool.setDriverClassName(application.getDriverClassName());
+            }
+        }
+        // As the application pool is built: spring.datasource first, then its hikari settings.
+        Binder.get(environment).bind(HIKARI_PROPERTIES, Bindable.ofInstance(pool));
+        if (config.getUrl() != null) {
+            pool.setJdbcUrl(config.getUrl());
+        }
+        if (config.getUsername() != null) {
+            pool.setUsername(config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            pool.setPassword(config.getPassword());
+        }
+        if (pool.getJdbcUrl() == null) {
+            throw new IllegalStateException(
+                    "metrics.datasource.url must be set when the application pool is not Hikari");
+        }
+
+        pool.setPoolName(config.getPoolName());
+        pool.setMaximumPoolSize(config.getMaximumPoolSize());
+        pool.setMinimumIdle(config.getMinimumIdle());
+        pool.setConnectionTimeout(config.getConnectionTimeout().toMillis());
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            return null;
+        }
+        return null;
+    }
+}
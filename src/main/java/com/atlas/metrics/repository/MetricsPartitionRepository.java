@@ -0,0 +1,93 @@
+package com.atlas.metrics.repository;
+
+import java.time.Instant;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * DDL for the partitions of {@code metrics}. Partition names are built by the caller from dates
+ * and validated here before they are spliced into a statement, since identifiers cannot be bound
+ * as parameters.
+ */
+@Repository
+public class MetricsPartitionRepository {
+
+    // Monthly partitions (metrics_p) and detached ones waiting to be archived (metrics_a).
+    private static final String PARTITION_NAME_PATTERN = "metrics_[pa]\\d{4}_\\d{2}";
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT child.relname FROM pg_inherits"
+                    + " JOIN pg_class parent ON parent.oid = pg_inherits.inhparent"
+                    + " JOIN pg_class child ON child.oid = pg_inherits.inhrelid"
+                    + " WHERE parent.relname = 'metrics'";
+
+    private static final String LIST_ARCHIVING_SQL =
+            "SELECT relname FROM pg_class WHERE relkind = 'r'"
+                    + " AND relname ~ '^metrics_a[0-9]{4}_[0-9]{2}$'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MetricsPartitionRepository(MetricsDatabase metricsDatabase) {
+        this.jdbcTemplate = metricsDatabase.getJdbcTemplate();
+        this.transactionTemplate = metricsDatabase.getTransactionTemplate();
+    }
+
+    /** Names of all partitions currently attached to {@code metrics}. */
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    }
+
+    /** Whether any events have landed outside the range covered by the monthly partitions. */
+    public boolean defaultPartitionHasRows() {
+        return Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM metrics_default)", Boolean.class));
+    }
+
+    public void createPartition(String name, Instant from, Instant to) {
+        jdbcTemplate.execute(
+                "CREATE TABLE IF NOT EXISTS "
+                        + checked(name)
+                        + " PARTITION OF metrics FOR VALUES FROM ('"
+                        + from
+                        + "') TO ('"
+                        + to
+                        + "')");
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE metrics DETACH PARTITION " + checked(name));
+    }
+
+    /**
+     * Detaches a partition and renames it in one transaction, so a detached table waiting to be
+     * archived is never mistaken for one detached by retention.
+     */
+    public void detachPartitionAs(String name, String detachedName) {
+        transactionTemplate.executeWithoutResult(
+                status -> {
+                    detachPartition(name);
+                    jdbcTemplate.execute(
+                            "ALTER TABLE " + checked(name) + " RENAME TO " + checked(detachedName));
+                });
+    }
+
+    /** Names of the detached {@code metrics_a} tables that are still waiting to be archived. */
+    public List<String> findArchivingTables() {
+        return jdbcTemplate.queryForList(LIST_ARCHIVING_SQL, String.class);
+    }
+
+    public void dropTable(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + checked(name));
+    }
+
+    static String checked(String name) {
+        if (!name.matches(PARTITION_NAME_PATTERN)) {
+            throw new IllegalArgumentException("Not a metrics partition name: " + name);
+        }
+        return name;
+    }
+}
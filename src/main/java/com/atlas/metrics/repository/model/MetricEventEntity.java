@@ -2,6 +2,7 @@ package com.atlas.metrics.repository.model;
 
 import jakarta.persistence.*;
 import java.sql.Timestamp;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,7 +17,11 @@ import org.hibernate.annotations.ColumnTransformer;
 @Table(name = "metrics")
 public class MetricEventEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "metrics_id_seq")
+    @SequenceGenerator(
+            name = "metrics_id_seq",
+            sequenceName = "metrics_id_seq",
+            allocationSize = 50)
     Long id;
 
     String event;
@@ -27,4 +32,14 @@ public class MetricEventEntity {
 
     @Column(nullable = true)
     private Long userId;
+
+    @Column(nullable = true)
+    private UUID eventId;
+
+    // Generated by Postgres from metadata.
+    @Column(insertable = false, updatable = false)
+    private String triggerId;
+
+    @Column(insertable = false, updatable = false)
+    private String screen;
 }
@@ -0,0 +1,197 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricFunnelConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.FunnelProgress;
+import com.atlas.metrics.service.model.FunnelState;
+import com.atlas.metrics.service.model.OpenSession;
+import com.atlas.metrics.service.model.UserMetricEvent;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Advances funnel attempts and sessions over one span of events. It starts from the state left by
+ * the previous span, so each event is looked at exactly once, and the counts it produces are
+ * deltas to be added to the stored totals.
+ *
+ * <p>A user has at most one attempt per funnel. An attempt starts at the funnel's first step,
+ * moves on when the next step's event arrives and is dropped once its window has passed; a
+ * repeat of the first step during an attempt does not restart it. A session is a user's run of
+ * events without a gap longer than the session gap; {@code LOGOUT} also ends it.
+ *
+ * <p>Events must be passed in time order for each user; different users may be interleaved.
+ */
+class FunnelEngine {
+
+    private final List<MetricFunnelConfig.Funnel> funnels;
+    private final Duration sessionGap;
+
+    private final Map<String, Map<Long, FunnelProgress>> progress = new HashMap<>();
+    private final Map<Long, OpenSession> sessions = new HashMap<>();
+
+    private final Map<StepKey, Long> stepCounts = new HashMap<>();
+    private final Map<LocalDate, long[]> sessionCounts = new HashMap<>();
+
+    FunnelEngine(
+            List<MetricFunnelConfig.Funnel> funnels,
+            Duration sessionGap,
+            List<FunnelProgress> openProgress,
+            List<OpenSession> openSessions) {
+        this.funnels = funnels;
+        this.sessionGap = sessionGap;
+
+        for (MetricFunnelConfig.Funnel funnel : funnels) {
+            progress.put(funnel.getName(), new HashMap<>());
+        }
+        // Attempts at funnels that are no longer configured are dropped.
+        for (FunnelProgress attempt : openProgress) {
+            Map<Long, FunnelProgress> attempts = progress.get(attempt.funnel());
+            if (attempts != null) {
+                attempts.put(attempt.userId(), attempt);
+            }
+        }
+        for (OpenSession session : openSessions) {
+            sessions.put(session.userId(), session);
+        }
+    }
+
+    void accept(UserMetricEvent event) {
+        for (MetricFunnelConfig.Funnel funnel : funnels) {
+            advanceFunnel(funnel, event);
+        }
+        advanceSession(event);
+    }
+
+    /**
+     * Closes what can no longer change once every event before {@code watermark} has been
+     * accepted: sessions idle for longer than the gap and attempts whose window has passed.
+     */
+    void advanceTo(Instant watermark) {
+        sessions.values()
+                .removeIf(
+                        session -> {
+                            boolean idle =
+                                    session.lastEventAt().plus(sessionGap).isBefore(watermark);
+                            if (idle) {
+                                countSession(session);
+                            }
+                            return idle;
+                        });
+
+        for (MetricFunnelConfig.Funnel funnel : funnels) {
+            progress.get(funnel.getName())
+                    .values()
+                    .removeIf(
+                            attempt ->
+                                    attempt.startedAt()
+                                            .plus(funnel.getWindow())
+                                            .isBefore(watermark));
+        }
+    }
+
+    FunnelState state() {
+        List<FunnelProgress> openProgress = new ArrayList<>();
+        progress.values().forEach(attempts -> openProgress.addAll(attempts.values()));
+
+        List<FunnelState.StepCount> steps = new ArrayList<>(stepCounts.size());
+        stepCounts.forEach(
+                (key, entries) ->
+                        steps.add(
+                                new FunnelState.StepCount(
+                                        key.funnel(), key.cohortDay(), key.step(), entries)));
+
+        List<FunnelState.SessionCount> closed = new ArrayList<>(sessionCounts.size());
+        sessionCounts.forEach(
+                (day, totals) ->
+                        closed.add(
+                                new FunnelState.SessionCount(
+                                        day, totals[0], totals[1], totals[2])));
+
+        return new FunnelState(openProgress, new ArrayList<>(sessions.values()), steps, closed);
+    }
+
+    private void advanceFunnel(MetricFunnelConfig.Funnel funnel, UserMetricEvent event) {
+        List<MetricEventType> steps = funnel.getSteps();
+        Map<Long, FunnelProgress> attempts = progress.get(funnel.getName());
+        FunnelProgress attempt = attempts.get(event.userId());
+
+        if (attempt != null
+                && event.eventTime().isAfter(attempt.startedAt().plus(funnel.getWindow()))) {
+            attempts.remove(event.userId());
+            attempt = null;
+        }
+
+        if (attempt != null) {
+            if (steps.get(attempt.step()) == event.event()) {
+                int step = attempt.step() + 1;
+                count(funnel.getName(), attempt.startedAt(), step);
+                if (step == steps.size()) {
+                    attempts.remove(event.userId());
+                } else {
+                    attempts.put(
+                            event.userId(),
+                            new FunnelProgress(
+                                    funnel.getName(), event.userId(), step, attempt.startedAt()));
+                }
+            }
+            return;
+        }
+
+        if (steps.get(0) == event.event()) {
+            count(funnel.getName(), event.eventTime(), 1);
+            attempts.put(
+                    event.userId(),
+                    new FunnelProgress(funnel.getName(), event.userId(), 1, event.eventTime()));
+        }
+    }
+
+    private void advanceSession(UserMetricEvent event) {
+        OpenSession session = sessions.get(event.userId());
+        if (session != null
+                && Duration.between(session.lastEventAt(), event.eventTime())
+                                .compareTo(sessionGap)
+                        > 0) {
+            countSession(session);
+            session = null;
+        }
+
+        session =
+                session == null
+                        ? new OpenSession(event.userId(), event.eventTime(), event.eventTime(), 1)
+                        : new OpenSession(
+                                event.userId(),
+                                session.startedAt(),
+                                event.eventTime(),
+                                session.eventCount() + 1);
+
+        if (event.event() == MetricEventType.LOGOUT) {
+            sessions.remove(event.userId());
+            countSession(session);
+        } else {
+            sessions.put(event.userId(), session);
+        }
+    }
+
+    private void count(String funnel, Instant startedAt, int step) {
+        stepCounts.merge(new StepKey(funnel, dayOf(startedAt), step), 1L, Long::sum);
+    }
+
+    private void countSession(OpenSession session) {
+        long[] totals = sessionCounts.computeIfAbsent(dayOf(session.startedAt()), d -> new long[3]);
+        totals[0]++;
+        totals[1] += Duration.between(session.startedAt(), session.lastEventAt()).toSeconds();
+        totals[2] += session.eventCount();
+    }
+
+    private static LocalDate dayOf(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private record StepKey(String funnel, LocalDate cohortDay, int step) {}
+}
@@ -0,0 +1,141 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.MetricEventDTO;
+import com.atlas.metrics.controller.model.RawJson;
+import com.atlas.metrics.service.model.InternalMetricEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records {@link InternalMetricEvent}s published by the rest of the application. The listener only
+ * queues the event, so the publisher returns without waiting on metrics storage; a background
+ * thread then hands it to the normal ingestion path, where it is written in batches with client
+ * events. The queue is bounded and events that do not fit are dropped and counted rather than
+ * pushing back on the login and logout requests that raise them.
+ */
+@Component
+@Slf4j
+public class InternalMetricEventListener {
+
+    static final String DROPPED_METRIC = "metrics.ingestion.internal.dropped";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final MetricsService metricsService;
+    private final MetricsIngestionConfig.InternalEvents config;
+    private final Executor executor;
+    private final Counter droppedCounter;
+
+    @Autowired
+    public InternalMetricEventListener(
+            MetricsService metricsService,
+            MetricsIngestionConfig ingestionConfig,
+            MeterRegistry meterRegistry) {
+        this(
+                metricsService,
+                ingestionConfig.getInternalEvents(),
+                meterRegistry,
+                executorFor(ingestionConfig.getInternalEvents()));
+    }
+
+    InternalMetricEventListener(
+            MetricsService metricsService,
+            MetricsIngestionConfig.InternalEvents config,
+            MeterRegistry meterRegistry,
+            Executor executor) {
+        this.metricsService = metricsService;
+        this.config = config;
+        this.executor = executor;
+        this.droppedCounter =
+                Counter.builder(DROPPED_METRIC)
+                        .description("Internal metric events dropped because the queue was full")
+                        .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onInternalMetricEvent(InternalMetricEvent event) {
+        try {
+            executor.execute(() -> record(event));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void record(InternalMetricEvent event) {
+        try {
+            metricsService.saveMetricEvent(toMetricEventDTO(event));
+        } catch (Exception e) {
+            log.warn(
+                    "Failed to record {} metric for user {}: {}",
+                    event.event(),
+                    event.userId(),
+                    e.getMessage());
+        }
+    }
+
+    private MetricEventDTO toMetricEventDTO(InternalMetricEvent event) {
+        return MetricEventDTO.builder()
+                .event(event.event())
+                .eventMetadata(RawJson.of(metadataJson(event)))
+                .userId(event.userId())
+                .build();
+    }
+
+    private static String metadataJson(InternalMetricEvent event) {
+        StringWriter out = new StringWriter(64);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("triggerId", event.triggerId());
+            generator.writeStringField("screen", event.screen());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    // Queued events are handed to the ingestion buffer before it drains on shutdown.
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+            executorService.awaitTermination(
+                    config.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // With no threads configured the events are recorded on the publishing thread.
+    private static Executor executorFor(MetricsIngestionConfig.InternalEvents config) {
+        if (config.getThreads() <= 0) {
+            return Runnable::run;
+        }
+        return new ThreadPoolExecutor(
+                config.getThreads(),
+                config.getThreads(),
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "metrics-internal");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
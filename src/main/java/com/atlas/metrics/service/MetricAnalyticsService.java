@@ -0,0 +1,294 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricRollupConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.service.model.BreakdownDimension;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.MetricBreakdown;
+import com.atlas.metrics.service.model.MetricCounts;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.RollupGranularity;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import com.atlas.metrics.service.model.UserTimelinePage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers analytics queries over metric events. Counts and breakdowns are read from the rollup
+ * tables, so their cost depends on the number of buckets asked for rather than on the number of
+ * events. User timelines and event searches read raw events with keyset pagination, which costs
+ * the same on every page however deep it is; searches whose range reaches into archived days
+ * carry on into the archive once the events still in the database run out.
+ */
+@Service
+public class MetricAnalyticsService {
+
+    static final int MAX_BUCKETS = 10_000;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MetricAnalyticsRepository analyticsRepository;
+    private final MetricArchiveService archiveService;
+    private final MetricRollupConfig rollupConfig;
+    private final Clock clock;
+
+    @Autowired
+    public MetricAnalyticsService(
+            MetricAnalyticsRepository analyticsRepository,
+            MetricArchiveService archiveService,
+            MetricRollupConfig rollupConfig) {
+        this(analyticsRepository, archiveService, rollupConfig, Clock.systemUTC());
+    }
+
+    MetricAnalyticsService(
+            MetricAnalyticsRepository analyticsRepository,
+            MetricArchiveService archiveService,
+            MetricRollupConfig rollupConfig,
+            Clock clock) {
+        this.analyticsRepository = analyticsRepository;
+        this.archiveService = archiveService;
+        this.rollupConfig = rollupConfig;
+        this.clock = clock;
+    }
+
+    /** Counts per bucket and event. The range is widened to whole buckets. */
+    public MetricCounts getCounts(
+            RollupGranularity granularity, Instant from, Instant to, String event) {
+        validateRange(from, to);
+        validateEvent(event);
+
+        Instant start = granularity.floor(from);
+        Instant end = granularity.ceil(to);
+        long buckets = Duration.between(start, end).dividedBy(granularity.getBucketSize());
+        if (buckets > MAX_BUCKETS) {
+            throw new InvalidMetricsQueryException(
+                    "Range covers "
+                            + buckets
+                            + " buckets; use a coarser granularity or at most "
+                            + MAX_BUCKETS);
+        }
+
+        return new MetricCounts(
+                granularity,
+                start,
+                end,
+                analyticsRepository.findCounts(granularity, start, end, event));
+    }
+
+    /**
+     * Totals for the range grouped by event or trigger. Read from the coarsest rollup whose
+     * buckets line up with the range, falling back to a coarser one (and a wider range) when the
+     * finer rollup has already expired for the start of the range.
+     */
+    public MetricBreakdown getBreakdown(
+            BreakdownDimension dimension, Instant from, Instant to, String event) {
+        validateRange(from, to);
+        validateEvent(event);
+
+        RollupGranularity granularity = granularityFor(from, to);
+        Instant start = granularity.floor(from);
+        Instant end = granularity.ceil(to);
+
+        return new MetricBreakdown(
+                dimension,
+                granularity,
+                start,
+                end,
+                analyticsRepository.findBreakdown(granularity, dimension, start, end, event));
+    }
+
+    public UserTimelinePage getUserTimeline(long userId, String cursor, Integer limit) {
+        return page(
+                cursor,
+                limit,
+                (beforeTime, beforeId, size) ->
+                        userTimelineHotThenArchived(userId, beforeTime, beforeId, size));
+    }
+
+    /**
+     * Raw events in the range matching the filter, newest first. Filters on the event type,
+     * trigger id and screen use the indexed columns; {@code contains} uses the GIN index on the
+     * metadata. Archived days are older than anything left in the database, so a page is only
+     * filled from the archive once the database has no more matching rows.
+     */
+    public UserTimelinePage searchEvents(
+            MetricEventFilter filter, Instant from, Instant to, String cursor, Integer limit) {
+        validateRange(from, to);
+        validateEvent(filter.event());
+        validateContains(filter.contains());
+
+        return page(
+                cursor,
+                limit,
+                (beforeTime, beforeId, size) ->
+                        searchHotThenArchived(filter, from, to, beforeTime, beforeId, size));
+    }
+
+    private List<UserTimelineEvent> searchHotThenArchived(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            Instant beforeTime,
+            Long beforeId,
+            int limit) {
+        List<UserTimelineEvent> events =
+                analyticsRepository.searchEvents(filter, from, to, beforeTime, beforeId, limit);
+        if (events.size() >= limit) {
+            return events;
+        }
+
+        List<UserTimelineEvent> page = new ArrayList<>(events);
+        if (!events.isEmpty()) {
+            UserTimelineEvent last = events.get(events.size() - 1);
+            beforeTime = last.eventTime();
+            beforeId = last.id();
+        }
+        page.addAll(
+                archiveService.searchArchived(
+                        filter, from, to, beforeTime, beforeId, limit - events.size()));
+        return page;
+    }
+
+    private List<UserTimelineEvent> userTimelineHotThenArchived(
+            long userId, Instant beforeTime, Long beforeId, int limit) {
+        List<UserTimelineEvent> events =
+                analyticsRepository.findUserTimeline(userId, beforeTime, beforeId, limit);
+        if (events.size() >= limit) {
+            return events;
+        }
+
+        List<UserTimelineEvent> page = new ArrayList<>(events);
+        if (!events.isEmpty()) {
+            UserTimelineEvent last = events.get(events.size() - 1);
+            beforeTime = last.eventTime();
+            beforeId = last.id();
+        }
+        page.addAll(
+                archiveService.searchUserTimeline(
+                        userId, beforeTime, beforeId, limit - events.size()));
+        return page;
+    }
+
+    private UserTimelinePage page(String cursor, Integer limit, PageQuery query) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidMetricsQueryException(
+                    "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Instant beforeTime = null;
+        Long beforeId = null;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            beforeTime = Instant.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+
+        // One extra row tells us whether there is another page without a count query.
+        List<UserTimelineEvent> events = query.find(beforeTime, beforeId, pageSize + 1);
+        if (events.size() <= pageSize) {
+            return new UserTimelinePage(events, null);
+        }
+
+        List<UserTimelineEvent> page = events.subList(0, pageSize);
+        UserTimelineEvent last = page.get(pageSize - 1);
+        return new UserTimelinePage(List.copyOf(page), encodeCursor(last));
+    }
+
+    private RollupGranularity granularityFor(Instant from, Instant to) {
+        RollupGranularity granularity = RollupGranularity.MINUTE;
+        if (isAligned(RollupGranularity.HOUR, from, to)) {
+            granularity = RollupGranularity.HOUR;
+        }
+        if (isAligned(RollupGranularity.DAY, from, to)) {
+            granularity = RollupGranularity.DAY;
+        }
+
+        Instant now = clock.instant();
+        if (granularity == RollupGranularity.MINUTE
+                && from.isBefore(now.minus(rollupConfig.getMinuteRetention()))) {
+            granularity = RollupGranularity.HOUR;
+        }
+        if (granularity == RollupGranularity.HOUR
+                && from.isBefore(now.minus(rollupConfig.getHourRetention()))) {
+            granularity = RollupGranularity.DAY;
+        }
+        return granularity;
+    }
+
+    private static boolean isAligned(RollupGranularity granularity, Instant from, Instant to) {
+        return granularity.floor(from).equals(from) && granularity.floor(to).equals(to);
+    }
+
+    static void validateRange(Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidMetricsQueryException("from must be before to");
+        }
+    }
+
+    static void validateEvent(String event) {
+        if (event == null) {
+            return;
+        }
+        try {
+            MetricEventType.valueOf(event);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMetricsQueryException("Unknown event type " + event);
+        }
+    }
+
+    static void validateContains(String contains) {
+        if (contains == null) {
+            return;
+        }
+        try {
+            if (!OBJECT_MAPPER.readTree(contains).isObject()) {
+                throw new InvalidMetricsQueryException("contains must be a JSON object");
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidMetricsQueryException("contains must be a JSON object");
+        }
+    }
+
+    static String encodeCursor(UserTimelineEvent event) {
+        String position = event.eventTime() + CURSOR_SEPARATOR + event.id();
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\" + CURSOR_SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            Instant.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidMetricsQueryException("Invalid cursor");
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        List<UserTimelineEvent> find(Instant beforeTime, Long beforeId, int limit);
+    }
+}
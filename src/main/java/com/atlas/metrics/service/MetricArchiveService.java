@@ -0,0 +1,458 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricArchiveConfig;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.repository.MetricArchiveStore;
+import com.atlas.metrics.repository.MetricsPartitionRepository;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves monthly partitions of {@code metrics} that have left the hot window out of PostgreSQL and
+ * into per-day columnar files on local disk, and reads those files back for queries whose range
+ * reaches into archived days.
+ *
+ * <p>A partition is first detached and renamed to {@code metrics_aYYYY_MM}, so no late insert can
+ * land in it after its day has been written, then written day by day from the detached table,
+ * which is dropped once every day has been written. A failed run leaves the detached table for
+ * the next run to write again; until then its rows are in neither the database nor the archive.
+ * Queries read only the columns they return or filter on. Archived months always lie before the
+ * hot window, so queries that start inside it never touch the disk.
+ */
+@Service
+@Slf4j
+public class MetricArchiveService {
+
+    /** Columns needed to build a {@link UserTimelineEvent}. */
+    static final Set<MetricArchiveColumn> TIMELINE_COLUMNS =
+            EnumSet.of(
+                    MetricArchiveColumn.ID,
+                    MetricArchiveColumn.EVENT,
+                    MetricArchiveColumn.EVENT_TIME,
+                    MetricArchiveColumn.METADATA);
+
+    static final String ARCHIVING_PREFIX = "metrics_a";
+
+    private static final Comparator<ExportedMetricEvent> OLDEST_FIRST =
+            Comparator.comparing(ExportedMetricEvent::eventTime)
+                    .thenComparingLong(ExportedMetricEvent::id);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MetricArchiveStore archiveStore;
+    private final MetricAnalyticsRepository analyticsRepository;
+    private final MetricsPartitionRepository partitionRepository;
+    private final MetricArchiveConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public MetricArchiveService(
+            MetricArchiveStore archiveStore,
+            MetricAnalyticsRepository analyticsRepository,
+            MetricsPartitionRepository partitionRepository,
+            MetricArchiveConfig config) {
+        this(archiveStore, analyticsRepository, partitionRepository, config, Clock.systemUTC());
+    }
+
+    MetricArchiveService(
+            MetricArchiveStore archiveStore,
+            MetricAnalyticsRepository analyticsRepository,
+            MetricsPartitionRepository partitionRepository,
+            MetricArchiveConfig config,
+            Clock clock) {
+        this.archiveStore = archiveStore;
+        this.analyticsRepository = analyticsRepository;
+        this.partitionRepository = partitionRepository;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.archive.initial-delay:PT5M}",
+            fixedDelayString = "${metrics.archive.interval:PT6H}")
+    public void archiveOldPartitions() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        YearMonth oldestHot = oldestHotMonth(currentMonth);
+
+        // Tables detached by a run that failed part-way are finished along with the cold
+        // partitions, oldest month first.
+        Map<YearMonth, String> attached = new HashMap<>();
+        for (String name : partitionRepository.findPartitionNames()) {
+            YearMonth month = MetricsPartitionService.monthOf(name);
+            if (month != null && month.isBefore(oldestHot)) {
+                attached.put(month, name);
+            }
+        }
+        Set<YearMonth> months = new TreeSet<>(attached.keySet());
+        for (String name : partitionRepository.findArchivingTables()) {
+            YearMonth month = monthOfArchiving(name);
+            if (month != null) {
+                months.add(month);
+                attached.remove(month);
+            }
+        }
+
+        for (YearMonth month : months) {
+            try {
+                archiveMonth(month, attached.get(month));
+            } catch (Exception e) {
+                log.warn("Failed to archive metrics for {}: {}", month, e.getMessage());
+                // Later partitions are left alone so the archive never has gaps before them.
+                break;
+            }
+        }
+
+        if (config.getRetentionMonths() > 0) {
+            try {
+                int deleted =
+                        archiveStore.deleteMonthsBefore(
+                                currentMonth.minusMonths(config.getRetentionMonths()));
+                if (deleted > 0) {
+                    log.info("Deleted {} expired days from the metrics archive", deleted);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to expire archived metrics: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Archives one month. {@code partition} is the attached partition to detach first, or null if
+     * a previous run already detached it.
+     */
+    private void archiveMonth(YearMonth month, String partition) throws IOException {
+        String table = archivingName(month);
+        if (partition != null) {
+            partitionRepository.detachPartitionAs(partition, table);
+        }
+
+        long started = System.nanoTime();
+        long rows = 0;
+        for (LocalDate day = month.atDay(1);
+                !day.isAfter(month.atEndOfMonth());
+                day = day.plusDays(1)) {
+            Instant start = startOf(day);
+            Instant end = startOf(day.plusDays(1));
+            rows +=
+                    archiveStore.writeDay(
+                            day,
+                            consumer ->
+                                    analyticsRepository.streamDetachedPartition(
+                                            table, start, end, config.getFetchSize(), consumer));
+        }
+
+        partitionRepository.dropTable(table);
+        log.info(
+                "Archived metrics for {} ({} events) in {} ms",
+                month,
+                rows,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Passes the archived events in {@code [from, to)} matching the filter to {@code consumer},
+     * oldest first. Only {@code columns} and the columns the filter needs are read; the others are
+     * null in the events passed on.
+     *
+     * @return the number of events passed on
+     */
+    public long streamArchived(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            Set<MetricArchiveColumn> columns,
+            Consumer<ExportedMetricEvent> consumer) {
+        Set<MetricArchiveColumn> read = columnsFor(filter, columns);
+        JsonNode contains = parseContains(filter);
+        long[] passed = {0};
+
+        for (LocalDate day : archivedDays(from, to)) {
+            scanDay(
+                    day,
+                    from,
+                    to,
+                    null,
+                    read,
+                    event -> {
+                        if (matches(filter, contains, event)) {
+                            consumer.accept(event);
+                            passed[0]++;
+                        }
+                    });
+        }
+        return passed[0];
+    }
+
+    /**
+     * Returns up to {@code limit} archived events in {@code [from, to)} matching the filter,
+     * newest first, that sort strictly before {@code (beforeTime, beforeId)}; both null to start
+     * from the newest. Days are read newest first and reading stops once the page is full.
+     */
+    public List<UserTimelineEvent> searchArchived(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            Instant beforeTime,
+            Long beforeId,
+            int limit) {
+        JsonNode contains = parseContains(filter);
+        return search(
+                from,
+                to,
+                null,
+                columnsFor(filter, TIMELINE_COLUMNS),
+                event -> matches(filter, contains, event),
+                beforeTime,
+                beforeId,
+                limit);
+    }
+
+    /**
+     * Returns up to {@code limit} archived events of the user, newest first, paged the same way
+     * as {@link #searchArchived}. Each day file indexes the user ids of its row groups, so the
+     * days and row groups without the user are passed over after reading only the file footers.
+     */
+    public List<UserTimelineEvent> searchUserTimeline(
+            long userId, Instant beforeTime, Long beforeId, int limit) {
+        YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        Instant to = MetricsPartitionService.startOf(oldestHotMonth(currentMonth));
+        if (beforeTime != null && beforeTime.isBefore(to)) {
+            // Events at beforeTime itself can still come before the cursor on id.
+            to = beforeTime.plusNanos(1);
+        }
+        // Nothing older than the retention is left on disk. Kept forever, the days are looked
+        // up from the oldest archived year, not from the epoch.
+        Instant from =
+                config.getRetentionMonths() > 0
+                        ? MetricsPartitionService.startOf(
+                                currentMonth.minusMonths(config.getRetentionMonths()))
+                        : Instant.EPOCH;
+        return search(
+                from, to, userId, TIMELINE_COLUMNS, event -> true, beforeTime, beforeId, limit);
+    }
+
+    private List<UserTimelineEvent> search(
+            Instant from,
+            Instant to,
+            Long userId,
+            Set<MetricArchiveColumn> read,
+            Predicate<ExportedMetricEvent> filter,
+            Instant beforeTime,
+            Long beforeId,
+            int limit) {
+        List<UserTimelineEvent> found = new ArrayList<>();
+        List<LocalDate> days = archivedDays(from, to);
+        for (int i = days.size() - 1; i >= 0 && found.size() < limit; i--) {
+            // Keeps only the newest events that still fit on the page; the head is the oldest.
+            int remaining = limit - found.size();
+            PriorityQueue<ExportedMetricEvent> newest = new PriorityQueue<>(OLDEST_FIRST);
+            scanDay(
+                    days.get(i),
+                    from,
+                    to,
+                    userId,
+                    read,
+                    event -> {
+                        if (!isBefore(event, beforeTime, beforeId) || !filter.test(event)) {
+                            return;
+                        }
+                        if (newest.size() < remaining) {
+                            newest.add(event);
+                        } else if (OLDEST_FIRST.compare(event, newest.peek()) > 0) {
+                            newest.poll();
+                            newest.add(event);
+                        }
+                    });
+
+            List<ExportedMetricEvent> page = new ArrayList<>(newest);
+            page.sort(OLDEST_FIRST.reversed());
+            for (ExportedMetricEvent event : page) {
+                found.add(
+                        new UserTimelineEvent(
+                                event.id(), event.event(), event.eventTime(), event.metadata()));
+            }
+        }
+        return found;
+    }
+
+    private List<LocalDate> archivedDays(Instant from, Instant to) {
+        YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        if (!from.isBefore(MetricsPartitionService.startOf(oldestHotMonth(currentMonth)))) {
+            return List.of();
+        }
+        try {
+            return archiveStore.findDays(
+                    LocalDate.ofInstant(from, ZoneOffset.UTC),
+                    LocalDate.ofInstant(to.minusNanos(1), ZoneOffset.UTC));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void scanDay(
+            LocalDate day,
+            Instant from,
+            Instant to,
+            Long userId,
+            Set<MetricArchiveColumn> columns,
+            Consumer<ExportedMetricEvent> consumer) {
+        try {
+            archiveStore.scanDay(day, from, to, userId, columns, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived metrics for " + day, e);
+        }
+    }
+
+    private YearMonth oldestHotMonth(YearMonth currentMonth) {
+        return currentMonth.minusMonths(Math.max(0, config.getHotMonths()));
+    }
+
+    static Set<MetricArchiveColumn> columnsFor(
+            MetricEventFilter filter, Set<MetricArchiveColumn> columns) {
+        Set<MetricArchiveColumn> read = EnumSet.copyOf(columns);
+        read.add(MetricArchiveColumn.ID);
+        read.add(MetricArchiveColumn.EVENT_TIME);
+        if (filter.event() != null) {
+            read.add(MetricArchiveColumn.EVENT);
+        }
+        if (filter.triggerId() != null) {
+            read.add(MetricArchiveColumn.TRIGGER_ID);
+        }
+        if (filter.screen() != null) {
+            read.add(MetricArchiveColumn.SCREEN);
+        }
+        if (filter.contains() != null) {
+            read.add(MetricArchiveColumn.METADATA);
+        }
+        return read;
+    }
+
+    private static boolean isBefore(ExportedMetricEvent event, Instant beforeTime, Long beforeId) {
+        if (beforeTime == null || beforeId == null) {
+            return true;
+        }
+        int byTime = event.eventTime().compareTo(beforeTime);
+        return byTime < 0 || (byTime == 0 && event.id() < beforeId);
+    }
+
+    private static boolean matches(
+            MetricEventFilter filter, JsonNode contains, ExportedMetricEvent event) {
+        if (filter.event() != null && !filter.event().equals(event.event())) {
+            return false;
+        }
+        if (filter.triggerId() != null && !filter.triggerId().equals(event.triggerId())) {
+            return false;
+        }
+        if (filter.screen() != null && !filter.screen().equals(event.screen())) {
+            return false;
+        }
+        if (contains == null) {
+            return true;
+        }
+        try {
+            return event.metadata() != null
+                    && jsonContains(OBJECT_MAPPER.readTree(event.metadata()), contains);
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    private static JsonNode parseContains(MetricEventFilter filter) {
+        if (filter.contains() == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readTree(filter.contains());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("contains must be a JSON object", e);
+        }
+    }
+
+    /** The containment test of PostgreSQL's {@code jsonb @>}, for the archived metadata. */
+    static boolean jsonContains(JsonNode container, JsonNode contained) {
+        if (contained.isObject()) {
+            if (!container.isObject()) {
+                return false;
+            }
+            for (Map.Entry<String, JsonNode> field : contained.properties()) {
+                JsonNode value = container.get(field.getKey());
+                if (value == null || !jsonContains(value, field.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (contained.isArray()) {
+            if (!container.isArray()) {
+                return false;
+            }
+            for (JsonNode element : contained) {
+                boolean found = false;
+                for (JsonNode candidate : container) {
+                    if (jsonContains(candidate, element)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (container.isNumber() && contained.isNumber()) {
+            return container.decimalValue().compareTo(contained.decimalValue()) == 0;
+        }
+        return container.equals(contained);
+    }
+
+    static String archivingName(YearMonth month) {
+        return ARCHIVING_PREFIX
+                + MetricsPartitionService.partitionName(month)
+                        .substring(MetricsPartitionService.PARTITION_PREFIX.length());
+    }
+
+    static YearMonth monthOfArchiving(String name) {
+        if (!name.startsWith(ARCHIVING_PREFIX)) {
+            return null;
+        }
+        return MetricsPartitionService.monthOf(
+                MetricsPartitionService.PARTITION_PREFIX
+                        + name.substring(ARCHIVING_PREFIX.length()));
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,171 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.controller.model.RawJson;
+import com.atlas.metrics.service.model.ExceptionTypes.MalformedMetricBatchException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchItemError;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a batch of metric events from a request body. The body is either a JSON array of events
+ * or newline-delimited JSON, optionally gzip-compressed. {@code navigator.sendBeacon} cannot set
+ * a {@code Content-Encoding} header, so compression is detected from the gzip magic bytes rather
+ * than from headers.
+ *
+ * <p>The body is parsed one item at a time without building a tree; each item's metadata is
+ * copied through as compact JSON text (see {@link RawJson}) and only the validated events are
+ * kept. An invalid item is reported by its position and does not reject the rest of the batch,
+ * but malformed JSON does, since the parser cannot reliably find the next item after a syntax
+ * error.
+ */
+@Component
+public class MetricBatchReader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MetricsIngestionConfig config;
+
+    public MetricBatchReader(MetricsIngestionConfig config) {
+        this.config = config;
+    }
+
+    public MetricBatch read(InputStream body) {
+        List<MetricBatch.Item> items = new ArrayList<>();
+        List<MetricBatchItemError> errors = new ArrayList<>();
+        int index = 0;
+
+        try (JsonParser parser = OBJECT_MAPPER.createParser(decompressIfGzipped(body))) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if (index >= config.getMaxBatchItems()) {
+                    throw new MetricBatchTooLargeException(
+                            "Batches are limited to " + config.getMaxBatchItems() + " events");
+                }
+
+                try {
+                    items.add(new MetricBatch.Item(index, readEvent(parser)));
+                } catch (IllegalArgumentException e) {
+                    errors.add(new MetricBatchItemError(index, e.getMessage()));
+                }
+                index++;
+                token = parser.nextToken();
+            }
+
+            if (array && parser.nextToken() != null) {
+                throw new MalformedMetricBatchException("Unexpected content after the JSON array");
+            }
+        } catch (JsonProcessingException e) {
+            throw new MalformedMetricBatchException(
+                    "Malformed JSON at item " + index + ": " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new MalformedMetricBatchException("Could not read the batch body", e);
+        }
+
+        return new MetricBatch(items, errors);
+    }
+
+    // Reads the item's fields in a single pass, leaving the parser on the item's last token even
+    // when it is invalid. The checks run in a fixed order so that an item with several problems
+    // always reports the same one.
+    private PendingMetricEvent readEvent(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("Item is not a JSON object");
+        }
+
+        String event = null;
+        String metadata = null;
+        String metadataError = "eventMetadata must be a JSON object";
+        Long userId = null;
+        boolean userIdValid = true;
+        String eventId = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "event" -> event = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "eventMetadata" -> {
+                    try {
+                        metadata = RawJson.read(parser).json();
+                    } catch (IllegalArgumentException e) {
+                        metadata = null;
+                        metadataError = e.getMessage();
+                    }
+                }
+                case "userId" -> {
+                    userIdValid = value == JsonToken.VALUE_NULL || value.isNumeric();
+                    userId = value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+                }
+                case "eventId" -> eventId = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                default -> {}
+            }
+            parser.skipChildren();
+        }
+
+        if (event == null) {
+            throw new IllegalArgumentException("event is required");
+        }
+        MetricEventType eventType;
+        try {
+            eventType = MetricEventType.valueOf(event);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown event type " + event);
+        }
+
+        if (metadata == null) {
+            throw new IllegalArgumentException(metadataError);
+        }
+
+        if (!userIdValid) {
+            throw new IllegalArgumentException("userId must be a number");
+        }
+
+        UUID parsedEventId = null;
+        if (eventId != null) {
+            try {
+                parsedEventId = UUID.fromString(eventId);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("eventId must be a UUID");
+            }
+        }
+
+        return new PendingMetricEvent(
+                eventType.name(), Instant.now(), metadata, userId, parsedEventId);
+    }
+
+    private InputStream decompressIfGzipped(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] magic = new byte[2];
+        int read = in.readNBytes(magic, 0, 2);
+        if (read > 0) {
+            in.unread(magic, 0, read);
+        }
+
+        if (read == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
+}
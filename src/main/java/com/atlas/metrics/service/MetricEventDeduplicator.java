@@ -0,0 +1,95 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsDedupConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drops metric events whose client-supplied id was already seen, without a database round trip.
+ * Ids are checked against a {@link TimeWindowedBloomFilter} on the request thread, so retries and
+ * double-fired handlers hitting the same instance within the window are discarded before they are
+ * queued. Anything the filter cannot catch (another instance, a restart, a retry after the window)
+ * is caught by the {@code metric_event_ids} backstop that {@link MetricEventWriter} claims in the
+ * same statement as the insert.
+ */
+@Service
+@Slf4j
+public class MetricEventDeduplicator {
+
+    private final MetricsDedupConfig config;
+    private final MetricEventWriter writer;
+    private final Clock clock;
+    private final TimeWindowedBloomFilter filter;
+    private final Counter duplicateCounter;
+
+    @Autowired
+    public MetricEventDeduplicator(
+            MetricsDedupConfig config, MetricEventWriter writer, MeterRegistry meterRegistry) {
+        this(config, writer, meterRegistry, Clock.systemUTC());
+    }
+
+    MetricEventDeduplicator(
+            MetricsDedupConfig config,
+            MetricEventWriter writer,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.config = config;
+        this.writer = writer;
+        this.clock = clock;
+        this.filter =
+                new TimeWindowedBloomFilter(
+                        config.getExpectedEventsPerWindow(),
+                        config.getFalsePositiveRate(),
+                        config.getWindow(),
+                        clock);
+        this.duplicateCounter =
+                Counter.builder("metrics.ingestion.duplicates")
+                        .description("Metric events dropped because their id was already seen")
+                        .register(meterRegistry);
+    }
+
+    /**
+     * Returns true if an event with this id was probably accepted already. Events without an id
+     * are never duplicates.
+     */
+    public boolean isDuplicate(UUID eventId) {
+        if (eventId == null || !config.isEnabled() || !filter.mightContain(eventId)) {
+            return false;
+        }
+        duplicateCounter.increment();
+        return true;
+    }
+
+    /**
+     * Remembers the id of an accepted event. Ids are only remembered after acceptance so that a
+     * client retrying an event that was refused is not mistaken for a duplicate.
+     */
+    public void accepted(UUID eventId) {
+        if (eventId != null && config.isEnabled()) {
+            filter.put(eventId);
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.dedup.cleanup-interval:PT1H}",
+            fixedDelayString = "${metrics.dedup.cleanup-interval:PT1H}")
+    public void purgeExpiredIds() {
+        try {
+            int deleted =
+                    writer.deleteEventIdsReceivedBefore(
+                            clock.instant().minus(config.getBackstopRetention()));
+            if (deleted > 0) {
+                log.info("Purged {} expired metric event ids", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired metric event ids: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsExportConfig;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.service.model.ExportFormat;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes raw metric events as CSV or newline-delimited JSON. Rows go straight from the database
+ * cursor to the output stream one at a time, so an export of any size holds only the current row
+ * and the write buffer in memory. Archived days in the range are read from the archive first, as
+ * they are older than anything left in the database.
+ *
+ * <p>An export keeps its read transaction, and so a metrics pool connection, open until the client
+ * has downloaded the last row. Callers reserve one of {@code max-concurrent} slots first so that
+ * slow downloads cannot take every connection from ingestion.
+ */
+@Service
+@Slf4j
+public class MetricExportService {
+
+    static final String CSV_HEADER =
+            "id,event,event_time,user_id,event_id,trigger_id,screen,metadata\n";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final MetricAnalyticsRepository analyticsRepository;
+    private final MetricArchiveService archiveService;
+    private final MetricsExportConfig config;
+    private final Semaphore slots;
+
+    public MetricExportService(
+            MetricAnalyticsRepository analyticsRepository,
+            MetricArchiveService archiveService,
+            MetricsExportConfig config) {
+        this.analyticsRepository = analyticsRepository;
+        this.archiveService = archiveService;
+        this.config = config;
+        this.slots = new Semaphore(config.getMaxConcurrent());
+    }
+
+    /**
+     * Reserves an export slot without waiting. Returns false if {@code max-concurrent} exports
+     * are already running; otherwise the caller must {@link #release()} once its export is done.
+     */
+    public boolean tryReserve() {
+        return slots.tryAcquire();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    /** Checks the query up front so it can be rejected before any of the response is written. */
+    public void validate(MetricEventFilter filter, Instant from, Instant to) {
+        MetricAnalyticsService.validateRange(from, to);
+        MetricAnalyticsService.validateEvent(filter.event());
+        MetricAnalyticsService.validateContains(filter.contains());
+    }
+
+    /**
+     * Writes every event in {@code [from, to)} matching the filter to {@code out}, oldest first.
+     * The stream is flushed but not closed.
+     *
+     * @return the number of events written
+     */
+    public long export(
+            ExportFormat format,
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            OutputStream out)
+            throws IOException {
+        validate(filter, from, to);
+
+        long started = System.nanoTime();
+        Writer writer =
+                new BufferedWriter(
+                        new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                        config.getBufferSize());
+        long rows;
+        try {
+            rows =
+                    switch (format) {
+                        case CSV -> exportCsv(filter, from, to, writer);
+                        case NDJSON -> exportNdjson(filter, from, to, writer);
+                    };
+        } catch (UncheckedIOException e) {
+            // The client went away or the response could not be written; stop reading rows.
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info(
+                "Exported {} metric events as {} in {} ms",
+                rows,
+                format,
+                (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    private long exportCsv(MetricEventFilter filter, Instant from, Instant to, Writer writer)
+            throws IOException {
+        writer.write(CSV_HEADER);
+        return stream(
+                filter,
+                from,
+                to,
+                event -> {
+                    try {
+                        writeCsvRow(event, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private long exportNdjson(MetricEventFilter filter, Instant from, Instant to, Writer writer)
+            throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            // The writer belongs to the caller and is flushed by export(). Lines are separated
+            // explicitly rather than by the default space between root values.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            return stream(
+                    filter,
+                    from,
+                    to,
+                    event -> {
+                        try {
+                            writeJsonLine(event, generator);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }
+    }
+
+    private long stream(
+            MetricEventFilter filter,
+            Instant from,
+            Instant to,
+            Consumer<ExportedMetricEvent> consumer) {
+        long archived =
+                archiveService.streamArchived(
+                        filter, from, to, EnumSet.allOf(MetricArchiveColumn.class), consumer);
+        return archived
+                + analyticsRepository.streamEvents(
+                        filter, from, to, config.getFetchSize(), consumer);
+    }
+
+    private static void writeCsvRow(ExportedMetricEvent event, Writer writer) throws IOException {
+        writer.write(Long.toString(event.id()));
+        writer.write(',');
+        writeCsvValue(event.event(), writer);
+        writer.write(',');
+        writer.write(event.eventTime().toString());
+        writer.write(',');
+        if (event.userId() != null) {
+            writer.write(Long.toString(event.userId()));
+        }
+        writer.write(',');
+        if (event.eventId() != null) {
+            writer.write(event.eventId().toString());
+        }
+        writer.write(',');
+        writeCsvValue(event.triggerId(), writer);
+        writer.write(',');
+        writeCsvValue(event.screen(), writer);
+        writer.write(',');
+        writeCsvValue(event.metadata(), writer);
+        writer.write('\n');
+    }
+
+    // RFC 4180: a value is quoted only when it contains a separator, quote or line break.
+    private static void writeCsvValue(String value, Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJsonLine(ExportedMetricEvent event, JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", event.id());
+        generator.writeStringField("event", event.event());
+        generator.writeStringField("eventTime", event.eventTime().toString());
+        if (event.userId() != null) {
+            generator.writeNumberField("userId", event.userId());
+        }
+        if (event.eventId() != null) {
+            generator.writeStringField("eventId", event.eventId().toString());
+        }
+        if (event.triggerId() != null) {
+            generator.writeStringField("triggerId", event.triggerId());
+        }
+        if (event.screen() != null) {
+            generator.writeStringField("screen", event.screen());
+        }
+        // Stored as JSONB, so the text is already valid JSON and can be copied as-is.
+        generator.writeFieldName("eventMetadata");
+        generator.writeRawValue(event.metadata());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,174 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricFunnelConfig;
+import com.atlas.metrics.repository.MetricFunnelRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.FunnelReport;
+import com.atlas.metrics.service.model.FunnelState;
+import com.atlas.metrics.service.model.SessionSummary;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains funnel step counts and session statistics behind their own watermark. Each run feeds
+ * the events between the watermark and a settle delay behind the clock through a {@link
+ * FunnelEngine}, starting from the attempts and sessions left open by the previous run, and adds
+ * the resulting counts to the stored totals. Queries only read those totals.
+ *
+ * <p>Every event is processed once, so unlike the rollups nothing is re-read: an event committed
+ * more than the settle delay after its event time is not counted. When several instances run, a
+ * span is only saved by the one that still holds the watermark it started from; the others give
+ * up until their next run.
+ */
+@Service
+@Slf4j
+public class MetricFunnelService {
+
+    private final MetricFunnelRepository funnelRepository;
+    private final MetricFunnelConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public MetricFunnelService(MetricFunnelRepository funnelRepository, MetricFunnelConfig config) {
+        this(funnelRepository, config, Clock.systemUTC());
+    }
+
+    MetricFunnelService(
+            MetricFunnelRepository funnelRepository, MetricFunnelConfig config, Clock clock) {
+        this.funnelRepository = funnelRepository;
+        this.config = config;
+        this.clock = clock;
+        validateDefinitions(config.getDefinitions());
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.funnels.initial-delay:PT1M}",
+            fixedDelayString = "${metrics.funnels.interval:PT1M}")
+    public void process() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        Instant upper =
+                clock.instant().minus(config.getSettleDelay()).truncatedTo(ChronoUnit.SECONDS);
+        Instant watermark = funnelRepository.findWatermark().orElse(null);
+        Instant from = watermark;
+        if (from == null) {
+            from = funnelRepository.findEarliestEventTime().orElse(null);
+            if (from == null) {
+                funnelRepository.saveWatermark(upper);
+                return;
+            }
+        }
+
+        for (int chunk = 0; chunk < config.getMaxChunksPerRun() && from.isBefore(upper); chunk++) {
+            Instant chunkEnd = from.plus(config.getMaxChunk());
+            if (chunkEnd.isAfter(upper)) {
+                chunkEnd = upper;
+            }
+
+            try {
+                processSpan(watermark, from, chunkEnd);
+            } catch (OptimisticLockingFailureException e) {
+                log.debug("Funnels were processed by another instance: {}", e.getMessage());
+                return;
+            } catch (Exception e) {
+                log.warn(
+                        "Failed to process funnels from {} to {}: {}",
+                        from,
+                        chunkEnd,
+                        e.getMessage());
+                return;
+            }
+            from = chunkEnd;
+            watermark = chunkEnd;
+        }
+    }
+
+    public FunnelReport getFunnel(String name, LocalDate from, LocalDate to) {
+        MetricFunnelConfig.Funnel funnel =
+                config.getDefinitions().stream()
+                        .filter(definition -> definition.getName().equals(name))
+                        .findFirst()
+                        .orElseThrow(
+                                () -> new InvalidMetricsQueryException("Unknown funnel " + name));
+        validateRange(from, to);
+
+        Map<Integer, Long> counts = funnelRepository.findStepCounts(name, from, to);
+        long started = counts.getOrDefault(1, 0L);
+        List<FunnelReport.Step> steps = new ArrayList<>(funnel.getSteps().size());
+        long previous = started;
+        for (int step = 1; step <= funnel.getSteps().size(); step++) {
+            long entries = counts.getOrDefault(step, 0L);
+            steps.add(
+                    new FunnelReport.Step(
+                            step,
+                            funnel.getSteps().get(step - 1).name(),
+                            entries,
+                            ratio(entries, started),
+                            ratio(entries, previous)));
+            previous = entries;
+        }
+        return new FunnelReport(name, from, to, funnel.getWindow(), steps);
+    }
+
+    public SessionSummary getSessions(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        FunnelState.SessionCount totals = funnelRepository.findSessionCounts(from, to);
+        return new SessionSummary(
+                from,
+                to,
+                totals.sessions(),
+                ratio(totals.totalDurationSeconds(), totals.sessions()),
+                ratio(totals.totalEvents(), totals.sessions()));
+    }
+
+    private void processSpan(Instant watermark, Instant from, Instant to) {
+        FunnelEngine engine =
+                new FunnelEngine(
+                        config.getDefinitions(),
+                        config.getSessionGap(),
+                        funnelRepository.findOpenProgress(),
+                        funnelRepository.findOpenSessions());
+        funnelRepository.streamUserEvents(from, to, engine::accept);
+        engine.advanceTo(to);
+        funnelRepository.save(engine.state(), watermark, to);
+    }
+
+    private static void validateDefinitions(List<MetricFunnelConfig.Funnel> definitions) {
+        Set<String> names = new HashSet<>();
+        for (MetricFunnelConfig.Funnel funnel : definitions) {
+            if (funnel.getName() == null || !names.add(funnel.getName())) {
+                throw new IllegalArgumentException(
+                        "Funnel names must be present and unique: " + funnel.getName());
+            }
+            if (funnel.getSteps().size() < 2) {
+                throw new IllegalArgumentException(
+                        "Funnel " + funnel.getName() + " needs at least two steps");
+            }
+        }
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new InvalidMetricsQueryException("to must not be before from");
+        }
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0 : (double) numerator / denominator;
+    }
+}
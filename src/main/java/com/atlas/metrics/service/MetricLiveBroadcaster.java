@@ -0,0 +1,230 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricLiveConfig;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricLiveViewUnavailableException;
+import com.atlas.metrics.service.model.LiveMetricRate;
+import com.atlas.metrics.service.model.LiveMetricSnapshot;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes live event rates to dashboard subscribers over server-sent events. One snapshot is taken
+ * and serialized per push however many subscribers there are, and nothing is computed while
+ * nobody is subscribed. Pushes run on their own thread, and snapshots are sent from a fixed pool
+ * of sender threads with at most one send in flight per subscriber, so a subscriber on a slow
+ * connection holds up neither the scheduled jobs nor the other subscribers. A subscriber that is
+ * still busy with an earlier snapshot skips the new one, and one whose send has not finished
+ * within the send timeout is dropped; the dashboard reconnects on its own.
+ *
+ * <p>A blocked servlet write cannot be interrupted, so a dropped subscriber's send keeps its
+ * sender thread until the container's socket write timeout fails it, and only then is the
+ * subscription completed, from that same thread. Stuck subscribers therefore tie up at most the
+ * configured number of sender threads, never more.
+ */
+@Service
+@Slf4j
+public class MetricLiveBroadcaster {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final MetricLiveCounters liveCounters;
+    private final MetricLiveConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService senders;
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricLiveBroadcaster(MetricLiveCounters liveCounters, MetricLiveConfig config) {
+        this(
+                liveCounters,
+                config,
+                Executors.newSingleThreadScheduledExecutor(daemonThreads("metrics-live")),
+                // The queue holds at most one send per subscriber.
+                Executors.newFixedThreadPool(
+                        config.getSenderThreads(), daemonThreads("metrics-live-send")));
+    }
+
+    MetricLiveBroadcaster(
+            MetricLiveCounters liveCounters,
+            MetricLiveConfig config,
+            ScheduledExecutorService scheduler,
+            ExecutorService senders) {
+        this.liveCounters = liveCounters;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.senders = senders;
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = config.getPushInterval().toMillis();
+        scheduler.scheduleAtFixedRate(this::push, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a subscription; the current snapshot is sent straight away and then one every push
+     * interval.
+     *
+     * @throws MetricLiveViewUnavailableException if the live view is disabled or full
+     */
+    public synchronized SseEmitter subscribe() {
+        if (!config.isEnabled()) {
+            throw new MetricLiveViewUnavailableException("The live view is disabled");
+        }
+        if (subscribers.size() >= config.getMaxSubscribers()) {
+            throw new MetricLiveViewUnavailableException(
+                    "The live view already has " + subscribers.size() + " subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(config.getSubscriptionTimeout().toMillis());
+        register(emitter);
+        // Sent before the response is written, so this only buffers the snapshot.
+        send(emitter, toJson(liveCounters.snapshot()));
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.put(emitter, new Subscriber());
+    }
+
+    void push() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            String json = toJson(liveCounters.snapshot());
+            long now = System.nanoTime();
+            long timeout = config.getSendTimeout().toNanos();
+            subscribers.forEach(
+                    (emitter, subscriber) -> {
+                        long since = subscriber.sendingSince;
+                        if (since == 0) {
+                            subscriber.sendingSince = now;
+                            senders.execute(() -> sendAsync(emitter, subscriber, json));
+                        } else if (now - since > timeout) {
+                            drop(emitter, subscriber);
+                        }
+                        // Otherwise the subscriber is still busy with the last snapshot and
+                        // skips this one.
+                    });
+        } catch (RuntimeException e) {
+            // Thrown out of a scheduled task, this would cancel every later push.
+            log.warn("Failed to push live metrics: {}", e.getMessage());
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subscribers.keySet().forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    private void sendAsync(SseEmitter emitter, Subscriber subscriber, String json) {
+        if (!subscriber.dropped) {
+            send(emitter, json);
+        }
+        synchronized (subscriber) {
+            subscriber.sendingSince = 0;
+            if (!subscriber.dropped) {
+                return;
+            }
+        }
+        emitter.complete();
+    }
+
+    private void drop(SseEmitter emitter, Subscriber subscriber) {
+        if (!subscribers.remove(emitter, subscriber)) {
+            return;
+        }
+        log.debug("Dropping a live metrics subscriber that did not take a snapshot in time");
+        boolean idle;
+        synchronized (subscriber) {
+            subscriber.dropped = true;
+            idle = subscriber.sendingSince == 0;
+        }
+        // A send still in flight holds the emitter's lock; its sender completes the emitter
+        // once the write returns or fails, rather than a second thread blocking on the lock.
+        if (idle) {
+            emitter.complete();
+        }
+    }
+
+    private void send(SseEmitter emitter, String json) {
+        try {
+            emitter.send(
+                    SseEmitter.event().name(SNAPSHOT_EVENT).data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The subscriber has gone away or its emitter is already complete.
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Send state of one subscriber; written by the push thread and its sender thread. */
+    private static final class Subscriber {
+        /** {@link System#nanoTime()} when the send in flight started, or 0 when idle. */
+        private volatile long sendingSince;
+
+        /** Set once the subscriber is dropped; whoever sees it with no send in flight completes. */
+        private volatile boolean dropped;
+    }
+
+    static String toJson(LiveMetricSnapshot snapshot) {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("at", snapshot.at().toString());
+            generator.writeNumberField("windowSeconds", snapshot.windowSeconds());
+            generator.writeArrayFieldStart("rates");
+            for (LiveMetricRate rate : snapshot.rates()) {
+                generator.writeStartObject();
+                generator.writeStringField("event", rate.event());
+                generator.writeNumberField("lastSecond", rate.lastSecond());
+                generator.writeNumberField("inWindow", rate.inWindow());
+                generator.writeNumberField("perSecond", rate.perSecond());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
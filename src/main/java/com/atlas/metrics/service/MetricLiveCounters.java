@@ -0,0 +1,123 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricLiveConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.LiveMetricRate;
+import com.atlas.metrics.service.model.LiveMetricSnapshot;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding-window counts of accepted events per type, for the live view. Each type has a ring of
+ * one-second slots, one more than the window holds so that the second being written never shares
+ * a slot with a second being read. Recording an event increments the {@link LongAdder} of the
+ * current second's slot, whose cells spread contending threads over separate counters. When a
+ * second starts, the first event swaps a fresh slot into the ring with a compare-and-set, so ingest
+ * threads never lock or wait on each other and no count is ever reset under a writer.
+ */
+@Component
+public class MetricLiveCounters {
+
+    private static final long SLOT_MILLIS = 1000;
+
+    private final MetricLiveConfig config;
+    private final Clock clock;
+    private final int windowSeconds;
+    private final Map<String, AtomicReferenceArray<Slot>> rings;
+
+    @Autowired
+    public MetricLiveCounters(MetricLiveConfig config) {
+        this(config, Clock.systemUTC());
+    }
+
+    MetricLiveCounters(MetricLiveConfig config, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.windowSeconds = (int) Math.max(1, config.getWindow().toSeconds());
+
+        // Built once and never modified, so lookups on the ingest path need no synchronization.
+        Map<String, AtomicReferenceArray<Slot>> byType = new LinkedHashMap<>();
+        for (MetricEventType type : MetricEventType.values()) {
+            AtomicReferenceArray<Slot> ring = new AtomicReferenceArray<>(windowSeconds + 1);
+            for (int i = 0; i < ring.length(); i++) {
+                ring.set(i, new Slot(Long.MIN_VALUE));
+            }
+            byType.put(type.name(), ring);
+        }
+        this.rings = byType;
+    }
+
+    /** Counts one accepted event. Unknown event types are ignored. */
+    public void record(String event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        AtomicReferenceArray<Slot> ring = rings.get(event);
+        if (ring == null) {
+            return;
+        }
+
+        long second = Math.floorDiv(clock.millis(), SLOT_MILLIS);
+        int index = (int) Math.floorMod(second, ring.length());
+        Slot slot = ring.get(index);
+        while (slot.second != second) {
+            if (slot.second > second) {
+                // This thread stalled for a whole ring; the second is long out of the window.
+                return;
+            }
+            Slot fresh = new Slot(second);
+            slot = ring.compareAndSet(index, slot, fresh) ? fresh : ring.get(index);
+        }
+        slot.count.increment();
+    }
+
+    /** Rates over the complete seconds of the window; the second in progress is left out. */
+    public LiveMetricSnapshot snapshot() {
+        long current = Math.floorDiv(clock.millis(), SLOT_MILLIS);
+        long oldest = current - windowSeconds;
+
+        List<LiveMetricRate> rates = new ArrayList<>(rings.size());
+        for (Map.Entry<String, AtomicReferenceArray<Slot>> entry : rings.entrySet()) {
+            AtomicReferenceArray<Slot> ring = entry.getValue();
+            long lastSecond = 0;
+            long inWindow = 0;
+            for (int i = 0; i < ring.length(); i++) {
+                Slot slot = ring.get(i);
+                long second = slot.second;
+                if (second < oldest || second >= current) {
+                    continue;
+                }
+                long count = slot.count.sum();
+                inWindow += count;
+                if (second == current - 1) {
+                    lastSecond = count;
+                }
+            }
+            rates.add(
+                    new LiveMetricRate(
+                            entry.getKey(),
+                            lastSecond,
+                            inWindow,
+                            (double) inWindow / windowSeconds));
+        }
+        return new LiveMetricSnapshot(
+                Instant.ofEpochMilli(current * SLOT_MILLIS), windowSeconds, rates);
+    }
+
+    private static final class Slot {
+        private final long second;
+        private final LongAdder count = new LongAdder();
+
+        private Slot(long second) {
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.atlas.metrics.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Line reading for replay files. The file is memory-mapped one window at a time rather than read
+ * through a stream, so a multi-gigabyte export is paged in by the operating system without being
+ * copied through a heap buffer first, and files larger than a single mapping (2 GB) still work.
+ * Only a line that straddles two windows is copied before it is decoded.
+ */
+final class MetricReplayFile {
+
+    private MetricReplayFile() {}
+
+    /**
+     * Passes each non-blank line, without its terminator, to {@code consumer} until the consumer
+     * returns {@code false} or the file ends.
+     *
+     * @return the number of lines passed to the consumer
+     */
+    static long forEachLine(Path file, long windowBytes, Predicate<String> consumer)
+            throws IOException {
+        long lines = 0;
+        ByteArrayOutputStream carry = new ByteArrayOutputStream();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long remaining = size - position;
+                int length = (int) Math.min(Math.min(windowBytes, Integer.MAX_VALUE), remaining);
+                MappedByteBuffer window =
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) != '\n') {
+                        continue;
+                    }
+                    String line;
+                    if (carry.size() > 0) {
+                        carry.write(bytesOf(window, lineStart, i));
+                        line = decode(ByteBuffer.wrap(carry.toByteArray()));
+                        carry.reset();
+                    } else {
+                        line = decode(window.slice(lineStart, i - lineStart));
+                    }
+                    lineStart = i + 1;
+                    if (!line.isBlank()) {
+                        lines++;
+                        if (!consumer.test(line)) {
+                            return lines;
+                        }
+                    }
+                }
+
+                // The end of the window cuts a line in two; keep its start for the next window.
+                carry.write(bytesOf(window, lineStart, length));
+                position += length;
+            }
+        }
+
+        if (carry.size() > 0) {
+            String line = decode(ByteBuffer.wrap(carry.toByteArray()));
+            if (!line.isBlank()) {
+                lines++;
+                consumer.test(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Splits one RFC 4180 line as the CSV export writes it: fields are separated by commas and
+     * quoted when they contain a comma or quote, with quotes inside doubled.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static byte[] bytesOf(MappedByteBuffer window, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        window.get(from, bytes);
+        return bytes;
+    }
+
+    private static String decode(ByteBuffer bytes) {
+        String line = StandardCharsets.UTF_8.decode(bytes).toString();
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
@@ -0,0 +1,49 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.service.model.MetricReplayReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a replay when the application is started with the {@code replay} profile, then shuts the
+ * application down. The replay waits for the writer to drain before reporting, and closing the
+ * context drains whatever is left. The exit status is non-zero if any call or write failed.
+ *
+ * <pre>
+ * docker-compose up -d postgres-db
+ * ./gradlew bootRun --args='--spring.profiles.active=replay
+ *     --metrics.replay.file=events.ndjson --metrics.replay.rate=2000'
+ * </pre>
+ */
+@Component
+@Profile("replay")
+@Slf4j
+public class MetricReplayRunner implements ApplicationRunner {
+
+    private final MetricReplayService replayService;
+    private final ApplicationContext context;
+
+    public MetricReplayRunner(MetricReplayService replayService, ApplicationContext context) {
+        this.replayService = replayService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int status;
+        try {
+            MetricReplayReport report = replayService.replay();
+            status = report.failed() > 0 || report.writeFailed() > 0 ? 1 : 0;
+        } catch (Exception e) {
+            log.error("Replay failed: {}", e.getMessage(), e);
+            status = 2;
+        }
+        int exitCode = status;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
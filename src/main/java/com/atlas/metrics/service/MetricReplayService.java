@@ -0,0 +1,492 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricReplayConfig;
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.MetricEventDTO;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.controller.model.RawJson;
+import com.atlas.metrics.service.model.ExceptionTypes.MalformedMetricBatchException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import com.atlas.metrics.service.model.MetricReplayReport;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drives a file of recorded events through the ingestion path at a fixed rate, for capacity
+ * testing. Lines are parsed with the same validation as the batch endpoint, so a line the API
+ * would reject is counted as invalid and skipped rather than sent.
+ *
+ * <p>Calls are paced against a schedule rather than by sleeping between them: each call has a
+ * due time worked out from the target rate, and its response time is measured from that due
+ * time. When the service stalls, the calls queued behind the stall are charged for the wait
+ * instead of quietly being sent late, which would otherwise hide the stall from the percentiles.
+ * At most {@code threads} calls are in flight; the reader waits for a free thread rather than
+ * queueing work in memory.
+ *
+ * <p>An accepted call has only queued its events in the buffered and stream modes, so the clock
+ * is stopped once the writer has drained them, and the written and failed counts come from the
+ * writer rather than from the calls.
+ */
+@Service
+@Slf4j
+public class MetricReplayService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /** Only the first few invalid lines are logged; the rest are counted. */
+    private static final int LOGGED_INVALID_LINES = 10;
+
+    private final MetricsService metricsService;
+    private final MetricBatchReader batchReader;
+    private final MetricsIngestionBuffer ingestionBuffer;
+    private final MetricsStreamConsumer streamConsumer;
+    private final MetricsIngestionConfig ingestionConfig;
+    private final MetricReplayConfig config;
+
+    public MetricReplayService(
+            MetricsService metricsService,
+            MetricBatchReader batchReader,
+            MetricsIngestionBuffer ingestionBuffer,
+            MetricsStreamConsumer streamConsumer,
+            MetricsIngestionConfig ingestionConfig,
+            MetricReplayConfig config) {
+        this.metricsService = metricsService;
+        this.batchReader = batchReader;
+        this.ingestionBuffer = ingestionBuffer;
+        this.streamConsumer = streamConsumer;
+        this.ingestionConfig = ingestionConfig;
+        this.config = config;
+    }
+
+    public MetricReplayReport replay() throws IOException, InterruptedException {
+        if (config.getFile() == null || config.getFile().isBlank()) {
+            throw new IllegalArgumentException("metrics.replay.file is required");
+        }
+        Path file = Path.of(config.getFile());
+        MetricReplayConfig.Format format = formatOf(file);
+        int threads = Math.max(1, config.getThreads());
+        log.info(
+                "Replaying {} as {} through the {} path on {} threads at {}",
+                file,
+                format,
+                config.getTarget(),
+                threads,
+                config.getRate() > 0 ? config.getRate() + " events/s" : "full speed");
+
+        Run run = new Run(threads);
+        try {
+            MetricReplayFile.forEachLine(
+                    file, config.getMapWindow().toBytes(), run.lineReader(format));
+            run.dispatchPending();
+        } finally {
+            run.finish();
+        }
+
+        MetricReplayReport report = run.report();
+        log.info(
+                "Replayed {} events in {} ms: {} written events/s, {} accepted, {} rejected, "
+                        + "{} failed, {} invalid lines; {} written, {} failed to write",
+                report.events(),
+                report.elapsed().toMillis(),
+                String.format("%.1f", report.eventsPerSecond()),
+                report.accepted(),
+                report.rejected(),
+                report.failed(),
+                report.invalid(),
+                report.written(),
+                report.writeFailed());
+        log.info("Response time (ms): {}", report.responseTime());
+        log.info("Service time (ms): {}", report.serviceTime());
+        return report;
+    }
+
+    MetricReplayConfig.Format formatOf(Path file) {
+        if (config.getFormat() != MetricReplayConfig.Format.AUTO) {
+            return config.getFormat();
+        }
+        return file.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? MetricReplayConfig.Format.CSV
+                : MetricReplayConfig.Format.NDJSON;
+    }
+
+    /**
+     * Parses one NDJSON line. The export's extra fields ({@code id}, {@code eventTime} and so on)
+     * are ignored, so an export can be replayed as it is.
+     *
+     * @throws IllegalArgumentException if the line is not a valid event
+     */
+    PendingMetricEvent parseNdjson(String line) {
+        MetricBatch batch;
+        try {
+            batch =
+                    batchReader.read(
+                            new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+        } catch (MalformedMetricBatchException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        if (!batch.errors().isEmpty()) {
+            throw new IllegalArgumentException(batch.errors().get(0).message());
+        }
+        if (batch.items().size() != 1) {
+            throw new IllegalArgumentException("Expected one event per line");
+        }
+        return batch.items().get(0).event();
+    }
+
+    /**
+     * Parses one CSV row against the header's column positions. Only {@code event} is required;
+     * {@code user_id}, {@code event_id} and {@code metadata} are read when present and an empty
+     * field means no value, as in the export.
+     *
+     * @throws IllegalArgumentException if the row is not a valid event
+     */
+    static PendingMetricEvent parseCsv(String line, Map<String, Integer> header) {
+        List<String> fields = MetricReplayFile.splitCsv(line);
+
+        String event = field(fields, header, "event");
+        if (event == null) {
+            throw new IllegalArgumentException("event is required");
+        }
+        try {
+            MetricEventType.valueOf(event);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown event type " + event);
+        }
+
+        String userId = field(fields, header, "user_id");
+        String eventId = field(fields, header, "event_id");
+        String metadata = field(fields, header, "metadata");
+        Long parsedUserId;
+        try {
+            parsedUserId = userId == null ? null : Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("user_id must be a number");
+        }
+        UUID parsedEventId;
+        try {
+            parsedEventId = eventId == null ? null : UUID.fromString(eventId);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("event_id must be a UUID");
+        }
+
+        return new PendingMetricEvent(
+                event,
+                Instant.now(),
+                metadata == null ? "{}" : readMetadata(metadata),
+                parsedUserId,
+                parsedEventId);
+    }
+
+    static Map<String, Integer> parseCsvHeader(String line) {
+        List<String> columns = MetricReplayFile.splitCsv(line);
+        return IntStream.range(0, columns.size())
+                .boxed()
+                .collect(
+                        Collectors.toMap(
+                                i -> columns.get(i).trim().toLowerCase(),
+                                Function.identity(),
+                                (first, second) -> first));
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static String readMetadata(String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            String metadata = RawJson.read(parser).json();
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after metadata");
+            }
+            return metadata;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("metadata is not valid JSON");
+        }
+    }
+
+    private static MetricEventDTO toDto(PendingMetricEvent event) {
+        return MetricEventDTO.builder()
+                .event(MetricEventType.valueOf(event.event()))
+                .eventMetadata(RawJson.of(event.metadata()))
+                .userId(event.userId())
+                .eventId(event.eventId())
+                .build();
+    }
+
+    /**
+     * The writer's running totals. Without a writer in between, an accepted call has already
+     * written its events and a failed one has already been counted as failed.
+     */
+    private WriterCounts writerCounts(long accepted) {
+        return switch (ingestionConfig.getMode()) {
+            case BUFFERED ->
+                    new WriterCounts(
+                            ingestionBuffer.getWrittenCount(), ingestionBuffer.getFailedCount());
+            case STREAM ->
+                    new WriterCounts(
+                            streamConsumer.getWrittenCount(),
+                            streamConsumer.getDeadLetteredCount());
+            case SYNCHRONOUS -> new WriterCounts(accepted, 0);
+        };
+    }
+
+    /** Waits for the writer to finish the accepted events; false if it ran out of time. */
+    private boolean awaitWriter() throws InterruptedException {
+        return switch (ingestionConfig.getMode()) {
+            case BUFFERED -> ingestionBuffer.awaitDrained(config.getDrainTimeout());
+            case STREAM -> streamConsumer.awaitDrained(config.getDrainTimeout());
+            case SYNCHRONOUS -> true;
+        };
+    }
+
+    private record WriterCounts(long written, long failed) {}
+
+    private static MetricReplayReport.Latency latencyOf(Histogram histogram) {
+        return new MetricReplayReport.Latency(
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    /** The state of one replay; the reader runs on the calling thread, calls on the workers. */
+    private final class Run {
+
+        private final ExecutorService workers;
+        private final Semaphore idleWorkers;
+        private final Recorder responseTimes = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder serviceTimes = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram totalResponseTimes = new Histogram(SIGNIFICANT_DIGITS);
+        private final Histogram totalServiceTimes = new Histogram(SIGNIFICANT_DIGITS);
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final double nanosPerEvent;
+        private final WriterCounts writerAtStart = writerCounts(0);
+        private final long startNanos = System.nanoTime();
+        private final long reportIntervalNanos = config.getReportInterval().toNanos();
+
+        private List<PendingMetricEvent> pending = new ArrayList<>();
+        private long dispatched;
+        private long invalid;
+        private long lastReportNanos = startNanos;
+        private long dispatchedAtLastReport;
+        private long finishNanos;
+        private WriterCounts writerAtFinish;
+
+        private Run(int threads) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.workers =
+                    Executors.newFixedThreadPool(
+                            threads,
+                            runnable -> {
+                                Thread thread =
+                                        new Thread(
+                                                runnable,
+                                                "metrics-replay-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            this.idleWorkers = new Semaphore(threads);
+            this.nanosPerEvent = config.getRate() > 0 ? 1e9 / config.getRate() : 0;
+        }
+
+        private Predicate<String> lineReader(MetricReplayConfig.Format format) {
+            return new Predicate<>() {
+                private Map<String, Integer> header;
+                private long lineNumber;
+
+                @Override
+                public boolean test(String line) {
+                    lineNumber++;
+                    if (format == MetricReplayConfig.Format.CSV && header == null) {
+                        header = parseCsvHeader(line);
+                        return true;
+                    }
+                    try {
+                        PendingMetricEvent event =
+                                format == MetricReplayConfig.Format.CSV
+                                        ? parseCsv(line, header)
+                                        : parseNdjson(line);
+                        return add(freshen(event));
+                    } catch (IllegalArgumentException e) {
+                        if (invalid++ < LOGGED_INVALID_LINES) {
+                            log.warn("Skipping line {}: {}", lineNumber, e.getMessage());
+                        }
+                        return true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            };
+        }
+
+        private PendingMetricEvent freshen(PendingMetricEvent event) {
+            if (!config.isFreshEventIds() || event.eventId() == null) {
+                return event;
+            }
+            return new PendingMetricEvent(
+                    event.event(),
+                    event.eventTime(),
+                    event.metadata(),
+                    event.userId(),
+                    UUID.randomUUID());
+        }
+
+        /** Returns false once {@code maxEvents} have been read. */
+        private boolean add(PendingMetricEvent event) throws InterruptedException {
+            pending.add(event);
+            int unit =
+                    config.getTarget() == MetricReplayConfig.Target.BATCH
+                            ? Math.max(1, config.getBatchSize())
+                            : 1;
+            if (pending.size() >= unit) {
+                dispatchPending();
+            }
+            long maxEvents = config.getMaxEvents();
+            return maxEvents <= 0 || dispatched + pending.size() < maxEvents;
+        }
+
+        private void dispatchPending() throws InterruptedException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingMetricEvent> events = pending;
+            pending = new ArrayList<>();
+
+            long dueNanos = startNanos + (long) (dispatched * nanosPerEvent);
+            long wait = dueNanos - System.nanoTime();
+            while (wait > 0) {
+                LockSupport.parkNanos(wait);
+                wait = dueNanos - System.nanoTime();
+            }
+            idleWorkers.acquire();
+            // Unpaced, a call is due as soon as a thread is free for it.
+            long due = nanosPerEvent > 0 ? dueNanos : System.nanoTime();
+            workers.execute(() -> call(events, due));
+            dispatched += events.size();
+
+            long now = System.nanoTime();
+            if (now - lastReportNanos >= reportIntervalNanos) {
+                progress(now);
+            }
+        }
+
+        private void call(List<PendingMetricEvent> events, long dueNanos) {
+            long start = System.nanoTime();
+            try {
+                if (config.getTarget() == MetricReplayConfig.Target.BATCH) {
+                    List<MetricBatch.Item> items = new ArrayList<>(events.size());
+                    for (int i = 0; i < events.size(); i++) {
+                        items.add(new MetricBatch.Item(i, events.get(i)));
+                    }
+                    MetricBatchResult result =
+                            metricsService.saveMetricEvents(new MetricBatch(items, List.of()));
+                    accepted.add(result.accepted());
+                    rejected.add(result.rejected());
+                } else {
+                    metricsService.saveMetricEvent(toDto(events.get(0)));
+                    accepted.increment();
+                }
+            } catch (MetricIngestionRejectedException e) {
+                rejected.add(events.size());
+            } catch (RuntimeException e) {
+                if (failed.sum() == 0) {
+                    log.warn("Replayed call failed: {}", e.getMessage(), e);
+                }
+                failed.add(events.size());
+            } finally {
+                long end = System.nanoTime();
+                responseTimes.recordValue(end - dueNanos);
+                serviceTimes.recordValue(end - start);
+                idleWorkers.release();
+            }
+        }
+
+        private void progress(long now) {
+            Histogram interval = responseTimes.getIntervalHistogram();
+            totalResponseTimes.add(interval);
+            totalServiceTimes.add(serviceTimes.getIntervalHistogram());
+            double seconds = (now - lastReportNanos) / 1e9;
+            log.info(
+                    "Replayed {} events, {} events/s, p99 response time {} ms",
+                    dispatched,
+                    String.format("%.1f", (dispatched - dispatchedAtLastReport) / seconds),
+                    String.format("%.2f", interval.getValueAtPercentile(99) / NANOS_PER_MILLI));
+            lastReportNanos = now;
+            dispatchedAtLastReport = dispatched;
+        }
+
+        private void finish() throws InterruptedException {
+            workers.shutdown();
+            if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Replay calls still running after a minute; reporting without them");
+                workers.shutdownNow();
+            }
+            if (!awaitWriter()) {
+                log.warn(
+                        "Accepted events still unwritten after {}; reporting what was written",
+                        config.getDrainTimeout());
+            }
+            finishNanos = System.nanoTime();
+            writerAtFinish = writerCounts(accepted.sum());
+            totalResponseTimes.add(responseTimes.getIntervalHistogram());
+            totalServiceTimes.add(serviceTimes.getIntervalHistogram());
+        }
+
+        private MetricReplayReport report() {
+            Duration elapsed = Duration.ofNanos(finishNanos - startNanos);
+            double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+            long written = writerAtFinish.written() - writerAtStart.written();
+            return new MetricReplayReport(
+                    dispatched,
+                    accepted.sum(),
+                    rejected.sum(),
+                    failed.sum(),
+                    invalid,
+                    written,
+                    writerAtFinish.failed() - writerAtStart.failed(),
+                    elapsed,
+                    written / seconds,
+                    latencyOf(totalResponseTimes),
+                    latencyOf(totalServiceTimes));
+        }
+    }
+}
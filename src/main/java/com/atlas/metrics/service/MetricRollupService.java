@@ -0,0 +1,145 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricRollupConfig;
+import com.atlas.metrics.repository.MetricRollupRepository;
+import com.atlas.metrics.service.model.RollupGranularity;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the metric rollup tables current behind a watermark. Each run recomputes everything from
+ * a lookback window before the watermark up to a settle delay behind the clock, so events that
+ * were buffered or committed late are still counted in the right bucket. A fresh database is
+ * caught up in bounded chunks spread across runs.
+ *
+ * <p>Events that arrive further behind than the lookback window, such as replayed history, can
+ * be folded in with {@link #recompute(Instant, Instant)}.
+ *
+ * <p>Hour buckets are summed from minute buckets and day buckets from hour buckets, so a coarser
+ * bucket is only rebuilt once every finer bucket under it is on hand: chunks end on hour
+ * boundaries, catching up starts at midnight, and retention keeps the finer buckets of the day
+ * still being caught up.
+ */
+@Service
+@Slf4j
+public class MetricRollupService {
+
+    private final MetricRollupRepository rollupRepository;
+    private final MetricRollupConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public MetricRollupService(MetricRollupRepository rollupRepository, MetricRollupConfig config) {
+        this(rollupRepository, config, Clock.systemUTC());
+    }
+
+    MetricRollupService(
+            MetricRollupRepository rollupRepository, MetricRollupConfig config, Clock clock) {
+        this.rollupRepository = rollupRepository;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.rollups.initial-delay:PT1M}",
+            fixedDelayString = "${metrics.rollups.interval:PT1M}")
+    public void rollUp() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        Instant now = clock.instant();
+        Instant upper = settledMinute(now);
+
+        Optional<Instant> watermark = rollupRepository.findWatermark();
+        Instant from;
+        if (watermark.isPresent()) {
+            from = RollupGranularity.MINUTE.floor(watermark.get().minus(config.getLookback()));
+        } else {
+            Optional<Instant> earliest = rollupRepository.findEarliestEventTime();
+            if (earliest.isEmpty()) {
+                rollupRepository.saveWatermark(upper);
+                return;
+            }
+            from = RollupGranularity.DAY.floor(earliest.get());
+        }
+
+        Instant reached = rollUpInChunks(from, upper, config.getMaxChunksPerRun());
+
+        // While history is being caught up, the day in progress is rebuilt from its hours and
+        // minutes on the next run, so they are kept even if they are past retention.
+        Instant inProgress = RollupGranularity.DAY.floor(reached);
+        rollupRepository.deleteOlderThan(
+                RollupGranularity.MINUTE,
+                earliestOf(now.minus(config.getMinuteRetention()), inProgress));
+        rollupRepository.deleteOlderThan(
+                RollupGranularity.HOUR,
+                earliestOf(now.minus(config.getHourRetention()), inProgress));
+    }
+
+    /**
+     * Recomputes the rollups for the whole UTC days overlapping {@code [from, to)} from the raw
+     * events still on hand. Whole days are rebuilt so that the hour and day buckets at the edges
+     * are not summed from minute or hour buckets that retention has already removed. Days before
+     * the earliest raw event are left alone, since their events have been archived (partitions
+     * go by whole months) and recomputing would replace their rollups with nothing, and the range
+     * stops at the settled minute so the watermark is never moved ahead of it.
+     */
+    public void recompute(Instant from, Instant to) {
+        Optional<Instant> earliest = rollupRepository.findEarliestEventTime();
+        if (earliest.isEmpty()) {
+            return;
+        }
+
+        Instant start =
+                latestOf(
+                        RollupGranularity.DAY.floor(from),
+                        RollupGranularity.DAY.floor(earliest.get()));
+        Instant end = earliestOf(RollupGranularity.DAY.ceil(to), settledMinute(clock.instant()));
+        rollUpInChunks(start, end, Integer.MAX_VALUE);
+    }
+
+    /** Rolls up {@code [from, to)} and returns how far it got. */
+    private Instant rollUpInChunks(Instant from, Instant to, int maxChunks) {
+        for (int chunk = 0; chunk < maxChunks && from.isBefore(to); chunk++) {
+            Instant chunkEnd = from.plus(config.getMaxChunk());
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            } else if (RollupGranularity.HOUR.floor(chunkEnd).isAfter(from)) {
+                // An hour split across two chunks could be rebuilt after its first minutes
+                // have already gone to retention.
+                chunkEnd = RollupGranularity.HOUR.floor(chunkEnd);
+            }
+
+            try {
+                rollupRepository.rollup(from, chunkEnd);
+            } catch (Exception e) {
+                log.warn(
+                        "Failed to roll up metrics from {} to {}: {}",
+                        from,
+                        chunkEnd,
+                        e.getMessage());
+                return from;
+            }
+            from = chunkEnd;
+        }
+        return from;
+    }
+
+    private Instant settledMinute(Instant now) {
+        return RollupGranularity.MINUTE.floor(now.minus(config.getSettleDelay()));
+    }
+
+    private static Instant earliestOf(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Instant latestOf(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
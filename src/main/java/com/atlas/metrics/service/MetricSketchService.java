@@ -0,0 +1,154 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricSketchConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.repository.MetricSketchRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.MetricBreakdownEntry;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import com.atlas.metrics.service.model.TopTriggers;
+import com.atlas.metrics.service.model.UniqueUserCount;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains streaming sketches of metric events so that distinct-user counts and the most used
+ * trigger ids can be answered without scanning {@code metrics}. Accepted events are queued without
+ * blocking and folded into the daily sketches in Redis by a scheduled flush: events are first
+ * aggregated locally, so a flush costs a few pipelined round trips per event type and day rather
+ * than one per event.
+ */
+@Service
+@Slf4j
+public class MetricSketchService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String TRIGGER_ID_FIELD = "triggerId";
+
+    private final MetricSketchRepository sketchRepository;
+    private final MetricSketchConfig config;
+    private final BlockingQueue<PendingMetricEvent> queue;
+    private final Counter skippedCounter;
+
+    public MetricSketchService(
+            MetricSketchRepository sketchRepository,
+            MetricSketchConfig config,
+            MeterRegistry meterRegistry) {
+        this.sketchRepository = sketchRepository;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getCapacity());
+        this.skippedCounter =
+                Counter.builder("metrics.sketches.skipped")
+                        .description("Metric events left out of the sketches as the queue was full")
+                        .register(meterRegistry);
+    }
+
+    /** Queues an accepted event for the sketches without blocking. */
+    public void record(PendingMetricEvent event) {
+        if (config.isEnabled() && !queue.offer(event)) {
+            skippedCounter.increment();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.sketches.flush-interval:PT1S}",
+            fixedDelayString = "${metrics.sketches.flush-interval:PT1S}")
+    public void flush() {
+        List<PendingMetricEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Map<DailyKey, Set<Long>> users = new HashMap<>();
+        Map<DailyKey, Map<String, Long>> triggers = new HashMap<>();
+        for (PendingMetricEvent event : events) {
+            DailyKey key =
+                    new DailyKey(
+                            event.event(), LocalDate.ofInstant(event.eventTime(), ZoneOffset.UTC));
+            if (event.userId() != null) {
+                users.computeIfAbsent(key, k -> new HashSet<>()).add(event.userId());
+            }
+            String triggerId = triggerIdOf(event.metadata());
+            if (triggerId != null) {
+                triggers.computeIfAbsent(key, k -> new HashMap<>()).merge(triggerId, 1L, Long::sum);
+            }
+        }
+
+        try {
+            users.forEach((key, ids) -> sketchRepository.addUsers(key.event(), key.day(), ids));
+            triggers.forEach(
+                    (key, counts) -> sketchRepository.addTriggers(key.event(), key.day(), counts));
+        } catch (Exception e) {
+            // Sketches are approximate anyway; losing one flush is preferable to retrying forever.
+            log.warn(
+                    "Failed to update metric sketches for {} events: {}",
+                    events.size(),
+                    e.getMessage());
+        }
+    }
+
+    public UniqueUserCount getUniqueUsers(String event, LocalDate from, LocalDate to) {
+        List<LocalDate> days = days(event, from, to);
+        return new UniqueUserCount(event, from, to, sketchRepository.countUniqueUsers(event, days));
+    }
+
+    public TopTriggers getTopTriggers(String event, LocalDate from, LocalDate to, Integer limit) {
+        List<LocalDate> days = days(event, from, to);
+        int size = limit != null ? limit : config.getTopK();
+        if (size < 1 || size > config.getTopK()) {
+            throw new InvalidMetricsQueryException(
+                    "limit must be between 1 and " + config.getTopK());
+        }
+
+        List<MetricBreakdownEntry> entries =
+                sketchRepository.findTopTriggers(event, days, size).stream()
+                        .map(entry -> new MetricBreakdownEntry(entry.getKey(), entry.getValue()))
+                        .toList();
+        return new TopTriggers(event, from, to, entries);
+    }
+
+    private List<LocalDate> days(String event, LocalDate from, LocalDate to) {
+        try {
+            MetricEventType.valueOf(event);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMetricsQueryException("Unknown event type " + event);
+        }
+        if (to.isBefore(from)) {
+            throw new InvalidMetricsQueryException("to must not be before from");
+        }
+        long span = ChronoUnit.DAYS.between(from, to) + 1;
+        if (span > config.getMaxRangeDays()) {
+            throw new InvalidMetricsQueryException(
+                    "Ranges are limited to " + config.getMaxRangeDays() + " days");
+        }
+        return from.datesUntil(to.plusDays(1)).toList();
+    }
+
+    static String triggerIdOf(String metadata) {
+        try {
+            JsonNode triggerId = OBJECT_MAPPER.readTree(metadata).get(TRIGGER_ID_FIELD);
+            return triggerId != null && !triggerId.isNull() ? triggerId.asText() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private record DailyKey(String event, LocalDate day) {}
+}
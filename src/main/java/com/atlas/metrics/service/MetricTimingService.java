@@ -0,0 +1,396 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricTimingConfig;
+import com.atlas.metrics.controller.model.MetricTimingDTO;
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.repository.MetricTimingRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.TimingBucket;
+import com.atlas.metrics.service.model.TimingPercentiles;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Aggregates client timing samples into HdrHistograms as they arrive. Each (type, route) series
+ * has a {@link Recorder}, which takes samples from any thread without locking; once a minute the
+ * interval histograms are swapped out and merged into the stored histograms of the minutes they
+ * cover. Samples are never stored individually, and percentiles for any range come from adding
+ * the stored minutes together, so a query costs one small histogram per minute and route however
+ * many samples there were.
+ *
+ * <p>Samples from the current minute are only queryable after the next flush. A series that has
+ * had no samples for {@code series-idle-timeout} is dropped, which frees its place under {@code
+ * max-series}.
+ */
+@Service
+@Slf4j
+public class MetricTimingService {
+
+    static final String OTHER_ROUTE = "(other)";
+    static final String DROPPED_METRIC = "metrics.timings.dropped";
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final MetricTimingRepository timingRepository;
+    private final MetricTimingConfig config;
+    private final Clock clock;
+
+    private final Map<Series, SeriesRecorder> recorders = new ConcurrentHashMap<>();
+
+    // Only touched by the flush; holds minutes that could not be written yet.
+    private final Map<Bucket, Histogram> pending = new HashMap<>();
+
+    // Only touched by the flush. Series dropped as idle at the last flush: a record() that looked
+    // one up just before it was dropped can still add samples to it, so it is read once more.
+    private final Map<Series, SeriesRecorder> retired = new HashMap<>();
+
+    private final Counter invalidCounter;
+    private final Counter unflushedCounter;
+
+    @Autowired
+    public MetricTimingService(
+            MetricTimingRepository timingRepository,
+            MetricTimingConfig config,
+            MeterRegistry meterRegistry) {
+        this(timingRepository, config, meterRegistry, Clock.systemUTC());
+    }
+
+    MetricTimingService(
+            MetricTimingRepository timingRepository,
+            MetricTimingConfig config,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.timingRepository = timingRepository;
+        this.config = config;
+        this.clock = clock;
+
+        this.invalidCounter = droppedCounter("invalid", meterRegistry);
+        this.unflushedCounter = droppedCounter("unflushed", meterRegistry);
+    }
+
+    /**
+     * Records the valid samples of a batch; invalid ones are skipped and counted.
+     *
+     * @return the number of samples recorded
+     */
+    public int record(List<MetricTimingDTO> timings) {
+        if (timings.size() > config.getMaxBatchItems()) {
+            throw new MetricBatchTooLargeException(
+                    "Batches are limited to " + config.getMaxBatchItems() + " timings");
+        }
+        if (!config.isEnabled()) {
+            return 0;
+        }
+
+        int recorded = 0;
+        for (MetricTimingDTO timing : timings) {
+            String route = normalizeRoute(timing.getRoute());
+            Double duration = timing.getDurationMs();
+            if (timing.getType() == null
+                    || route == null
+                    || duration == null
+                    || !Double.isFinite(duration)
+                    || duration < 0) {
+                invalidCounter.increment();
+                continue;
+            }
+
+            long millis = Math.min(Math.round(duration), config.getHighestTrackableMillis());
+            SeriesRecorder recorder = recorderFor(timing.getType(), route);
+            // Stamped first, so a flush that sees the sample also sees the series as active.
+            recorder.lastRecordedMillis = clock.millis();
+            recorder.recorder().recordValue(millis);
+            recorded++;
+        }
+        return recorded;
+    }
+
+    /**
+     * Moves the samples recorded since the last flush into the stored histograms of the minutes
+     * the interval covers. Runs on the minute, so each interval normally lines up with the minute
+     * that has just ended.
+     */
+    @Scheduled(cron = "${metrics.timings.flush-cron:0 * * * * *}")
+    public void flush() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        long now = clock.millis();
+        retired.forEach((series, recorder) -> collectInterval(series, recorder, now));
+        retired.clear();
+
+        long idleBefore = now - config.getSeriesIdleTimeout().toMillis();
+        recorders.forEach(
+                (series, recorder) -> {
+                    collectInterval(series, recorder, now);
+                    if (recorder.lastRecordedMillis < idleBefore
+                            && recorders.remove(series, recorder)) {
+                        retired.put(series, recorder);
+                        log.debug(
+                                "Dropped idle timing series {} {}", series.type(), series.route());
+                    }
+                });
+
+        if (!pending.isEmpty()) {
+            List<TimingBucket> buckets = new ArrayList<>(pending.size());
+            pending.forEach(
+                    (bucket, histogram) ->
+                            buckets.add(
+                                    new TimingBucket(
+                                            bucket.series().type(),
+                                            bucket.series().route(),
+                                            bucket.bucketStart(),
+                                            histogram)));
+            try {
+                timingRepository.merge(buckets);
+                pending.clear();
+            } catch (Exception e) {
+                log.warn(
+                        "Failed to store {} timing histograms: {}",
+                        buckets.size(),
+                        e.getMessage());
+                dropPendingBeyondLimit();
+            }
+        }
+
+        try {
+            timingRepository.deleteOlderThan(clock.instant().minus(config.getRetention()));
+        } catch (Exception e) {
+            log.warn("Failed to delete expired timing histograms: {}", e.getMessage());
+        }
+    }
+
+    /** Percentiles of the samples in {@code [from, to)}, widened to whole minutes. */
+    public TimingPercentiles getPercentiles(
+            MetricTimingType type, String route, Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidMetricsQueryException("from must be before to");
+        }
+        if (Duration.between(from, to).compareTo(config.getMaxQueryRange()) > 0) {
+            throw new InvalidMetricsQueryException(
+                    "Ranges are limited to " + config.getMaxQueryRange());
+        }
+        String normalizedRoute = null;
+        if (route != null) {
+            normalizedRoute = normalizeRoute(route);
+            if (normalizedRoute == null) {
+                throw new InvalidMetricsQueryException("Invalid route " + route);
+            }
+        }
+
+        Instant start = from.truncatedTo(ChronoUnit.MINUTES);
+        Instant end = to.truncatedTo(ChronoUnit.MINUTES);
+        if (end.isBefore(to)) {
+            end = end.plus(1, ChronoUnit.MINUTES);
+        }
+
+        Histogram merged = new Histogram(config.getSignificantDigits());
+        timingRepository.findHistograms(type, normalizedRoute, start, end, merged::add);
+
+        long count = merged.getTotalCount();
+        return new TimingPercentiles(
+                type,
+                normalizedRoute,
+                start,
+                end,
+                count,
+                count == 0 ? 0 : merged.getMean(),
+                count == 0 ? 0 : merged.getValueAtPercentile(50),
+                count == 0 ? 0 : merged.getValueAtPercentile(95),
+                count == 0 ? 0 : merged.getValueAtPercentile(99),
+                count == 0 ? 0 : merged.getMaxValue());
+    }
+
+    /**
+     * Strips the query string and replaces numeric path segments with {@code :id}, so that
+     * {@code /fixtures/1035037?tab=lineups} and {@code /fixtures/1035038} share a series. Returns
+     * null for anything that is not a path.
+     */
+    static String normalizeRoute(String route) {
+        if (route == null) {
+            return null;
+        }
+        int end = route.length();
+        int query = route.indexOf('?');
+        int fragment = route.indexOf('#');
+        if (query >= 0) {
+            end = query;
+        }
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+
+        String path = route.substring(0, end).trim();
+        if (!path.startsWith("/")) {
+            return null;
+        }
+        return NUMERIC_SEGMENT.matcher(path).replaceAll("/:id");
+    }
+
+    private SeriesRecorder recorderFor(MetricTimingType type, String route) {
+        if (route.length() > config.getMaxRouteLength()) {
+            route = OTHER_ROUTE;
+        }
+        Series series = new Series(type, route);
+        SeriesRecorder recorder = recorders.get(series);
+        if (recorder != null) {
+            return recorder;
+        }
+        if (recorders.size() >= config.getMaxSeries()) {
+            series = new Series(type, OTHER_ROUTE);
+        }
+        return recorders.computeIfAbsent(
+                series,
+                key ->
+                        new SeriesRecorder(
+                                new Recorder(
+                                        config.getHighestTrackableMillis(),
+                                        config.getSignificantDigits()),
+                                clock.millis()));
+    }
+
+    private void collectInterval(Series series, SeriesRecorder recorder, long now) {
+        Histogram interval = recorder.recorder().getIntervalHistogram();
+        // The Recorder stamps intervals from the system clock; the service clock is used instead
+        // so that buckets agree with retention (and with the clock tests run on).
+        interval.setStartTimeStamp(recorder.intervalStartMillis);
+        interval.setEndTimeStamp(now);
+        recorder.intervalStartMillis = now;
+        if (interval.getTotalCount() == 0) {
+            return;
+        }
+
+        splitByMinute(interval)
+                .forEach(
+                        (bucketStart, histogram) ->
+                                pending.merge(
+                                        new Bucket(series, bucketStart),
+                                        histogram,
+                                        (stored, added) -> {
+                                            stored.add(added);
+                                            return stored;
+                                        }));
+    }
+
+    /**
+     * Splits an interval histogram across the minutes between its start and end timestamps, in
+     * proportion to the time it spent in each. Samples carry no time of their own, so they are
+     * taken to have arrived evenly over the interval; an interval within one minute goes to that
+     * minute whole.
+     */
+    static Map<Instant, Histogram> splitByMinute(Histogram interval) {
+        long start = interval.getStartTimeStamp();
+        long end = Math.max(start, interval.getEndTimeStamp());
+        // The end is exclusive: an interval ending on the minute belongs to the minute before.
+        long lastMinute = Math.floorDiv(end - 1, MINUTE_MILLIS) * MINUTE_MILLIS;
+        long firstMinute =
+                Math.min(Math.floorDiv(start, MINUTE_MILLIS) * MINUTE_MILLIS, lastMinute);
+
+        Map<Instant, Histogram> parts = new LinkedHashMap<>();
+        if (firstMinute == lastMinute) {
+            parts.put(Instant.ofEpochMilli(firstMinute), interval);
+            return parts;
+        }
+
+        int minutes = (int) ((lastMinute - firstMinute) / MINUTE_MILLIS) + 1;
+        long length = end - start;
+        // Share of the interval that has elapsed by the end of each minute.
+        double[] elapsed = new double[minutes];
+        for (int i = 0; i < minutes; i++) {
+            long minuteEnd = Math.min(end, firstMinute + (i + 1) * MINUTE_MILLIS);
+            elapsed[i] = (double) (minuteEnd - start) / length;
+        }
+
+        Histogram[] histograms = new Histogram[minutes];
+        for (HistogramIterationValue value : interval.recordedValues()) {
+            long count = value.getCountAtValueIteratedTo();
+            long assigned = 0;
+            for (int i = 0; i < minutes; i++) {
+                long upTo = i == minutes - 1 ? count : Math.round(count * elapsed[i]);
+                if (upTo <= assigned) {
+                    continue;
+                }
+                if (histograms[i] == null) {
+                    histograms[i] =
+                            new Histogram(
+                                    interval.getHighestTrackableValue(),
+                                    interval.getNumberOfSignificantValueDigits());
+                }
+                histograms[i].recordValueWithCount(value.getValueIteratedTo(), upTo - assigned);
+                assigned = upTo;
+            }
+        }
+
+        for (int i = 0; i < minutes; i++) {
+            if (histograms[i] != null) {
+                parts.put(Instant.ofEpochMilli(firstMinute + i * MINUTE_MILLIS), histograms[i]);
+            }
+        }
+        return parts;
+    }
+
+    // While the database is down the unwritten minutes are kept for a while, then given up on.
+    private void dropPendingBeyondLimit() {
+        int limit = config.getMaxSeries() * 60;
+        if (pending.size() <= limit) {
+            return;
+        }
+        long dropped = 0;
+        for (Histogram histogram : pending.values()) {
+            dropped += histogram.getTotalCount();
+        }
+        pending.clear();
+        unflushedCounter.increment(dropped);
+        log.warn("Dropped {} timing samples that could not be stored", dropped);
+    }
+
+    private static Counter droppedCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder(DROPPED_METRIC)
+                .description("Client timing samples that were not recorded")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Series(MetricTimingType type, String route) {}
+
+    private static final class SeriesRecorder {
+        private final Recorder recorder;
+        private volatile long lastRecordedMillis;
+
+        // Only touched by the flush.
+        private long intervalStartMillis;
+
+        SeriesRecorder(Recorder recorder, long createdMillis) {
+            this.recorder = recorder;
+            this.lastRecordedMillis = createdMillis;
+            this.intervalStartMillis = createdMillis;
+        }
+
+        Recorder recorder() {
+            return recorder;
+        }
+    }
+
+    private record Bucket(Series series, Instant bucketStart) {}
+}
@@ -0,0 +1,164 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsAdmissionConfig;
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricsDatabase;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether metric events are let in at all. Requests are shed while the ingestion buffer is
+ * filling up (with a probability that rises with the fill ratio, so load is trimmed gradually
+ * rather than switched off) or while the metrics connection pool has threads queueing for a
+ * connection. Each event type can also be sampled down to a configured rate.
+ */
+@Component
+public class MetricsAdmissionControl {
+
+    static final String SHED_METRIC = "metrics.admission.shed";
+    static final String SAMPLED_METRIC = "metrics.admission.sampled.out";
+
+    private final MetricsAdmissionConfig config;
+    private final MetricsIngestionConfig ingestionConfig;
+    private final MetricsIngestionBuffer ingestionBuffer;
+    private final DataSource dataSource;
+    private final DoubleSupplier random;
+
+    private final Counter bufferShedCounter;
+    private final Counter databaseShedCounter;
+    private final Counter sampledCounter;
+
+    private volatile HikariPoolMXBean pool;
+
+    @Autowired
+    public MetricsAdmissionControl(
+            MetricsAdmissionConfig config,
+            MetricsIngestionConfig ingestionConfig,
+            MetricsIngestionBuffer ingestionBuffer,
+            MetricsDatabase metricsDatabase,
+            MeterRegistry meterRegistry) {
+        this(
+                config,
+                ingestionConfig,
+                ingestionBuffer,
+                metricsDatabase.getDataSource(),
+                meterRegistry,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    MetricsAdmissionControl(
+            MetricsAdmissionConfig config,
+            MetricsIngestionConfig ingestionConfig,
+            MetricsIngestionBuffer ingestionBuffer,
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            DoubleSupplier random) {
+        this.config = config;
+        this.ingestionConfig = ingestionConfig;
+        this.ingestionBuffer = ingestionBuffer;
+        this.dataSource = dataSource;
+        this.random = random;
+
+        this.bufferShedCounter = shedCounter("buffer", meterRegistry);
+        this.databaseShedCounter = shedCounter("database", meterRegistry);
+        this.sampledCounter =
+                Counter.builder(SAMPLED_METRIC)
+                        .description("Metric events discarded by per-type sampling")
+                        .register(meterRegistry);
+    }
+
+    /**
+     * Returns how long the client should wait before retrying if the request is to be shed, or
+     * empty if it may proceed.
+     */
+    public Optional<Duration> checkCapacity() {
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+
+        if (ingestionConfig.getMode() == MetricsIngestionConfig.Mode.BUFFERED
+                && random.getAsDouble() < shedProbability()) {
+            bufferShedCounter.increment();
+            return Optional.of(retryAfter());
+        }
+
+        HikariPoolMXBean pool = pool();
+        if (pool != null
+                && pool.getThreadsAwaitingConnection() > config.getMaxAwaitingConnections()) {
+            databaseShedCounter.increment();
+            return Optional.of(retryAfter());
+        }
+        return Optional.empty();
+    }
+
+    /** Returns false if the event should be discarded under its type's sample rate. */
+    public boolean sample(String eventType) {
+        Double rate = config.getSampleRates().get(eventType);
+        if (rate == null || rate >= 1.0) {
+            return true;
+        }
+        if (rate > 0.0 && random.getAsDouble() < rate) {
+            return true;
+        }
+        sampledCounter.increment();
+        return false;
+    }
+
+    double shedProbability() {
+        double fill = (double) ingestionBuffer.getQueueDepth() / ingestionConfig.getCapacity();
+        if (fill < config.getShedStart()) {
+            return 0.0;
+        }
+        if (fill >= config.getShedAll()) {
+            return 1.0;
+        }
+        return (fill - config.getShedStart()) / (config.getShedAll() - config.getShedStart());
+    }
+
+    /**
+     * How long a refused client should wait before retrying. Jittered so that clients shed
+     * together do not all come back in the same second.
+     */
+    public Duration retryAfter() {
+        long base = Math.max(1, config.getRetryAfter().toSeconds());
+        return Duration.ofSeconds(base + (long) (random.getAsDouble() * base));
+    }
+
+    private HikariPoolMXBean pool() {
+        HikariPoolMXBean current = pool;
+        if (current == null) {
+            // The pool MXBean only exists once the pool has started, so it is looked up lazily.
+            current = lookUpPool();
+            pool = current;
+        }
+        return current;
+    }
+
+    private HikariPoolMXBean lookUpPool() {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static Counter shedCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder(SHED_METRIC)
+                .description("Metric requests refused with 429 by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
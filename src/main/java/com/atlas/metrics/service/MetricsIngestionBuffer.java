@@ -0,0 +1,237 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory buffer between the request threads and the database. Producers never block:
+ * {@link #offer} is a single non-blocking enqueue and events are dropped (and counted) when the
+ * buffer is full. A single writer thread drains the buffer and flushes a batch as soon as it is
+ * full or the flush interval has passed since its first event.
+ */
+@Component
+@Slf4j
+public class MetricsIngestionBuffer {
+
+    private static final long DRAIN_POLL_MILLIS = 10;
+
+    private final MetricEventWriter writer;
+    private final MetricsIngestionConfig config;
+    private final BlockingQueue<PendingMetricEvent> queue;
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    /** Events accepted but not yet written or given up on, including the batch being flushed. */
+    private final AtomicLong unwritten = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public MetricsIngestionBuffer(
+            MetricEventWriter writer, MetricsIngestionConfig config, MeterRegistry meterRegistry) {
+        this.writer = writer;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getCapacity());
+
+        Gauge.builder("metrics.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Metric events waiting to be written")
+                .register(meterRegistry);
+        this.droppedCounter =
+                Counter.builder("metrics.ingestion.dropped")
+                        .description("Metric events rejected because the buffer was full")
+                        .register(meterRegistry);
+        this.writtenCounter =
+                Counter.builder("metrics.ingestion.written")
+                        .description("Metric events written to the database")
+                        .register(meterRegistry);
+        this.failedCounter =
+                Counter.builder("metrics.ingestion.failed")
+                        .description("Metric events that could not be written")
+                        .register(meterRegistry);
+        this.flushTimer =
+                Timer.builder("metrics.ingestion.flush.latency")
+                        .description("Time taken to write one batch of metric events")
+                        .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (config.getMode() != MetricsIngestionConfig.Mode.BUFFERED) {
+            return;
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "metrics-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info(
+                "Metrics ingestion buffer started (capacity {}, batch size {})",
+                config.getCapacity(),
+                config.getBatchSize());
+    }
+
+    /** Enqueues an event without blocking. Returns false if the event was dropped. */
+    public boolean offer(PendingMetricEvent event) {
+        if (!running || !queue.offer(event)) {
+            droppedCounter.increment();
+            return false;
+        }
+        unwritten.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Enqueues events in order until the buffer is full. Returns how many were accepted; the rest
+     * are counted as dropped.
+     */
+    public int offerAll(List<PendingMetricEvent> events) {
+        int accepted = 0;
+        if (running) {
+            while (accepted < events.size() && queue.offer(events.get(accepted))) {
+                accepted++;
+                unwritten.incrementAndGet();
+            }
+        }
+        if (accepted < events.size()) {
+            droppedCounter.increment(events.size() - accepted);
+        }
+        return accepted;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Events written to the database since startup. */
+    public long getWrittenCount() {
+        return (long) writtenCounter.count();
+    }
+
+    /** Events that could not be written, even one at a time, since startup. */
+    public long getFailedCount() {
+        return (long) failedCounter.count();
+    }
+
+    /**
+     * Waits until every accepted event has been written or has failed. Returns false if some are
+     * still waiting after {@code timeout}.
+     */
+    public boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (unwritten.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(DRAIN_POLL_MILLIS);
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        List<PendingMetricEvent> batch = new ArrayList<>(config.getBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingMetricEvent> batch) throws InterruptedException {
+        PendingMetricEvent first =
+                queue.poll(config.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + config.getFlushInterval().toNanos();
+        while (batch.size() < config.getBatchSize()) {
+            queue.drainTo(batch, config.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= config.getBatchSize() || remaining <= 0 || !running) {
+                return;
+            }
+
+            PendingMetricEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void flush(List<PendingMetricEvent> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            writer.writeBatch(batch);
+            writtenCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.warn(
+                    "Batch of {} metric events failed, retrying individually: {}",
+                    batch.size(),
+                    e.getMessage());
+            writeIndividually(batch);
+        } finally {
+            sample.stop(flushTimer);
+            unwritten.addAndGet(-batch.size());
+        }
+    }
+
+    // One bad row (for example a user id that was deleted in the meantime) must not cost the
+    // whole batch.
+    private void writeIndividually(List<PendingMetricEvent> batch) {
+        for (PendingMetricEvent event : batch) {
+            try {
+                writer.writeOne(event);
+                writtenCounter.increment();
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.warn("Dropping metric event {}: {}", event.event(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+
+        // Not interrupted: an interrupt could abort a JDBC call mid-flush. The writer notices the
+        // flag within one flush interval and drains the rest of the queue before exiting.
+        running = false;
+        writerThread.join(config.getShutdownTimeout().toMillis());
+        if (writerThread.isAlive()) {
+            log.warn("Metrics writer did not drain in time, {} events lost", queue.size());
+        } else {
+            log.info("Metrics ingestion buffer drained");
+        }
+    }
+}
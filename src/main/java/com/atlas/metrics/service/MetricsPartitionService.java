@@ -0,0 +1,131 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsPartitionConfig;
+import com.atlas.metrics.repository.MetricsPartitionRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the monthly partitions of {@code metrics} in step with the calendar: partitions for the
+ * current month and the configured number of months ahead are created before any event needs
+ * them, and partitions that have fallen entirely outside the retention period are detached (and
+ * by default dropped) in one cheap DDL statement each instead of deleting their rows.
+ */
+@Service
+@Slf4j
+public class MetricsPartitionService {
+
+    static final String PARTITION_PREFIX = "metrics_p";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final MetricsPartitionRepository partitionRepository;
+    private final MetricsPartitionConfig config;
+    private final Clock clock;
+
+    @Autowired
+    public MetricsPartitionService(
+            MetricsPartitionRepository partitionRepository, MetricsPartitionConfig config) {
+        this(partitionRepository, config, Clock.systemUTC());
+    }
+
+    MetricsPartitionService(
+            MetricsPartitionRepository partitionRepository,
+            MetricsPartitionConfig config,
+            Clock clock) {
+        this.partitionRepository = partitionRepository;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Scheduled(
+            initialDelayString = "${metrics.partitions.initial-delay:PT30S}",
+            fixedDelayString = "${metrics.partitions.interval:PT6H}")
+    public void maintainPartitions() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        YearMonth currentMonth = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        Set<String> existing = new HashSet<>(partitionRepository.findPartitionNames());
+
+        createUpcomingPartitions(currentMonth, existing);
+        expireOldPartitions(currentMonth, existing);
+
+        if (partitionRepository.defaultPartitionHasRows()) {
+            log.warn("Metric events have landed in metrics_default; check for skewed event times");
+        }
+    }
+
+    private void createUpcomingPartitions(YearMonth currentMonth, Set<String> existing) {
+        for (int i = 0; i <= config.getMonthsAhead(); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            String name = partitionName(month);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                partitionRepository.createPartition(
+                        name, startOf(month), startOf(month.plusMonths(1)));
+                log.info("Created metrics partition {}", name);
+            } catch (Exception e) {
+                log.warn("Failed to create metrics partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void expireOldPartitions(YearMonth currentMonth, Set<String> existing) {
+        if (config.getRetentionMonths() <= 0) {
+            return;
+        }
+
+        YearMonth oldestRetained = currentMonth.minusMonths(config.getRetentionMonths());
+        for (String name : existing) {
+            YearMonth month = monthOf(name);
+            if (month == null || !month.isBefore(oldestRetained)) {
+                continue;
+            }
+            try {
+                partitionRepository.detachPartition(name);
+                if (config.getRetentionAction() == MetricsPartitionConfig.RetentionAction.DROP) {
+                    partitionRepository.dropTable(name);
+                }
+                log.info(
+                        "Expired metrics partition {} ({})",
+                        name,
+                        config.getRetentionAction().name().toLowerCase());
+            } catch (Exception e) {
+                log.warn("Failed to expire metrics partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(
+                    partitionName.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
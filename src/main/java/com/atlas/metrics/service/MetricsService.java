@@ -1,32 +1,124 @@
 package com.atlas.metrics.service;
 
+import com.atlas.metrics.config.MetricsIngestionConfig;
 import com.atlas.metrics.controller.model.MetricEventDTO;
-import com.atlas.metrics.repository.MetricsRepository;
-import com.atlas.metrics.repository.model.MetricEventEntity;
-import java.sql.Timestamp;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchItemError;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import com.atlas.metrics.service.model.PendingMetricEvent;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
+@Slf4j
 public class MetricsService {
 
-    private final MetricsRepository metricsRepository;
+    private final MetricsIngestionBuffer ingestionBuffer;
+    private final MetricEventWriter metricEventWriter;
+    private final MetricsIngestionConfig config;
+    private final MetricsStreamPublisher streamPublisher;
+    private final MetricsAdmissionControl admissionControl;
+    private final MetricEventDeduplicator deduplicator;
+    private final MetricSketchService sketchService;
+    private final MetricLiveCounters liveCounters;
 
     public void saveMetricEvent(MetricEventDTO metricEventDTO) {
-        MetricEventEntity metricEventEntity =
-                metricEventDTOToMetricEventEntityConversion(metricEventDTO);
-        metricsRepository.save(metricEventEntity);
+        // Sampled out or deduplicated before the metadata is serialised, so a discarded event
+        // costs nothing.
+        if (!admissionControl.sample(metricEventDTO.getEvent().name())
+                || deduplicator.isDuplicate(metricEventDTO.getEventId())) {
+            return;
+        }
+        PendingMetricEvent event = metricEventDTOToPendingMetricEventConversion(metricEventDTO);
+
+        if (config.getMode() == MetricsIngestionConfig.Mode.SYNCHRONOUS) {
+            metricEventWriter.writeBatch(List.of(event));
+        } else if (config.getMode() == MetricsIngestionConfig.Mode.STREAM) {
+            publishToStream(List.of(event));
+        } else if (!ingestionBuffer.offer(event)) {
+            throw new MetricIngestionRejectedException("Metrics ingestion buffer is full");
+        }
+        accepted(event);
+    }
+
+    /**
+     * Hands a parsed batch to the ingestion path in one go. Events that do not fit in the buffer
+     * are reported alongside the validation errors; the batch is only refused outright when none
+     * of it could be queued. Events discarded by sampling or as duplicates count as accepted.
+     */
+    public MetricBatchResult saveMetricEvents(MetricBatch batch) {
+        List<MetricBatchItemError> errors = new ArrayList<>(batch.errors());
+        List<MetricBatch.Item> items =
+                batch.items().stream()
+                        .filter(item -> admissionControl.sample(item.event().event()))
+                        .filter(item -> !deduplicator.isDuplicate(item.event().eventId()))
+                        .toList();
+        List<PendingMetricEvent> events = items.stream().map(MetricBatch.Item::event).toList();
+        int discarded = batch.items().size() - items.size();
+
+        int accepted;
+        if (events.isEmpty()) {
+            accepted = 0;
+        } else if (config.getMode() == MetricsIngestionConfig.Mode.SYNCHRONOUS) {
+            metricEventWriter.writeBatch(events);
+            accepted = events.size();
+        } else if (config.getMode() == MetricsIngestionConfig.Mode.STREAM) {
+            publishToStream(events);
+            accepted = events.size();
+        } else {
+            accepted = ingestionBuffer.offerAll(events);
+            if (accepted == 0) {
+                throw new MetricIngestionRejectedException("Metrics ingestion buffer is full");
+            }
+            for (MetricBatch.Item item : items.subList(accepted, events.size())) {
+                errors.add(
+                        new MetricBatchItemError(item.index(), "Metrics ingestion buffer is full"));
+            }
+        }
+
+        events.subList(0, accepted).forEach(this::accepted);
+
+        errors.sort(Comparator.comparingInt(MetricBatchItemError::index));
+        return new MetricBatchResult(accepted + discarded, errors.size(), errors);
+    }
+
+    private void accepted(PendingMetricEvent event) {
+        deduplicator.accepted(event.eventId());
+        sketchService.record(event);
+        liveCounters.record(event.event());
+    }
+
+    private void publishToStream(List<PendingMetricEvent> events) {
+        try {
+            if (events.size() == 1) {
+                streamPublisher.publish(events.get(0));
+            } else {
+                streamPublisher.publishAll(events);
+            }
+        } catch (Exception e) {
+            log.warn(
+                    "Failed to append {} metric events to the stream: {}",
+                    events.size(),
+                    e.getMessage());
+            throw new MetricIngestionRejectedException("Metrics ingestion stream is unavailable");
+        }
     }
 
-    private MetricEventEntity metricEventDTOToMetricEventEntityConversion(
+    private PendingMetricEvent metricEventDTOToPendingMetricEventConversion(
             MetricEventDTO metricEventDTO) {
-        return MetricEventEntity.builder()
-                .event(metricEventDTO.getEvent().name())
-                .eventTime(Timestamp.from(Instant.now()))
-                .metadata(metricEventDTO.getEventMetadata().toString())
-                .userId(metricEventDTO.getUserId())
-                .build();
+        return new PendingMetricEvent(
+                metricEventDTO.getEvent().name(),
+                Instant.now(),
+                metricEventDTO.getEventMetadata().json(),
+                metricEventDTO.getUserId(),
+                metricEventDTO.getEventId());
     }
 }
@@ -0,0 +1,522 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Drains the metric events stream into Postgres through a Redis consumer group. Entries are only
+ * acknowledged once they are committed, so an outage or a restart leaves them pending in Redis
+ * rather than losing them:
+ *
+ * <ul>
+ *   <li>While the database is unavailable nothing is acknowledged and the worker backs off, then
+ *       re-reads its own pending entries before it takes new ones. Deliveries that failed this way
+ *       are counted in {@code outage-key} and do not count toward {@code max-deliveries}.
+ *   <li>Entries left pending by a consumer that died are claimed by another once they have been
+ *       idle for {@code claim-idle}.
+ *   <li>Entries that cannot be written (bad data) or that keep failing past {@code
+ *       max-deliveries} are moved to the dead-letter stream with the error attached.
+ *   <li>The stream is trimmed up to the oldest entry the group still needs, never past an entry
+ *       that is unread or pending.
+ * </ul>
+ */
+@Component
+@Slf4j
+public class MetricsStreamConsumer {
+
+    static final String ERROR_FIELD = "error";
+    static final String SOURCE_ID_FIELD = "sourceId";
+
+    private static final long DRAIN_POLL_MILLIS = 50;
+
+    private static final byte[] MIN_ID = "MINID".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] APPROXIMATE = "~".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MetricEventWriter writer;
+    private final MetricsIngestionConfig config;
+    private final String consumerPrefix;
+
+    private final Counter writtenCounter;
+    private final Counter deadLetteredCounter;
+
+    private volatile boolean running;
+    private final List<Thread> workers = new ArrayList<>();
+
+    public MetricsStreamConsumer(
+            StringRedisTemplate redisTemplate,
+            MetricEventWriter writer,
+            MetricsIngestionConfig config,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.writer = writer;
+        this.config = config;
+        this.consumerPrefix = hostName();
+
+        this.writtenCounter =
+                Counter.builder("metrics.ingestion.stream.written")
+                        .description("Metric events written from the ingestion stream")
+                        .register(meterRegistry);
+        this.deadLetteredCounter =
+                Counter.builder("metrics.ingestion.stream.dead.lettered")
+                        .description("Metric events moved to the dead-letter stream")
+                        .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (config.getMode() != MetricsIngestionConfig.Mode.STREAM) {
+            return;
+        }
+
+        ensureGroup();
+        running = true;
+        for (int i = 0; i < config.getStream().getConsumers(); i++) {
+            String consumerName = consumerPrefix + "-" + i;
+            Thread worker = new Thread(() -> runWorker(consumerName), "metrics-stream-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info(
+                "Metrics stream consumers started ({} on {})",
+                workers.size(),
+                config.getStream().getKey());
+    }
+
+    private void runWorker(String consumerName) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        Instant nextMaintenance = Instant.now();
+        // Start with whatever this consumer left pending before a restart.
+        boolean ownPending = true;
+
+        while (running) {
+            try {
+                if (!Instant.now().isBefore(nextMaintenance)) {
+                    reclaimPending(consumerName);
+                    trimAcknowledged();
+                    nextMaintenance = Instant.now().plus(stream.getClaimIdle());
+                }
+
+                ReadOffset offset =
+                        ownPending ? ReadOffset.from("0-0") : ReadOffset.lastConsumed();
+                List<MapRecord<String, String, String>> records = read(consumerName, offset);
+                if (records == null || records.isEmpty()) {
+                    ownPending = false;
+                } else if (process(records)) {
+                    if (ownPending) {
+                        forgetOutages(records);
+                    }
+                } else {
+                    ownPending = true;
+                    pause();
+                }
+            } catch (Exception e) {
+                if (hasMessage(e, "NOGROUP")) {
+                    ensureGroup();
+                } else {
+                    log.warn("Metrics stream consumer {} failed: {}", consumerName, e.getMessage());
+                    pause();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next batch for this consumer: new entries for {@code lastConsumed()}, or entries
+     * already delivered to it and still pending for an explicit id.
+     */
+    private List<MapRecord<String, String, String>> read(String consumerName, ReadOffset offset) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        return streamOperations()
+                .read(
+                        Consumer.from(stream.getGroup(), consumerName),
+                        StreamReadOptions.empty()
+                                .count(config.getBatchSize())
+                                .block(stream.getBlockTimeout()),
+                        StreamOffset.create(stream.getKey(), offset));
+    }
+
+    /**
+     * Writes the records as one batch and acknowledges them. Returns false if the database was
+     * unavailable, in which case the records stay pending.
+     */
+    boolean process(List<MapRecord<String, String, String>> records) {
+        List<MapRecord<String, String, String>> valid = new ArrayList<>(records.size());
+        List<PendingMetricEvent> events = new ArrayList<>(records.size());
+        for (MapRecord<String, String, String> record : records) {
+            try {
+                events.add(MetricsStreamPublisher.fromFields(record.getValue()));
+                valid.add(record);
+            } catch (RuntimeException e) {
+                deadLetter(record, "Malformed entry: " + e.getMessage());
+            }
+        }
+        if (events.isEmpty()) {
+            return true;
+        }
+
+        try {
+            writer.writeBatch(events);
+            acknowledge(valid);
+            writtenCounter.increment(events.size());
+            return true;
+        } catch (Exception e) {
+            if (isDatabaseUnavailable(e)) {
+                log.warn("Database unavailable, leaving {} events pending", events.size());
+                recordOutage(valid);
+                return false;
+            }
+        }
+
+        // The batch failed on its data: retry row by row so only the bad rows are dead-lettered.
+        for (int i = 0; i < events.size(); i++) {
+            MapRecord<String, String, String> record = valid.get(i);
+            try {
+                writer.writeOne(events.get(i));
+                acknowledge(List.of(record));
+                writtenCounter.increment();
+            } catch (Exception e) {
+                if (isDatabaseUnavailable(e)) {
+                    recordOutage(valid.subList(i, valid.size()));
+                    return false;
+                }
+                deadLetter(record, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes over entries that another consumer left unacknowledged for too long, a page at a time
+     * until none are left or the database turns out to be unavailable.
+     */
+    void reclaimPending(String consumerName) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        Range<String> range = Range.unbounded();
+
+        while (true) {
+            PendingMessages pending =
+                    streamOperations()
+                            .pending(
+                                    stream.getKey(),
+                                    stream.getGroup(),
+                                    range,
+                                    config.getBatchSize());
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            List<PendingMessage> idle = new ArrayList<>();
+            for (PendingMessage message : pending) {
+                if (message.getElapsedTimeSinceLastDelivery().compareTo(stream.getClaimIdle())
+                        >= 0) {
+                    idle.add(message);
+                }
+            }
+
+            List<RecordId> toClaim = new ArrayList<>();
+            List<Long> outages = outageDeliveries(idle);
+            for (int i = 0; i < idle.size(); i++) {
+                PendingMessage message = idle.get(i);
+                if (message.getTotalDeliveryCount() - outages.get(i)
+                        >= stream.getMaxDeliveries()) {
+                    deadLetterPending(message);
+                } else {
+                    toClaim.add(message.getId());
+                }
+            }
+
+            if (!toClaim.isEmpty()) {
+                List<MapRecord<String, String, String>> claimed =
+                        streamOperations()
+                                .claim(
+                                        stream.getKey(),
+                                        stream.getGroup(),
+                                        consumerName,
+                                        stream.getClaimIdle(),
+                                        toClaim.toArray(RecordId[]::new));
+                if (!claimed.isEmpty()) {
+                    log.info(
+                            "Consumer {} reclaimed {} pending events",
+                            consumerName,
+                            claimed.size());
+                    if (!process(claimed)) {
+                        return;
+                    }
+                    forgetOutages(claimed);
+                }
+            }
+
+            if (pending.size() < config.getBatchSize()) {
+                return;
+            }
+            String lastId = pending.get(pending.size() - 1).getIdAsString();
+            range = Range.rightUnbounded(Range.Bound.exclusive(lastId));
+        }
+    }
+
+    /**
+     * Trims the stream up to the oldest entry the group still needs: the oldest pending entry, or
+     * the last one delivered when nothing is pending. Unread entries are never trimmed, however
+     * long the stream grows while the database is down.
+     */
+    void trimAcknowledged() {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        StreamInfo.XInfoGroup group = group();
+        if (group == null || "0-0".equals(group.lastDeliveredId())) {
+            return;
+        }
+
+        RecordId minId = RecordId.of(group.lastDeliveredId());
+        if (group.pendingCount() > 0) {
+            PendingMessagesSummary pending =
+                    streamOperations().pending(stream.getKey(), stream.getGroup());
+            minId = earliest(minId, RecordId.of(pending.minMessageId()));
+        } else {
+            redisTemplate.delete(stream.getOutageKey());
+        }
+
+        // XTRIM MINID keeps the entry with the given id and everything after it.
+        byte[] key = stream.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] id = minId.getValue().getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute(
+                (RedisCallback<Object>)
+                        connection ->
+                                connection.execute("XTRIM", key, MIN_ID, APPROXIMATE, id));
+    }
+
+    /** Events written from the stream since startup. */
+    public long getWrittenCount() {
+        return (long) writtenCounter.count();
+    }
+
+    /** Events moved to the dead-letter stream since startup. */
+    public long getDeadLetteredCount() {
+        return (long) deadLetteredCounter.count();
+    }
+
+    /**
+     * Waits until the group has read every entry in the stream and none is left pending. Returns
+     * false if entries are still unread or pending after {@code timeout}.
+     */
+    public boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!drained()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_MILLIS);
+        }
+        return true;
+    }
+
+    private boolean drained() {
+        StreamInfo.XInfoGroup group = group();
+        if (group == null) {
+            return false;
+        }
+        String lastAdded = streamOperations().info(config.getStream().getKey()).lastGeneratedId();
+        return group.pendingCount() == 0 && lastAdded.equals(group.lastDeliveredId());
+    }
+
+    private StreamInfo.XInfoGroup group() {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        return streamOperations().groups(stream.getKey()).stream()
+                .filter(candidate -> stream.getGroup().equals(candidate.groupName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    static RecordId earliest(RecordId first, RecordId second) {
+        int order =
+                first.getTimestamp().equals(second.getTimestamp())
+                        ? Long.compare(first.getSequence(), second.getSequence())
+                        : Long.compare(first.getTimestamp(), second.getTimestamp());
+        return order <= 0 ? first : second;
+    }
+
+    /** Counts one outage delivery for each record, in a single pipelined round trip. */
+    private void recordOutage(List<MapRecord<String, String, String>> records) {
+        byte[] key = config.getStream().getOutageKey().getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined(
+                (RedisCallback<Object>)
+                        connection -> {
+                            for (MapRecord<String, String, String> record : records) {
+                                connection
+                                        .hashCommands()
+                                        .hIncrBy(
+                                                key,
+                                                record.getId()
+                                                        .getValue()
+                                                        .getBytes(StandardCharsets.UTF_8),
+                                                1L);
+                            }
+                            return null;
+                        });
+    }
+
+    private List<Long> outageDeliveries(List<PendingMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        List<Object> counts =
+                redisTemplate
+                        .opsForHash()
+                        .multiGet(
+                                config.getStream().getOutageKey(),
+                                messages.stream()
+                                        .map(PendingMessage::getIdAsString)
+                                        .collect(Collectors.toList()));
+        List<Long> outages = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Object count = counts != null && i < counts.size() ? counts.get(i) : null;
+            outages.add(count != null ? Long.parseLong(count.toString()) : 0L);
+        }
+        return outages;
+    }
+
+    private void forgetOutages(List<MapRecord<String, String, String>> records) {
+        redisTemplate
+                .opsForHash()
+                .delete(
+                        config.getStream().getOutageKey(),
+                        records.stream().map(record -> record.getId().getValue()).toArray());
+    }
+
+    private void deadLetterPending(PendingMessage message) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        String id = message.getIdAsString();
+        List<MapRecord<String, String, String>> records =
+                streamOperations().range(stream.getKey(), Range.closed(id, id));
+
+        if (records.isEmpty()) {
+            // Trimmed from the stream while pending; nothing left to keep.
+            streamOperations().acknowledge(stream.getKey(), stream.getGroup(), id);
+        } else {
+            deadLetter(
+                    records.get(0),
+                    "Not written after " + message.getTotalDeliveryCount() + " deliveries");
+        }
+        redisTemplate.opsForHash().delete(stream.getOutageKey(), id);
+    }
+
+    private void deadLetter(MapRecord<String, String, String> record, String error) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        Map<String, String> fields = new HashMap<>(record.getValue());
+        fields.put(ERROR_FIELD, error != null ? error : "Unknown error");
+        fields.put(SOURCE_ID_FIELD, record.getId().getValue());
+
+        streamOperations()
+                .add(StreamRecords.newRecord().in(stream.getDeadLetterKey()).ofMap(fields));
+        streamOperations().acknowledge(stream.getKey(), stream.getGroup(), record.getId());
+        deadLetteredCounter.increment();
+        log.warn("Dead-lettered metric event {}: {}", record.getId(), error);
+    }
+
+    private void acknowledge(List<MapRecord<String, String, String>> records) {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        streamOperations()
+                .acknowledge(
+                        stream.getKey(),
+                        stream.getGroup(),
+                        records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+    }
+
+    void ensureGroup() {
+        MetricsIngestionConfig.Stream stream = config.getStream();
+        try {
+            streamOperations()
+                    .createGroup(stream.getKey(), ReadOffset.from("0-0"), stream.getGroup());
+        } catch (Exception e) {
+            if (!hasMessage(e, "BUSYGROUP")) {
+                log.warn("Failed to create metrics stream group: {}", e.getMessage());
+            }
+        }
+    }
+
+    private StreamOperations<String, String, String> streamOperations() {
+        return redisTemplate.opsForStream();
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(config.getStream().getRetryBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    static boolean isDatabaseUnavailable(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private static boolean hasMessage(Throwable e, String fragment) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(fragment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        long waitMillis =
+                config.getStream().getBlockTimeout().toMillis()
+                        + config.getShutdownTimeout().toMillis();
+        for (Thread worker : workers) {
+            worker.join(waitMillis);
+        }
+    }
+}
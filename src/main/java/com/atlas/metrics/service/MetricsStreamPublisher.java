@@ -0,0 +1,103 @@
+package com.atlas.metrics.service;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends metric events to the ingestion Redis Stream. An append is one round trip to Redis, so
+ * request latency no longer depends on the database; {@link MetricsStreamConsumer} writes the
+ * entries to Postgres.
+ */
+@Component
+public class MetricsStreamPublisher {
+
+    static final String EVENT_FIELD = "event";
+    static final String EVENT_TIME_FIELD = "eventTime";
+    static final String METADATA_FIELD = "metadata";
+    static final String USER_ID_FIELD = "userId";
+    static final String EVENT_ID_FIELD = "eventId";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MetricsIngestionConfig config;
+
+    public MetricsStreamPublisher(
+            StringRedisTemplate redisTemplate, MetricsIngestionConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+
+    public void publish(PendingMetricEvent event) {
+        redisTemplate.opsForStream().add(toRecord(event));
+    }
+
+    /** Appends all events in one pipelined round trip. */
+    public void publishAll(List<PendingMetricEvent> events) {
+        byte[] key = config.getStream().getKey().getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined(
+                (RedisCallback<Object>)
+                        connection -> {
+                            for (PendingMetricEvent event : events) {
+                                connection
+                                        .streamCommands()
+                                        .xAdd(
+                                                StreamRecords.newRecord()
+                                                        .in(key)
+                                                        .ofBytes(toBytes(toFields(event))));
+                            }
+                            return null;
+                        });
+    }
+
+    MapRecord<String, String, String> toRecord(PendingMetricEvent event) {
+        return StreamRecords.newRecord().in(config.getStream().getKey()).ofMap(toFields(event));
+    }
+
+    static Map<String, String> toFields(PendingMetricEvent event) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(EVENT_FIELD, event.event());
+        fields.put(EVENT_TIME_FIELD, event.eventTime().toString());
+        fields.put(METADATA_FIELD, event.metadata());
+        if (event.userId() != null) {
+            fields.put(USER_ID_FIELD, event.userId().toString());
+        }
+        if (event.eventId() != null) {
+            fields.put(EVENT_ID_FIELD, event.eventId().toString());
+        }
+        return fields;
+    }
+
+    private static Map<byte[], byte[]> toBytes(Map<String, String> fields) {
+        Map<byte[], byte[]> bytes = new HashMap<>();
+        fields.forEach(
+                (field, value) ->
+                        bytes.put(
+                                field.getBytes(StandardCharsets.UTF_8),
+                                value.getBytes(StandardCharsets.UTF_8)));
+        return bytes;
+    }
+
+    static PendingMetricEvent fromFields(Map<String, String> fields) {
+        if (fields.get(EVENT_FIELD) == null || fields.get(METADATA_FIELD) == null) {
+            throw new IllegalArgumentException("Missing event or metadata");
+        }
+        String userId = fields.get(USER_ID_FIELD);
+        String eventId = fields.get(EVENT_ID_FIELD);
+        return new PendingMetricEvent(
+                fields.get(EVENT_FIELD),
+                Instant.parse(fields.get(EVENT_TIME_FIELD)),
+                fields.get(METADATA_FIELD),
+                userId != null ? Long.valueOf(userId) : null,
+                eventId != null ? UUID.fromString(eventId) : null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.atlas.metrics.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over UUIDs that forgets old entries. It keeps two generations: ids are added to
+ * the current one and looked up in both, and every window the previous generation is discarded
+ * and the current one takes its place. An id is therefore remembered for at least one window and
+ * at most two, in fixed memory. Bloom filters cannot remove entries, so callers should only add
+ * an id once the event it belongs to has been accepted.
+ *
+ * <p>Bits are set with CAS so callers need no locking; only rotation is synchronized.
+ */
+final class TimeWindowedBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final Duration window;
+    private final Clock clock;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    TimeWindowedBloomFilter(
+            int expectedInsertions, double falsePositiveRate, Duration window, Clock clock) {
+        // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions.
+        long optimalBits =
+                (long)
+                        Math.ceil(
+                                -expectedInsertions
+                                        * Math.log(falsePositiveRate)
+                                        / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64L, optimalBits));
+        this.hashes =
+                Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.window = window;
+        this.clock = clock;
+        this.current = new Generation(bits, clock.instant());
+        this.previous = new Generation(bits, clock.instant());
+    }
+
+    /**
+     * Returns false if the id was definitely not added within the window. True means it probably
+     * was, with the configured false positive rate.
+     */
+    boolean mightContain(UUID id) {
+        rotateIfDue();
+
+        long hash1 = hash1(id);
+        long hash2 = hash2(id);
+        Generation current = this.current;
+        Generation previous = this.previous;
+
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        for (int i = 0; i < hashes && (inCurrent || inPrevious); i++) {
+            int index = index(hash1, hash2, i);
+            inCurrent &= current.get(index);
+            inPrevious &= previous.get(index);
+        }
+        return inCurrent || inPrevious;
+    }
+
+    void put(UUID id) {
+        rotateIfDue();
+
+        long hash1 = hash1(id);
+        long hash2 = hash2(id);
+        Generation current = this.current;
+        for (int i = 0; i < hashes; i++) {
+            current.set(index(hash1, hash2, i));
+        }
+    }
+
+    private void rotateIfDue() {
+        Instant now = clock.instant();
+        if (now.isBefore(current.createdAt.plus(window))) {
+            return;
+        }
+        synchronized (this) {
+            if (!now.isBefore(current.createdAt.plus(window))) {
+                previous = current;
+                current = new Generation(bits, now);
+            }
+        }
+    }
+
+    int bitCount() {
+        return bits;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    // Double hashing: the i-th index is h1 + i * h2, with h2 odd so that the sequence does not
+    // cycle early.
+    private int index(long hash1, long hash2, int i) {
+        return (int) Math.floorMod(hash1 + i * hash2, (long) bits);
+    }
+
+    private static long hash1(UUID id) {
+        return mix(id.getMostSignificantBits());
+    }
+
+    private static long hash2(UUID id) {
+        return mix(id.getLeastSignificantBits()) | 1;
+    }
+
+    // Finalizer from SplitMix64, so that ids that differ in few bits still spread across the set.
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+        private final Instant createdAt;
+
+        Generation(int bits, Instant createdAt) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+            this.createdAt = createdAt;
+        }
+
+        boolean get(int index) {
+            return (words.get(index >>> 6) & (1L << index)) != 0;
+        }
+
+        void set(int index) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            long value;
+            do {
+                value = words.get(word);
+                if ((value & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, value, value | mask));
+        }
+    }
+}
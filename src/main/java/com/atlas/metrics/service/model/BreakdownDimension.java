@@ -0,0 +1,17 @@
+package com.atlas.metrics.service.model;
+
+/** What an event breakdown groups by. */
+public enum BreakdownDimension {
+    EVENT("event"),
+    TRIGGER("trigger_id");
+
+    private final String column;
+
+    BreakdownDimension(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model.ExceptionTypes;
+
+public class InvalidMetricsQueryException extends RuntimeException {
+    public InvalidMetricsQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.atlas.metrics.service.model.ExceptionTypes;
+
+public class MalformedMetricBatchException extends RuntimeException {
+    public MalformedMetricBatchException(String message) {
+        super(message);
+    }
+
+    public MalformedMetricBatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
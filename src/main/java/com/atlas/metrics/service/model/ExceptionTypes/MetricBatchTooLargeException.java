@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model.ExceptionTypes;
+
+public class MetricBatchTooLargeException extends RuntimeException {
+    public MetricBatchTooLargeException(String message) {
+        super(message);
+    }
+}
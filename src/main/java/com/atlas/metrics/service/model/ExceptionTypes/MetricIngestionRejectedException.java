@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model.ExceptionTypes;
+
+public class MetricIngestionRejectedException extends RuntimeException {
+    public MetricIngestionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model.ExceptionTypes;
+
+public class MetricLiveViewUnavailableException extends RuntimeException {
+    public MetricLiveViewUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** One row of an export. {@code metadata} is the stored JSON text. */
+public record ExportedMetricEvent(
+        long id,
+        String event,
+        Instant eventTime,
+        Long userId,
+        UUID eventId,
+        String triggerId,
+        String screen,
+        String metadata) {}
@@ -0,0 +1,6 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+
+/** An attempt at a funnel that has completed {@code step} of its steps. */
+public record FunnelProgress(String funnel, long userId, int step, Instant startedAt) {}
@@ -0,0 +1,17 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Attempts at a funnel started on UTC days {@code [from, to]} and how far they got. */
+public record FunnelReport(
+        String funnel, LocalDate from, LocalDate to, Duration window, List<Step> steps) {
+
+    /**
+     * @param conversion share of the attempts started that reached this step
+     * @param stepConversion share of the attempts at the previous step that reached this one
+     */
+    public record Step(
+            int step, String event, long entries, double conversion, double stepConversion) {}
+}
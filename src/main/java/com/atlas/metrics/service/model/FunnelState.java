@@ -0,0 +1,20 @@
+package com.atlas.metrics.service.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The result of processing one span of events: the funnel attempts and sessions still open at
+ * its end, and the counts to add for those that moved on or closed.
+ */
+public record FunnelState(
+        List<FunnelProgress> progress,
+        List<OpenSession> sessions,
+        List<StepCount> stepCounts,
+        List<SessionCount> sessionCounts) {
+
+    public record StepCount(String funnel, LocalDate cohortDay, int step, long entries) {}
+
+    public record SessionCount(
+            LocalDate day, long sessions, long totalDurationSeconds, long totalEvents) {}
+}
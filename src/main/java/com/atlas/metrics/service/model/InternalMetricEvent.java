@@ -0,0 +1,11 @@
+package com.atlas.metrics.service.model;
+
+import com.atlas.metrics.controller.model.MetricEventType;
+
+/**
+ * A metric raised by the server itself, such as a login or logout. It is published as an
+ * application event and recorded off the calling thread, so publishing never waits on metrics
+ * storage.
+ */
+public record InternalMetricEvent(
+        MetricEventType event, Long userId, String triggerId, String screen) {}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model;
+
+/**
+ * Accepted events of one type: in the last complete second, and in the whole window together
+ * with the average per second over it.
+ */
+public record LiveMetricRate(String event, long lastSecond, long inWindow, double perSecond) {}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Event rates for every event type over the window of complete seconds ending at {@code at}. */
+public record LiveMetricSnapshot(Instant at, long windowSeconds, List<LiveMetricRate> rates) {}
@@ -0,0 +1,16 @@
+package com.atlas.metrics.service.model;
+
+/**
+ * The columns of an archived metric event. Each is stored as its own compressed chunk, so a scan
+ * only reads and decompresses the columns it asks for.
+ */
+public enum MetricArchiveColumn {
+    ID,
+    EVENT,
+    EVENT_TIME,
+    USER_ID,
+    EVENT_ID,
+    TRIGGER_ID,
+    SCREEN,
+    METADATA
+}
@@ -0,0 +1,16 @@
+package com.atlas.metrics.service.model;
+
+import java.util.List;
+
+/**
+ * A parsed batch request: the events that passed validation, each with its position in the
+ * request, and the errors for the items that did not.
+ */
+public record MetricBatch(List<Item> items, List<MetricBatchItemError> errors) {
+
+    public record Item(int index, PendingMetricEvent event) {}
+
+    public int size() {
+        return items.size() + errors.size();
+    }
+}
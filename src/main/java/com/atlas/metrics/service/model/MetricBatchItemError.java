@@ -0,0 +1,4 @@
+package com.atlas.metrics.service.model;
+
+/** Why the item at {@code index} (zero-based, in request order) of a batch was not accepted. */
+public record MetricBatchItemError(int index, String message) {}
@@ -0,0 +1,5 @@
+package com.atlas.metrics.service.model;
+
+import java.util.List;
+
+public record MetricBatchResult(int accepted, int rejected, List<MetricBatchItemError> errors) {}
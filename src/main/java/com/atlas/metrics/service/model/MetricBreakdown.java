@@ -0,0 +1,15 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event totals grouped by {@code dimension}. {@code granularity} is the rollup level the totals
+ * were read from, and {@code from} and {@code to} the range it covers after alignment.
+ */
+public record MetricBreakdown(
+        BreakdownDimension dimension,
+        RollupGranularity granularity,
+        Instant from,
+        Instant to,
+        List<MetricBreakdownEntry> entries) {}
@@ -0,0 +1,3 @@
+package com.atlas.metrics.service.model;
+
+public record MetricBreakdownEntry(String key, long count) {}
@@ -0,0 +1,5 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+
+public record MetricCountBucket(Instant bucketStart, String event, long count) {}
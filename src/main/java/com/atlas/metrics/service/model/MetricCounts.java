@@ -0,0 +1,8 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Event counts over time. {@code from} and {@code to} are the bucket-aligned range served. */
+public record MetricCounts(
+        RollupGranularity granularity, Instant from, Instant to, List<MetricCountBucket> buckets) {}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model;
+
+/**
+ * Optional conditions for a raw event search; null fields are not applied. {@code contains} is a
+ * JSON object that the event metadata must contain, e.g. {@code {"team": 33}}.
+ */
+public record MetricEventFilter(String event, String triggerId, String screen, String contains) {}
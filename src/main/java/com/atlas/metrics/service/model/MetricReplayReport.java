@@ -0,0 +1,27 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a replay. Response times are measured from when each call was due to start at
+ * the target rate, so time spent waiting behind a slow call counts against the calls it delayed;
+ * service times only cover the call itself. {@code written} and {@code writeFailed} are the
+ * writer's counts of events that reached the database or were given up on, and the throughput is
+ * written events over the time until the writer had drained.
+ */
+public record MetricReplayReport(
+        long events,
+        long accepted,
+        long rejected,
+        long failed,
+        long invalid,
+        long written,
+        long writeFailed,
+        Duration elapsed,
+        double eventsPerSecond,
+        Latency responseTime,
+        Latency serviceTime) {
+
+    /** Percentiles of the time taken per call, in milliseconds. */
+    public record Latency(double p50, double p90, double p99, double p999, double max) {}
+}
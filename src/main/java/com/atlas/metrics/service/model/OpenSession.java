@@ -0,0 +1,5 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+
+public record OpenSession(long userId, Instant startedAt, Instant lastEventAt, int eventCount) {}
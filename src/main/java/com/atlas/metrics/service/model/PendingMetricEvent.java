@@ -0,0 +1,16 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A metric event that has been accepted for ingestion but not yet written. {@code eventId} is the
+ * optional client-supplied id used to drop retried or double-fired events.
+ */
+public record PendingMetricEvent(
+        String event, Instant eventTime, String metadata, Long userId, UUID eventId) {
+
+    public PendingMetricEvent(String event, Instant eventTime, String metadata, Long userId) {
+        this(event, eventTime, metadata, userId, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.atlas.metrics.service.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes for the metric rollup tables. Each level is built from the one before it. Buckets
+ * start on UTC boundaries, so they can be computed by truncating an {@link Instant}.
+ */
+public enum RollupGranularity {
+    MINUTE("metric_rollups_minute", ChronoUnit.MINUTES),
+    HOUR("metric_rollups_hour", ChronoUnit.HOURS),
+    DAY("metric_rollups_day", ChronoUnit.DAYS);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String table, ChronoUnit unit) {
+        this.table = table;
+        this.unit = unit;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /** The {@code date_trunc} field name for this bucket size. */
+    public String getTruncateField() {
+        return name().toLowerCase();
+    }
+
+    public Duration getBucketSize() {
+        return unit.getDuration();
+    }
+
+    /** Start of the bucket containing {@code instant}. */
+    public Instant floor(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    /** Start of the first bucket at or after {@code instant}. */
+    public Instant ceil(Instant instant) {
+        Instant floor = floor(instant);
+        return floor.equals(instant) ? floor : floor.plus(getBucketSize());
+    }
+}
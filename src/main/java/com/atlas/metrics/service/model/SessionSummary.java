@@ -0,0 +1,11 @@
+package com.atlas.metrics.service.model;
+
+import java.time.LocalDate;
+
+/** Closed sessions started on UTC days {@code [from, to]}. */
+public record SessionSummary(
+        LocalDate from,
+        LocalDate to,
+        long sessions,
+        double averageDurationSeconds,
+        double averageEvents) {}
@@ -0,0 +1,9 @@
+package com.atlas.metrics.service.model;
+
+import com.atlas.metrics.controller.model.MetricTimingType;
+import java.time.Instant;
+import org.HdrHistogram.Histogram;
+
+/** The samples recorded for one timing type and route during the minute {@code bucketStart}. */
+public record TimingBucket(
+        MetricTimingType type, String route, Instant bucketStart, Histogram histogram) {}
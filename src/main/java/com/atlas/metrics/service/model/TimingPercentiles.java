@@ -0,0 +1,20 @@
+package com.atlas.metrics.service.model;
+
+import com.atlas.metrics.controller.model.MetricTimingType;
+import java.time.Instant;
+
+/**
+ * Latency distribution of the samples recorded in {@code [from, to)}, in milliseconds. {@code
+ * route} is null when all routes are combined.
+ */
+public record TimingPercentiles(
+        MetricTimingType type,
+        String route,
+        Instant from,
+        Instant to,
+        long count,
+        double mean,
+        long p50,
+        long p95,
+        long p99,
+        long max) {}
@@ -0,0 +1,11 @@
+package com.atlas.metrics.service.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The most frequent trigger ids for {@code event} between {@code from} and {@code to} (inclusive
+ * UTC days), most frequent first. Counts are Count-Min Sketch estimates and never undercount.
+ */
+public record TopTriggers(
+        String event, LocalDate from, LocalDate to, List<MetricBreakdownEntry> entries) {}
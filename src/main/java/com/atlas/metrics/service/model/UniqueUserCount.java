@@ -0,0 +1,9 @@
+package com.atlas.metrics.service.model;
+
+import java.time.LocalDate;
+
+/**
+ * Approximate number of distinct users that sent {@code event} between {@code from} and {@code to}
+ * (inclusive UTC days). The standard error is about 0.81%.
+ */
+public record UniqueUserCount(String event, LocalDate from, LocalDate to, long estimate) {}
@@ -0,0 +1,6 @@
+package com.atlas.metrics.service.model;
+
+import com.atlas.metrics.controller.model.MetricEventType;
+import java.time.Instant;
+
+public record UserMetricEvent(long userId, MetricEventType event, Instant eventTime) {}
@@ -0,0 +1,7 @@
+package com.atlas.metrics.service.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.time.Instant;
+
+public record UserTimelineEvent(
+        long id, String event, Instant eventTime, @JsonRawValue String metadata) {}
@@ -0,0 +1,6 @@
+package com.atlas.metrics.service.model;
+
+import java.util.List;
+
+/** One page of a user's events, newest first. {@code nextCursor} is null on the last page. */
+public record UserTimelinePage(List<UserTimelineEvent> events, String nextCursor) {}
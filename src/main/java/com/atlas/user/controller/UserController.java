@@ -1,16 +1,15 @@
 package com.atlas.user.controller;
 
 import com.atlas.config.jwt.JwtTokenProvider;
-import com.atlas.metrics.controller.model.MetricEventDTO;
 import com.atlas.metrics.controller.model.MetricEventType;
-import com.atlas.metrics.service.MetricsService;
+import com.atlas.metrics.service.model.InternalMetricEvent;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.minidev.json.JSONObject;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.web.csrf.CsrfToken;
@@ -22,7 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 @AllArgsConstructor
 @Slf4j
 public class UserController {
-    private final MetricsService metricsService;
+    private final ApplicationEventPublisher eventPublisher;
     private final JwtTokenProvider jwtTokenProvider;
 
     @PostMapping("/api/logout")
@@ -59,18 +58,9 @@ public class UserController {
             if (jwtToken != null) {
                 Long userId = jwtTokenProvider.getUserIdFromToken(jwtToken);
 
-                JSONObject eventMetadata = new JSONObject();
-                eventMetadata.put("triggerId", "Logout Success");
-                eventMetadata.put("screen", "N/A");
-
-                MetricEventDTO logoutMetric =
-                        MetricEventDTO.builder()
-                                .event(MetricEventType.LOGOUT)
-                                .eventMetadata(eventMetadata)
-                                .userId(userId)
-                                .build();
-
-                metricsService.saveMetricEvent(logoutMetric);
+                eventPublisher.publishEvent(
+                        new InternalMetricEvent(
+                                MetricEventType.LOGOUT, userId, "Logout Success", "N/A"));
             }
         } catch (Exception e) {
             log.error("Failed to capture logout metric", e);
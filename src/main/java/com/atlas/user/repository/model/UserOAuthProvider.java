@@ -18,7 +18,11 @@ import lombok.NoArgsConstructor;
 public class UserOAuthProvider {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_oauth_providers_id_seq")
+    @SequenceGenerator(
+            name = "user_oauth_providers_id_seq",
+            sequenceName = "user_oauth_providers_id_seq",
+            allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
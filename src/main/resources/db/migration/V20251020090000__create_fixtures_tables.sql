@@ -0,0 +1,32 @@
+CREATE TABLE fixtures
+(
+    id              BIGINT NOT NULL,
+    league_id       BIGINT NOT NULL,
+    season          INTEGER NOT NULL,
+    kickoff         timestamptz NOT NULL,
+    status_short    VARCHAR(10) NULL,
+    status_long     VARCHAR(50) NULL,
+    home_team_id    BIGINT NULL,
+    home_team_name  VARCHAR(255) NULL,
+    away_team_id    BIGINT NULL,
+    away_team_name  VARCHAR(255) NULL,
+    home_goals      INTEGER NULL,
+    away_goals      INTEGER NULL,
+    venue_name      VARCHAR(255) NULL,
+    venue_city      VARCHAR(255) NULL,
+    round           VARCHAR(100) NULL,
+    updated_at      timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT FIXTURE_PK PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_fixtures_league_season ON fixtures(league_id, season);
+CREATE INDEX idx_fixtures_kickoff ON fixtures(kickoff);
+
+CREATE TABLE fixture_backfill_checkpoints
+(
+    league_id       BIGINT NOT NULL,
+    season          INTEGER NOT NULL,
+    fixtures_loaded INTEGER NOT NULL,
+    completed_at    timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT FIXTURE_BACKFILL_CHECKPOINT_PK PRIMARY KEY (league_id, season)
+);
@@ -0,0 +1,19 @@
+CREATE TABLE leagues
+(
+    id                       BIGINT NOT NULL,
+    name                     VARCHAR(255) NOT NULL,
+    lookahead_fixtures       INTEGER NOT NULL DEFAULT 30,
+    refresh_interval_seconds INTEGER NOT NULL DEFAULT 3600,
+    priority                 INTEGER NOT NULL DEFAULT 100,
+    timezone                 VARCHAR(64) NOT NULL DEFAULT 'UTC',
+    enabled                  BOOLEAN NOT NULL DEFAULT TRUE,
+    updated_at               timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT LEAGUE_PK PRIMARY KEY (id)
+);
+
+INSERT INTO leagues (id, name, priority)
+VALUES (39, 'Premier League', 10),
+       (140, 'La Liga', 20),
+       (78, 'Bundesliga', 30),
+       (135, 'Serie A', 40),
+       (61, 'Ligue 1', 50);
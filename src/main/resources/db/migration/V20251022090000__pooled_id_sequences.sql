@@ -0,0 +1,26 @@
+-- Hibernate cannot batch inserts for IDENTITY columns because it needs each generated key back
+-- before it can continue. Switch to sequences that hand out blocks of 50 so the ORM assigns ids
+-- in memory and sends inserts in JDBC batches. The increment must match allocationSize on the
+-- entities.
+
+-- metrics: replace the identity column with an owned sequence. The nextval default is only for
+-- ad hoc inserts: each row it fills spends a whole block of 50 ids, so the application always
+-- assigns ids itself, Hibernate through its pooled optimizer and MetricEventWriter from blocks it
+-- fetches the same way.
+ALTER TABLE metrics ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE metrics_id_seq INCREMENT BY 50 OWNED BY metrics.id;
+SELECT setval('metrics_id_seq', COALESCE((SELECT MAX(id) FROM metrics), 0) + 50);
+
+ALTER TABLE metrics ALTER COLUMN id SET DEFAULT nextval('metrics_id_seq');
+
+-- users and user_oauth_providers were created as BIGSERIAL and already own a sequence.
+-- Hibernate's pooled optimizer treats a fetched value as the top of its block, so every
+-- sequence is moved at least one block past the existing ids.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+SELECT setval('users_id_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 50);
+
+ALTER SEQUENCE user_oauth_providers_id_seq INCREMENT BY 50;
+SELECT setval(
+    'user_oauth_providers_id_seq',
+    COALESCE((SELECT MAX(id) FROM user_oauth_providers), 0) + 50);
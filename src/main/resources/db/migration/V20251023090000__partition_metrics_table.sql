@@ -0,0 +1,66 @@
+-- Rebuild metrics as a table range-partitioned by month on event_time. Retention then becomes a
+-- matter of detaching or dropping whole partitions rather than deleting rows, and each partition
+-- is small enough to vacuum and index independently. Upcoming partitions are created ahead of
+-- time by MetricsPartitionService; the default partition only catches events outside that range.
+
+ALTER SEQUENCE metrics_id_seq OWNED BY NONE;
+
+ALTER TABLE metrics RENAME TO metrics_unpartitioned;
+ALTER TABLE metrics_unpartitioned DROP CONSTRAINT metric_event_pk;
+DROP INDEX idx_metrics_event_time;
+DROP INDEX idx_metrics_event;
+DROP INDEX idx_metrics_user_id;
+
+-- The partition key has to be part of the primary key. Ids still come from the sequence alone.
+CREATE TABLE metrics
+(
+    id          BIGINT NOT NULL DEFAULT nextval('metrics_id_seq'),
+    event       VARCHAR(100) NOT NULL,
+    event_time  timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    metadata    JSONB NOT NULL,
+    user_id     BIGINT NULL REFERENCES users(id) ON DELETE SET NULL,
+    CONSTRAINT METRIC_EVENT_PK PRIMARY KEY (id, event_time)
+) PARTITION BY RANGE (event_time);
+
+ALTER SEQUENCE metrics_id_seq OWNED BY metrics.id;
+
+CREATE TABLE metrics_default PARTITION OF metrics DEFAULT;
+
+-- Monthly partitions from the oldest existing event up to three months ahead, named
+-- metrics_pYYYY_MM with UTC month boundaries.
+DO $$
+DECLARE
+    -- UTC wall-clock month starts, converted to timestamptz only for the partition bounds.
+    month_start timestamp;
+    last_month  timestamp := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+    SELECT LEAST(
+                   COALESCE(date_trunc('month', MIN(event_time) AT TIME ZONE 'UTC'),
+                            'infinity'::timestamp),
+                   date_trunc('month', now() AT TIME ZONE 'UTC'))
+    INTO month_start
+    FROM metrics_unpartitioned;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+                'CREATE TABLE %I PARTITION OF metrics FOR VALUES FROM (%L) TO (%L)',
+                'metrics_p' || to_char(month_start, 'YYYY_MM'),
+                month_start AT TIME ZONE 'UTC',
+                (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+INSERT INTO metrics (id, event, event_time, metadata, user_id)
+SELECT id, event, event_time, metadata, user_id
+FROM metrics_unpartitioned;
+
+DROP TABLE metrics_unpartitioned;
+
+-- Defined on the parent so every partition, including ones created later, gets them. Events are
+-- appended in roughly time order, so a BRIN index covers event_time ranges at a fraction of the
+-- size of a B-tree.
+CREATE INDEX idx_metrics_event_time ON metrics USING BRIN (event_time);
+CREATE INDEX idx_metrics_event ON metrics (event);
+CREATE INDEX idx_metrics_user_id ON metrics (user_id);
@@ -0,0 +1,41 @@
+-- Pre-aggregated event counts at three granularities, keyed by event and by the triggerId carried
+-- in the event metadata (an empty string when there is none, so it can be part of the key).
+-- Maintained by MetricRollupService: minutes are recomputed from raw rows, hours from minutes and
+-- days from hours. Bucket starts are UTC.
+
+CREATE TABLE metric_rollups_minute
+(
+    bucket_start timestamptz  NOT NULL,
+    event        VARCHAR(100) NOT NULL,
+    trigger_id   VARCHAR(255) NOT NULL DEFAULT '',
+    event_count  BIGINT       NOT NULL,
+    CONSTRAINT METRIC_ROLLUPS_MINUTE_PK PRIMARY KEY (bucket_start, event, trigger_id)
+);
+
+CREATE TABLE metric_rollups_hour
+(
+    bucket_start timestamptz  NOT NULL,
+    event        VARCHAR(100) NOT NULL,
+    trigger_id   VARCHAR(255) NOT NULL DEFAULT '',
+    event_count  BIGINT       NOT NULL,
+    CONSTRAINT METRIC_ROLLUPS_HOUR_PK PRIMARY KEY (bucket_start, event, trigger_id)
+);
+
+CREATE TABLE metric_rollups_day
+(
+    bucket_start timestamptz  NOT NULL,
+    event        VARCHAR(100) NOT NULL,
+    trigger_id   VARCHAR(255) NOT NULL DEFAULT '',
+    event_count  BIGINT       NOT NULL,
+    CONSTRAINT METRIC_ROLLUPS_DAY_PK PRIMARY KEY (bucket_start, event, trigger_id)
+);
+
+-- Raw events before the watermark have been rolled up. The job re-reads a lookback window behind
+-- it on every run so that events committed late are still counted.
+CREATE TABLE metric_rollup_watermarks
+(
+    name       VARCHAR(50) NOT NULL,
+    watermark  timestamptz NOT NULL,
+    updated_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT METRIC_ROLLUP_WATERMARKS_PK PRIMARY KEY (name)
+);
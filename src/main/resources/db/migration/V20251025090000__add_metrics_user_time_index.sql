@@ -0,0 +1,5 @@
+-- Supports per-user timelines paged by (event_time, id) keyset. The old single-column user_id
+-- index is a prefix of this one and is no longer needed.
+CREATE INDEX idx_metrics_user_id_event_time ON metrics (user_id, event_time, id);
+
+DROP INDEX idx_metrics_user_id;
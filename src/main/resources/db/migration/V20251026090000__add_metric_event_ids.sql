@@ -0,0 +1,16 @@
+-- Optional client-supplied id used to make metric ingestion idempotent. It is stored on the event
+-- for tracing but is not unique there: a unique index on the partitioned table would have to
+-- include event_time, which is assigned on receipt and so differs between retries.
+ALTER TABLE metrics ADD COLUMN event_id uuid;
+
+-- Backstop for the in-memory duplicate filter. An event is only inserted into metrics if its id
+-- could be claimed here, in the same statement. Rows older than the dedup retention are deleted
+-- by MetricEventDeduplicator.
+CREATE TABLE metric_event_ids
+(
+    event_id    uuid        NOT NULL,
+    received_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT METRIC_EVENT_IDS_PK PRIMARY KEY (event_id)
+);
+
+CREATE INDEX idx_metric_event_ids_received_at ON metric_event_ids USING BRIN (received_at);
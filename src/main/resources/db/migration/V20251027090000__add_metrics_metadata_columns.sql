@@ -0,0 +1,18 @@
+-- The metadata keys that queries filter on are promoted into generated columns, so they can be
+-- indexed and read without extracting them from JSONB on every row. Postgres keeps them in step
+-- with metadata on insert; writers do not set them. Adding stored columns rewrites each
+-- partition once.
+ALTER TABLE metrics
+    ADD COLUMN trigger_id TEXT GENERATED ALWAYS AS (metadata ->> 'triggerId') STORED,
+    ADD COLUMN screen     TEXT GENERATED ALWAYS AS (metadata ->> 'screen') STORED;
+
+-- Partial, as most events carry neither key; a filter on the column implies it is not null.
+CREATE INDEX idx_metrics_trigger_id_event_time ON metrics (trigger_id, event_time)
+    WHERE trigger_id IS NOT NULL;
+
+CREATE INDEX idx_metrics_screen_event_time ON metrics (screen, event_time)
+    WHERE screen IS NOT NULL;
+
+-- Ad-hoc containment queries (metadata @> '{"key": "value"}') on any other key. jsonb_path_ops
+-- indexes only support @>, but are several times smaller and faster than the default opclass.
+CREATE INDEX idx_metrics_metadata ON metrics USING GIN (metadata jsonb_path_ops);
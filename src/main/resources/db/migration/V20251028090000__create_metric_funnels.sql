@@ -0,0 +1,45 @@
+-- Funnel and session aggregates maintained incrementally by MetricFunnelService. Events are
+-- processed once, in watermark order (the watermark is kept in metric_rollup_watermarks under
+-- the name 'funnels'), so these tables are the only place the results live; they are not
+-- recomputed from raw rows.
+
+-- Funnel attempts that reached each step, by the UTC day the attempt started. Step 1 is the
+-- number of attempts started.
+CREATE TABLE metric_funnel_counts
+(
+    funnel     VARCHAR(100) NOT NULL,
+    cohort_day DATE         NOT NULL,
+    step       SMALLINT     NOT NULL,
+    entries    BIGINT       NOT NULL,
+    CONSTRAINT METRIC_FUNNEL_COUNTS_PK PRIMARY KEY (funnel, cohort_day, step)
+);
+
+-- Attempts still inside their window, carried from one batch to the next.
+CREATE TABLE metric_funnel_progress
+(
+    funnel     VARCHAR(100) NOT NULL,
+    user_id    BIGINT       NOT NULL,
+    step       SMALLINT     NOT NULL,
+    started_at timestamptz  NOT NULL,
+    CONSTRAINT METRIC_FUNNEL_PROGRESS_PK PRIMARY KEY (funnel, user_id)
+);
+
+-- Sessions that may still be extended by a later event.
+CREATE TABLE metric_sessions_open
+(
+    user_id       BIGINT      NOT NULL,
+    started_at    timestamptz NOT NULL,
+    last_event_at timestamptz NOT NULL,
+    event_count   INTEGER     NOT NULL,
+    CONSTRAINT METRIC_SESSIONS_OPEN_PK PRIMARY KEY (user_id)
+);
+
+-- Closed sessions by the UTC day they started.
+CREATE TABLE metric_session_stats
+(
+    day                    DATE   NOT NULL,
+    sessions               BIGINT NOT NULL,
+    total_duration_seconds BIGINT NOT NULL,
+    total_events           BIGINT NOT NULL,
+    CONSTRAINT METRIC_SESSION_STATS_PK PRIMARY KEY (day)
+);
@@ -0,0 +1,16 @@
+-- Client timing samples aggregated into one HdrHistogram per timing type, route and UTC minute,
+-- stored in HdrHistogram's compressed encoding. Histograms are mergeable, so percentiles over
+-- any range of minutes or routes are computed by adding the stored histograms together; the
+-- individual samples are never stored. Maintained by MetricTimingService.
+CREATE TABLE metric_timing_histograms
+(
+    timing       VARCHAR(50)  NOT NULL,
+    route        VARCHAR(100) NOT NULL,
+    bucket_start timestamptz  NOT NULL,
+    sample_count BIGINT       NOT NULL,
+    histogram    BYTEA        NOT NULL,
+    CONSTRAINT METRIC_TIMING_HISTOGRAMS_PK PRIMARY KEY (timing, route, bucket_start)
+);
+
+CREATE INDEX idx_metric_timing_histograms_bucket_start
+    ON metric_timing_histograms (bucket_start);
@@ -5,6 +5,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -83,6 +84,29 @@ class SecurityConfigWorkingTest {
                         });
     }
 
+    @Test
+    void shouldAllowProbeEndpointsWithoutAuthentication() throws Exception {
+        String[] probes = {"/actuator/health/readiness", "/actuator/health/liveness"};
+        for (String probe : probes) {
+            mockMvc.perform(get(probe))
+                    .andExpect(
+                            result -> {
+                                int status = result.getResponse().getStatus();
+                                assertThat(status).isIn(200, 503);
+                            });
+        }
+    }
+
+    @Test
+    void shouldStillProtectOtherActuatorEndpoints() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(
+                        result -> {
+                            int status = result.getResponse().getStatus();
+                            assertThat(status).isNotEqualTo(200);
+                        });
+    }
+
     @Test
     void shouldRequireAuthenticationForUserEndpoints() throws Exception {
         mockMvc.perform(get("/api/user/profile"))
@@ -105,6 +129,27 @@ class SecurityConfigWorkingTest {
                         });
     }
 
+    @Test
+    void shouldRequireAuthenticationForMetricsAnalytics() throws Exception {
+        mockMvc.perform(get("/api/metrics/counts")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldForbidMetricsAnalyticsForNonAdminUsers() throws Exception {
+        mockMvc.perform(get("/api/metrics/counts").with(user("someone@example.com")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldAllowMetricsAnalyticsForAdmin() throws Exception {
+        mockMvc.perform(get("/api/metrics/counts").with(user("admin@example.com")))
+                .andExpect(
+                        result -> {
+                            int status = result.getResponse().getStatus();
+                            assertThat(status).isNotIn(401, 403);
+                        });
+    }
+
     @Test
     void shouldRequireAuthenticationForRandomPaths() throws Exception {
         mockMvc.perform(get("/protected/resource"))
@@ -402,7 +447,11 @@ class SecurityConfigWorkingTest {
     @Test
     void shouldIgnoreCSRFForAllConfiguredPaths() throws Exception {
         String[] csrfExcludedPaths = {
-            "/oauth2/test", "/login/oauth2/code/test", "/api/save-metric"
+            "/oauth2/test",
+            "/login/oauth2/code/test",
+            "/api/save-metric",
+            "/api/save-metrics/batch",
+            "/api/save-timings"
         };
 
         for (String path : csrfExcludedPaths) {
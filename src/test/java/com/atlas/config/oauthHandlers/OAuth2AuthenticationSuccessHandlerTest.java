@@ -7,7 +7,8 @@ import static org.mockito.Mockito.*;
 
 import com.atlas.config.jwt.JwtExceptions.JwtTokenGenerationException;
 import com.atlas.config.jwt.JwtTokenProvider;
-import com.atlas.metrics.service.MetricsService;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.InternalMetricEvent;
 import com.atlas.user.repository.model.UserEntity;
 import com.atlas.user.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,6 +26,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
@@ -43,7 +45,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
     @Mock private OAuth2User oAuth2User;
 
-    @Mock private MetricsService metricsService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     private UserEntity mockUser;
     private Map<String, Object> oauthAttributes;
@@ -74,7 +76,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
             throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -86,6 +88,10 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
         verify(userService).createOrUpdateUserFromOAuth(oAuth2User, "google");
         verify(jwtTokenProvider).generateToken(mockUser);
+        verify(eventPublisher)
+                .publishEvent(
+                        new InternalMetricEvent(
+                                MetricEventType.LOGIN, 123L, "OAuth Success", "N/A"));
 
         ArgumentCaptor<Cookie> cookieCaptor = ArgumentCaptor.forClass(Cookie.class);
         verify(response, times(2)).addCookie(cookieCaptor.capture());
@@ -125,7 +131,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
             throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "");
+                        userService, eventPublisher, jwtTokenProvider, "");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -145,7 +151,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldUsePort3000FromReferrer() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, null);
+                        userService, eventPublisher, jwtTokenProvider, null);
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -165,7 +171,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldUseDefaultWhenNoReferrer() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "   ");
+                        userService, eventPublisher, jwtTokenProvider, "   ");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -185,7 +191,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldAddSlashToConfiguredUrlWithoutSlash() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -204,7 +210,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldNotAddSlashToConfiguredUrlWithSlash() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000/");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000/");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -230,7 +236,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -264,7 +270,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldPropagateJwtGenerationException() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -286,7 +292,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldPropagateUserServiceException() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -307,7 +313,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldHandleIOExceptionDuringRedirect() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -329,7 +335,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldUseCorrectProviderName() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -346,7 +352,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldLogUserAttributesAndProcessing() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -365,7 +371,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void onAuthenticationSuccess_shouldHandleReferrerWithoutPortInfo() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "");
+                        userService, eventPublisher, jwtTokenProvider, "");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -391,7 +397,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -425,7 +431,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -452,7 +458,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
 
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -478,7 +484,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void determineRedirectUrl_shouldHandleFrontendUrlWithoutSlash() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -497,7 +503,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void determineRedirectUrl_shouldHandleFrontendUrlWithSlash() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "http://localhost:3000/");
+                        userService, eventPublisher, jwtTokenProvider, "http://localhost:3000/");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -516,7 +522,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void determineRedirectUrl_shouldHandleEmptyFrontendUrl() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "");
+                        userService, eventPublisher, jwtTokenProvider, "");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -536,7 +542,7 @@ class OAuth2AuthenticationSuccessHandlerTest {
     void determineRedirectUrl_shouldHandleWhitespaceOnlyFrontendUrl() throws Exception {
         handler =
                 new OAuth2AuthenticationSuccessHandler(
-                        userService, metricsService, jwtTokenProvider, "   ");
+                        userService, eventPublisher, jwtTokenProvider, "   ");
 
         when(authentication.getPrincipal()).thenReturn(oAuth2User);
         when(oAuth2User.getAttributes()).thenReturn(oauthAttributes);
@@ -11,6 +11,7 @@ import com.atlas.externalAPIs.apiFootball.service.ApiFootballService;
 import com.atlas.externalAPIs.apiFootball.service.FixtureMapperService;
 import com.atlas.externalAPIs.apiFootball.service.model.ExceptionTypes.ApiFootballException;
 import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import com.atlas.metrics.service.MetricsAdmissionControl;
 import com.atlas.user.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Collections;
@@ -37,6 +38,8 @@ class ApiFootballControllerTest {
 
     @MockitoBean private UserService userService;
 
+    @MockitoBean private MetricsAdmissionControl metricsAdmissionControl;
+
     @Autowired private ObjectMapper objectMapper;
 
     @Test
@@ -7,11 +7,11 @@ import static org.mockito.Mockito.*;
 import com.atlas.externalAPIs.apiFootball.config.ApiFootballConfig;
 import com.atlas.externalAPIs.apiFootball.service.model.ExceptionTypes.ApiFootballException;
 import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
-import com.atlas.externalAPIs.apiFootball.service.model.LeagueEnum;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
 import com.atlas.externalAPIs.apiFootball.service.model.request.FixtureRequest;
 import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,8 +19,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.*;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -32,15 +33,31 @@ class ApiFootballServiceTest {
 
     @Mock private ApiFootballConfig config;
 
+    @Mock private ApiFootballRateLimiter rateLimiter;
+
+    @Mock private LeagueRegistry leagueRegistry;
+
+    @Mock private CacheManager cacheManager;
+
+    @Mock private Cache cache;
+
     @InjectMocks private ApiFootballService apiFootballService;
 
     private static final String BASE_URL = "https://api-football-v1.p.rapidapi.com/v3";
     private static final String API_KEY = "test-api-key";
     private static final String API_HOST = "api-football-v1.p.rapidapi.com";
 
+    private static final List<RegisteredLeague> TOP_FIVE_LEAGUES =
+            List.of(
+                    league("39", "Premier League"),
+                    league("140", "La Liga"),
+                    league("78", "Bundesliga"),
+                    league("135", "Serie A"),
+                    league("61", "Ligue 1"));
+
     @BeforeEach
     void setUp() {
-        when(config.getBaseUrl()).thenReturn(BASE_URL);
+        lenient().when(config.getBaseUrl()).thenReturn(BASE_URL);
     }
 
     @Test
@@ -92,30 +109,20 @@ class ApiFootballServiceTest {
                         eq(FixtureResponse.class)))
                 .thenReturn(new ResponseEntity<>(ligue1Response, HttpStatus.OK));
 
-        try (MockedStatic<LeagueEnum> leagueMock = mockStatic(LeagueEnum.class)) {
-            leagueMock
-                    .when(LeagueEnum::getTopFiveLeagues)
-                    .thenReturn(
-                            Arrays.asList(
-                                    LeagueEnum.PREMIER_LEAGUE,
-                                    LeagueEnum.LA_LIGA,
-                                    LeagueEnum.BUNDESLIGA,
-                                    LeagueEnum.SERIE_A,
-                                    LeagueEnum.LIGUE_1));
-
-            FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
-
-            assertNotNull(result);
-            assertEquals(150, result.getResults());
-            assertEquals(150, result.getResponse().size());
-
-            verify(restTemplate, times(5))
-                    .exchange(
-                            anyString(),
-                            eq(HttpMethod.GET),
-                            any(HttpEntity.class),
-                            eq(FixtureResponse.class));
-        }
+        when(leagueRegistry.getLeagues()).thenReturn(TOP_FIVE_LEAGUES);
+
+        FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
+
+        assertNotNull(result);
+        assertEquals(150, result.getResults());
+        assertEquals(150, result.getResponse().size());
+
+        verify(restTemplate, times(5))
+                .exchange(
+                        anyString(),
+                        eq(HttpMethod.GET),
+                        any(HttpEntity.class),
+                        eq(FixtureResponse.class));
     }
 
     @Test
@@ -165,23 +172,13 @@ class ApiFootballServiceTest {
                         eq(FixtureResponse.class)))
                 .thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
 
-        try (MockedStatic<LeagueEnum> leagueMock = mockStatic(LeagueEnum.class)) {
-            leagueMock
-                    .when(LeagueEnum::getTopFiveLeagues)
-                    .thenReturn(
-                            Arrays.asList(
-                                    LeagueEnum.PREMIER_LEAGUE,
-                                    LeagueEnum.LA_LIGA,
-                                    LeagueEnum.BUNDESLIGA,
-                                    LeagueEnum.SERIE_A,
-                                    LeagueEnum.LIGUE_1));
-
-            FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
-
-            assertNotNull(result);
-            assertEquals(120, result.getResults());
-            assertEquals(120, result.getResponse().size());
-        }
+        when(leagueRegistry.getLeagues()).thenReturn(TOP_FIVE_LEAGUES);
+
+        FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
+
+        assertNotNull(result);
+        assertEquals(120, result.getResults());
+        assertEquals(120, result.getResponse().size());
     }
 
     @Test
@@ -193,23 +190,13 @@ class ApiFootballServiceTest {
                         eq(FixtureResponse.class)))
                 .thenThrow(new HttpClientErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
 
-        try (MockedStatic<LeagueEnum> leagueMock = mockStatic(LeagueEnum.class)) {
-            leagueMock
-                    .when(LeagueEnum::getTopFiveLeagues)
-                    .thenReturn(
-                            Arrays.asList(
-                                    LeagueEnum.PREMIER_LEAGUE,
-                                    LeagueEnum.LA_LIGA,
-                                    LeagueEnum.BUNDESLIGA,
-                                    LeagueEnum.SERIE_A,
-                                    LeagueEnum.LIGUE_1));
-
-            FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
-
-            assertNotNull(result);
-            assertEquals(0, result.getResults());
-            assertEquals(0, result.getResponse().size());
-        }
+        when(leagueRegistry.getLeagues()).thenReturn(TOP_FIVE_LEAGUES);
+
+        FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
+
+        assertNotNull(result);
+        assertEquals(0, result.getResults());
+        assertEquals(0, result.getResponse().size());
     }
 
     @Test
@@ -224,23 +211,13 @@ class ApiFootballServiceTest {
                         eq(FixtureResponse.class)))
                 .thenReturn(new ResponseEntity<>(nullResponse, HttpStatus.OK));
 
-        try (MockedStatic<LeagueEnum> leagueMock = mockStatic(LeagueEnum.class)) {
-            leagueMock
-                    .when(LeagueEnum::getTopFiveLeagues)
-                    .thenReturn(
-                            Arrays.asList(
-                                    LeagueEnum.PREMIER_LEAGUE,
-                                    LeagueEnum.LA_LIGA,
-                                    LeagueEnum.BUNDESLIGA,
-                                    LeagueEnum.SERIE_A,
-                                    LeagueEnum.LIGUE_1));
-
-            FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
-
-            assertNotNull(result);
-            assertEquals(0, result.getResults());
-            assertEquals(0, result.getResponse().size());
-        }
+        when(leagueRegistry.getLeagues()).thenReturn(TOP_FIVE_LEAGUES);
+
+        FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
+
+        assertNotNull(result);
+        assertEquals(0, result.getResults());
+        assertEquals(0, result.getResponse().size());
     }
 
     @Test
@@ -292,6 +269,17 @@ class ApiFootballServiceTest {
         assertFalse(result.contains("league="));
     }
 
+    @Test
+    void buildUrl_SeasonParameter_BuildsCorrectUrl() {
+        FixtureRequest request = FixtureRequest.builder().league("39").season("2021").build();
+
+        String result = apiFootballService.buildUrl(request);
+
+        assertTrue(result.contains("league=39"));
+        assertTrue(result.contains("season=2021"));
+        assertFalse(result.contains("next="));
+    }
+
     @Test
     void buildUrl_NoParameters_BuildsBaseUrl() {
         FixtureRequest request = FixtureRequest.builder().build();
@@ -336,6 +324,7 @@ class ApiFootballServiceTest {
         assertEquals(API_KEY, headers.getFirst("X-RapidAPI-Key"));
         assertEquals(API_HOST, headers.getFirst("X-RapidAPI-Host"));
         assertEquals(MediaType.APPLICATION_JSON, headers.getContentType());
+        verify(rateLimiter).recordQuota(any(HttpHeaders.class));
     }
 
     @Test
@@ -382,8 +371,11 @@ class ApiFootballServiceTest {
     }
 
     @Test
-    void getFixturesForLeague_ValidLeagueId_CallsApiWithCorrectParameters() {
+    void getFixturesForLeague_RegisteredLeague_CallsApiWithLeagueSettings() {
         String leagueId = "39";
+        RegisteredLeague league =
+                new RegisteredLeague(
+                        leagueId, "Premier League", 30, Duration.ofHours(1), 10, "UTC");
         List<Fixture> fixtures = createMockFixtures(30);
         FixtureResponse expectedResponse = createMockResponse(fixtures);
 
@@ -394,7 +386,7 @@ class ApiFootballServiceTest {
                         eq(FixtureResponse.class)))
                 .thenReturn(new ResponseEntity<>(expectedResponse, HttpStatus.OK));
 
-        FixtureResponse result = apiFootballService.getFixturesForLeague(leagueId);
+        FixtureResponse result = apiFootballService.getFixturesForLeague(league);
 
         assertNotNull(result);
         assertEquals(30, result.getResults());
@@ -413,6 +405,67 @@ class ApiFootballServiceTest {
         assertTrue(capturedUrl.contains("timezone=UTC"));
     }
 
+    @Test
+    void getFixturesForLeague_CustomLookaheadAndTimezone_AreSentUpstream() {
+        RegisteredLeague league =
+                new RegisteredLeague(
+                        "253", "MLS", 12, Duration.ofMinutes(30), 60, "America/New_York");
+        when(restTemplate.exchange(
+                        anyString(),
+                        eq(HttpMethod.GET),
+                        any(HttpEntity.class),
+                        eq(FixtureResponse.class)))
+                .thenReturn(
+                        new ResponseEntity<>(
+                                createMockResponse(createMockFixtures(12)), HttpStatus.OK));
+
+        apiFootballService.getFixturesForLeague(league);
+
+        ArgumentCaptor<String> urlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(restTemplate)
+                .exchange(
+                        urlCaptor.capture(),
+                        eq(HttpMethod.GET),
+                        any(HttpEntity.class),
+                        eq(FixtureResponse.class));
+        assertTrue(urlCaptor.getValue().contains("next=12"));
+        assertTrue(urlCaptor.getValue().contains("league=253"));
+        assertTrue(urlCaptor.getValue().contains("timezone=America/New_York"));
+    }
+
+    @Test
+    void getUpcomingFixturesForTopFiveLeagues_LeagueCached_DoesNotCallApi() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(TOP_FIVE_LEAGUES.get(0)));
+        when(cacheManager.getCache("football-fixtures")).thenReturn(cache);
+        when(cache.get("league:39", FixtureResponse.class))
+                .thenReturn(createMockResponse(createMockFixtures(30)));
+
+        FixtureResponse result = apiFootballService.getUpcomingFixturesForTopFiveLeagues();
+
+        assertEquals(30, result.getResults());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void refreshLeague_StoresResponseInPerLeagueCacheEntry() {
+        FixtureResponse response = createMockResponse(createMockFixtures(5));
+        when(cacheManager.getCache("football-fixtures")).thenReturn(cache);
+        when(restTemplate.exchange(
+                        anyString(),
+                        eq(HttpMethod.GET),
+                        any(HttpEntity.class),
+                        eq(FixtureResponse.class)))
+                .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
+
+        apiFootballService.refreshLeague(TOP_FIVE_LEAGUES.get(1));
+
+        verify(cache).put("league:140", response);
+    }
+
+    private static RegisteredLeague league(String id, String name) {
+        return new RegisteredLeague(id, name, 30, Duration.ofHours(1), 10, "UTC");
+    }
+
     private List<Fixture> createMockFixtures(int count) {
         List<Fixture> fixtures = new ArrayList<>();
         for (int i = 0; i < count; i++) {
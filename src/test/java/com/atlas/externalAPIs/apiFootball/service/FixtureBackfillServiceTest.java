@@ -0,0 +1,146 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureBackfillConfig;
+import com.atlas.externalAPIs.apiFootball.repository.FixtureBackfillRepository;
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueSeason;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class FixtureBackfillServiceTest {
+
+    @Mock private ApiFootballService apiFootballService;
+
+    @Mock private ApiFootballRateLimiter rateLimiter;
+
+    @Mock private LeagueRegistry leagueRegistry;
+
+    @Mock private FixtureBackfillRepository backfillRepository;
+
+    @Mock private ExecutorService executor;
+
+    private FixtureBackfillConfig config;
+    private FixtureBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        config = new FixtureBackfillConfig();
+        config.setEnabled(true);
+        config.setFirstSeason(2022);
+        config.setLastSeason(2023);
+
+        Clock clock = Clock.fixed(Instant.parse("2025-03-01T00:00:00Z"), ZoneOffset.UTC);
+        backfillService =
+                new FixtureBackfillService(
+                        apiFootballService,
+                        rateLimiter,
+                        leagueRegistry,
+                        backfillRepository,
+                        config,
+                        clock,
+                        executor);
+    }
+
+    @Test
+    void scheduleBackfill_RunsOnTheBackfillThreadOneRunAtATime() {
+        when(backfillRepository.findCompletedSeasons()).thenReturn(Set.of());
+
+        backfillService.scheduleBackfill();
+        backfillService.scheduleBackfill();
+
+        ArgumentCaptor<Runnable> run = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(run.capture());
+        verifyNoInteractions(backfillRepository);
+
+        run.getValue().run();
+        verify(backfillRepository).findCompletedSeasons();
+
+        backfillService.scheduleBackfill();
+        verify(executor, times(2)).execute(any());
+    }
+
+    @Test
+    void runBackfill_Disabled_DoesNothing() {
+        config.setEnabled(false);
+
+        backfillService.runBackfill();
+
+        verifyNoInteractions(apiFootballService, rateLimiter, backfillRepository);
+    }
+
+    @Test
+    void runBackfill_SkipsCheckpointedSeasonsAndLoadsTheRest() throws Exception {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(league("39", "Premier League")));
+        when(backfillRepository.findCompletedSeasons())
+                .thenReturn(Set.of(new LeagueSeason(39L, 2023)));
+        when(rateLimiter.hasQuotaToSpare()).thenReturn(true);
+        FixtureResponse response = responseWith(new Fixture());
+        when(apiFootballService.getFixturesForSeason("39", 2022)).thenReturn(response);
+
+        backfillService.runBackfill();
+
+        verify(apiFootballService, never()).getFixturesForSeason("39", 2023);
+        verify(rateLimiter).acquire();
+        verify(backfillRepository).loadSeason(new LeagueSeason(39L, 2022), response.getResponse());
+    }
+
+    @Test
+    void runBackfill_QuotaExhausted_StopsBeforeCallingApi() throws Exception {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(league("39", "Premier League")));
+        when(backfillRepository.findCompletedSeasons()).thenReturn(Set.of());
+        when(rateLimiter.hasQuotaToSpare()).thenReturn(false);
+
+        backfillService.runBackfill();
+
+        verify(rateLimiter, never()).acquire();
+        verifyNoInteractions(apiFootballService);
+        verify(backfillRepository, never()).loadSeason(any(), anyList());
+    }
+
+    @Test
+    void runBackfill_EmptySeason_IsNotCheckpointed() {
+        config.setFirstSeason(2023);
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(league("140", "La Liga")));
+        when(backfillRepository.findCompletedSeasons()).thenReturn(Set.of());
+        when(rateLimiter.hasQuotaToSpare()).thenReturn(true);
+        when(apiFootballService.getFixturesForSeason("140", 2023)).thenReturn(responseWith());
+
+        backfillService.runBackfill();
+
+        verify(backfillRepository, never()).loadSeason(any(), anyList());
+    }
+
+    @Test
+    void currentSeason_BeforeJuly_IsPreviousYear() {
+        assertThat(backfillService.currentSeason()).isEqualTo(2024);
+    }
+
+    private RegisteredLeague league(String id, String name) {
+        return new RegisteredLeague(id, name, 30, Duration.ofHours(1), 10, "UTC");
+    }
+
+    private FixtureResponse responseWith(Fixture... fixtures) {
+        FixtureResponse response = new FixtureResponse();
+        response.setResponse(List.of(fixtures));
+        response.setResults(fixtures.length);
+        return response;
+    }
+}
@@ -0,0 +1,137 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheTtlConfig;
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheWarmupConfig;
+import com.atlas.externalAPIs.apiFootball.service.FixtureCacheWarmer.WarmupState;
+import com.atlas.externalAPIs.apiFootball.service.model.ExceptionTypes.ApiFootballException;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class FixtureCacheWarmerTest {
+
+    private static final String COMBINED_KEY = "football-fixtures::top-5-leagues-combined";
+
+    @Mock private ApiFootballService apiFootballService;
+
+    @Mock private RedisTemplate<String, Object> redisTemplate;
+
+    private FixtureCacheWarmupConfig warmupConfig;
+    private FixtureCacheWarmer warmer;
+
+    @BeforeEach
+    void setUp() {
+        warmupConfig = new FixtureCacheWarmupConfig();
+        warmer =
+                new FixtureCacheWarmer(
+                        apiFootballService,
+                        redisTemplate,
+                        warmupConfig,
+                        new FixtureCacheTtlConfig(),
+                        Clock.fixed(Instant.parse("2025-10-04T12:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void onApplicationReady_Disabled_DoesNotPrime() {
+        warmupConfig.setEnabled(false);
+
+        warmer.onApplicationReady();
+
+        assertThat(warmer.getState()).isEqualTo(WarmupState.DISABLED);
+        verifyNoInteractions(apiFootballService);
+    }
+
+    @Test
+    void prime_FixturesReturned_MarksCacheWarm() {
+        when(apiFootballService.refreshCombinedFixtures()).thenReturn(responseWith(3));
+
+        assertThat(warmer.prime()).isTrue();
+        assertThat(warmer.getState()).isEqualTo(WarmupState.WARM);
+        assertThat(warmer.getWarmedAt()).isNotNull();
+    }
+
+    @Test
+    void prime_NoFixturesReturned_StaysPending() {
+        when(apiFootballService.refreshCombinedFixtures()).thenReturn(responseWith(0));
+
+        assertThat(warmer.prime()).isFalse();
+        assertThat(warmer.getState()).isEqualTo(WarmupState.PENDING);
+        assertThat(warmer.getLastError()).isNotNull();
+    }
+
+    @Test
+    void prime_UpstreamFailure_StaysPending() {
+        when(apiFootballService.refreshCombinedFixtures())
+                .thenThrow(new ApiFootballException("Upstream down", null));
+
+        assertThat(warmer.prime()).isFalse();
+        assertThat(warmer.getState()).isEqualTo(WarmupState.PENDING);
+        assertThat(warmer.getLastError()).isEqualTo("Upstream down");
+    }
+
+    @Test
+    void refreshAheadOfExpiry_NotWarmYet_DoesNothing() {
+        warmer.refreshAheadOfExpiry();
+
+        verifyNoInteractions(redisTemplate, apiFootballService);
+    }
+
+    @Test
+    void refreshAheadOfExpiry_EntryExpiringSoon_RebuildsCombinedFixtures() {
+        warm();
+        when(redisTemplate.getExpire(COMBINED_KEY, TimeUnit.SECONDS))
+                .thenReturn(20L);
+
+        warmer.refreshAheadOfExpiry();
+
+        verify(apiFootballService, times(2)).refreshCombinedFixtures();
+    }
+
+    @Test
+    void refreshAheadOfExpiry_EntryMissing_RebuildsCombinedFixtures() {
+        warm();
+        when(redisTemplate.getExpire(COMBINED_KEY, TimeUnit.SECONDS))
+                .thenReturn(-2L);
+
+        warmer.refreshAheadOfExpiry();
+
+        verify(apiFootballService, times(2)).refreshCombinedFixtures();
+    }
+
+    @Test
+    void refreshAheadOfExpiry_EntryFresh_LeavesItAlone() {
+        warm();
+        when(redisTemplate.getExpire(COMBINED_KEY, TimeUnit.SECONDS))
+                .thenReturn(1800L);
+
+        warmer.refreshAheadOfExpiry();
+
+        verify(apiFootballService, times(1)).refreshCombinedFixtures();
+    }
+
+    private void warm() {
+        when(apiFootballService.refreshCombinedFixtures()).thenReturn(responseWith(1));
+        warmer.prime();
+    }
+
+    private FixtureResponse responseWith(int count) {
+        FixtureResponse response = new FixtureResponse();
+        response.setResponse(Collections.nCopies(count, new Fixture()));
+        response.setResults(count);
+        return response;
+    }
+}
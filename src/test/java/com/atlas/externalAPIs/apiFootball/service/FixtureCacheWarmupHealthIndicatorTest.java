@@ -0,0 +1,71 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheWarmupConfig;
+import com.atlas.externalAPIs.apiFootball.service.FixtureCacheWarmer.WarmupState;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+@ExtendWith(MockitoExtension.class)
+class FixtureCacheWarmupHealthIndicatorTest {
+
+    private static final Instant STARTED_AT = Instant.parse("2025-10-04T12:00:00Z");
+
+    @Mock private FixtureCacheWarmer warmer;
+
+    @Test
+    void health_Warm_IsUp() {
+        when(warmer.getState()).thenReturn(WarmupState.WARM);
+        when(warmer.getWarmedAt()).thenReturn(STARTED_AT.plusSeconds(4));
+
+        Health health = indicatorAt(STARTED_AT.plusSeconds(10)).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("state", "warm");
+    }
+
+    @Test
+    void health_StillWarming_IsOutOfService() {
+        when(warmer.getState()).thenReturn(WarmupState.PENDING);
+        when(warmer.getStartedAt()).thenReturn(STARTED_AT);
+        when(warmer.getLastError()).thenReturn("Upstream down");
+
+        Health health = indicatorAt(STARTED_AT.plusSeconds(30)).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails()).containsEntry("lastError", "Upstream down");
+    }
+
+    @Test
+    void health_WarmingPastFailOpenDelay_IsUp() {
+        when(warmer.getState()).thenReturn(WarmupState.PENDING);
+        when(warmer.getStartedAt()).thenReturn(STARTED_AT);
+
+        Health health = indicatorAt(STARTED_AT.plus(Duration.ofMinutes(6))).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("state", "fail-open");
+    }
+
+    @Test
+    void health_WarmupDisabled_IsUp() {
+        when(warmer.getState()).thenReturn(WarmupState.DISABLED);
+
+        assertThat(indicatorAt(STARTED_AT).health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private FixtureCacheWarmupHealthIndicator indicatorAt(Instant now) {
+        return new FixtureCacheWarmupHealthIndicator(
+                warmer, new FixtureCacheWarmupConfig(), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
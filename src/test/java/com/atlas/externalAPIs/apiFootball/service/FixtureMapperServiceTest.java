@@ -131,10 +131,10 @@ class FixtureMapperServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getHome()).isNotNull();
         assertThat(result.getHome().getName()).isEqualTo("Manchester United");
-        assertThat(result.getHome().getLogo()).isEqualTo("https://example.com/mu-logo.png");
+        assertThat(result.getHome().getLogo()).isEqualTo("/api/media/teams/33");
         assertThat(result.getAway()).isNotNull();
         assertThat(result.getAway().getName()).isEqualTo("Chelsea");
-        assertThat(result.getAway().getLogo()).isEqualTo("https://example.com/chelsea-logo.png");
+        assertThat(result.getAway().getLogo()).isEqualTo("/api/media/teams/34");
     }
 
     @Test
@@ -147,7 +147,7 @@ class FixtureMapperServiceTest {
         assertThat(result.getId()).isEqualTo(39L);
         assertThat(result.getName()).isEqualTo("Premier League");
         assertThat(result.getCountry()).isEqualTo("England");
-        assertThat(result.getLogo()).isEqualTo("https://example.com/pl-logo.png");
+        assertThat(result.getLogo()).isEqualTo("/api/media/leagues/39");
         assertThat(result.getSeason()).isEqualTo(2024);
         assertThat(result.getRound()).isEqualTo("Regular Season - 20");
     }
@@ -264,6 +264,29 @@ class FixtureMapperServiceTest {
         assertThat(result.getStatus()).isNull();
     }
 
+    @Test
+    void mapTeamsToDto_ShouldKeepUpstreamLogo_WhenTeamHasNoId() {
+        Teams teams = new Teams();
+        Team home = new Team();
+        home.setName("Manchester United");
+        home.setLogo("https://example.com/mu-logo.png");
+        teams.setHome(home);
+
+        TeamsDto result = mapperService.mapTeamsToDto(teams);
+
+        assertThat(result.getHome().getLogo()).isEqualTo("https://example.com/mu-logo.png");
+    }
+
+    @Test
+    void mapLeagueToDto_ShouldLeaveLogoNull_WhenUpstreamHasNoLogo() {
+        League league = createCompleteLeague();
+        league.setLogo(null);
+
+        LeagueDto result = mapperService.mapLeagueToDto(league);
+
+        assertThat(result.getLogo()).isNull();
+    }
+
     @Test
     void mapTeamsToDto_ShouldHandleNullHomeTeam() {
         Teams teams = new Teams();
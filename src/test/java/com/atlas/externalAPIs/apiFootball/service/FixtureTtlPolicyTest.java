@@ -0,0 +1,146 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.atlas.externalAPIs.apiFootball.config.FixtureCacheTtlConfig;
+import com.atlas.externalAPIs.apiFootball.service.model.CacheTtl;
+import com.atlas.externalAPIs.apiFootball.service.model.Fixture;
+import com.atlas.externalAPIs.apiFootball.service.model.RefreshReason;
+import com.atlas.externalAPIs.apiFootball.service.model.response.FixtureResponse;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.FixtureDetails;
+import com.atlas.externalAPIs.apiFootball.service.model.supportingTypes.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FixtureTtlPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2025-10-04T12:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private FixtureTtlPolicy ttlPolicy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ttlPolicy =
+                new FixtureTtlPolicy(
+                        new FixtureCacheTtlConfig(),
+                        meterRegistry,
+                        Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void decide_MatchInPlay_UsesSecondsTtl() {
+        FixtureResponse response =
+                responseOf(
+                        fixture(NOW.plus(Duration.ofDays(3)), "NS"),
+                        fixture(NOW.minus(Duration.ofMinutes(20)), "1H"));
+
+        CacheTtl ttl = ttlPolicy.decide(response);
+
+        assertThat(ttl).isEqualTo(new CacheTtl(Duration.ofSeconds(30), RefreshReason.IN_PLAY));
+    }
+
+    @Test
+    void decide_KickoffPassedButStatusNotUpdated_TreatsMatchAsInPlay() {
+        CacheTtl ttl =
+                ttlPolicy.decide(responseOf(fixture(NOW.minus(Duration.ofMinutes(5)), "NS")));
+
+        assertThat(ttl.reason()).isEqualTo(RefreshReason.IN_PLAY);
+    }
+
+    @Test
+    void decide_KickoffWithinWindow_ExpiresNoLaterThanKickoff() {
+        CacheTtl soon =
+                ttlPolicy.decide(responseOf(fixture(NOW.plus(Duration.ofMinutes(90)), "NS")));
+        CacheTtl imminent =
+                ttlPolicy.decide(responseOf(fixture(NOW.plus(Duration.ofMinutes(2)), "NS")));
+
+        assertThat(soon).isEqualTo(new CacheTtl(Duration.ofMinutes(5), RefreshReason.KICKOFF_SOON));
+        assertThat(imminent.ttl()).isEqualTo(Duration.ofMinutes(2));
+    }
+
+    @Test
+    void decide_KickoffLaterToday_UsesUpToAnHour() {
+        CacheTtl ttl = ttlPolicy.decide(responseOf(fixture(NOW.plus(Duration.ofHours(8)), "NS")));
+
+        assertThat(ttl).isEqualTo(new CacheTtl(Duration.ofHours(1), RefreshReason.MATCH_DAY));
+    }
+
+    @Test
+    void decide_NextMatchDaysAway_UsesHoursTtl() {
+        CacheTtl ttl =
+                ttlPolicy.decide(
+                        responseOf(
+                                fixture(NOW.minus(Duration.ofDays(1)), "FT"),
+                                fixture(NOW.plus(Duration.ofDays(10)), "NS")));
+
+        assertThat(ttl).isEqualTo(new CacheTtl(Duration.ofHours(12), RefreshReason.NO_MATCH_SOON));
+    }
+
+    @Test
+    void decide_NoUpcomingFixtures_UsesIdleTtl() {
+        CacheTtl ttl = ttlPolicy.decide(responseOf());
+
+        assertThat(ttl).isEqualTo(new CacheTtl(Duration.ofHours(12), RefreshReason.NO_FIXTURES));
+    }
+
+    @Test
+    void refreshAfter_BringsRefreshForwardByLeadButNoMoreThanHalfTheTtl() {
+        assertThat(
+                        ttlPolicy.refreshAfter(
+                                new CacheTtl(Duration.ofHours(1), RefreshReason.MATCH_DAY)))
+                .isEqualTo(Duration.ofMinutes(59));
+        assertThat(
+                        ttlPolicy.refreshAfter(
+                                new CacheTtl(Duration.ofSeconds(30), RefreshReason.IN_PLAY)))
+                .isEqualTo(Duration.ofSeconds(15));
+    }
+
+    @Test
+    void ttlFor_RecordsTtlAgainstReason() {
+        ttlPolicy.ttlFor(responseOf(fixture(NOW.minus(Duration.ofMinutes(20)), "2H")));
+        ttlPolicy.recordRefresh(RefreshReason.IN_PLAY);
+
+        assertThat(
+                        meterRegistry
+                                .get(FixtureTtlPolicy.TTL_METRIC)
+                                .tag("reason", "in_play")
+                                .summary()
+                                .totalAmount())
+                .isEqualTo(30.0);
+        assertThat(
+                        meterRegistry
+                                .get(FixtureTtlPolicy.REFRESH_METRIC)
+                                .tag("reason", "in_play")
+                                .counter()
+                                .count())
+                .isEqualTo(1.0);
+    }
+
+    private Fixture fixture(Instant kickoff, String shortStatus) {
+        Status status = new Status();
+        status.setShortStatus(shortStatus);
+
+        FixtureDetails details = new FixtureDetails();
+        details.setTimestamp(kickoff.getEpochSecond());
+        details.setStatus(status);
+
+        Fixture fixture = new Fixture();
+        fixture.setFixture(details);
+        return fixture;
+    }
+
+    private FixtureResponse responseOf(Fixture... fixtures) {
+        FixtureResponse response = new FixtureResponse();
+        response.setResponse(List.of(fixtures));
+        response.setResults(fixtures.length);
+        return response;
+    }
+}
@@ -0,0 +1,182 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.atlas.externalAPIs.apiFootball.config.LeagueRegistryConfig;
+import com.atlas.externalAPIs.apiFootball.service.model.CacheTtl;
+import com.atlas.externalAPIs.apiFootball.service.model.ExceptionTypes.ApiFootballException;
+import com.atlas.externalAPIs.apiFootball.service.model.RefreshReason;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LeagueRefreshSchedulerTest {
+
+    private static final Instant START = Instant.parse("2025-10-01T12:00:00Z");
+
+    private static final RegisteredLeague PREMIER_LEAGUE =
+            new RegisteredLeague("39", "Premier League", 30, Duration.ofMinutes(10), 10, "UTC");
+    private static final RegisteredLeague LA_LIGA =
+            new RegisteredLeague("140", "La Liga", 30, Duration.ofHours(1), 20, "UTC");
+
+    @Mock private ApiFootballService apiFootballService;
+
+    @Mock private ApiFootballRateLimiter rateLimiter;
+
+    @Mock private LeagueRegistry leagueRegistry;
+
+    @Mock private FixtureTtlPolicy ttlPolicy;
+
+    @Mock private Clock clock;
+
+    @Mock private ExecutorService refreshExecutor;
+
+    private LeagueRegistryConfig config;
+    private LeagueRefreshScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        config = new LeagueRegistryConfig();
+        when(clock.instant()).thenReturn(START);
+        lenient()
+                .when(ttlPolicy.decide(any()))
+                .thenReturn(new CacheTtl(Duration.ofDays(1), RefreshReason.NO_MATCH_SOON));
+        lenient()
+                .when(ttlPolicy.refreshAfter(any()))
+                .thenAnswer(invocation -> invocation.<CacheTtl>getArgument(0).ttl());
+        doAnswer(
+                        invocation -> {
+                            ((Runnable) invocation.getArgument(0)).run();
+                            return null;
+                        })
+                .when(refreshExecutor)
+                .execute(any(Runnable.class));
+
+        scheduler =
+                new LeagueRefreshScheduler(
+                        apiFootballService,
+                        rateLimiter,
+                        leagueRegistry,
+                        config,
+                        ttlPolicy,
+                        clock,
+                        refreshExecutor);
+    }
+
+    @Test
+    void refreshDueLeagues_FirstTick_RefreshesEveryLeagueInPriorityOrder() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA, PREMIER_LEAGUE));
+
+        scheduler.refreshDueLeagues();
+
+        InOrder inOrder = inOrder(apiFootballService);
+        inOrder.verify(apiFootballService).refreshLeague(PREMIER_LEAGUE);
+        inOrder.verify(apiFootballService).refreshLeague(LA_LIGA);
+        assertThat(scheduler.scheduledCount()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshDueLeagues_OnlyRefreshesLeaguesWhoseIntervalHasElapsed() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA, PREMIER_LEAGUE));
+        scheduler.refreshDueLeagues();
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(11)));
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(2)).refreshLeague(PREMIER_LEAGUE);
+        verify(apiFootballService, times(1)).refreshLeague(LA_LIGA);
+        verify(apiFootballService).refreshCombinedFixtures();
+    }
+
+    @Test
+    void refreshDueLeagues_LeagueAddedToRegistry_IsRefreshedOnNextTick() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(PREMIER_LEAGUE));
+        scheduler.refreshDueLeagues();
+
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(PREMIER_LEAGUE, LA_LIGA));
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(1)).refreshLeague(PREMIER_LEAGUE);
+        verify(apiFootballService, times(1)).refreshLeague(LA_LIGA);
+    }
+
+    @Test
+    void refreshDueLeagues_LeagueRemovedFromRegistry_IsNoLongerScheduled() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(PREMIER_LEAGUE, LA_LIGA));
+        scheduler.refreshDueLeagues();
+
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA));
+        when(clock.instant()).thenReturn(START.plus(Duration.ofHours(2)));
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(1)).refreshLeague(PREMIER_LEAGUE);
+        verify(apiFootballService, times(2)).refreshLeague(LA_LIGA);
+        assertThat(scheduler.scheduledCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshDueLeagues_FailedRefresh_IsRetriedAfterFailureDelay() {
+        config.setFailureRetryDelay(Duration.ofMinutes(2));
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA));
+        when(apiFootballService.refreshLeague(LA_LIGA))
+                .thenThrow(new ApiFootballException("Upstream down", null))
+                .thenReturn(null);
+        scheduler.refreshDueLeagues();
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(3)));
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(2)).refreshLeague(LA_LIGA);
+    }
+
+    @Test
+    void refreshDueLeagues_InterruptedRefresh_IsScheduledAgainOnNextTick() throws Exception {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA));
+        doThrow(new InterruptedException()).doNothing().when(rateLimiter).acquire();
+        scheduler.refreshDueLeagues();
+        assertThat(Thread.interrupted()).isTrue();
+
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(1)).refreshLeague(LA_LIGA);
+        assertThat(scheduler.scheduledCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshDueLeagues_ShortCacheTtl_RefreshesBeforeConfiguredInterval() {
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(LA_LIGA));
+        when(ttlPolicy.decide(any()))
+                .thenReturn(new CacheTtl(Duration.ofSeconds(30), RefreshReason.IN_PLAY));
+        scheduler.refreshDueLeagues();
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofSeconds(45)));
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService, times(2)).refreshLeague(LA_LIGA);
+        verify(ttlPolicy).recordRefresh(RefreshReason.FIRST_LOAD);
+        verify(ttlPolicy).recordRefresh(RefreshReason.IN_PLAY);
+    }
+
+    @Test
+    void refreshDueLeagues_MoreLeaguesDueThanTickAllows_DefersTheRest() {
+        config.setMaxRefreshesPerTick(1);
+        when(leagueRegistry.getLeagues()).thenReturn(List.of(PREMIER_LEAGUE, LA_LIGA));
+
+        scheduler.refreshDueLeagues();
+
+        verify(apiFootballService).refreshLeague(PREMIER_LEAGUE);
+        verify(apiFootballService, never()).refreshLeague(LA_LIGA);
+    }
+}
@@ -0,0 +1,89 @@
+package com.atlas.externalAPIs.apiFootball.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.atlas.externalAPIs.apiFootball.config.LeagueRegistryConfig;
+import com.atlas.externalAPIs.apiFootball.repository.LeagueRepository;
+import com.atlas.externalAPIs.apiFootball.repository.model.LeagueEntity;
+import com.atlas.externalAPIs.apiFootball.service.model.RegisteredLeague;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class LeagueRegistryTest {
+
+    @Mock private LeagueRepository leagueRepository;
+
+    private LeagueRegistry leagueRegistry;
+
+    @BeforeEach
+    void setUp() {
+        leagueRegistry = new LeagueRegistry(leagueRepository, new LeagueRegistryConfig());
+    }
+
+    @Test
+    void reload_MapsEnabledLeaguesWithTheirSettings() {
+        when(leagueRepository.findByEnabledTrueOrderByPriorityAsc())
+                .thenReturn(
+                        List.of(
+                                LeagueEntity.builder()
+                                        .id(253L)
+                                        .name("MLS")
+                                        .lookaheadFixtures(12)
+                                        .refreshIntervalSeconds(900)
+                                        .priority(5)
+                                        .timezone("America/New_York")
+                                        .enabled(true)
+                                        .build()));
+
+        leagueRegistry.reload();
+
+        assertThat(leagueRegistry.getLeagues())
+                .containsExactly(
+                        new RegisteredLeague(
+                                "253", "MLS", 12, Duration.ofMinutes(15), 5, "America/New_York"));
+    }
+
+    @Test
+    void reload_DatabaseUnavailableOnFirstLoad_FallsBackToDefaultLeagues() {
+        when(leagueRepository.findByEnabledTrueOrderByPriorityAsc())
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        leagueRegistry.reload();
+
+        assertThat(leagueRegistry.getLeagues())
+                .extracting(RegisteredLeague::id)
+                .containsExactly("39", "140", "78", "135", "61");
+    }
+
+    @Test
+    void reload_DatabaseUnavailableLater_KeepsLastLoadedLeagues() {
+        LeagueEntity premierLeague =
+                LeagueEntity.builder()
+                        .id(39L)
+                        .name("Premier League")
+                        .lookaheadFixtures(30)
+                        .refreshIntervalSeconds(3600)
+                        .priority(10)
+                        .timezone("UTC")
+                        .enabled(true)
+                        .build();
+        when(leagueRepository.findByEnabledTrueOrderByPriorityAsc())
+                .thenReturn(List.of(premierLeague))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        leagueRegistry.reload();
+        leagueRegistry.reload();
+
+        assertThat(leagueRegistry.getLeagues())
+                .extracting(RegisteredLeague::id)
+                .containsExactly("39");
+    }
+}
@@ -0,0 +1,31 @@
+package com.atlas.integration;
+
+import jakarta.persistence.*;
+import java.sql.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnTransformer;
+
+/**
+ * The metrics mapping as it was before pooled sequences, on a scratch copy of the table. Only
+ * {@link MetricsInsertBenchmarkTest} creates the table.
+ */
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "metrics_identity_benchmark")
+class IdentityBenchmarkMetric {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    String event;
+    Timestamp eventTime;
+
+    @ColumnTransformer(write = "?::jsonb")
+    String metadata;
+}
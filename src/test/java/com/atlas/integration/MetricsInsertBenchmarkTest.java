@@ -0,0 +1,179 @@
+package com.atlas.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import jakarta.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures metric insert throughput three ways:
+ *
+ * <ul>
+ *   <li>Hibernate with the old IDENTITY mapping, which sends one insert per entity to get its id;
+ *   <li>Hibernate with the pooled sequence, which assigns ids in memory and batches the inserts;
+ *   <li>{@link MetricEventWriter}, the ingestion path since events stopped going through JPA.
+ * </ul>
+ *
+ * The two Hibernate runs write to scratch copies of {@code metrics} with the same columns and
+ * indexes, so only the id strategy differs between them; both are rolled back. The writer commits
+ * its own batches to {@code metrics}, so its rows are deleted afterwards.
+ *
+ * <p>Run against the test database from docker-compose.yaml with {@code docker-compose up -d
+ * postgres-test-db} and {@code ./gradlew benchmark}; the row count can be changed with {@code
+ * -Dbenchmark.rows=...}.
+ */
+@SpringBootTest
+@Tag("benchmark")
+@Slf4j
+class MetricsInsertBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000);
+    private static final String EVENT = "BENCHMARK";
+
+    private static final List<String> CREATE_SCRATCH_TABLES_SQL =
+            List.of(
+                    "CREATE TABLE metrics_identity_benchmark (LIKE metrics INCLUDING ALL)",
+                    "ALTER TABLE metrics_identity_benchmark ALTER COLUMN id DROP DEFAULT",
+                    "ALTER TABLE metrics_identity_benchmark"
+                            + " ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY",
+                    "CREATE TABLE metrics_pooled_benchmark (LIKE metrics INCLUDING ALL)",
+                    "CREATE SEQUENCE metrics_pooled_benchmark_seq INCREMENT BY 50"
+                            + " OWNED BY metrics_pooled_benchmark.id",
+                    "ALTER TABLE metrics_pooled_benchmark ALTER COLUMN id"
+                            + " SET DEFAULT nextval('metrics_pooled_benchmark_seq')");
+
+    private static final List<String> DROP_SCRATCH_TABLES_SQL =
+            List.of(
+                    "DROP TABLE IF EXISTS metrics_identity_benchmark",
+                    "DROP TABLE IF EXISTS metrics_pooled_benchmark");
+
+    @Autowired private EntityManager entityManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private MetricEventWriter eventWriter;
+    @Autowired private MetricsIngestionConfig ingestionConfig;
+
+    @BeforeEach
+    void setUp() {
+        DROP_SCRATCH_TABLES_SQL.forEach(jdbcTemplate::execute);
+        CREATE_SCRATCH_TABLES_SQL.forEach(jdbcTemplate::execute);
+        deleteWriterRows();
+
+        runRolledBack(() -> persistIdentity(ROWS / 10));
+        runRolledBack(() -> persistPooled(ROWS / 10));
+        writeThroughWriter(ROWS / 10);
+        deleteWriterRows();
+    }
+
+    @AfterEach
+    void tearDown() {
+        DROP_SCRATCH_TABLES_SQL.forEach(jdbcTemplate::execute);
+        deleteWriterRows();
+    }
+
+    @Test
+    void compareIdStrategiesAndTheIngestionWriter() {
+        double identity =
+                measure("hibernate IDENTITY", () -> runRolledBack(() -> persistIdentity(ROWS)));
+        double pooled =
+                measure(
+                        "hibernate pooled sequence",
+                        () -> runRolledBack(() -> persistPooled(ROWS)));
+        double writer = measure("MetricEventWriter", () -> writeThroughWriter(ROWS));
+
+        log.info(
+                "Pooled sequence ran at {}x the IDENTITY rate; MetricEventWriter at {}x",
+                String.format("%.1f", pooled / identity),
+                String.format("%.1f", writer / identity));
+    }
+
+    private double measure(String name, IntSupplier insert) {
+        long start = System.nanoTime();
+        int inserted = insert.getAsInt();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        assertThat(inserted).isEqualTo(ROWS);
+        double rate = inserted / seconds;
+        log.info(
+                "{}: {} rows in {} s ({} rows/s)",
+                name,
+                inserted,
+                String.format("%.2f", seconds),
+                String.format("%.0f", rate));
+        return rate;
+    }
+
+    private int persistIdentity(int rows) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < rows; i++) {
+            entityManager.persist(
+                    IdentityBenchmarkMetric.builder()
+                            .event(EVENT)
+                            .eventTime(now)
+                            .metadata("{\"i\":" + i + "}")
+                            .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return rows;
+    }
+
+    private int persistPooled(int rows) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < rows; i++) {
+            entityManager.persist(
+                    PooledBenchmarkMetric.builder()
+                            .event(EVENT)
+                            .eventTime(now)
+                            .metadata("{\"i\":" + i + "}")
+                            .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return rows;
+    }
+
+    // In batches of the ingestion buffer's size, as the buffer's writer thread sends them.
+    private int writeThroughWriter(int rows) {
+        Instant now = Instant.now();
+        int batchSize = ingestionConfig.getBatchSize();
+        for (int start = 0; start < rows; start += batchSize) {
+            List<PendingMetricEvent> batch = new ArrayList<>(batchSize);
+            for (int i = start; i < Math.min(rows, start + batchSize); i++) {
+                batch.add(new PendingMetricEvent(EVENT, now, "{\"i\":" + i + "}", null));
+            }
+            eventWriter.writeBatch(batch);
+        }
+        return rows;
+    }
+
+    private void deleteWriterRows() {
+        jdbcTemplate.update("DELETE FROM metrics WHERE event = ?", EVENT);
+    }
+
+    private int runRolledBack(IntSupplier work) {
+        Integer result =
+                transactionTemplate.execute(
+                        status -> {
+                            status.setRollbackOnly();
+                            return work.getAsInt();
+                        });
+        return result == null ? 0 : result;
+    }
+}
@@ -3,6 +3,7 @@ package com.atlas.integration;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.atlas.metrics.controller.model.MetricEventDTO;
@@ -114,4 +115,26 @@ public class MetricsIntegrationTest {
                                 - now2.getTime());
         assertThat(timeDifference2).isLessThan(3000);
     }
+
+    @Test
+    @DisplayName("INT - when a batch of metrics is posted, the valid events are recorded")
+    void whenABatchIsPosted_ValidEventsAreRecorded() throws Exception {
+        String ndjson =
+                "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{\"buttonId\":\"submit\"}}\n"
+                        + "{\"event\":\"UNKNOWN\",\"eventMetadata\":{}}\n"
+                        + "{\"event\":\"LOGOUT\",\"eventMetadata\":{}}\n";
+
+        mockMvc.perform(
+                        post("/api/save-metrics/batch")
+                                .contentType("application/x-ndjson")
+                                .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+
+        assertThat(metricsRepository.findAll())
+                .extracting(MetricEventEntity::getEvent)
+                .containsExactlyInAnyOrder("BUTTON_CLICK", "LOGOUT");
+    }
 }
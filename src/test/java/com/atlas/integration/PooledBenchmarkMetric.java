@@ -0,0 +1,35 @@
+package com.atlas.integration;
+
+import jakarta.persistence.*;
+import java.sql.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnTransformer;
+
+/**
+ * The current metrics mapping, with a pooled sequence, on a scratch copy of the table. Only
+ * {@link MetricsInsertBenchmarkTest} creates the table and its sequence.
+ */
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "metrics_pooled_benchmark")
+class PooledBenchmarkMetric {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "metrics_pooled_benchmark_seq")
+    @SequenceGenerator(
+            name = "metrics_pooled_benchmark_seq",
+            sequenceName = "metrics_pooled_benchmark_seq",
+            allocationSize = 50)
+    Long id;
+
+    String event;
+    Timestamp eventTime;
+
+    @ColumnTransformer(write = "?::jsonb")
+    String metadata;
+}
@@ -255,6 +255,15 @@ class JwtAuthenticationFilterTest {
         assertThat(shouldNotFilter).isTrue();
     }
 
+    @Test
+    void shouldNotFilter_shouldReturnTrueForMediaEndpoints() throws Exception {
+        when(request.getServletPath()).thenReturn("/api/media/teams/33");
+
+        boolean shouldNotFilter = jwtAuthenticationFilter.shouldNotFilter(request);
+
+        assertThat(shouldNotFilter).isTrue();
+    }
+
     @Test
     void shouldNotFilter_shouldReturnTrueForHealthEndpoints() throws Exception {
         when(request.getServletPath()).thenReturn("/actuator/health");
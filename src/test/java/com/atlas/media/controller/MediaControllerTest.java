@@ -0,0 +1,83 @@
+package com.atlas.media.controller;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.atlas.media.config.MediaCacheConfig;
+import com.atlas.media.service.MediaCacheService;
+import com.atlas.media.service.model.ExceptionTypes.MediaFetchException;
+import com.atlas.media.service.model.ExceptionTypes.MediaNotFoundException;
+import com.atlas.media.service.model.LogoType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(MediaController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ContextConfiguration(classes = MediaController.class)
+class MediaControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockitoBean private MediaCacheService mediaCacheService;
+
+    @MockitoBean private MediaCacheConfig config;
+
+    @TempDir Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        when(config.getMaxAgeSeconds()).thenReturn(31536000L);
+        when(config.getNotFoundTtlSeconds()).thenReturn(600L);
+    }
+
+    @Test
+    void getLogo_ShouldServeCachedFileWithImmutableCacheHeaders() throws Exception {
+        Path logo = Files.write(tempDir.resolve("teams-33.png"), new byte[] {1, 2, 3, 4});
+        when(mediaCacheService.getLogo(LogoType.TEAMS, 33)).thenReturn(logo);
+
+        mockMvc.perform(get("/api/media/teams/33"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(new byte[] {1, 2, 3, 4}))
+                .andExpect(header().longValue("Content-Length", 4))
+                .andExpect(
+                        header().string(
+                                        "Cache-Control",
+                                        "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void getLogo_ShouldReturnNotFound_WhenTypeIsUnknown() throws Exception {
+        mockMvc.perform(get("/api/media/players/33")).andExpect(status().isNotFound());
+
+        verifyNoInteractions(mediaCacheService);
+    }
+
+    @Test
+    void getLogo_ShouldReturnCacheableNotFound_WhenUpstreamHasNoLogo() throws Exception {
+        when(mediaCacheService.getLogo(LogoType.TEAMS, 999999))
+                .thenThrow(new MediaNotFoundException("Upstream has no logo teams-999999.png"));
+
+        mockMvc.perform(get("/api/media/teams/999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("Cache-Control", "max-age=600, public"));
+    }
+
+    @Test
+    void getLogo_ShouldReturnServiceUnavailable_WhenUpstreamFetchFails() throws Exception {
+        when(mediaCacheService.getLogo(LogoType.LEAGUES, 39))
+                .thenThrow(new MediaFetchException("Upstream down"));
+
+        mockMvc.perform(get("/api/media/leagues/39")).andExpect(status().isServiceUnavailable());
+    }
+}
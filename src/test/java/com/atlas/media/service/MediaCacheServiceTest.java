@@ -0,0 +1,150 @@
+package com.atlas.media.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.media.config.MediaCacheConfig;
+import com.atlas.media.service.model.ExceptionTypes.MediaFetchException;
+import com.atlas.media.service.model.ExceptionTypes.MediaNotFoundException;
+import com.atlas.media.service.model.LogoType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class MediaCacheServiceTest {
+
+    private static final String BASE_URL = "https://media.example.com/football";
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock private RestTemplate restTemplate;
+    @Mock private Clock clock;
+
+    @TempDir Path cacheDirectory;
+
+    private MediaCacheConfig config;
+    private MediaCacheService mediaCacheService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = new MediaCacheConfig();
+        config.setUpstreamBaseUrl(BASE_URL);
+        config.setDirectory(cacheDirectory.toString());
+        config.setMaxSizeBytes(10);
+
+        mediaCacheService = new MediaCacheService(restTemplate, config, clock);
+        mediaCacheService.initialize();
+    }
+
+    @Test
+    void getLogo_CacheMiss_FetchesFromUpstreamAndStoresOnDisk() throws Exception {
+        when(restTemplate.getForEntity(BASE_URL + "/teams/33.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[] {1, 2, 3}, HttpStatus.OK));
+
+        Path logo = mediaCacheService.getLogo(LogoType.TEAMS, 33);
+
+        assertThat(logo).isEqualTo(cacheDirectory.resolve("teams-33.png"));
+        assertThat(Files.readAllBytes(logo)).containsExactly(1, 2, 3);
+        assertThat(mediaCacheService.getCurrentSizeBytes()).isEqualTo(3);
+    }
+
+    @Test
+    void getLogo_CacheHit_DoesNotCallUpstreamAgain() throws Exception {
+        when(restTemplate.getForEntity(BASE_URL + "/leagues/39.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[] {7, 8}, HttpStatus.OK));
+
+        mediaCacheService.getLogo(LogoType.LEAGUES, 39);
+        Path logo = mediaCacheService.getLogo(LogoType.LEAGUES, 39);
+
+        assertThat(Files.readAllBytes(logo)).containsExactly(7, 8);
+
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(byte[].class));
+    }
+
+    @Test
+    void getLogo_OverSizeLimit_EvictsLeastRecentlyUsedLogo() throws Exception {
+        when(restTemplate.getForEntity(BASE_URL + "/teams/1.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[4], HttpStatus.OK));
+        when(restTemplate.getForEntity(BASE_URL + "/teams/2.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[4], HttpStatus.OK));
+        when(restTemplate.getForEntity(BASE_URL + "/teams/3.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[4], HttpStatus.OK));
+
+        mediaCacheService.getLogo(LogoType.TEAMS, 1);
+        mediaCacheService.getLogo(LogoType.TEAMS, 2);
+        mediaCacheService.getLogo(LogoType.TEAMS, 1);
+        mediaCacheService.getLogo(LogoType.TEAMS, 3);
+
+        assertThat(cacheDirectory.resolve("teams-1.png")).exists();
+        assertThat(cacheDirectory.resolve("teams-2.png")).doesNotExist();
+        assertThat(cacheDirectory.resolve("teams-3.png")).exists();
+        assertThat(mediaCacheService.getCurrentSizeBytes()).isEqualTo(8);
+    }
+
+    @Test
+    void initialize_ExistingFilesOnDisk_AreServedWithoutUpstreamCall() throws Exception {
+        Files.write(cacheDirectory.resolve("teams-50.png"), new byte[] {9});
+
+        MediaCacheService restarted = new MediaCacheService(restTemplate, config);
+        restarted.initialize();
+
+        assertThat(Files.readAllBytes(restarted.getLogo(LogoType.TEAMS, 50))).containsExactly(9);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void getLogo_UpstreamFailure_ThrowsMediaFetchException() {
+        when(restTemplate.getForEntity(BASE_URL + "/teams/33.png", byte[].class))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        assertThatThrownBy(() -> mediaCacheService.getLogo(LogoType.TEAMS, 33))
+                .isInstanceOf(MediaFetchException.class);
+        assertThat(cacheDirectory.resolve("teams-33.png")).doesNotExist();
+    }
+
+    @Test
+    void getLogo_UpstreamReturnsOversizedBody_ThrowsMediaFetchException() {
+        config.setMaxObjectSizeBytes(2);
+        when(restTemplate.getForEntity(BASE_URL + "/teams/33.png", byte[].class))
+                .thenReturn(new ResponseEntity<>(new byte[3], HttpStatus.OK));
+
+        assertThatThrownBy(() -> mediaCacheService.getLogo(LogoType.TEAMS, 33))
+                .isInstanceOf(MediaFetchException.class)
+                .hasMessageContaining("exceeds");
+    }
+
+    @Test
+    void getLogo_UnknownId_IsNotAskedForAgainUntilTheNotFoundTtlPasses() {
+        when(clock.millis()).thenReturn(NOW.toEpochMilli());
+        when(restTemplate.getForEntity(BASE_URL + "/teams/999999.png", byte[].class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> mediaCacheService.getLogo(LogoType.TEAMS, 999999))
+                    .isInstanceOf(MediaNotFoundException.class);
+        }
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(byte[].class));
+
+        when(clock.millis())
+                .thenReturn(NOW.plusSeconds(config.getNotFoundTtlSeconds()).toEpochMilli());
+        assertThatThrownBy(() -> mediaCacheService.getLogo(LogoType.TEAMS, 999999))
+                .isInstanceOf(MediaNotFoundException.class);
+        verify(restTemplate, times(2)).getForEntity(anyString(), eq(byte[].class));
+    }
+}
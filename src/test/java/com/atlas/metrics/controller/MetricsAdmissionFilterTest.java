@@ -0,0 +1,82 @@
+package com.atlas.metrics.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.service.MetricsAdmissionControl;
+import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsAdmissionFilterTest {
+
+    @Mock private MetricsAdmissionControl admissionControl;
+
+    @Mock private FilterChain filterChain;
+
+    @InjectMocks private MetricsAdmissionFilter filter;
+
+    @Test
+    void shedRequest_Returns429WithRetryAfterAndSkipsTheChain() throws Exception {
+        when(admissionControl.checkCapacity()).thenReturn(Optional.of(Duration.ofSeconds(3)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(post("/api/save-metric"), response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("3");
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void admittedRequest_ContinuesDownTheChain() throws Exception {
+        when(admissionControl.checkCapacity()).thenReturn(Optional.empty());
+        MockHttpServletRequest request = post("/api/save-metrics/batch");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void ingestionBehindAContextPath_IsStillChecked() throws Exception {
+        when(admissionControl.checkCapacity()).thenReturn(Optional.of(Duration.ofSeconds(1)));
+        MockHttpServletRequest request =
+                new MockHttpServletRequest("POST", "/atlas/api/save-metric;jsessionid=abc");
+        request.setContextPath("/atlas");
+        request.setServletPath("/api/save-metric");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void otherEndpoints_AreNotChecked() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/fixtures");
+        request.setServletPath("/api/fixtures");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, filterChain);
+
+        verifyNoInteractions(admissionControl);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    private static MockHttpServletRequest post(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        return request;
+    }
+}
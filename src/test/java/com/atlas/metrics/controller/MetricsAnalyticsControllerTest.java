@@ -0,0 +1,432 @@
+package com.atlas.metrics.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.service.MetricAnalyticsService;
+import com.atlas.metrics.service.MetricExportService;
+import com.atlas.metrics.service.MetricFunnelService;
+import com.atlas.metrics.service.MetricLiveBroadcaster;
+import com.atlas.metrics.service.MetricSketchService;
+import com.atlas.metrics.service.MetricTimingService;
+import com.atlas.metrics.service.model.BreakdownDimension;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricLiveViewUnavailableException;
+import com.atlas.metrics.service.model.ExportFormat;
+import com.atlas.metrics.service.model.FunnelReport;
+import com.atlas.metrics.service.model.MetricBreakdown;
+import com.atlas.metrics.service.model.MetricBreakdownEntry;
+import com.atlas.metrics.service.model.MetricCountBucket;
+import com.atlas.metrics.service.model.MetricCounts;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.RollupGranularity;
+import com.atlas.metrics.service.model.SessionSummary;
+import com.atlas.metrics.service.model.TimingPercentiles;
+import com.atlas.metrics.service.model.TopTriggers;
+import com.atlas.metrics.service.model.UniqueUserCount;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import com.atlas.metrics.service.model.UserTimelinePage;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@WebMvcTest(MetricsAnalyticsController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ContextConfiguration(classes = MetricsAnalyticsController.class)
+class MetricsAnalyticsControllerTest {
+
+    private static final Instant FROM = Instant.parse("2026-10-19T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-10-19T02:00:00Z");
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockitoBean private MetricAnalyticsService analyticsService;
+
+    @MockitoBean private MetricSketchService sketchService;
+
+    @MockitoBean private MetricExportService exportService;
+
+    @MockitoBean private MetricFunnelService funnelService;
+
+    @MockitoBean private MetricTimingService timingService;
+
+    @MockitoBean private MetricLiveBroadcaster liveBroadcaster;
+
+    @Test
+    void getCounts_ShouldReturnBucketsForRequestedGranularity() throws Exception {
+        when(analyticsService.getCounts(RollupGranularity.HOUR, FROM, TO, null))
+                .thenReturn(
+                        new MetricCounts(
+                                RollupGranularity.HOUR,
+                                FROM,
+                                TO,
+                                List.of(new MetricCountBucket(FROM, "LOGIN", 12))));
+
+        mockMvc.perform(
+                        get("/api/metrics/counts")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("HOUR"))
+                .andExpect(jsonPath("$.buckets[0].event").value("LOGIN"))
+                .andExpect(jsonPath("$.buckets[0].count").value(12));
+    }
+
+    @Test
+    void getCounts_ShouldReturnBadRequest_WhenQueryIsInvalid() throws Exception {
+        when(analyticsService.getCounts(RollupGranularity.MINUTE, FROM, TO, "NOPE"))
+                .thenThrow(new InvalidMetricsQueryException("Unknown event type NOPE"));
+
+        mockMvc.perform(
+                        get("/api/metrics/counts")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString())
+                                .param("granularity", "MINUTE")
+                                .param("event", "NOPE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getBreakdown_ShouldGroupByRequestedDimension() throws Exception {
+        when(analyticsService.getBreakdown(BreakdownDimension.TRIGGER, FROM, TO, "BUTTON_CLICK"))
+                .thenReturn(
+                        new MetricBreakdown(
+                                BreakdownDimension.TRIGGER,
+                                RollupGranularity.HOUR,
+                                FROM,
+                                TO,
+                                List.of(new MetricBreakdownEntry("Login Button", 40))));
+
+        mockMvc.perform(
+                        get("/api/metrics/breakdown")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString())
+                                .param("by", "TRIGGER")
+                                .param("event", "BUTTON_CLICK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries[0].key").value("Login Button"))
+                .andExpect(jsonPath("$.entries[0].count").value(40));
+    }
+
+    @Test
+    void getUserTimeline_ShouldReturnPageWithRawMetadataAndCursor() throws Exception {
+        when(analyticsService.getUserTimeline(7L, "abc", 20))
+                .thenReturn(
+                        new UserTimelinePage(
+                                List.of(
+                                        new UserTimelineEvent(
+                                                3L, "LOGIN", FROM, "{\"triggerId\": \"x\"}")),
+                                "next"));
+
+        mockMvc.perform(
+                        get("/api/metrics/users/7/timeline")
+                                .param("cursor", "abc")
+                                .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].metadata.triggerId").value("x"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getUserTimeline_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        when(analyticsService.getUserTimeline(anyLong(), any(), any()))
+                .thenThrow(new InvalidMetricsQueryException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/metrics/users/7/timeline").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchEvents_ShouldPassFiltersToService() throws Exception {
+        MetricEventFilter filter = new MetricEventFilter(null, "save-team", "fixtures", null);
+        when(analyticsService.searchEvents(filter, FROM, TO, null, null))
+                .thenReturn(
+                        new UserTimelinePage(
+                                List.of(
+                                        new UserTimelineEvent(
+                                                5, "BUTTON_CLICK", FROM, "{\"triggerId\":1}")),
+                                null));
+
+        mockMvc.perform(
+                        get("/api/metrics/events")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString())
+                                .param("triggerId", "save-team")
+                                .param("screen", "fixtures"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].id").value(5))
+                .andExpect(jsonPath("$.events[0].metadata.triggerId").value(1));
+    }
+
+    @Test
+    void getUniqueUsers_ShouldReturnSketchEstimate() throws Exception {
+        LocalDate day = LocalDate.parse("2026-10-19");
+        when(sketchService.getUniqueUsers("LOGIN", day, day.plusDays(6)))
+                .thenReturn(new UniqueUserCount("LOGIN", day, day.plusDays(6), 4210));
+
+        mockMvc.perform(
+                        get("/api/metrics/unique-users")
+                                .param("event", "LOGIN")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estimate").value(4210));
+    }
+
+    @Test
+    void getTopTriggers_ShouldReturnHeaviestTriggerIds() throws Exception {
+        LocalDate day = LocalDate.parse("2026-10-19");
+        when(sketchService.getTopTriggers("BUTTON_CLICK", day, day, 2))
+                .thenReturn(
+                        new TopTriggers(
+                                "BUTTON_CLICK",
+                                day,
+                                day,
+                                List.of(
+                                        new MetricBreakdownEntry("save-team", 90),
+                                        new MetricBreakdownEntry("share", 40))));
+
+        mockMvc.perform(
+                        get("/api/metrics/top-triggers")
+                                .param("event", "BUTTON_CLICK")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-19")
+                                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries[0].key").value("save-team"))
+                .andExpect(jsonPath("$.entries[1].count").value(40));
+    }
+
+    @Test
+    void getTopTriggers_ShouldReturnBadRequest_WhenQueryIsInvalid() throws Exception {
+        when(sketchService.getTopTriggers(any(), any(), any(), any()))
+                .thenThrow(new InvalidMetricsQueryException("Unknown event type NOPE"));
+
+        mockMvc.perform(
+                        get("/api/metrics/top-triggers")
+                                .param("event", "NOPE")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-19"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportEvents_ShouldStreamGzippedAttachment_WhenClientAcceptsGzip() throws Exception {
+        MetricEventFilter filter = new MetricEventFilter("LOGIN", null, null, null);
+        when(exportService.tryReserve()).thenReturn(true);
+        doAnswer(
+                        invocation -> {
+                            OutputStream out = invocation.getArgument(4);
+                            out.write("id,event\n".getBytes(StandardCharsets.UTF_8));
+                            return 1L;
+                        })
+                .when(exportService)
+                .export(eq(ExportFormat.CSV), eq(filter), eq(FROM), eq(TO), any());
+
+        byte[] body =
+                mockMvc.perform(
+                                get("/api/metrics/export")
+                                        .param("from", FROM.toString())
+                                        .param("to", TO.toString())
+                                        .param("format", "CSV")
+                                        .param("event", "LOGIN")
+                                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                        .andExpect(
+                                header().string(
+                                                HttpHeaders.CONTENT_DISPOSITION,
+                                                "attachment; filename=\"metrics-export.csv\""))
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("id,event\n");
+        }
+    }
+
+    @Test
+    void exportEvents_ShouldNotCompress_WhenClientDoesNotAcceptGzip() throws Exception {
+        when(exportService.tryReserve()).thenReturn(true);
+
+        mockMvc.perform(
+                        get("/api/metrics/export")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+        verify(exportService)
+                .export(
+                        eq(ExportFormat.NDJSON),
+                        eq(new MetricEventFilter(null, null, null, null)),
+                        eq(FROM),
+                        eq(TO),
+                        any());
+        verify(exportService).release();
+    }
+
+    @Test
+    void exportEvents_ShouldReturnServiceUnavailable_WhenTooManyExportsAreRunning()
+            throws Exception {
+        when(exportService.tryReserve()).thenReturn(false);
+
+        mockMvc.perform(
+                        get("/api/metrics/export")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        verify(exportService, never()).export(any(), any(), any(), any(), any());
+        verify(exportService, never()).release();
+    }
+
+    @Test
+    void exportEvents_ShouldReturnBadRequest_WhenQueryIsInvalid() throws Exception {
+        doThrow(new InvalidMetricsQueryException("from must be before to"))
+                .when(exportService)
+                .validate(any(), any(), any());
+
+        mockMvc.perform(
+                        get("/api/metrics/export")
+                                .param("from", TO.toString())
+                                .param("to", FROM.toString()))
+                .andExpect(status().isBadRequest());
+
+        verify(exportService, never()).export(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getFunnel_ShouldReturnStepCounts() throws Exception {
+        LocalDate day = LocalDate.parse("2026-10-19");
+        when(funnelService.getFunnel("login-to-payment", day, day))
+                .thenReturn(
+                        new FunnelReport(
+                                "login-to-payment",
+                                day,
+                                day,
+                                Duration.ofMinutes(30),
+                                List.of(
+                                        new FunnelReport.Step(1, "LOGIN", 10, 1.0, 1.0),
+                                        new FunnelReport.Step(2, "BUTTON_CLICK", 4, 0.4, 0.4))));
+
+        mockMvc.perform(
+                        get("/api/metrics/funnels/login-to-payment")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-19"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.steps[1].event").value("BUTTON_CLICK"))
+                .andExpect(jsonPath("$.steps[1].entries").value(4))
+                .andExpect(jsonPath("$.steps[1].conversion").value(0.4));
+    }
+
+    @Test
+    void getFunnel_ShouldReturnBadRequest_WhenFunnelIsUnknown() throws Exception {
+        when(funnelService.getFunnel(eq("nope"), any(), any()))
+                .thenThrow(new InvalidMetricsQueryException("Unknown funnel nope"));
+
+        mockMvc.perform(
+                        get("/api/metrics/funnels/nope")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-19"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getSessions_ShouldReturnSummary() throws Exception {
+        LocalDate day = LocalDate.parse("2026-10-19");
+        when(funnelService.getSessions(day, day))
+                .thenReturn(new SessionSummary(day, day, 4, 300.0, 2.5));
+
+        mockMvc.perform(
+                        get("/api/metrics/sessions")
+                                .param("from", "2026-10-19")
+                                .param("to", "2026-10-19"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions").value(4))
+                .andExpect(jsonPath("$.averageDurationSeconds").value(300.0));
+    }
+
+    @Test
+    void getTimings_ShouldReturnPercentiles() throws Exception {
+        when(timingService.getPercentiles(MetricTimingType.PAGE_LOAD, "/fixtures", FROM, TO))
+                .thenReturn(
+                        new TimingPercentiles(
+                                MetricTimingType.PAGE_LOAD,
+                                "/fixtures",
+                                FROM,
+                                TO,
+                                250,
+                                310.2,
+                                280,
+                                720,
+                                1150,
+                                2400));
+
+        mockMvc.perform(
+                        get("/api/metrics/timings")
+                                .param("type", "PAGE_LOAD")
+                                .param("route", "/fixtures")
+                                .param("from", FROM.toString())
+                                .param("to", TO.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(250))
+                .andExpect(jsonPath("$.p95").value(720))
+                .andExpect(jsonPath("$.p99").value(1150));
+    }
+
+    @Test
+    void getTimings_ShouldReturnBadRequest_WhenRangeIsInvalid() throws Exception {
+        when(timingService.getPercentiles(MetricTimingType.PAGE_LOAD, null, TO, FROM))
+                .thenThrow(new InvalidMetricsQueryException("from must be before to"));
+
+        mockMvc.perform(
+                        get("/api/metrics/timings")
+                                .param("type", "PAGE_LOAD")
+                                .param("from", TO.toString())
+                                .param("to", FROM.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getLive_ShouldOpenAnEventStream() throws Exception {
+        when(liveBroadcaster.subscribe()).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/metrics/live").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void getLive_ShouldReturnServiceUnavailable_WhenTheLiveViewIsFull() throws Exception {
+        when(liveBroadcaster.subscribe())
+                .thenThrow(new MetricLiveViewUnavailableException("full"));
+
+        mockMvc.perform(get("/api/metrics/live").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
@@ -5,11 +5,28 @@ import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.atlas.metrics.controller.model.MetricEventDTO;
 import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.controller.model.MetricTimingDTO;
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.controller.model.RawJson;
+import com.atlas.metrics.service.MetricBatchReader;
+import com.atlas.metrics.service.MetricTimingService;
+import com.atlas.metrics.service.MetricsAdmissionControl;
 import com.atlas.metrics.service.MetricsService;
+import com.atlas.metrics.service.model.ExceptionTypes.MalformedMetricBatchException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchItemError;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
 import com.atlas.testFactories.MetricEventTestFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.minidev.json.JSONObject;
@@ -19,6 +36,7 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -33,6 +51,12 @@ class MetricsControllerTest {
 
     @MockitoBean private MetricsService mockMetricsService;
 
+    @MockitoBean private MetricBatchReader mockMetricBatchReader;
+
+    @MockitoBean private MetricTimingService mockMetricTimingService;
+
+    @MockitoBean private MetricsAdmissionControl mockAdmissionControl;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -92,6 +116,27 @@ class MetricsControllerTest {
         verify(mockMetricsService, times(1)).saveMetricEvent(any(MetricEventDTO.class));
     }
 
+    @Test
+    @DisplayName("when the ingestion buffer is full, 429 is returned with Retry-After")
+    void shouldReturn429WhenIngestionIsRejected() throws Exception {
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.BUTTON_CLICK, new JSONObject());
+
+        doThrow(new MetricIngestionRejectedException("Metrics ingestion buffer is full"))
+                .when(mockMetricsService)
+                .saveMetricEvent(any(MetricEventDTO.class));
+        when(mockAdmissionControl.retryAfter()).thenReturn(Duration.ofSeconds(3));
+
+        mockMvc.perform(
+                        post("/api/save-metric")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(metricEventDTO))
+                                .with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+
     @Test
     @DisplayName("Should return 400 when request body is invalid JSON")
     void shouldReturn400WhenRequestBodyIsInvalidJson() throws Exception {
@@ -155,4 +200,149 @@ class MetricsControllerTest {
         MetricEventDTO captured = captor.getValue();
         assertNull(captured.getUserId());
     }
+
+    @Test
+    @DisplayName("Should pass the metadata through as compact JSON text")
+    void shouldPassMetadataThroughAsCompactJson() throws Exception {
+        String requestJson =
+                """
+        {
+            "event": "BUTTON_CLICK",
+            "eventMetadata": {"buttonId": "submit", "tags": [1, {"a": null}]}
+        }
+        """;
+
+        mockMvc.perform(
+                        post("/api/save-metric")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(requestJson)
+                                .with(csrf()))
+                .andExpect(status().isCreated());
+
+        ArgumentCaptor<MetricEventDTO> captor = ArgumentCaptor.forClass(MetricEventDTO.class);
+        verify(mockMetricsService).saveMetricEvent(captor.capture());
+
+        assertEquals(
+                "{\"buttonId\":\"submit\",\"tags\":[1,{\"a\":null}]}",
+                captor.getValue().getEventMetadata().json());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the metadata is nested too deeply")
+    void shouldReturn400WhenMetadataIsNestedTooDeeply() throws Exception {
+        String metadata = "{\"a\":".repeat(RawJson.MAX_DEPTH) + "1" + "}".repeat(RawJson.MAX_DEPTH);
+
+        mockMvc.perform(
+                        post("/api/save-metric")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(
+                                        "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{\"x\":"
+                                                + metadata
+                                                + "}}")
+                                .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mockMetricsService);
+    }
+
+    @Test
+    @DisplayName("when a batch is received, the accepted and rejected counts are returned")
+    void whenBatchIsReceived_ResultIsReturned() throws Exception {
+        MetricBatch batch = new MetricBatch(List.of(), List.of());
+        when(mockMetricBatchReader.read(any(InputStream.class))).thenReturn(batch);
+        when(mockMetricsService.saveMetricEvents(batch))
+                .thenReturn(
+                        new MetricBatchResult(
+                                2, 1, List.of(new MetricBatchItemError(1, "event is required"))));
+
+        mockMvc.perform(
+                        post("/api/save-metrics/batch")
+                                .contentType("application/x-ndjson")
+                                .content("{}\n{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("event is required"));
+    }
+
+    @Test
+    @DisplayName("when a batch body is malformed, 400 is returned")
+    void whenBatchIsMalformed_Return400() throws Exception {
+        when(mockMetricBatchReader.read(any(InputStream.class)))
+                .thenThrow(new MalformedMetricBatchException("Malformed JSON at item 0"));
+
+        mockMvc.perform(
+                        post("/api/save-metrics/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{"))
+                .andExpect(status().isBadRequest());
+
+        verify(mockMetricsService, never()).saveMetricEvents(any());
+    }
+
+    @Test
+    @DisplayName("when a batch is rejected by the ingestion buffer, 429 is returned")
+    void whenBatchIsRejected_Return429() throws Exception {
+        when(mockMetricBatchReader.read(any(InputStream.class)))
+                .thenReturn(new MetricBatch(List.of(), List.of()));
+        when(mockMetricsService.saveMetricEvents(any()))
+                .thenThrow(
+                        new MetricIngestionRejectedException("Metrics ingestion buffer is full"));
+        when(mockAdmissionControl.retryAfter()).thenReturn(Duration.ofSeconds(4));
+
+        mockMvc.perform(
+                        post("/api/save-metrics/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "4"));
+    }
+
+    @Test
+    @DisplayName("when a batch has too many events, 413 is returned")
+    void whenBatchIsTooLarge_Return413() throws Exception {
+        when(mockMetricBatchReader.read(any(InputStream.class)))
+                .thenThrow(new MetricBatchTooLargeException("Batches are limited to 1000 events"));
+
+        mockMvc.perform(
+                        post("/api/save-metrics/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]"))
+                .andExpect(status().is(413));
+    }
+
+    @Test
+    @DisplayName("when timings are received, they are recorded and 202 is returned")
+    void whenTimingsAreReceived_TimingServiceIsCalled_AcceptedIsReturned() throws Exception {
+        mockMvc.perform(
+                        post("/api/save-timings")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(
+                                        "[{\"type\":\"PAGE_LOAD\",\"route\":\"/fixtures\","
+                                                + "\"durationMs\":412.5}]"))
+                .andExpect(status().isAccepted());
+
+        verify(mockMetricTimingService)
+                .record(
+                        List.of(
+                                MetricTimingDTO.builder()
+                                        .type(MetricTimingType.PAGE_LOAD)
+                                        .route("/fixtures")
+                                        .durationMs(412.5)
+                                        .build()));
+    }
+
+    @Test
+    @DisplayName("when a timing batch has too many samples, 413 is returned")
+    void whenTimingBatchIsTooLarge_Return413() throws Exception {
+        when(mockMetricTimingService.record(any()))
+                .thenThrow(new MetricBatchTooLargeException("Batches are limited to 100 timings"));
+
+        mockMvc.perform(
+                        post("/api/save-timings")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]"))
+                .andExpect(status().is(413));
+    }
 }
@@ -0,0 +1,55 @@
+package com.atlas.metrics.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class MetricEventWriterTest {
+
+    @Mock private MetricsDatabase metricsDatabase;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private MetricEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        when(metricsDatabase.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        when(metricsDatabase.getTransactionTemplate()).thenReturn(transactionTemplate);
+        writer = new MetricEventWriter(metricsDatabase);
+    }
+
+    @Test
+    void allocateIds_TakesWholeBlocksAndUsesUpEachBeforeFetchingMore() {
+        when(jdbcTemplate.queryForList(MetricEventWriter.NEXT_ID_BLOCKS_SQL, Long.class, 2))
+                .thenReturn(List.of(150L, 200L));
+        when(jdbcTemplate.queryForList(MetricEventWriter.NEXT_ID_BLOCKS_SQL, Long.class, 1))
+                .thenReturn(List.of(250L));
+
+        long[] first = writer.allocateIds(60);
+        long[] second = writer.allocateIds(40);
+        long[] third = writer.allocateIds(1);
+
+        // A fetched value is the top of its block, as for Hibernate's pooled optimizer.
+        assertThat(first[0]).isEqualTo(101);
+        assertThat(first[49]).isEqualTo(150);
+        assertThat(first[50]).isEqualTo(151);
+        assertThat(first[59]).isEqualTo(160);
+        assertThat(second[0]).isEqualTo(161);
+        assertThat(second[39]).isEqualTo(200);
+        assertThat(third).containsExactly(201);
+        verify(jdbcTemplate, times(2))
+                .queryForList(eq(MetricEventWriter.NEXT_ID_BLOCKS_SQL), eq(Long.class), any());
+    }
+}
@@ -0,0 +1,129 @@
+package com.atlas.metrics.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsDataSourceConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class MetricsDatabaseTest {
+
+    private HikariDataSource applicationPool;
+    private PlatformTransactionManager applicationTransactionManager;
+    private MetricsDataSourceConfig config;
+    private MockEnvironment environment;
+    private MetricsDatabase metricsDatabase;
+
+    @BeforeEach
+    void setUp() {
+        applicationPool = new HikariDataSource();
+        applicationPool.setJdbcUrl("jdbc:postgresql://localhost:5432/atlas");
+        applicationPool.setUsername("atlas");
+        applicationPool.setPassword("secret");
+        applicationTransactionManager = mock(PlatformTransactionManager.class);
+        config = new MetricsDataSourceConfig();
+        environment = new MockEnvironment();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (metricsDatabase != null) {
+            metricsDatabase.close();
+        }
+        applicationPool.close();
+    }
+
+    @Test
+    void separatePool_InheritsConnectionSettingsAndIsSizedIndependently() {
+        config.setMaximumPoolSize(3);
+        config.setConnectionTimeout(Duration.ofMillis(750));
+
+        metricsDatabase = newMetricsDatabase();
+
+        HikariDataSource pool = (HikariDataSource) metricsDatabase.getDataSource();
+        assertThat(pool).isNotSameAs(applicationPool);
+        assertThat(pool.getJdbcUrl()).isEqualTo("jdbc:postgresql://localhost:5432/atlas");
+        assertThat(pool.getUsername()).isEqualTo("atlas");
+        assertThat(pool.getPoolName()).isEqualTo("atlas-metrics");
+        assertThat(pool.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(pool.getConnectionTimeout()).isEqualTo(750);
+        assertThat(pool.getMetricsTrackerFactory()).isNotNull();
+        assertThat(metricsDatabase.getJdbcTemplate().getDataSource()).isSameAs(pool);
+        assertThat(metricsDatabase.getTransactionTemplate().getTransactionManager())
+                .isInstanceOf(DataSourceTransactionManager.class);
+    }
+
+    @Test
+    void separatePool_UsesConfiguredConnectionSettings() {
+        config.setUrl("jdbc:postgresql://metrics-db:5432/atlas");
+        config.setUsername("metrics");
+
+        metricsDatabase = newMetricsDatabase();
+
+        HikariDataSource pool = (HikariDataSource) metricsDatabase.getDataSource();
+        assertThat(pool.getJdbcUrl()).isEqualTo("jdbc:postgresql://metrics-db:5432/atlas");
+        assertThat(pool.getUsername()).isEqualTo("metrics");
+        assertThat(pool.getPassword()).isEqualTo("secret");
+    }
+
+    @Test
+    void separatePool_BindsTheApplicationsHikariSettings() {
+        environment
+                .withProperty("spring.datasource.hikari.data-source-properties.sslmode", "require")
+                .withProperty("spring.datasource.hikari.connection-init-sql", "SELECT 1")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "20");
+
+        metricsDatabase = newMetricsDatabase();
+
+        HikariDataSource pool = (HikariDataSource) metricsDatabase.getDataSource();
+        assertThat(pool.getDataSourceProperties()).containsEntry("sslmode", "require");
+        assertThat(pool.getConnectionInitSql()).isEqualTo("SELECT 1");
+        assertThat(pool.getMaximumPoolSize()).isEqualTo(config.getMaximumPoolSize());
+        assertThat(pool.getJdbcUrl()).isEqualTo("jdbc:postgresql://localhost:5432/atlas");
+    }
+
+    @Test
+    void separatePool_ShouldThrow_WhenNoUrlIsAvailable() {
+        DataSource notHikari = mock(DataSource.class);
+
+        assertThatThrownBy(
+                        () ->
+                                new MetricsDatabase(
+                                        config,
+                                        notHikari,
+                                        applicationTransactionManager,
+                                        environment,
+                                        new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void sharedPool_UsesTheApplicationPoolAndTransactions() {
+        config.setSeparatePool(false);
+
+        metricsDatabase = newMetricsDatabase();
+
+        assertThat(metricsDatabase.getDataSource()).isSameAs(applicationPool);
+        assertThat(metricsDatabase.getTransactionTemplate().getTransactionManager())
+                .isSameAs(applicationTransactionManager);
+    }
+
+    private MetricsDatabase newMetricsDatabase() {
+        return new MetricsDatabase(
+                config,
+                applicationPool,
+                applicationTransactionManager,
+                environment,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,91 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.MetricEventDTO;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.InternalMetricEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class InternalMetricEventListenerTest {
+
+    @Mock private MetricsService metricsService;
+
+    private MeterRegistry meterRegistry;
+    private InternalMetricEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = newListener(Runnable::run);
+    }
+
+    @Test
+    void onInternalMetricEvent_SavesTheEventWithItsMetadata() throws Exception {
+        listener.onInternalMetricEvent(
+                new InternalMetricEvent(MetricEventType.LOGIN, 123L, "OAuth Success", "N/A"));
+
+        ArgumentCaptor<MetricEventDTO> captor = ArgumentCaptor.forClass(MetricEventDTO.class);
+        verify(metricsService).saveMetricEvent(captor.capture());
+        MetricEventDTO saved = captor.getValue();
+        assertThat(saved.getEvent()).isEqualTo(MetricEventType.LOGIN);
+        assertThat(saved.getUserId()).isEqualTo(123L);
+        JsonNode metadata = new ObjectMapper().readTree(saved.getEventMetadata().json());
+        assertThat(metadata.get("triggerId").asText()).isEqualTo("OAuth Success");
+        assertThat(metadata.get("screen").asText()).isEqualTo("N/A");
+    }
+
+    @Test
+    void onInternalMetricEvent_SwallowsIngestionFailures() {
+        doThrow(new MetricIngestionRejectedException("Metrics ingestion buffer is full"))
+                .when(metricsService)
+                .saveMetricEvent(any(MetricEventDTO.class));
+
+        assertDoesNotThrow(
+                () ->
+                        listener.onInternalMetricEvent(
+                                new InternalMetricEvent(
+                                        MetricEventType.LOGOUT, 123L, "Logout Success", "N/A")));
+    }
+
+    @Test
+    void onInternalMetricEvent_DropsAndCountsEvents_WhenTheQueueIsFull() {
+        Executor full =
+                task -> {
+                    throw new RejectedExecutionException("queue is full");
+                };
+        listener = newListener(full);
+
+        listener.onInternalMetricEvent(
+                new InternalMetricEvent(MetricEventType.LOGIN, 123L, "OAuth Success", "N/A"));
+
+        verifyNoInteractions(metricsService);
+        assertThat(meterRegistry.counter(InternalMetricEventListener.DROPPED_METRIC).count())
+                .isEqualTo(1);
+    }
+
+    private InternalMetricEventListener newListener(Executor executor) {
+        return new InternalMetricEventListener(
+                metricsService,
+                new MetricsIngestionConfig.InternalEvents(),
+                meterRegistry,
+                executor);
+    }
+}
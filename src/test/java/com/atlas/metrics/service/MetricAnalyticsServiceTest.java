@@ -0,0 +1,288 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricRollupConfig;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.service.model.BreakdownDimension;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.MetricBreakdown;
+import com.atlas.metrics.service.model.MetricCounts;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.RollupGranularity;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import com.atlas.metrics.service.model.UserTimelinePage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricAnalyticsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock private MetricAnalyticsRepository analyticsRepository;
+    @Mock private MetricArchiveService archiveService;
+
+    private MetricAnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        analyticsService =
+                new MetricAnalyticsService(
+                        analyticsRepository,
+                        archiveService,
+                        new MetricRollupConfig(),
+                        Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void getCounts_WidensRangeToWholeBuckets() {
+        Instant from = Instant.parse("2026-10-19T09:15:00Z");
+        Instant to = Instant.parse("2026-10-19T11:05:00Z");
+
+        MetricCounts counts =
+                analyticsService.getCounts(RollupGranularity.HOUR, from, to, "LOGIN");
+
+        assertThat(counts.from()).isEqualTo(Instant.parse("2026-10-19T09:00:00Z"));
+        assertThat(counts.to()).isEqualTo(Instant.parse("2026-10-19T12:00:00Z"));
+        verify(analyticsRepository)
+                .findCounts(RollupGranularity.HOUR, counts.from(), counts.to(), "LOGIN");
+    }
+
+    @Test
+    void getCounts_TooManyBuckets_IsRejected() {
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.getCounts(
+                                        RollupGranularity.MINUTE,
+                                        Instant.parse("2026-01-01T00:00:00Z"),
+                                        NOW,
+                                        null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+
+        verifyNoInteractions(analyticsRepository);
+    }
+
+    @Test
+    void getCounts_UnknownEventOrInvertedRange_IsRejected() {
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.getCounts(
+                                        RollupGranularity.DAY, NOW.minusSeconds(60), NOW, "NOPE"))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.getCounts(
+                                        RollupGranularity.DAY, NOW, NOW.minusSeconds(60), null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+    }
+
+    @Test
+    void getBreakdown_UsesCoarsestAlignedRollup() {
+        MetricBreakdown days =
+                analyticsService.getBreakdown(
+                        BreakdownDimension.EVENT,
+                        Instant.parse("2026-10-01T00:00:00Z"),
+                        Instant.parse("2026-10-19T00:00:00Z"),
+                        null);
+        MetricBreakdown hours =
+                analyticsService.getBreakdown(
+                        BreakdownDimension.TRIGGER,
+                        Instant.parse("2026-10-19T08:00:00Z"),
+                        Instant.parse("2026-10-19T11:00:00Z"),
+                        null);
+        MetricBreakdown minutes =
+                analyticsService.getBreakdown(
+                        BreakdownDimension.EVENT,
+                        Instant.parse("2026-10-19T11:30:00Z"),
+                        Instant.parse("2026-10-19T11:45:00Z"),
+                        null);
+
+        assertThat(days.granularity()).isEqualTo(RollupGranularity.DAY);
+        assertThat(hours.granularity()).isEqualTo(RollupGranularity.HOUR);
+        assertThat(minutes.granularity()).isEqualTo(RollupGranularity.MINUTE);
+    }
+
+    @Test
+    void getBreakdown_FallsBackToCoarserRollupWhenFinerHasExpired() {
+        MetricBreakdown breakdown =
+                analyticsService.getBreakdown(
+                        BreakdownDimension.EVENT,
+                        Instant.parse("2026-09-01T10:30:00Z"),
+                        Instant.parse("2026-09-02T10:45:00Z"),
+                        null);
+
+        assertThat(breakdown.granularity()).isEqualTo(RollupGranularity.HOUR);
+        assertThat(breakdown.from()).isEqualTo(Instant.parse("2026-09-01T10:00:00Z"));
+        assertThat(breakdown.to()).isEqualTo(Instant.parse("2026-09-02T11:00:00Z"));
+    }
+
+    @Test
+    void getUserTimeline_ReturnsCursorWhenMoreEventsExist() {
+        List<UserTimelineEvent> rows =
+                List.of(
+                        event(5, "2026-10-19T11:00:00Z"),
+                        event(4, "2026-10-19T10:00:00Z"),
+                        event(3, "2026-10-19T09:00:00Z"));
+        when(analyticsRepository.findUserTimeline(7L, null, null, 3)).thenReturn(rows);
+
+        UserTimelinePage page = analyticsService.getUserTimeline(7L, null, 2);
+
+        assertThat(page.events()).extracting(UserTimelineEvent::id).containsExactly(5L, 4L);
+        assertThat(page.nextCursor()).isEqualTo(MetricAnalyticsService.encodeCursor(rows.get(1)));
+    }
+
+    @Test
+    void getUserTimeline_CursorContinuesAfterLastEvent() {
+        UserTimelineEvent last = event(4, "2026-10-19T10:00:00.123456Z");
+        when(analyticsRepository.findUserTimeline(
+                        7L, Instant.parse("2026-10-19T10:00:00.123456Z"), 4L, 3))
+                .thenReturn(List.of(event(3, "2026-10-19T09:00:00Z")));
+
+        UserTimelinePage page =
+                analyticsService.getUserTimeline(
+                        7L, MetricAnalyticsService.encodeCursor(last), 2);
+
+        assertThat(page.events()).extracting(UserTimelineEvent::id).containsExactly(3L);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void getUserTimeline_InvalidCursorOrLimit_IsRejected() {
+        assertThatThrownBy(() -> analyticsService.getUserTimeline(7L, "not-a-cursor", null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> analyticsService.getUserTimeline(7L, null, 0))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> analyticsService.getUserTimeline(7L, null, 501))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+
+        verify(analyticsRepository, never())
+                .findUserTimeline(anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getUserTimeline_DefaultsPageSize() {
+        when(analyticsRepository.findUserTimeline(eq(7L), isNull(), isNull(), eq(51)))
+                .thenReturn(List.of());
+
+        UserTimelinePage page = analyticsService.getUserTimeline(7L, null, null);
+
+        assertThat(page.events()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void getUserTimeline_FillsThePageFromTheArchive_WhenTheDatabaseRunsOut() {
+        UserTimelineEvent oldest = event(40, "2026-07-01T00:00:05Z");
+        when(analyticsRepository.findUserTimeline(7L, null, null, 3))
+                .thenReturn(List.of(oldest));
+        when(archiveService.searchUserTimeline(7L, oldest.eventTime(), 40L, 2))
+                .thenReturn(
+                        List.of(
+                                event(12, "2026-06-30T23:59:00Z"),
+                                event(11, "2026-06-30T23:58:00Z")));
+
+        UserTimelinePage page = analyticsService.getUserTimeline(7L, null, 2);
+
+        assertThat(page.events()).extracting(UserTimelineEvent::id).containsExactly(40L, 12L);
+        assertThat(page.nextCursor()).isNotNull();
+    }
+
+    private UserTimelineEvent event(long id, String eventTime) {
+        return new UserTimelineEvent(id, "LOGIN", Instant.parse(eventTime), "{}");
+    }
+
+    @Test
+    void searchEvents_PassesFilterAndPagesLikeTimelines() {
+        Instant from = Instant.parse("2026-10-19T00:00:00Z");
+        MetricEventFilter filter =
+                new MetricEventFilter("BUTTON_CLICK", "save-team", null, "{\"team\":33}");
+        when(analyticsRepository.searchEvents(filter, from, NOW, null, null, 2))
+                .thenReturn(
+                        List.of(
+                                new UserTimelineEvent(9, "BUTTON_CLICK", NOW, "{}"),
+                                new UserTimelineEvent(8, "BUTTON_CLICK", NOW, "{}")));
+
+        UserTimelinePage page = analyticsService.searchEvents(filter, from, NOW, null, 1);
+
+        assertThat(page.events()).hasSize(1);
+        assertThat(page.nextCursor()).isNotNull();
+        verifyNoInteractions(archiveService);
+    }
+
+    @Test
+    void searchEvents_FillsThePageFromTheArchive_WhenTheDatabaseRunsOut() {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant oldest = Instant.parse("2026-07-01T00:00:05Z");
+        Instant archived = Instant.parse("2026-06-30T23:59:00Z");
+        MetricEventFilter filter = new MetricEventFilter("LOGIN", null, null, null);
+        when(analyticsRepository.searchEvents(filter, from, NOW, null, null, 3))
+                .thenReturn(List.of(new UserTimelineEvent(40, "LOGIN", oldest, "{}")));
+        when(archiveService.searchArchived(filter, from, NOW, oldest, 40L, 2))
+                .thenReturn(
+                        List.of(
+                                new UserTimelineEvent(12, "LOGIN", archived, "{}"),
+                                new UserTimelineEvent(11, "LOGIN", archived, "{}")));
+
+        UserTimelinePage page = analyticsService.searchEvents(filter, from, NOW, null, 2);
+
+        assertThat(page.events()).extracting(UserTimelineEvent::id).containsExactly(40L, 12L);
+        assertThat(page.nextCursor()).isNotNull();
+    }
+
+    @Test
+    void searchEvents_InvalidFilter_IsRejected() {
+        Instant from = Instant.parse("2026-10-19T00:00:00Z");
+
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.searchEvents(
+                                        new MetricEventFilter(null, null, null, "[1]"),
+                                        from,
+                                        NOW,
+                                        null,
+                                        null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.searchEvents(
+                                        new MetricEventFilter(null, null, null, "{oops"),
+                                        from,
+                                        NOW,
+                                        null,
+                                        null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.searchEvents(
+                                        new MetricEventFilter("NOPE", null, null, null),
+                                        from,
+                                        NOW,
+                                        null,
+                                        null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                analyticsService.searchEvents(
+                                        new MetricEventFilter(null, null, null, null),
+                                        NOW,
+                                        from,
+                                        null,
+                                        null))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        verifyNoInteractions(analyticsRepository);
+    }
+}
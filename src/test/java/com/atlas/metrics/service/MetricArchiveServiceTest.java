@@ -0,0 +1,353 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricArchiveConfig;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.repository.MetricArchiveStore;
+import com.atlas.metrics.repository.MetricsPartitionRepository;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import com.atlas.metrics.service.model.UserTimelineEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricArchiveServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+    private static final Instant JUNE = Instant.parse("2026-06-01T00:00:00Z");
+    private static final Instant JULY = Instant.parse("2026-07-01T00:00:00Z");
+    private static final MetricEventFilter NO_FILTER =
+            new MetricEventFilter(null, null, null, null);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final List<ExportedMetricEvent> JUNE_ROWS =
+            List.of(
+                    new ExportedMetricEvent(
+                            1,
+                            "LOGIN",
+                            Instant.parse("2026-06-03T10:00:00.123456Z"),
+                            7L,
+                            UUID.fromString("7f3c1a52-9d1e-4f0a-8b7e-2f1d6c9a0b11"),
+                            null,
+                            null,
+                            "{}"),
+                    new ExportedMetricEvent(
+                            2,
+                            "BUTTON_CLICK",
+                            Instant.parse("2026-06-03T11:00:00Z"),
+                            null,
+                            null,
+                            "save-team",
+                            "team",
+                            "{\"team\":33,\"tags\":[\"home\",\"derby\"]}"),
+                    new ExportedMetricEvent(
+                            3,
+                            "BUTTON_CLICK",
+                            Instant.parse("2026-06-30T23:59:59.999999Z"),
+                            7L,
+                            null,
+                            "save-team",
+                            "team",
+                            "{\"team\":40}"));
+
+    @TempDir private Path directory;
+
+    @Mock private MetricAnalyticsRepository analyticsRepository;
+    @Mock private MetricsPartitionRepository partitionRepository;
+
+    private MetricArchiveConfig config;
+    private MetricArchiveStore archiveStore;
+    private MetricArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricArchiveConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setRowGroupSize(2);
+        archiveStore = new MetricArchiveStore(config);
+        archiveService =
+                new MetricArchiveService(
+                        archiveStore,
+                        analyticsRepository,
+                        partitionRepository,
+                        config,
+                        Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void archiveOldPartitions_DetachesColdPartitionsThenWritesThemByDayAndDropsThem() {
+        when(partitionRepository.findPartitionNames())
+                .thenReturn(List.of("metrics_p2026_10", "metrics_p2026_07", "metrics_p2026_06"));
+        givenDatabaseRows(JUNE_ROWS);
+
+        archiveService.archiveOldPartitions();
+
+        InOrder order = inOrder(partitionRepository, analyticsRepository);
+        order.verify(partitionRepository)
+                .detachPartitionAs("metrics_p2026_06", "metrics_a2026_06");
+        order.verify(analyticsRepository, times(30))
+                .streamDetachedPartition(eq("metrics_a2026_06"), any(), any(), anyInt(), any());
+        order.verify(partitionRepository).dropTable("metrics_a2026_06");
+        verify(partitionRepository, never()).detachPartitionAs(eq("metrics_p2026_07"), any());
+        verify(analyticsRepository, never()).streamEvents(any(), any(), any(), anyInt(), any());
+        assertThat(Files.exists(directory.resolve("2026/06/2026-06-03.mcol"))).isTrue();
+        assertThat(Files.exists(directory.resolve("2026/06/2026-06-30.mcol"))).isTrue();
+        assertThat(Files.exists(directory.resolve("2026/06/2026-06-04.mcol"))).isFalse();
+
+        List<ExportedMetricEvent> archived = new ArrayList<>();
+        archiveService.streamArchived(
+                NO_FILTER, JUNE, JULY, EnumSet.allOf(MetricArchiveColumn.class), archived::add);
+        assertThat(archived).isEqualTo(JUNE_ROWS);
+    }
+
+    @Test
+    void archiveOldPartitions_KeepsTheDetachedTable_WhenADayCannotBeRead() {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of("metrics_p2026_06"));
+        when(analyticsRepository.streamDetachedPartition(any(), any(), any(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        archiveService.archiveOldPartitions();
+
+        verify(partitionRepository).detachPartitionAs("metrics_p2026_06", "metrics_a2026_06");
+        verify(partitionRepository, never()).dropTable(any());
+    }
+
+    @Test
+    void archiveOldPartitions_FinishesATableLeftDetachedByAFailedRun() {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of("metrics_p2026_07"));
+        when(partitionRepository.findArchivingTables()).thenReturn(List.of("metrics_a2026_06"));
+        givenDatabaseRows(JUNE_ROWS);
+
+        archiveService.archiveOldPartitions();
+
+        verify(partitionRepository, never()).detachPartitionAs(any(), any());
+        verify(analyticsRepository, times(30))
+                .streamDetachedPartition(eq("metrics_a2026_06"), any(), any(), anyInt(), any());
+        verify(partitionRepository).dropTable("metrics_a2026_06");
+        assertThat(Files.exists(directory.resolve("2026/06/2026-06-03.mcol"))).isTrue();
+    }
+
+    @Test
+    void archiveOldPartitions_DoesNothing_WhenDisabled() {
+        config.setEnabled(false);
+
+        archiveService.archiveOldPartitions();
+
+        verifyNoInteractions(analyticsRepository, partitionRepository);
+    }
+
+    @Test
+    void archiveOldPartitions_DeletesDaysPastTheRetention() throws IOException {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of());
+        archiveStore.writeDay(LocalDate.parse("2025-08-31"), rows(JUNE_ROWS.get(0)));
+        archiveStore.writeDay(LocalDate.parse("2025-09-01"), rows(JUNE_ROWS.get(1)));
+
+        archiveService.archiveOldPartitions();
+
+        assertThat(Files.exists(directory.resolve("2025/08"))).isFalse();
+        assertThat(Files.exists(directory.resolve("2025/09/2025-09-01.mcol"))).isTrue();
+    }
+
+    @Test
+    void streamArchived_ReadsOnlyTheRequestedAndFilteredColumns() throws IOException {
+        givenArchivedJune();
+        MetricEventFilter filter =
+                new MetricEventFilter("BUTTON_CLICK", null, "team", "{\"tags\":[\"derby\"]}");
+
+        List<ExportedMetricEvent> archived = new ArrayList<>();
+        long passed =
+                archiveService.streamArchived(
+                        filter, JUNE, JULY, MetricArchiveService.TIMELINE_COLUMNS, archived::add);
+
+        assertThat(passed).isEqualTo(1);
+        ExportedMetricEvent event = archived.get(0);
+        assertThat(event.id()).isEqualTo(2);
+        assertThat(event.screen()).isEqualTo("team");
+        assertThat(event.triggerId()).isNull();
+        assertThat(event.userId()).isNull();
+    }
+
+    @Test
+    void streamArchived_OnlyReadsTheRange() throws IOException {
+        givenArchivedJune();
+
+        List<ExportedMetricEvent> archived = new ArrayList<>();
+        archiveService.streamArchived(
+                NO_FILTER,
+                Instant.parse("2026-06-03T10:30:00Z"),
+                Instant.parse("2026-06-30T23:59:59.999999Z"),
+                MetricArchiveService.TIMELINE_COLUMNS,
+                archived::add);
+
+        assertThat(archived).extracting(ExportedMetricEvent::id).containsExactly(2L);
+    }
+
+    @Test
+    void streamArchived_SkipsTheDisk_WhenTheRangeStartsInTheHotWindow() throws IOException {
+        archiveStore.writeDay(LocalDate.parse("2026-08-01"), rows(JUNE_ROWS.get(0)));
+
+        long passed =
+                archiveService.streamArchived(
+                        NO_FILTER,
+                        Instant.parse("2026-07-01T00:00:00Z"),
+                        NOW,
+                        MetricArchiveService.TIMELINE_COLUMNS,
+                        event -> {});
+
+        assertThat(passed).isZero();
+    }
+
+    @Test
+    void searchArchived_PagesNewestFirstFromTheCursor() throws IOException {
+        givenArchivedJune();
+
+        List<UserTimelineEvent> first =
+                archiveService.searchArchived(NO_FILTER, JUNE, JULY, null, null, 2);
+        UserTimelineEvent last = first.get(1);
+        List<UserTimelineEvent> second =
+                archiveService.searchArchived(
+                        NO_FILTER, JUNE, JULY, last.eventTime(), last.id(), 2);
+
+        assertThat(first).extracting(UserTimelineEvent::id).containsExactly(3L, 2L);
+        assertThat(second).extracting(UserTimelineEvent::id).containsExactly(1L);
+        assertThat(second.get(0).eventTime()).isEqualTo(JUNE_ROWS.get(0).eventTime());
+    }
+
+    @Test
+    void searchArchived_KeepsOnlyTheNewestEventsOfADay() throws IOException {
+        List<ExportedMetricEvent> day = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Written out of order so the page cannot just be the last rows read.
+            int id = (i * 17) % 50 + 1;
+            day.add(
+                    new ExportedMetricEvent(
+                            id,
+                            "LOGIN",
+                            Instant.parse("2026-06-03T00:00:00Z").plusSeconds(id),
+                            7L,
+                            null,
+                            null,
+                            null,
+                            "{}"));
+        }
+        archiveStore.writeDay(
+                LocalDate.parse("2026-06-03"), rows(day.toArray(ExportedMetricEvent[]::new)));
+
+        List<UserTimelineEvent> page =
+                archiveService.searchArchived(NO_FILTER, JUNE, JULY, null, null, 3);
+
+        assertThat(page).extracting(UserTimelineEvent::id).containsExactly(50L, 49L, 48L);
+    }
+
+    @Test
+    void searchUserTimeline_ReturnsTheUsersArchivedEventsNewestFirst() throws IOException {
+        givenArchivedJune();
+
+        List<UserTimelineEvent> first = archiveService.searchUserTimeline(7L, null, null, 1);
+        UserTimelineEvent last = first.get(0);
+        List<UserTimelineEvent> second =
+                archiveService.searchUserTimeline(7L, last.eventTime(), last.id(), 5);
+
+        assertThat(first).extracting(UserTimelineEvent::id).containsExactly(3L);
+        assertThat(second).extracting(UserTimelineEvent::id).containsExactly(1L);
+        assertThat(archiveService.searchUserTimeline(8L, null, null, 5)).isEmpty();
+    }
+
+    @Test
+    void searchUserTimeline_FindsTheUserAcrossRowGroupsOfManyUsers() throws IOException {
+        List<ExportedMetricEvent> day = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            day.add(
+                    new ExportedMetricEvent(
+                            id,
+                            "LOGIN",
+                            Instant.parse("2026-06-03T00:00:00Z").plusSeconds(id),
+                            (id % 10) * 2,
+                            null,
+                            null,
+                            null,
+                            "{}"));
+        }
+        archiveStore.writeDay(
+                LocalDate.parse("2026-06-03"), rows(day.toArray(ExportedMetricEvent[]::new)));
+
+        assertThat(archiveService.searchUserTimeline(6L, null, null, 10))
+                .extracting(UserTimelineEvent::id)
+                .containsExactly(43L, 33L, 23L, 13L, 3L);
+        assertThat(archiveService.searchUserTimeline(5L, null, null, 10)).isEmpty();
+        assertThat(archiveService.searchUserTimeline(40L, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void jsonContains_FollowsJsonbContainment() throws IOException {
+        assertThat(contains("{\"team\":33,\"tags\":[\"a\",\"b\"]}", "{\"tags\":[\"b\"]}"))
+                .isTrue();
+        assertThat(contains("{\"team\":33}", "{\"team\":33.0}")).isTrue();
+        assertThat(contains("{\"team\":{\"id\":33,\"name\":\"x\"}}", "{\"team\":{\"id\":33}}"))
+                .isTrue();
+        assertThat(contains("{\"team\":33}", "{\"team\":\"33\"}")).isFalse();
+        assertThat(contains("{\"team\":33}", "{\"league\":39}")).isFalse();
+        assertThat(contains("{\"tags\":[\"a\"]}", "{\"tags\":\"a\"}")).isFalse();
+    }
+
+    private void givenArchivedJune() throws IOException {
+        archiveStore.writeDay(
+                LocalDate.parse("2026-06-03"), rows(JUNE_ROWS.get(0), JUNE_ROWS.get(1)));
+        archiveStore.writeDay(LocalDate.parse("2026-06-30"), rows(JUNE_ROWS.get(2)));
+    }
+
+    private void givenDatabaseRows(List<ExportedMetricEvent> rows) {
+        when(analyticsRepository.streamDetachedPartition(any(), any(), any(), anyInt(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Instant from = invocation.getArgument(1);
+                            Instant to = invocation.getArgument(2);
+                            Consumer<ExportedMetricEvent> consumer = invocation.getArgument(4);
+                            long passed = 0;
+                            for (ExportedMetricEvent row : rows) {
+                                if (!row.eventTime().isBefore(from)
+                                        && row.eventTime().isBefore(to)) {
+                                    consumer.accept(row);
+                                    passed++;
+                                }
+                            }
+                            return passed;
+                        });
+    }
+
+    private static MetricArchiveStore.DaySource rows(ExportedMetricEvent... rows) {
+        return consumer -> List.of(rows).forEach(consumer);
+    }
+
+    private static boolean contains(String container, String contained) throws IOException {
+        return MetricArchiveService.jsonContains(
+                OBJECT_MAPPER.readTree(container), OBJECT_MAPPER.readTree(contained));
+    }
+}
@@ -0,0 +1,170 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.RawJson;
+import com.atlas.metrics.service.model.ExceptionTypes.MalformedMetricBatchException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchItemError;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MetricBatchReaderTest {
+
+    private MetricsIngestionConfig config;
+    private MetricBatchReader reader;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsIngestionConfig();
+        reader = new MetricBatchReader(config);
+    }
+
+    @Test
+    void read_JsonArray_ReturnsEventsInOrder() {
+        MetricBatch batch =
+                reader.read(
+                        body(
+                                "[{\"event\":\"BUTTON_CLICK\","
+                                        + "\"eventMetadata\":{\"id\":\"a\"}},"
+                                        + "{\"event\":\"LOGIN\",\"eventMetadata\":{},"
+                                        + "\"userId\":7}]"));
+
+        assertThat(batch.errors()).isEmpty();
+        assertThat(batch.items()).extracting(MetricBatch.Item::index).containsExactly(0, 1);
+        assertThat(batch.items())
+                .extracting(MetricBatch.Item::event)
+                .extracting(PendingMetricEvent::event, PendingMetricEvent::userId)
+                .containsExactly(
+                        tuple("BUTTON_CLICK", null),
+                        tuple("LOGIN", 7L));
+        assertThat(batch.items().get(0).event().metadata()).isEqualTo("{\"id\":\"a\"}");
+    }
+
+    @Test
+    void read_Ndjson_ReturnsEachLine() {
+        MetricBatch batch =
+                reader.read(
+                        body(
+                                "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{}}\n"
+                                        + "{\"event\":\"LOGOUT\",\"eventMetadata\":{}}\n"));
+
+        assertThat(batch.items()).hasSize(2);
+        assertThat(batch.items().get(1).event().event()).isEqualTo("LOGOUT");
+    }
+
+    @Test
+    void read_GzippedNdjson_IsDecompressed() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(
+                    "{\"event\":\"LOGIN\",\"eventMetadata\":{}}\n"
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+
+        MetricBatch batch = reader.read(new ByteArrayInputStream(compressed.toByteArray()));
+
+        assertThat(batch.items()).hasSize(1);
+        assertThat(batch.items().get(0).event().event()).isEqualTo("LOGIN");
+    }
+
+    @Test
+    void read_InvalidItems_AreReportedWithoutRejectingTheBatch() {
+        MetricBatch batch =
+                reader.read(
+                        body(
+                                "[{\"event\":\"NOT_A_TYPE\",\"eventMetadata\":{}},"
+                                        + "{\"event\":\"LOGIN\"},"
+                                        + "{\"event\":\"LOGIN\",\"eventMetadata\":{}},"
+                                        + "42]"));
+
+        assertThat(batch.items()).extracting(MetricBatch.Item::index).containsExactly(2);
+        assertThat(batch.errors())
+                .containsExactly(
+                        new MetricBatchItemError(0, "Unknown event type NOT_A_TYPE"),
+                        new MetricBatchItemError(1, "eventMetadata must be a JSON object"),
+                        new MetricBatchItemError(3, "Item is not a JSON object"));
+    }
+
+    @Test
+    void read_EventId_IsParsedAndValidated() {
+        MetricBatch batch =
+                reader.read(
+                        body(
+                                "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{},"
+                                        + "\"eventId\":\"7f3c1a52-9d1e-4f0a-8b7e-2f1d6c9a0b11\"}\n"
+                                        + "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{},"
+                                        + "\"eventId\":\"not-a-uuid\"}\n"));
+
+        assertThat(batch.items()).hasSize(1);
+        assertThat(batch.items().get(0).event().eventId())
+                .isEqualTo(UUID.fromString("7f3c1a52-9d1e-4f0a-8b7e-2f1d6c9a0b11"));
+        assertThat(batch.errors())
+                .containsExactly(new MetricBatchItemError(1, "eventId must be a UUID"));
+    }
+
+    @Test
+    void read_OversizedOrDeepMetadata_IsReportedAndTheNextItemIsStillRead() {
+        String deep = "[".repeat(RawJson.MAX_DEPTH) + "]".repeat(RawJson.MAX_DEPTH);
+        String large = "x".repeat(RawJson.MAX_LENGTH);
+
+        MetricBatch batch =
+                reader.read(
+                        body(
+                                "[{\"event\":\"LOGIN\",\"eventMetadata\":{\"a\":"
+                                        + deep
+                                        + "}},"
+                                        + "{\"event\":\"LOGIN\",\"eventMetadata\":{\"a\":\""
+                                        + large
+                                        + "\"},\"userId\":1},"
+                                        + "{\"eventMetadata\":{\"a\":[1,{\"b\":true}]},"
+                                        + "\"event\":\"LOGOUT\"}]"));
+
+        assertThat(batch.errors())
+                .extracting(MetricBatchItemError::index)
+                .containsExactly(0, 1);
+        assertThat(batch.errors().get(0).message()).contains("nested deeper");
+        assertThat(batch.errors().get(1).message()).contains("larger than");
+        assertThat(batch.items()).extracting(MetricBatch.Item::index).containsExactly(2);
+        assertThat(batch.items().get(0).event().metadata())
+                .isEqualTo("{\"a\":[1,{\"b\":true}]}");
+    }
+
+    @Test
+    void read_EmptyBody_ReturnsEmptyBatch() {
+        MetricBatch batch = reader.read(body(""));
+
+        assertThat(batch.size()).isZero();
+    }
+
+    @Test
+    void read_MalformedJson_Throws() {
+        assertThatThrownBy(() -> reader.read(body("[{\"event\":\"LOGIN\",")))
+                .isInstanceOf(MalformedMetricBatchException.class);
+    }
+
+    @Test
+    void read_MoreItemsThanAllowed_Throws() {
+        config.setMaxBatchItems(1);
+        String line = "{\"event\":\"LOGIN\",\"eventMetadata\":{}}\n";
+
+        assertThatThrownBy(() -> reader.read(body(line + line)))
+                .isInstanceOf(MetricBatchTooLargeException.class);
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsDedupConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricEventDeduplicatorTest {
+
+    private static final Instant START = Instant.parse("2025-10-26T09:00:00Z");
+
+    @Mock private MetricEventWriter writer;
+
+    @Mock private Clock clock;
+
+    private MetricsDedupConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private MetricEventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsDedupConfig();
+        config.setWindow(Duration.ofMinutes(10));
+        config.setExpectedEventsPerWindow(10_000);
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(clock.instant()).thenReturn(START);
+        deduplicator = new MetricEventDeduplicator(config, writer, meterRegistry, clock);
+    }
+
+    @Test
+    void isDuplicate_OnlyAfterTheIdWasAccepted() {
+        UUID id = UUID.randomUUID();
+
+        assertThat(deduplicator.isDuplicate(id)).isFalse();
+        // A refused event may be retried with the same id.
+        assertThat(deduplicator.isDuplicate(id)).isFalse();
+
+        deduplicator.accepted(id);
+
+        assertThat(deduplicator.isDuplicate(id)).isTrue();
+        assertThat(meterRegistry.get("metrics.ingestion.duplicates").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void isDuplicate_EventsWithoutIdAreNeverDuplicates() {
+        deduplicator.accepted(null);
+
+        assertThat(deduplicator.isDuplicate(null)).isFalse();
+    }
+
+    @Test
+    void isDuplicate_IdsAreRememberedForOneToTwoWindows() {
+        UUID id = UUID.randomUUID();
+        deduplicator.accepted(id);
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(15)));
+        assertThat(deduplicator.isDuplicate(id)).isTrue();
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(25)));
+        assertThat(deduplicator.isDuplicate(id)).isFalse();
+    }
+
+    @Test
+    void isDuplicate_DistinctIdsStayBelowTheFalsePositiveRate() {
+        for (int i = 0; i < 10_000; i++) {
+            deduplicator.accepted(UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (deduplicator.isDuplicate(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // Expected about one at the default rate of 0.0001.
+        assertThat(falsePositives).isLessThan(10);
+    }
+
+    @Test
+    void isDuplicate_Disabled_NeverDrops() {
+        config.setEnabled(false);
+        UUID id = UUID.randomUUID();
+        deduplicator.accepted(id);
+
+        assertThat(deduplicator.isDuplicate(id)).isFalse();
+    }
+
+    @Test
+    void purgeExpiredIds_DeletesIdsOlderThanTheBackstopRetention() {
+        config.setBackstopRetention(Duration.ofDays(2));
+
+        deduplicator.purgeExpiredIds();
+
+        verify(writer).deleteEventIdsReceivedBefore(START.minus(Duration.ofDays(2)));
+    }
+
+    @Test
+    void purgeExpiredIds_FailureIsSwallowed() {
+        when(writer.deleteEventIdsReceivedBefore(any())).thenThrow(new RuntimeException("down"));
+
+        deduplicator.purgeExpiredIds();
+    }
+}
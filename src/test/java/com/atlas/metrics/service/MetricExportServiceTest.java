@@ -0,0 +1,211 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsExportConfig;
+import com.atlas.metrics.repository.MetricAnalyticsRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.ExportFormat;
+import com.atlas.metrics.service.model.ExportedMetricEvent;
+import com.atlas.metrics.service.model.MetricArchiveColumn;
+import com.atlas.metrics.service.model.MetricEventFilter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricExportServiceTest {
+
+    private static final Instant FROM = Instant.parse("2026-10-19T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-10-20T00:00:00Z");
+    private static final MetricEventFilter NO_FILTER =
+            new MetricEventFilter(null, null, null, null);
+    private static final UUID EVENT_ID = UUID.fromString("7f3c1a52-9d1e-4f0a-8b7e-2f1d6c9a0b11");
+
+    private static final List<ExportedMetricEvent> ROWS =
+            List.of(
+                    new ExportedMetricEvent(
+                            1,
+                            "BUTTON_CLICK",
+                            Instant.parse("2026-10-19T09:00:00Z"),
+                            7L,
+                            EVENT_ID,
+                            "save, then \"close\"",
+                            "profile",
+                            "{\"triggerId\":\"save, then \\\"close\\\"\",\"screen\":\"profile\"}"),
+                    new ExportedMetricEvent(
+                            2,
+                            "LOGIN",
+                            Instant.parse("2026-10-19T10:00:00Z"),
+                            null,
+                            null,
+                            null,
+                            null,
+                            "{}"));
+
+    @Mock private MetricAnalyticsRepository analyticsRepository;
+    @Mock private MetricArchiveService archiveService;
+
+    private MetricsExportConfig config;
+    private MetricExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsExportConfig();
+        exportService = new MetricExportService(analyticsRepository, archiveService, config);
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndQuotesOnlyWhereNeeded() throws IOException {
+        givenRows(ROWS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ExportFormat.CSV, NO_FILTER, FROM, TO, out);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualTo(
+                        MetricExportService.CSV_HEADER
+                                + "1,BUTTON_CLICK,2026-10-19T09:00:00Z,7,"
+                                + EVENT_ID
+                                + ",\"save, then \"\"close\"\"\",profile,"
+                                + "\"{\"\"triggerId\"\":\"\"save, then \\\"\"close\\\"\"\"\","
+                                + "\"\"screen\"\":\"\"profile\"\"}\"\n"
+                                + "2,LOGIN,2026-10-19T10:00:00Z,,,,,{}\n");
+    }
+
+    @Test
+    void export_Ndjson_WritesOneObjectPerLineWithMetadataCopiedAsIs() throws IOException {
+        givenRows(ROWS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.NDJSON, NO_FILTER, FROM, TO, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n", -1))
+                .containsExactly(
+                        "{\"id\":1,\"event\":\"BUTTON_CLICK\","
+                                + "\"eventTime\":\"2026-10-19T09:00:00Z\",\"userId\":7,"
+                                + "\"eventId\":\""
+                                + EVENT_ID
+                                + "\",\"triggerId\":\"save, then \\\"close\\\"\","
+                                + "\"screen\":\"profile\",\"eventMetadata\":"
+                                + ROWS.get(0).metadata()
+                                + "}",
+                        "{\"id\":2,\"event\":\"LOGIN\",\"eventTime\":\"2026-10-19T10:00:00Z\","
+                                + "\"eventMetadata\":{}}",
+                        "");
+    }
+
+    @Test
+    void export_UsesTheConfiguredFetchSize() throws IOException {
+        config.setFetchSize(250);
+        MetricEventFilter filter = new MetricEventFilter("LOGIN", null, null, "{\"team\":33}");
+
+        exportService.export(ExportFormat.CSV, filter, FROM, TO, new ByteArrayOutputStream());
+
+        verify(analyticsRepository).streamEvents(eq(filter), eq(FROM), eq(TO), eq(250), any());
+    }
+
+    @Test
+    void export_WritesArchivedEventsBeforeThoseInTheDatabase() throws IOException {
+        when(archiveService.streamArchived(
+                        eq(NO_FILTER),
+                        eq(FROM),
+                        eq(TO),
+                        eq(EnumSet.allOf(MetricArchiveColumn.class)),
+                        any()))
+                .thenAnswer(
+                        invocation -> {
+                            Consumer<ExportedMetricEvent> consumer = invocation.getArgument(4);
+                            consumer.accept(ROWS.get(0));
+                            return 1L;
+                        });
+        givenRows(List.of(ROWS.get(1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ExportFormat.NDJSON, NO_FILTER, FROM, TO, out);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .extracting(line -> line.substring(0, 8))
+                .containsExactly("{\"id\":1,", "{\"id\":2,");
+    }
+
+    @Test
+    void export_InvalidQuery_ThrowsBeforeWritingAnything() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(
+                        () ->
+                                exportService.export(
+                                        ExportFormat.CSV,
+                                        new MetricEventFilter(null, null, null, "[1]"),
+                                        FROM,
+                                        TO,
+                                        out))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> exportService.validate(NO_FILTER, TO, FROM))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+
+        assertThat(out.size()).isZero();
+        verifyNoInteractions(analyticsRepository);
+    }
+
+    @Test
+    void export_WriteFailure_IsRethrownAsIOException() {
+        givenRows(ROWS);
+        OutputStream broken =
+                new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+                };
+        config.setBufferSize(1);
+
+        assertThatThrownBy(
+                        () -> exportService.export(ExportFormat.CSV, NO_FILTER, FROM, TO, broken))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+    }
+
+    @Test
+    void tryReserve_AllowsMaxConcurrentExportsUntilOneIsReleased() {
+        config.setMaxConcurrent(2);
+        exportService = new MetricExportService(analyticsRepository, archiveService, config);
+
+        assertThat(exportService.tryReserve()).isTrue();
+        assertThat(exportService.tryReserve()).isTrue();
+        assertThat(exportService.tryReserve()).isFalse();
+
+        exportService.release();
+        assertThat(exportService.tryReserve()).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRows(List<ExportedMetricEvent> rows) {
+        when(analyticsRepository.streamEvents(any(), any(), any(), anyInt(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Consumer<ExportedMetricEvent> consumer = invocation.getArgument(4);
+                            rows.forEach(consumer);
+                            return (long) rows.size();
+                        });
+    }
+}
@@ -0,0 +1,294 @@
+package com.atlas.metrics.service;
+
+import static com.atlas.metrics.controller.model.MetricEventType.BUTTON_CLICK;
+import static com.atlas.metrics.controller.model.MetricEventType.LOGIN;
+import static com.atlas.metrics.controller.model.MetricEventType.LOGOUT;
+import static com.atlas.metrics.controller.model.MetricEventType.PAYMENT_SUBMITTED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricFunnelConfig;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.repository.MetricFunnelRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.FunnelProgress;
+import com.atlas.metrics.service.model.FunnelReport;
+import com.atlas.metrics.service.model.FunnelState;
+import com.atlas.metrics.service.model.OpenSession;
+import com.atlas.metrics.service.model.SessionSummary;
+import com.atlas.metrics.service.model.UserMetricEvent;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricFunnelServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:02:00Z");
+    private static final Instant WATERMARK = Instant.parse("2026-10-19T11:00:00Z");
+    private static final Instant UPPER = Instant.parse("2026-10-19T12:00:00Z");
+    private static final LocalDate DAY = LocalDate.parse("2026-10-19");
+    private static final String FUNNEL = "login-to-payment";
+
+    @Mock private MetricFunnelRepository funnelRepository;
+
+    private MetricFunnelConfig config;
+    private MetricFunnelService funnelService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricFunnelConfig();
+        config.setSettleDelay(Duration.ofMinutes(2));
+        config.setMaxChunk(Duration.ofHours(1));
+        config.setMaxChunksPerRun(2);
+        config.setSessionGap(Duration.ofMinutes(30));
+        config.setDefinitions(List.of(funnel(FUNNEL, LOGIN, BUTTON_CLICK, PAYMENT_SUBMITTED)));
+        funnelService = newService();
+    }
+
+    @Test
+    void process_CountsEachStepReachedWithinTheWindow() {
+        givenWatermark();
+        givenEvents(
+                event(1, LOGIN, "11:00"),
+                event(1, BUTTON_CLICK, "11:05"),
+                event(1, PAYMENT_SUBMITTED, "11:10"),
+                event(2, LOGIN, "11:00"),
+                event(2, BUTTON_CLICK, "11:31"),
+                event(3, BUTTON_CLICK, "11:00"),
+                event(3, PAYMENT_SUBMITTED, "11:01"));
+
+        funnelService.process();
+
+        FunnelState state = savedState();
+        assertThat(state.stepCounts())
+                .containsExactlyInAnyOrder(
+                        new FunnelState.StepCount(FUNNEL, DAY, 1, 2),
+                        new FunnelState.StepCount(FUNNEL, DAY, 2, 1),
+                        new FunnelState.StepCount(FUNNEL, DAY, 3, 1));
+        // User 2's attempt expired at 11:30, so it is no longer open at the watermark either.
+        assertThat(state.progress()).isEmpty();
+    }
+
+    @Test
+    void process_ContinuesAttemptsLeftOpenByThePreviousSpan() {
+        givenWatermark();
+        when(funnelRepository.findOpenProgress())
+                .thenReturn(
+                        List.of(
+                                new FunnelProgress(FUNNEL, 1, 1, at("10:50")),
+                                new FunnelProgress("removed-funnel", 1, 1, at("10:50"))));
+        givenEvents(event(1, BUTTON_CLICK, "11:10"), event(2, LOGIN, "11:45"));
+
+        funnelService.process();
+
+        FunnelState state = savedState();
+        assertThat(state.stepCounts())
+                .containsExactlyInAnyOrder(
+                        new FunnelState.StepCount(FUNNEL, DAY, 2, 1),
+                        new FunnelState.StepCount(FUNNEL, DAY, 1, 1));
+        assertThat(state.progress())
+                .containsExactly(new FunnelProgress(FUNNEL, 2, 1, at("11:45")));
+    }
+
+    @Test
+    void process_RepeatedFirstStepDoesNotRestartAnAttempt() {
+        givenWatermark();
+        givenEvents(
+                event(1, LOGIN, "11:00"),
+                event(1, LOGIN, "11:20"),
+                event(1, BUTTON_CLICK, "11:35"));
+
+        funnelService.process();
+
+        FunnelState state = savedState();
+        assertThat(state.stepCounts())
+                .containsExactly(new FunnelState.StepCount(FUNNEL, DAY, 1, 1));
+    }
+
+    @Test
+    void process_SplitsSessionsOnInactivityAndLogout() {
+        config.setDefinitions(List.of());
+        funnelService = newService();
+        givenWatermark();
+        when(funnelRepository.findOpenSessions())
+                .thenReturn(List.of(new OpenSession(3, at("10:00"), at("10:20"), 4)));
+        givenEvents(
+                event(1, LOGIN, "11:00"),
+                event(1, BUTTON_CLICK, "11:10"),
+                event(1, BUTTON_CLICK, "11:45"),
+                event(2, LOGIN, "11:40"),
+                event(2, LOGOUT, "11:50"));
+
+        funnelService.process();
+
+        FunnelState state = savedState();
+        // User 3 was idle past the gap, user 1's first session ended at the 35 minute gap and
+        // user 2 logged out; user 1's second session is still open.
+        assertThat(state.sessionCounts())
+                .containsExactly(new FunnelState.SessionCount(DAY, 3, 1200 + 600 + 600, 8));
+        assertThat(state.sessions())
+                .containsExactly(new OpenSession(1, at("11:45"), at("11:45"), 1));
+    }
+
+    @Test
+    void process_NoWatermark_StartsFromTheEarliestEventInBoundedChunks() {
+        when(funnelRepository.findWatermark()).thenReturn(Optional.empty());
+        when(funnelRepository.findEarliestEventTime()).thenReturn(Optional.of(at("09:30")));
+
+        funnelService.process();
+
+        verify(funnelRepository).streamUserEvents(eq(at("09:30")), eq(at("10:30")), any());
+        verify(funnelRepository).save(any(), isNull(), eq(at("10:30")));
+        verify(funnelRepository).streamUserEvents(eq(at("10:30")), eq(at("11:30")), any());
+        verify(funnelRepository).save(any(), eq(at("10:30")), eq(at("11:30")));
+        verify(funnelRepository, times(2)).save(any(), any(), any());
+    }
+
+    @Test
+    void process_NoEvents_OnlySavesTheWatermark() {
+        when(funnelRepository.findWatermark()).thenReturn(Optional.empty());
+        when(funnelRepository.findEarliestEventTime()).thenReturn(Optional.empty());
+
+        funnelService.process();
+
+        verify(funnelRepository).saveWatermark(UPPER);
+        verify(funnelRepository, never()).save(any(), any(), any());
+    }
+
+    @Test
+    void process_FailedSpan_StopsWithoutSaving() {
+        givenWatermark();
+        doThrow(new QueryTimeoutException("timeout"))
+                .when(funnelRepository)
+                .streamUserEvents(any(), any(), any());
+
+        funnelService.process();
+
+        verify(funnelRepository, never()).save(any(), any(), any());
+    }
+
+    @Test
+    void process_WatermarkMovedByAnotherInstance_StopsWithoutRetrying() {
+        when(funnelRepository.findWatermark()).thenReturn(Optional.of(at("09:30")));
+        doThrow(new OptimisticLockingFailureException("Funnel watermark moved"))
+                .when(funnelRepository)
+                .save(any(), eq(at("09:30")), eq(at("10:30")));
+
+        funnelService.process();
+
+        verify(funnelRepository).save(any(), any(), any());
+        verify(funnelRepository, never()).streamUserEvents(eq(at("10:30")), any(), any());
+    }
+
+    @Test
+    void process_Disabled_DoesNothing() {
+        config.setEnabled(false);
+
+        funnelService.process();
+
+        verifyNoInteractions(funnelRepository);
+    }
+
+    @Test
+    void getFunnel_ReportsConversionFromStartAndFromThePreviousStep() {
+        LocalDate to = DAY.plusDays(6);
+        when(funnelRepository.findStepCounts(FUNNEL, DAY, to))
+                .thenReturn(Map.of(1, 200L, 2, 100L, 3, 25L));
+
+        FunnelReport report = funnelService.getFunnel(FUNNEL, DAY, to);
+
+        assertThat(report.window()).isEqualTo(Duration.ofMinutes(30));
+        assertThat(report.steps())
+                .containsExactly(
+                        new FunnelReport.Step(1, "LOGIN", 200, 1.0, 1.0),
+                        new FunnelReport.Step(2, "BUTTON_CLICK", 100, 0.5, 0.5),
+                        new FunnelReport.Step(3, "PAYMENT_SUBMITTED", 25, 0.125, 0.25));
+    }
+
+    @Test
+    void getFunnel_UnknownFunnelOrInvertedRange_Throws() {
+        assertThatThrownBy(() -> funnelService.getFunnel("nope", DAY, DAY))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> funnelService.getFunnel(FUNNEL, DAY, DAY.minusDays(1)))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        verifyNoInteractions(funnelRepository);
+    }
+
+    @Test
+    void getSessions_ReturnsAverages() {
+        when(funnelRepository.findSessionCounts(DAY, DAY))
+                .thenReturn(new FunnelState.SessionCount(null, 4, 1200, 10));
+
+        SessionSummary summary = funnelService.getSessions(DAY, DAY);
+
+        assertThat(summary).isEqualTo(new SessionSummary(DAY, DAY, 4, 300.0, 2.5));
+    }
+
+    @Test
+    void constructor_RejectsFunnelsWithFewerThanTwoSteps() {
+        config.setDefinitions(List.of(funnel("single", LOGIN)));
+
+        assertThatThrownBy(this::newService).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MetricFunnelService newService() {
+        return new MetricFunnelService(funnelRepository, config, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private void givenWatermark() {
+        when(funnelRepository.findWatermark()).thenReturn(Optional.of(WATERMARK));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenEvents(UserMetricEvent... events) {
+        doAnswer(
+                        invocation -> {
+                            Consumer<UserMetricEvent> consumer = invocation.getArgument(2);
+                            for (UserMetricEvent event : events) {
+                                consumer.accept(event);
+                            }
+                            return null;
+                        })
+                .when(funnelRepository)
+                .streamUserEvents(eq(WATERMARK), eq(UPPER), any());
+    }
+
+    private FunnelState savedState() {
+        ArgumentCaptor<FunnelState> captor = ArgumentCaptor.forClass(FunnelState.class);
+        verify(funnelRepository).save(captor.capture(), eq(WATERMARK), eq(UPPER));
+        return captor.getValue();
+    }
+
+    private static MetricFunnelConfig.Funnel funnel(String name, MetricEventType... steps) {
+        MetricFunnelConfig.Funnel funnel = new MetricFunnelConfig.Funnel();
+        funnel.setName(name);
+        funnel.setSteps(List.of(steps));
+        return funnel;
+    }
+
+    private static UserMetricEvent event(long userId, MetricEventType event, String time) {
+        return new UserMetricEvent(userId, event, at(time));
+    }
+
+    private static Instant at(String time) {
+        return Instant.parse("2026-10-19T" + time + ":00Z");
+    }
+}
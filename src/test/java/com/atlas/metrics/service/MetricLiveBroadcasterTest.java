@@ -0,0 +1,153 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricLiveConfig;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricLiveViewUnavailableException;
+import com.atlas.metrics.service.model.LiveMetricRate;
+import com.atlas.metrics.service.model.LiveMetricSnapshot;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@ExtendWith(MockitoExtension.class)
+class MetricLiveBroadcasterTest {
+
+    private static final LiveMetricSnapshot SNAPSHOT =
+            new LiveMetricSnapshot(
+                    Instant.parse("2026-10-19T12:00:00Z"),
+                    60,
+                    List.of(new LiveMetricRate("LOGIN", 12, 600, 10.0)));
+
+    @Mock private MetricLiveCounters liveCounters;
+    @Mock private ScheduledExecutorService scheduler;
+
+    private MetricLiveConfig config;
+    private MetricLiveBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricLiveConfig();
+        broadcaster =
+                new MetricLiveBroadcaster(
+                        liveCounters,
+                        config,
+                        scheduler,
+                        Executors.newFixedThreadPool(config.getSenderThreads()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void start_PushesOnItsOwnSchedulerEveryInterval() {
+        broadcaster.start();
+
+        verify(scheduler)
+                .scheduleAtFixedRate(any(), eq(1000L), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscribe_SendsTheCurrentSnapshotAndRegistersTheSubscriber() {
+        when(liveCounters.snapshot()).thenReturn(SNAPSHOT);
+
+        assertThat(broadcaster.subscribe()).isNotNull();
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+        verify(liveCounters).snapshot();
+    }
+
+    @Test
+    void subscribe_ShouldThrow_WhenFullOrDisabled() {
+        when(liveCounters.snapshot()).thenReturn(SNAPSHOT);
+        config.setMaxSubscribers(1);
+        broadcaster.subscribe();
+
+        assertThatThrownBy(() -> broadcaster.subscribe())
+                .isInstanceOf(MetricLiveViewUnavailableException.class);
+        config.setEnabled(false);
+        config.setMaxSubscribers(10);
+        assertThatThrownBy(() -> broadcaster.subscribe())
+                .isInstanceOf(MetricLiveViewUnavailableException.class);
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void push_TakesNoSnapshot_WhenNobodyIsSubscribed() {
+        broadcaster.push();
+
+        verifyNoInteractions(liveCounters);
+    }
+
+    @Test
+    void push_TakesOneSnapshotForAllSubscribers() {
+        when(liveCounters.snapshot()).thenReturn(SNAPSHOT);
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+        clearInvocations(liveCounters);
+
+        broadcaster.push();
+
+        verify(liveCounters, times(1)).snapshot();
+    }
+
+    @Test
+    void push_DropsASubscriberStuckPastTheSendTimeout_AndCompletesItOnceTheWriteReturns()
+            throws Exception {
+        when(liveCounters.snapshot()).thenReturn(SNAPSHOT);
+        config.setSendTimeout(Duration.ofMillis(20));
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter slow = mock(SseEmitter.class);
+        doAnswer(
+                        invocation -> {
+                            sending.countDown();
+                            release.await();
+                            return null;
+                        })
+                .when(slow)
+                .send(any(SseEmitter.SseEventBuilder.class));
+        SseEmitter fast = mock(SseEmitter.class);
+        broadcaster.register(slow);
+        broadcaster.register(fast);
+
+        broadcaster.push();
+        assertThat(sending.await(1, TimeUnit.SECONDS)).isTrue();
+        verify(fast, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        Thread.sleep(50);
+        broadcaster.push();
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+        verify(slow, never()).complete();
+        release.countDown();
+        verify(slow, timeout(1000)).complete();
+        verify(slow, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void toJson_WritesTheSnapshot() {
+        assertThat(MetricLiveBroadcaster.toJson(SNAPSHOT))
+                .isEqualTo(
+                        "{\"at\":\"2026-10-19T12:00:00Z\",\"windowSeconds\":60,\"rates\":"
+                                + "[{\"event\":\"LOGIN\",\"lastSecond\":12,\"inWindow\":600,"
+                                + "\"perSecond\":10.0}]}");
+    }
+}
@@ -0,0 +1,140 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricLiveConfig;
+import com.atlas.metrics.service.model.LiveMetricRate;
+import com.atlas.metrics.service.model.LiveMetricSnapshot;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricLiveCountersTest {
+
+    private static final long START = Instant.parse("2026-10-19T12:00:00Z").toEpochMilli();
+
+    @Mock private Clock clock;
+
+    private MetricLiveConfig config;
+    private MetricLiveCounters liveCounters;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricLiveConfig();
+        config.setWindow(Duration.ofSeconds(10));
+        liveCounters = new MetricLiveCounters(config, clock);
+    }
+
+    @Test
+    void snapshot_CountsCompleteSecondsOnly() {
+        at(START + 200);
+        record("LOGIN", 3);
+        at(START + 1100);
+        record("LOGIN", 2);
+        record("BUTTON_CLICK", 1);
+        at(START + 2500);
+        record("LOGIN", 7);
+
+        LiveMetricSnapshot snapshot = liveCounters.snapshot();
+
+        assertThat(snapshot.at()).isEqualTo(Instant.ofEpochMilli(START + 2000));
+        assertThat(snapshot.windowSeconds()).isEqualTo(10);
+        LiveMetricRate logins = rateOf(snapshot, "LOGIN");
+        assertThat(logins.lastSecond()).isEqualTo(2);
+        assertThat(logins.inWindow()).isEqualTo(5);
+        assertThat(logins.perSecond()).isEqualTo(0.5);
+        assertThat(rateOf(snapshot, "BUTTON_CLICK").inWindow()).isEqualTo(1);
+        assertThat(rateOf(snapshot, "LOGOUT").inWindow()).isZero();
+    }
+
+    @Test
+    void snapshot_DropsSecondsThatHaveLeftTheWindow() {
+        at(START);
+        record("LOGIN", 4);
+        at(START + 5000);
+        record("LOGIN", 1);
+
+        at(START + 11_000);
+        assertThat(rateOf(liveCounters.snapshot(), "LOGIN").inWindow()).isEqualTo(1);
+
+        // Recording into the slot last used eleven seconds ago starts it afresh.
+        record("LOGIN", 2);
+        at(START + 12_000);
+        LiveMetricRate logins = rateOf(liveCounters.snapshot(), "LOGIN");
+        assertThat(logins.lastSecond()).isEqualTo(2);
+        assertThat(logins.inWindow()).isEqualTo(3);
+    }
+
+    @Test
+    void record_IgnoresUnknownEventsAndDisabledCounters() {
+        liveCounters.record("NOT_AN_EVENT");
+        config.setEnabled(false);
+        liveCounters.record("LOGIN");
+
+        at(START + 1000);
+        assertThat(liveCounters.snapshot().rates())
+                .extracting(LiveMetricRate::inWindow)
+                .containsOnly(0L);
+    }
+
+    @Test
+    void record_CountsEveryEventFromConcurrentThreadsWithinASecond() throws Exception {
+        at(START + 100);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    record("BUTTON_CLICK", perThread);
+                                    return null;
+                                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        at(START + 1000);
+        assertThat(rateOf(liveCounters.snapshot(), "BUTTON_CLICK").lastSecond())
+                .isEqualTo((long) threads * perThread);
+    }
+
+    private void at(long millis) {
+        when(clock.millis()).thenReturn(millis);
+    }
+
+    private void record(String event, int times) {
+        for (int i = 0; i < times; i++) {
+            liveCounters.record(event);
+        }
+    }
+
+    private static LiveMetricRate rateOf(LiveMetricSnapshot snapshot, String event) {
+        return snapshot.rates().stream()
+                .filter(rate -> rate.event().equals(event))
+                .findFirst()
+                .orElseThrow();
+    }
+}
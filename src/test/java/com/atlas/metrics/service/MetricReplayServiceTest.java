@@ -0,0 +1,267 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricReplayConfig;
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.controller.model.MetricEventDTO;
+import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import com.atlas.metrics.service.model.MetricReplayReport;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricReplayServiceTest {
+
+    private static final String EVENT_ID = "7f3c1a52-9d1e-4f0a-8b7e-2f1d6c9a0b11";
+
+    @TempDir private Path directory;
+
+    @Mock private MetricsService metricsService;
+    @Mock private MetricsIngestionBuffer ingestionBuffer;
+    @Mock private MetricsStreamConsumer streamConsumer;
+
+    private MetricsIngestionConfig ingestionConfig;
+    private MetricReplayConfig config;
+    private MetricReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        ingestionConfig = new MetricsIngestionConfig();
+        ingestionConfig.setMode(MetricsIngestionConfig.Mode.SYNCHRONOUS);
+        config = new MetricReplayConfig();
+        config.setThreads(1);
+        config.setFreshEventIds(false);
+        replayService =
+                new MetricReplayService(
+                        metricsService,
+                        new MetricBatchReader(new MetricsIngestionConfig()),
+                        ingestionBuffer,
+                        streamConsumer,
+                        ingestionConfig,
+                        config);
+    }
+
+    @Test
+    void replay_SendsEachValidLineThroughTheSingleEventPath() throws Exception {
+        givenFile(
+                "events.ndjson",
+                "{\"id\":1,\"event\":\"LOGIN\",\"eventTime\":\"2026-06-03T10:00:00Z\",\"userId\":7,"
+                        + "\"eventId\":\""
+                        + EVENT_ID
+                        + "\",\"eventMetadata\":{\"team\": 33}}\n"
+                        + "\n"
+                        + "{\"event\":\"NOT_AN_EVENT\",\"eventMetadata\":{}}\n"
+                        + "{\"event\":\"BUTTON_CLICK\",\"eventMetadata\":{}}\n");
+
+        MetricReplayReport report = replayService.replay();
+
+        ArgumentCaptor<MetricEventDTO> sent = ArgumentCaptor.forClass(MetricEventDTO.class);
+        verify(metricsService, times(2)).saveMetricEvent(sent.capture());
+        MetricEventDTO login = sent.getAllValues().get(0);
+        assertThat(login.getEvent()).isEqualTo(MetricEventType.LOGIN);
+        assertThat(login.getEventMetadata().json()).isEqualTo("{\"team\":33}");
+        assertThat(login.getUserId()).isEqualTo(7L);
+        assertThat(login.getEventId()).isEqualTo(UUID.fromString(EVENT_ID));
+        assertThat(report.events()).isEqualTo(2);
+        assertThat(report.accepted()).isEqualTo(2);
+        assertThat(report.written()).isEqualTo(2);
+        assertThat(report.invalid()).isEqualTo(1);
+        assertThat(report.serviceTime().max()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void replay_GroupsEventsIntoBatches_WhenTargetingTheBatchPath() throws Exception {
+        config.setTarget(MetricReplayConfig.Target.BATCH);
+        config.setBatchSize(2);
+        givenFile("events.ndjson", lines(5));
+        List<Integer> batchSizes = new ArrayList<>();
+        when(metricsService.saveMetricEvents(any()))
+                .thenAnswer(
+                        invocation -> {
+                            MetricBatch batch = invocation.getArgument(0);
+                            batchSizes.add(batch.size());
+                            return new MetricBatchResult(batch.size(), 0, List.of());
+                        });
+
+        MetricReplayReport report = replayService.replay();
+
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(report.accepted()).isEqualTo(5);
+        verify(metricsService, never()).saveMetricEvent(any());
+    }
+
+    @Test
+    void replay_ReadsCsvExportsByTheirHeader() throws Exception {
+        givenFile(
+                "events.csv",
+                "id,event,event_time,user_id,event_id,trigger_id,screen,metadata\r\n"
+                        + "1,BUTTON_CLICK,2026-06-03T11:00:00Z,,,save-team,team,"
+                        + "\"{\"\"team\"\":33,\"\"tags\"\":[\"\"home\"\",\"\"derby\"\"]}\"\r\n"
+                        + "2,LOGIN,2026-06-03T12:00:00Z,seven,,,,{}\r\n");
+
+        MetricReplayReport report = replayService.replay();
+
+        ArgumentCaptor<MetricEventDTO> sent = ArgumentCaptor.forClass(MetricEventDTO.class);
+        verify(metricsService).saveMetricEvent(sent.capture());
+        assertThat(sent.getValue().getEvent()).isEqualTo(MetricEventType.BUTTON_CLICK);
+        assertThat(sent.getValue().getEventMetadata().json())
+                .isEqualTo("{\"team\":33,\"tags\":[\"home\",\"derby\"]}");
+        assertThat(sent.getValue().getUserId()).isNull();
+        assertThat(report.invalid()).isEqualTo(1);
+    }
+
+    @Test
+    void replay_CountsRejectedAndFailedCalls() throws Exception {
+        givenFile("events.ndjson", lines(3));
+        doNothing()
+                .doThrow(new MetricIngestionRejectedException("Metrics ingestion buffer is full"))
+                .doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(metricsService)
+                .saveMetricEvent(any());
+
+        MetricReplayReport report = replayService.replay();
+
+        assertThat(report.events()).isEqualTo(3);
+        assertThat(report.accepted()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void replay_WaitsForTheBufferAndReportsTheWritersCounts() throws Exception {
+        ingestionConfig.setMode(MetricsIngestionConfig.Mode.BUFFERED);
+        givenFile("events.ndjson", lines(3));
+        when(ingestionBuffer.getWrittenCount()).thenReturn(100L, 102L);
+        when(ingestionBuffer.getFailedCount()).thenReturn(4L, 5L);
+        when(ingestionBuffer.awaitDrained(config.getDrainTimeout())).thenReturn(true);
+
+        MetricReplayReport report = replayService.replay();
+
+        InOrder order = inOrder(metricsService, ingestionBuffer);
+        order.verify(metricsService, times(3)).saveMetricEvent(any());
+        order.verify(ingestionBuffer).awaitDrained(config.getDrainTimeout());
+        assertThat(report.accepted()).isEqualTo(3);
+        assertThat(report.written()).isEqualTo(2);
+        assertThat(report.writeFailed()).isEqualTo(1);
+        verifyNoInteractions(streamConsumer);
+    }
+
+    @Test
+    void replay_StopsAtMaxEventsAndGivesEventsFreshIds() throws Exception {
+        config.setMaxEvents(2);
+        config.setFreshEventIds(true);
+        givenFile("events.ndjson", lines(5));
+
+        MetricReplayReport report = replayService.replay();
+
+        ArgumentCaptor<MetricEventDTO> sent = ArgumentCaptor.forClass(MetricEventDTO.class);
+        verify(metricsService, times(2)).saveMetricEvent(sent.capture());
+        assertThat(sent.getAllValues())
+                .extracting(MetricEventDTO::getEventId)
+                .doesNotContainNull()
+                .doesNotContain(UUID.fromString(EVENT_ID))
+                .doesNotHaveDuplicates();
+        assertThat(report.events()).isEqualTo(2);
+    }
+
+    @Test
+    void replay_PacesCallsToTheTargetRate() throws Exception {
+        config.setRate(200);
+        givenFile("events.ndjson", lines(21));
+
+        MetricReplayReport report = replayService.replay();
+
+        // The 21st event is due 100 ms after the first.
+        assertThat(report.elapsed().toMillis()).isGreaterThanOrEqualTo(100);
+        assertThat(report.eventsPerSecond()).isLessThanOrEqualTo(220);
+    }
+
+    @Test
+    void forEachLine_JoinsLinesThatStraddleMappedWindows() throws IOException {
+        Path file = givenFile("lines.txt", "première\r\nsecond line\n\nthird é");
+
+        List<String> lines = new ArrayList<>();
+        long count = MetricReplayFile.forEachLine(file, 4, lines::add);
+
+        assertThat(lines).containsExactly("première", "second line", "third é");
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void parseCsv_ReportsTheFirstInvalidField() {
+        Map<String, Integer> header =
+                MetricReplayService.parseCsvHeader("event,user_id,event_id,metadata");
+
+        PendingMetricEvent event =
+                MetricReplayService.parseCsv("LOGIN,7," + EVENT_ID + ",", header);
+
+        assertThat(event.metadata()).isEqualTo("{}");
+        assertThat(event.userId()).isEqualTo(7L);
+        assertThat(invalidCsv("LOGIN,7,not-a-uuid,{}", header))
+                .isEqualTo("event_id must be a UUID");
+        assertThat(invalidCsv("LOGIN,,,[1]", header))
+                .isEqualTo("eventMetadata must be a JSON object");
+        assertThat(invalidCsv(",7,,{}", header)).isEqualTo("event is required");
+    }
+
+    @Test
+    void formatOf_FollowsTheExtensionUnlessConfigured() {
+        assertThat(replayService.formatOf(Path.of("events.CSV")))
+                .isEqualTo(MetricReplayConfig.Format.CSV);
+        assertThat(replayService.formatOf(Path.of("events.jsonl")))
+                .isEqualTo(MetricReplayConfig.Format.NDJSON);
+
+        config.setFormat(MetricReplayConfig.Format.CSV);
+        assertThat(replayService.formatOf(Path.of("events.ndjson")))
+                .isEqualTo(MetricReplayConfig.Format.CSV);
+    }
+
+    private Path givenFile(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.writeString(file, content);
+        config.setFile(file.toString());
+        return file;
+    }
+
+    private static String lines(int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("{\"event\":\"BUTTON_CLICK\",\"eventId\":\"")
+                    .append(EVENT_ID)
+                    .append("\",\"eventMetadata\":{\"n\":")
+                    .append(i)
+                    .append("}}\n");
+        }
+        return lines.toString();
+    }
+
+    private static String invalidCsv(String line, Map<String, Integer> header) {
+        try {
+            MetricReplayService.parseCsv(line, header);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
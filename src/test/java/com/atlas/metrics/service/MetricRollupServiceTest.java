@@ -0,0 +1,178 @@
+package com.atlas.metrics.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricRollupConfig;
+import com.atlas.metrics.repository.MetricRollupRepository;
+import com.atlas.metrics.service.model.RollupGranularity;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricRollupServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:30Z");
+
+    @Mock private MetricRollupRepository rollupRepository;
+
+    private MetricRollupConfig config;
+    private MetricRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricRollupConfig();
+        config.setSettleDelay(Duration.ofMinutes(1));
+        config.setLookback(Duration.ofMinutes(15));
+        config.setMaxChunk(Duration.ofHours(6));
+        config.setMaxChunksPerRun(2);
+        rollupService =
+                new MetricRollupService(
+                        rollupRepository, config, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void rollUp_RecomputesLookbackWindowUpToSettledMinute() {
+        when(rollupRepository.findWatermark())
+                .thenReturn(Optional.of(Instant.parse("2026-10-19T11:58:00Z")));
+
+        rollupService.rollUp();
+
+        verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-19T11:43:00Z"),
+                        Instant.parse("2026-10-19T11:59:00Z"));
+        verify(rollupRepository)
+                .deleteOlderThan(RollupGranularity.MINUTE, NOW.minus(Duration.ofDays(7)));
+        verify(rollupRepository)
+                .deleteOlderThan(RollupGranularity.HOUR, NOW.minus(Duration.ofDays(90)));
+    }
+
+    @Test
+    void rollUp_NoWatermark_CatchesUpFromEarliestEventInBoundedChunks() {
+        when(rollupRepository.findWatermark()).thenReturn(Optional.empty());
+        when(rollupRepository.findEarliestEventTime())
+                .thenReturn(Optional.of(Instant.parse("2026-10-18T00:00:12Z")));
+
+        rollupService.rollUp();
+
+        InOrder inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-18T00:00:00Z"),
+                        Instant.parse("2026-10-18T06:00:00Z"));
+        inOrder.verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-18T06:00:00Z"),
+                        Instant.parse("2026-10-18T12:00:00Z"));
+        verify(rollupRepository, times(2)).rollup(any(), any());
+    }
+
+    @Test
+    void rollUp_NoEvents_StartsWatermarkAtSettledMinute() {
+        when(rollupRepository.findWatermark()).thenReturn(Optional.empty());
+        when(rollupRepository.findEarliestEventTime()).thenReturn(Optional.empty());
+
+        rollupService.rollUp();
+
+        verify(rollupRepository).saveWatermark(Instant.parse("2026-10-19T11:59:00Z"));
+        verify(rollupRepository, never()).rollup(any(), any());
+    }
+
+    @Test
+    void rollUp_ChunkFails_StopsWithoutSkippingAhead() {
+        config.setMaxChunk(Duration.ofMinutes(5));
+        when(rollupRepository.findWatermark())
+                .thenReturn(Optional.of(Instant.parse("2026-10-19T11:50:00Z")));
+        doThrow(new QueryTimeoutException("timeout")).when(rollupRepository).rollup(any(), any());
+
+        rollupService.rollUp();
+
+        verify(rollupRepository, times(1)).rollup(any(), any());
+    }
+
+    @Test
+    void recompute_RebuildsTheWholeDaysOverlappingTheRange() {
+        config.setMaxChunk(Duration.ofHours(12));
+        when(rollupRepository.findEarliestEventTime())
+                .thenReturn(Optional.of(Instant.parse("2026-07-01T00:00:03Z")));
+
+        rollupService.recompute(
+                Instant.parse("2026-10-01T10:15:42Z"), Instant.parse("2026-10-01T12:05:10Z"));
+
+        verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-01T00:00:00Z"),
+                        Instant.parse("2026-10-01T12:00:00Z"));
+        verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-01T12:00:00Z"),
+                        Instant.parse("2026-10-02T00:00:00Z"));
+        verify(rollupRepository, times(2)).rollup(any(), any());
+    }
+
+    @Test
+    void recompute_SkipsArchivedDaysAndStopsAtTheSettledMinute() {
+        config.setMaxChunk(Duration.ofDays(30));
+        when(rollupRepository.findEarliestEventTime())
+                .thenReturn(Optional.of(Instant.parse("2026-10-19T09:30:00Z")));
+
+        rollupService.recompute(Instant.parse("2026-06-15T00:00:00Z"), NOW.plusSeconds(3600));
+
+        verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-19T00:00:00Z"),
+                        Instant.parse("2026-10-19T11:59:00Z"));
+    }
+
+    @Test
+    void rollUp_EndsChunksOnHourBoundaries() {
+        config.setMaxChunk(Duration.ofMinutes(90));
+        when(rollupRepository.findWatermark())
+                .thenReturn(Optional.of(Instant.parse("2026-10-19T09:40:00Z")));
+
+        rollupService.rollUp();
+
+        InOrder inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-19T09:25:00Z"),
+                        Instant.parse("2026-10-19T10:00:00Z"));
+        inOrder.verify(rollupRepository)
+                .rollup(
+                        Instant.parse("2026-10-19T10:00:00Z"),
+                        Instant.parse("2026-10-19T11:00:00Z"));
+    }
+
+    @Test
+    void rollUp_KeepsTheFinerBucketsOfTheDayBeingCaughtUp() {
+        when(rollupRepository.findWatermark()).thenReturn(Optional.empty());
+        when(rollupRepository.findEarliestEventTime())
+                .thenReturn(Optional.of(Instant.parse("2026-01-10T15:00:00Z")));
+
+        rollupService.rollUp();
+
+        Instant dayInProgress = Instant.parse("2026-01-10T00:00:00Z");
+        verify(rollupRepository).deleteOlderThan(RollupGranularity.MINUTE, dayInProgress);
+        verify(rollupRepository).deleteOlderThan(RollupGranularity.HOUR, dayInProgress);
+    }
+
+    @Test
+    void rollUp_Disabled_DoesNothing() {
+        config.setEnabled(false);
+
+        rollupService.rollUp();
+
+        verifyNoInteractions(rollupRepository);
+    }
+}
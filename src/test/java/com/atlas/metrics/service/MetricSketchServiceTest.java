@@ -0,0 +1,135 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricSketchConfig;
+import com.atlas.metrics.repository.MetricSketchRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.MetricBreakdownEntry;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import com.atlas.metrics.service.model.TopTriggers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricSketchServiceTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2026-10-19");
+
+    @Mock private MetricSketchRepository sketchRepository;
+
+    private MetricSketchConfig config;
+    private MetricSketchService sketchService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricSketchConfig();
+        config.setTopK(10);
+        sketchService =
+                new MetricSketchService(sketchRepository, config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void flush_AggregatesUsersAndTriggerIdsPerEventAndDay() {
+        sketchService.record(event("BUTTON_CLICK", "2026-10-19T10:00:00Z", 1L, "save-team"));
+        sketchService.record(event("BUTTON_CLICK", "2026-10-19T11:00:00Z", 2L, "save-team"));
+        sketchService.record(event("BUTTON_CLICK", "2026-10-19T12:00:00Z", 1L, "share"));
+        sketchService.record(event("BUTTON_CLICK", "2026-10-20T00:30:00Z", 3L, "share"));
+        sketchService.record(event("LOGIN", "2026-10-19T09:00:00Z", null, null));
+
+        sketchService.flush();
+
+        verify(sketchRepository).addUsers("BUTTON_CLICK", DAY, Set.of(1L, 2L));
+        verify(sketchRepository).addUsers("BUTTON_CLICK", DAY.plusDays(1), Set.of(3L));
+        verify(sketchRepository)
+                .addTriggers("BUTTON_CLICK", DAY, Map.of("save-team", 2L, "share", 1L));
+        verify(sketchRepository).addTriggers("BUTTON_CLICK", DAY.plusDays(1), Map.of("share", 1L));
+        verifyNoMoreInteractions(sketchRepository);
+    }
+
+    @Test
+    void flush_NothingQueued_DoesNotTouchRedis() {
+        sketchService.flush();
+
+        verifyNoInteractions(sketchRepository);
+    }
+
+    @Test
+    void flush_RedisFailure_IsSwallowed() {
+        doThrow(new RuntimeException("down"))
+                .when(sketchRepository)
+                .addTriggers(any(), any(), anyMap());
+        sketchService.record(event("BUTTON_CLICK", "2026-10-19T10:00:00Z", null, "share"));
+
+        sketchService.flush();
+    }
+
+    @Test
+    void record_Disabled_QueuesNothing() {
+        config.setEnabled(false);
+        sketchService.record(event("LOGIN", "2026-10-19T09:00:00Z", 1L, null));
+
+        sketchService.flush();
+
+        verifyNoInteractions(sketchRepository);
+    }
+
+    @Test
+    void getUniqueUsers_CountsTheUnionOfTheRequestedDays() {
+        when(sketchRepository.countUniqueUsers(
+                        "LOGIN", List.of(DAY, DAY.plusDays(1), DAY.plusDays(2))))
+                .thenReturn(42L);
+
+        assertThat(sketchService.getUniqueUsers("LOGIN", DAY, DAY.plusDays(2)).estimate())
+                .isEqualTo(42);
+    }
+
+    @Test
+    void getTopTriggers_DefaultsToTopK() {
+        when(sketchRepository.findTopTriggers("BUTTON_CLICK", List.of(DAY), 10))
+                .thenReturn(List.of(Map.entry("save-team", 7L)));
+
+        TopTriggers top = sketchService.getTopTriggers("BUTTON_CLICK", DAY, DAY, null);
+
+        assertThat(top.entries()).containsExactly(new MetricBreakdownEntry("save-team", 7));
+    }
+
+    @Test
+    void queries_RejectInvalidArguments() {
+        assertThatThrownBy(() -> sketchService.getUniqueUsers("NOPE", DAY, DAY))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> sketchService.getUniqueUsers("LOGIN", DAY, DAY.minusDays(1)))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> sketchService.getUniqueUsers("LOGIN", DAY, DAY.plusDays(31)))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(() -> sketchService.getTopTriggers("LOGIN", DAY, DAY, 11))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        verifyNoInteractions(sketchRepository);
+    }
+
+    @Test
+    void triggerIdOf_ReadsTheTriggerIdFromMetadata() {
+        assertThat(MetricSketchService.triggerIdOf("{\"triggerId\":\"share\"}")).isEqualTo("share");
+        assertThat(MetricSketchService.triggerIdOf("{}")).isNull();
+        assertThat(MetricSketchService.triggerIdOf("not json")).isNull();
+    }
+
+    private static PendingMetricEvent event(
+            String type, String time, Long userId, String triggerId) {
+        String metadata = triggerId != null ? "{\"triggerId\":\"" + triggerId + "\"}" : "{}";
+        return new PendingMetricEvent(type, Instant.parse(time), metadata, userId);
+    }
+}
@@ -0,0 +1,382 @@
+package com.atlas.metrics.service;
+
+import static com.atlas.metrics.controller.model.MetricTimingType.API_ROUND_TRIP;
+import static com.atlas.metrics.controller.model.MetricTimingType.PAGE_LOAD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricTimingConfig;
+import com.atlas.metrics.controller.model.MetricTimingDTO;
+import com.atlas.metrics.controller.model.MetricTimingType;
+import com.atlas.metrics.repository.MetricTimingRepository;
+import com.atlas.metrics.service.model.ExceptionTypes.InvalidMetricsQueryException;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricBatchTooLargeException;
+import com.atlas.metrics.service.model.TimingBucket;
+import com.atlas.metrics.service.model.TimingPercentiles;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricTimingServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T12:05:00Z");
+    private static final Instant PREVIOUS_MINUTE = Instant.parse("2026-10-19T12:04:00Z");
+
+    @Mock private MetricTimingRepository timingRepository;
+
+    private MetricTimingConfig config;
+    private MeterRegistry meterRegistry;
+    private MetricTimingService timingService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricTimingConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        timingService = newService();
+    }
+
+    @Test
+    void flush_StoresSamplesUnderTheMinuteThatHasJustEnded() {
+        timingService.record(
+                List.of(
+                        timing(PAGE_LOAD, "/fixtures", 120.0),
+                        timing(PAGE_LOAD, "/fixtures", 80.4),
+                        timing(API_ROUND_TRIP, "/api/fixtures", 35.0)));
+
+        timingService.flush();
+
+        List<TimingBucket> buckets = mergedBuckets();
+        assertThat(buckets).hasSize(2);
+        TimingBucket pageLoads = bucketFor(buckets, PAGE_LOAD);
+        assertThat(pageLoads.route()).isEqualTo("/fixtures");
+        assertThat(pageLoads.bucketStart()).isEqualTo(PREVIOUS_MINUTE);
+        assertThat(pageLoads.histogram().getTotalCount()).isEqualTo(2);
+        assertThat(pageLoads.histogram().getMinValue()).isEqualTo(80);
+        assertThat(pageLoads.histogram().getMaxValue()).isEqualTo(120);
+        verify(timingRepository).deleteOlderThan(NOW.minus(Duration.ofDays(30)));
+    }
+
+    @Test
+    void flush_OnlyStoresSamplesRecordedSinceThePreviousFlush() {
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 120.0)));
+        timingService.flush();
+
+        timingService.flush();
+
+        verify(timingRepository, times(1)).merge(any());
+    }
+
+    @Test
+    void flush_KeepsSamplesForTheNextFlush_WhenTheyCannotBeStored() {
+        doThrow(new QueryTimeoutException("timeout"))
+                .doNothing()
+                .when(timingRepository)
+                .merge(any());
+
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 120.0)));
+        timingService.flush();
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 90.0)));
+        timingService.flush();
+
+        ArgumentCaptor<List<TimingBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(timingRepository, times(2)).merge(captor.capture());
+        List<TimingBucket> retried = captor.getAllValues().get(1);
+        assertThat(retried).hasSize(1);
+        assertThat(retried.get(0).histogram().getTotalCount()).isEqualTo(2);
+        assertThat(droppedCount("unflushed")).isZero();
+    }
+
+    @Test
+    void flush_DoesNothing_WhenDisabled() {
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 120.0)));
+        config.setEnabled(false);
+
+        timingService.flush();
+
+        verifyNoInteractions(timingRepository);
+    }
+
+    @Test
+    void record_SkipsAndCountsInvalidSamples() {
+        int recorded =
+                timingService.record(
+                        List.of(
+                                timing(PAGE_LOAD, "/fixtures", 120.0),
+                                timing(null, "/fixtures", 120.0),
+                                timing(PAGE_LOAD, "fixtures", 120.0),
+                                timing(PAGE_LOAD, "/fixtures", null),
+                                timing(PAGE_LOAD, "/fixtures", -1.0),
+                                timing(PAGE_LOAD, "/fixtures", Double.NaN)));
+
+        assertThat(recorded).isEqualTo(1);
+        assertThat(droppedCount("invalid")).isEqualTo(5);
+    }
+
+    @Test
+    void record_CapsSamplesAtTheHighestTrackableValue() {
+        config.setHighestTrackableMillis(1000);
+        timingService = newService();
+
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 5000.0)));
+        timingService.flush();
+
+        Histogram histogram = mergedBuckets().get(0).histogram();
+        assertThat(histogram.valuesAreEquivalent(histogram.getMaxValue(), 1000)).isTrue();
+    }
+
+    @Test
+    void record_ShouldThrow_WhenBatchIsTooLarge() {
+        config.setMaxBatchItems(2);
+
+        List<MetricTimingDTO> batch =
+                Collections.nCopies(3, timing(PAGE_LOAD, "/fixtures", 120.0));
+
+        assertThatThrownBy(() -> timingService.record(batch))
+                .isInstanceOf(MetricBatchTooLargeException.class);
+    }
+
+    @Test
+    void record_RecordsFurtherRoutesAsOther_WhenTheSeriesLimitIsReached() {
+        config.setMaxSeries(1);
+
+        timingService.record(
+                List.of(
+                        timing(PAGE_LOAD, "/fixtures", 120.0),
+                        timing(PAGE_LOAD, "/standings", 90.0),
+                        timing(PAGE_LOAD, "/teams", 60.0)));
+        timingService.flush();
+
+        assertThat(mergedBuckets())
+                .extracting(TimingBucket::route, bucket -> bucket.histogram().getTotalCount())
+                .containsExactlyInAnyOrder(
+                        tuple("/fixtures", 1L),
+                        tuple(MetricTimingService.OTHER_ROUTE, 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_DropsIdleSeries_SoNewRoutesGetTheirPlace() {
+        config.setMaxSeries(1);
+        Instant[] now = {NOW};
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenAnswer(invocation -> now[0].toEpochMilli());
+        when(clock.instant()).thenAnswer(invocation -> now[0]);
+        timingService = new MetricTimingService(timingRepository, config, meterRegistry, clock);
+
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 120.0)));
+        timingService.flush();
+        now[0] = NOW.plus(Duration.ofMinutes(61));
+        timingService.flush();
+        timingService.record(List.of(timing(PAGE_LOAD, "/standings", 90.0)));
+        timingService.flush();
+
+        ArgumentCaptor<List<TimingBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(timingRepository, times(2)).merge(captor.capture());
+        assertThat(captor.getAllValues().get(1))
+                .extracting(TimingBucket::route)
+                .containsExactly("/standings");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_KeepsSamplesRecordedIntoASeriesAsItIsDropped() {
+        Instant[] now = {NOW};
+        boolean[] flushOnNextTick = {false};
+        Clock clock = mock(Clock.class);
+        when(clock.millis())
+                .thenAnswer(
+                        invocation -> {
+                            if (flushOnNextTick[0]) {
+                                flushOnNextTick[0] = false;
+                                timingService.flush();
+                            }
+                            return now[0].toEpochMilli();
+                        });
+        when(clock.instant()).thenAnswer(invocation -> now[0]);
+        timingService = new MetricTimingService(timingRepository, config, meterRegistry, clock);
+
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 120.0)));
+        timingService.flush();
+        now[0] = NOW.plus(Duration.ofMinutes(61));
+        // The series is dropped as idle after record() has found it but before it records.
+        flushOnNextTick[0] = true;
+        timingService.record(List.of(timing(PAGE_LOAD, "/fixtures", 80.0)));
+        timingService.flush();
+
+        ArgumentCaptor<List<TimingBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(timingRepository, times(2)).merge(captor.capture());
+        assertThat(captor.getAllValues().get(1))
+                .singleElement()
+                .satisfies(bucket -> assertThat(bucket.histogram().getTotalCount()).isEqualTo(1));
+    }
+
+    @Test
+    void splitByMinute_SharesSamplesByTheTimeSpentInEachMinute() {
+        Histogram interval = new Histogram(600_000, 2);
+        interval.recordValueWithCount(100, 90);
+        interval.recordValueWithCount(250, 3);
+        interval.setStartTimeStamp(Instant.parse("2026-10-19T12:02:30Z").toEpochMilli());
+        interval.setEndTimeStamp(Instant.parse("2026-10-19T12:04:00Z").toEpochMilli());
+
+        Map<Instant, Histogram> parts = MetricTimingService.splitByMinute(interval);
+
+        Histogram first = parts.get(Instant.parse("2026-10-19T12:02:00Z"));
+        Histogram second = parts.get(Instant.parse("2026-10-19T12:03:00Z"));
+        assertThat(parts).hasSize(2);
+        assertThat(first.getCountAtValue(100)).isEqualTo(30);
+        assertThat(second.getCountAtValue(100)).isEqualTo(60);
+        assertThat(first.getCountAtValue(250) + second.getCountAtValue(250)).isEqualTo(3);
+    }
+
+    @Test
+    void splitByMinute_KeepsAnIntervalWithinOneMinuteWhole() {
+        Histogram interval = new Histogram(600_000, 2);
+        interval.recordValue(100);
+        interval.setStartTimeStamp(PREVIOUS_MINUTE.toEpochMilli());
+        interval.setEndTimeStamp(NOW.toEpochMilli());
+
+        assertThat(MetricTimingService.splitByMinute(interval))
+                .containsOnlyKeys(PREVIOUS_MINUTE)
+                .containsValue(interval);
+    }
+
+    @Test
+    void normalizeRoute_GroupsRoutesThatDifferOnlyByIdsAndQuery() {
+        assertThat(MetricTimingService.normalizeRoute("/fixtures/1035037?tab=lineups"))
+                .isEqualTo("/fixtures/:id");
+        assertThat(MetricTimingService.normalizeRoute("/teams/33/players/276#stats"))
+                .isEqualTo("/teams/:id/players/:id");
+        assertThat(MetricTimingService.normalizeRoute("/leagues/39-premier"))
+                .isEqualTo("/leagues/39-premier");
+        assertThat(MetricTimingService.normalizeRoute("https://example.com/")).isNull();
+        assertThat(MetricTimingService.normalizeRoute(null)).isNull();
+    }
+
+    @Test
+    void getPercentiles_MergesTheStoredMinutes() {
+        Histogram first = new Histogram(2);
+        Histogram second = new Histogram(2);
+        for (int value = 1; value <= 100; value++) {
+            (value <= 50 ? first : second).recordValue(value);
+        }
+        givenHistograms(null, first, second);
+
+        TimingPercentiles percentiles =
+                timingService.getPercentiles(
+                        PAGE_LOAD,
+                        null,
+                        Instant.parse("2026-10-19T11:00:00Z"),
+                        Instant.parse("2026-10-19T12:00:00Z"));
+
+        assertThat(percentiles.count()).isEqualTo(100);
+        assertThat(percentiles.mean()).isEqualTo(50.5);
+        assertThat(percentiles.p50()).isEqualTo(50);
+        assertThat(percentiles.p95()).isEqualTo(95);
+        assertThat(percentiles.p99()).isEqualTo(99);
+        assertThat(percentiles.max()).isEqualTo(100);
+    }
+
+    @Test
+    void getPercentiles_WidensTheRangeToWholeMinutesAndNormalizesTheRoute() {
+        givenHistograms("/fixtures/:id");
+
+        TimingPercentiles percentiles =
+                timingService.getPercentiles(
+                        PAGE_LOAD,
+                        "/fixtures/1035037",
+                        Instant.parse("2026-10-19T11:00:30Z"),
+                        Instant.parse("2026-10-19T11:05:10Z"));
+
+        assertThat(percentiles.from()).isEqualTo(Instant.parse("2026-10-19T11:00:00Z"));
+        assertThat(percentiles.to()).isEqualTo(Instant.parse("2026-10-19T11:06:00Z"));
+        assertThat(percentiles.route()).isEqualTo("/fixtures/:id");
+        assertThat(percentiles.count()).isZero();
+        assertThat(percentiles.p99()).isZero();
+    }
+
+    @Test
+    void getPercentiles_ShouldThrow_WhenRangeIsInvalid() {
+        Instant from = Instant.parse("2026-10-19T11:00:00Z");
+
+        assertThatThrownBy(() -> timingService.getPercentiles(PAGE_LOAD, null, from, from))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                timingService.getPercentiles(
+                                        PAGE_LOAD, null, from, from.plus(Duration.ofDays(8))))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        assertThatThrownBy(
+                        () ->
+                                timingService.getPercentiles(
+                                        PAGE_LOAD, "fixtures", from, from.plusSeconds(60)))
+                .isInstanceOf(InvalidMetricsQueryException.class);
+        verifyNoInteractions(timingRepository);
+    }
+
+    private MetricTimingService newService() {
+        return new MetricTimingService(
+                timingRepository, config, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenHistograms(String route, Histogram... histograms) {
+        doAnswer(
+                        invocation -> {
+                            Consumer<Histogram> consumer = invocation.getArgument(4);
+                            for (Histogram histogram : histograms) {
+                                consumer.accept(histogram);
+                            }
+                            return null;
+                        })
+                .when(timingRepository)
+                .findHistograms(
+                        eq(PAGE_LOAD),
+                        route == null ? isNull() : eq(route),
+                        any(Instant.class),
+                        any(Instant.class),
+                        any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TimingBucket> mergedBuckets() {
+        ArgumentCaptor<List<TimingBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(timingRepository).merge(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private static TimingBucket bucketFor(List<TimingBucket> buckets, MetricTimingType type) {
+        return buckets.stream().filter(bucket -> bucket.type() == type).findFirst().orElseThrow();
+    }
+
+    private double droppedCount(String reason) {
+        return meterRegistry
+                .counter(MetricTimingService.DROPPED_METRIC, "reason", reason)
+                .count();
+    }
+
+    private static MetricTimingDTO timing(MetricTimingType type, String route, Double durationMs) {
+        return MetricTimingDTO.builder().type(type).route(route).durationMs(durationMs).build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsAdmissionConfig;
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsAdmissionControlTest {
+
+    @Mock private MetricsIngestionBuffer ingestionBuffer;
+
+    @Mock private HikariDataSource dataSource;
+
+    @Mock private HikariPoolMXBean pool;
+
+    private MetricsAdmissionConfig config;
+    private MetricsIngestionConfig ingestionConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private double nextRandom;
+    private MetricsAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = new MetricsAdmissionConfig();
+        config.setRetryAfter(Duration.ofSeconds(2));
+        ingestionConfig = new MetricsIngestionConfig();
+        ingestionConfig.setCapacity(100);
+        meterRegistry = new SimpleMeterRegistry();
+        nextRandom = 0.5;
+
+        lenient().when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        lenient().when(dataSource.unwrap(HikariDataSource.class)).thenReturn(dataSource);
+        lenient().when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+
+        admissionControl =
+                new MetricsAdmissionControl(
+                        config,
+                        ingestionConfig,
+                        ingestionBuffer,
+                        dataSource,
+                        meterRegistry,
+                        () -> nextRandom);
+    }
+
+    @Test
+    void checkCapacity_BufferBelowThreshold_Admits() {
+        when(ingestionBuffer.getQueueDepth()).thenReturn(50);
+
+        assertThat(admissionControl.checkCapacity()).isEmpty();
+    }
+
+    @Test
+    void shedProbability_RisesLinearlyBetweenThresholds() {
+        when(ingestionBuffer.getQueueDepth()).thenReturn(74, 85, 95);
+
+        assertThat(admissionControl.shedProbability()).isZero();
+        assertThat(admissionControl.shedProbability()).isCloseTo(0.5, within(1e-9));
+        assertThat(admissionControl.shedProbability()).isEqualTo(1.0);
+    }
+
+    @Test
+    void checkCapacity_BufferNearlyFull_ShedsWithJitteredRetryAfter() {
+        when(ingestionBuffer.getQueueDepth()).thenReturn(99);
+
+        Optional<Duration> retryAfter = admissionControl.checkCapacity();
+
+        assertThat(retryAfter).contains(Duration.ofSeconds(3));
+        assertThat(shedCount("buffer")).isEqualTo(1);
+    }
+
+    @Test
+    void checkCapacity_ThreadsQueueingForConnections_Sheds() {
+        when(ingestionBuffer.getQueueDepth()).thenReturn(0);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+
+        assertThat(admissionControl.checkCapacity()).isPresent();
+        assertThat(shedCount("database")).isEqualTo(1);
+    }
+
+    @Test
+    void checkCapacity_SynchronousMode_IgnoresBuffer() {
+        ingestionConfig.setMode(MetricsIngestionConfig.Mode.SYNCHRONOUS);
+
+        assertThat(admissionControl.checkCapacity()).isEmpty();
+        verifyNoInteractions(ingestionBuffer);
+    }
+
+    @Test
+    void checkCapacity_Disabled_AlwaysAdmits() {
+        config.setEnabled(false);
+
+        assertThat(admissionControl.checkCapacity()).isEmpty();
+        verifyNoInteractions(ingestionBuffer, pool);
+    }
+
+    @Test
+    void sample_AppliesConfiguredRatePerEventType() {
+        config.setSampleRates(Map.of("PAGE_VIEW", 0.25, "BUTTON_CLICK", 0.0));
+
+        nextRandom = 0.1;
+        assertThat(admissionControl.sample("PAGE_VIEW")).isTrue();
+        nextRandom = 0.3;
+        assertThat(admissionControl.sample("PAGE_VIEW")).isFalse();
+        assertThat(admissionControl.sample("BUTTON_CLICK")).isFalse();
+        assertThat(admissionControl.sample("LOGIN")).isTrue();
+        assertThat(meterRegistry.get(MetricsAdmissionControl.SAMPLED_METRIC).counter().count())
+                .isEqualTo(2);
+    }
+
+    private double shedCount(String reason) {
+        return meterRegistry
+                .get(MetricsAdmissionControl.SHED_METRIC)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,161 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsIngestionBufferTest {
+
+    @Mock private MetricEventWriter writer;
+
+    private MetricsIngestionConfig config;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsIngestionConfig();
+        config.setCapacity(4);
+        config.setBatchSize(3);
+        config.setFlushInterval(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void offer_BufferFull_DropsAndCountsEvent() {
+        // Block the writer so that nothing is drained while the buffer fills up.
+        lenient()
+                .doAnswer(
+                        invocation -> {
+                            Thread.sleep(500);
+                            return null;
+                        })
+                .when(writer)
+                .writeBatch(anyList());
+        MetricsIngestionBuffer buffer = startedBuffer();
+
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (buffer.offer(event(i))) {
+                accepted++;
+            }
+        }
+
+        assertThat(accepted).isLessThan(20);
+        assertThat(meterRegistry.get("metrics.ingestion.dropped").counter().count())
+                .isEqualTo(20 - accepted);
+    }
+
+    @Test
+    void offerAll_QueuesUntilFullAndCountsTheRestAsDropped() {
+        config.setMode(MetricsIngestionConfig.Mode.BUFFERED);
+        MetricsIngestionBuffer buffer = new MetricsIngestionBuffer(writer, config, meterRegistry);
+        // Started without a writer thread draining the queue.
+        ReflectionTestUtils.setField(buffer, "running", true);
+
+        int accepted = buffer.offerAll(List.of(event(0), event(1), event(2), event(3), event(4)));
+
+        assertThat(accepted).isEqualTo(4);
+        assertThat(buffer.getQueueDepth()).isEqualTo(4);
+        assertThat(meterRegistry.get("metrics.ingestion.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void offer_NotStarted_RejectsEvent() {
+        config.setMode(MetricsIngestionConfig.Mode.SYNCHRONOUS);
+        MetricsIngestionBuffer buffer = startedBuffer();
+
+        assertThat(buffer.offer(event(1))).isFalse();
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void shutdown_DrainsQueuedEventsInBatches() throws Exception {
+        List<PendingMetricEvent> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(
+                        invocation -> {
+                            List<PendingMetricEvent> batch = invocation.getArgument(0);
+                            batchSizes.add(batch.size());
+                            written.addAll(batch);
+                            return null;
+                        })
+                .when(writer)
+                .writeBatch(anyList());
+        MetricsIngestionBuffer buffer = startedBuffer();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(event(i))).isTrue();
+        }
+        buffer.shutdown();
+
+        assertThat(written).extracting(PendingMetricEvent::event)
+                .containsExactly("E0", "E1", "E2", "E3");
+        assertThat(batchSizes).allMatch(size -> size <= 3);
+        assertThat(buffer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void awaitDrained_ReturnsOnceAcceptedEventsAreWritten() throws Exception {
+        doAnswer(
+                        invocation -> {
+                            Thread.sleep(100);
+                            return null;
+                        })
+                .when(writer)
+                .writeBatch(anyList());
+        MetricsIngestionBuffer buffer = startedBuffer();
+        buffer.offer(event(0));
+        buffer.offer(event(1));
+
+        assertThat(buffer.awaitDrained(Duration.ofMillis(1))).isFalse();
+        assertThat(buffer.awaitDrained(Duration.ofSeconds(5))).isTrue();
+        assertThat(buffer.getWrittenCount()).isEqualTo(2);
+        assertThat(buffer.getFailedCount()).isZero();
+        buffer.shutdown();
+    }
+
+    @Test
+    void flush_BatchFails_RetriesRowsIndividuallyAndCountsFailures() {
+        MetricsIngestionBuffer buffer = new MetricsIngestionBuffer(writer, config, meterRegistry);
+        PendingMetricEvent good = event(1);
+        PendingMetricEvent bad = event(2);
+        doThrow(new DataIntegrityViolationException("fk")).when(writer).writeBatch(anyList());
+        doThrow(new DataIntegrityViolationException("fk")).when(writer).writeOne(bad);
+
+        buffer.flush(List.of(good, bad));
+
+        verify(writer).writeOne(good);
+        assertThat(meterRegistry.get("metrics.ingestion.written").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("metrics.ingestion.failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("metrics.ingestion.flush.latency").timer().count())
+                .isEqualTo(1);
+    }
+
+    private MetricsIngestionBuffer startedBuffer() {
+        MetricsIngestionBuffer buffer = new MetricsIngestionBuffer(writer, config, meterRegistry);
+        buffer.start();
+        return buffer;
+    }
+
+    private PendingMetricEvent event(int index) {
+        return new PendingMetricEvent("E" + index, Instant.now(), "{}", null);
+    }
+}
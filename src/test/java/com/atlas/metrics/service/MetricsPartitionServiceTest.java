@@ -0,0 +1,118 @@
+package com.atlas.metrics.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsPartitionConfig;
+import com.atlas.metrics.repository.MetricsPartitionRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsPartitionServiceTest {
+
+    private static final Clock CLOCK =
+            Clock.fixed(Instant.parse("2026-10-19T12:00:00Z"), ZoneOffset.UTC);
+
+    @Mock private MetricsPartitionRepository partitionRepository;
+
+    private MetricsPartitionConfig config;
+    private MetricsPartitionService partitionService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsPartitionConfig();
+        config.setMonthsAhead(2);
+        config.setRetentionMonths(3);
+        partitionService = new MetricsPartitionService(partitionRepository, config, CLOCK);
+    }
+
+    @Test
+    void maintainPartitions_CreatesMissingUpcomingPartitions() {
+        when(partitionRepository.findPartitionNames())
+                .thenReturn(List.of("metrics_default", "metrics_p2026_10"));
+
+        partitionService.maintainPartitions();
+
+        verify(partitionRepository)
+                .createPartition(
+                        "metrics_p2026_11",
+                        Instant.parse("2026-11-01T00:00:00Z"),
+                        Instant.parse("2026-12-01T00:00:00Z"));
+        verify(partitionRepository)
+                .createPartition(
+                        "metrics_p2026_12",
+                        Instant.parse("2026-12-01T00:00:00Z"),
+                        Instant.parse("2027-01-01T00:00:00Z"));
+        verify(partitionRepository, never())
+                .createPartition(eq("metrics_p2026_10"), any(), any());
+    }
+
+    @Test
+    void maintainPartitions_DropsPartitionsOutsideRetention() {
+        when(partitionRepository.findPartitionNames())
+                .thenReturn(
+                        List.of(
+                                "metrics_default",
+                                "metrics_p2026_06",
+                                "metrics_p2026_07",
+                                "metrics_p2026_10",
+                                "metrics_p2026_11",
+                                "metrics_p2026_12"));
+
+        partitionService.maintainPartitions();
+
+        verify(partitionRepository).detachPartition("metrics_p2026_06");
+        verify(partitionRepository).dropTable("metrics_p2026_06");
+        verify(partitionRepository, never()).detachPartition("metrics_p2026_07");
+        verify(partitionRepository, never()).detachPartition("metrics_default");
+    }
+
+    @Test
+    void maintainPartitions_DetachOnly_KeepsExpiredTables() {
+        config.setRetentionAction(MetricsPartitionConfig.RetentionAction.DETACH);
+        when(partitionRepository.findPartitionNames())
+                .thenReturn(
+                        List.of(
+                                "metrics_p2025_01",
+                                "metrics_p2026_10",
+                                "metrics_p2026_11",
+                                "metrics_p2026_12"));
+
+        partitionService.maintainPartitions();
+
+        verify(partitionRepository).detachPartition("metrics_p2025_01");
+        verify(partitionRepository, never()).dropTable(anyString());
+    }
+
+    @Test
+    void maintainPartitions_CreateFailure_ContinuesWithTheRest() {
+        when(partitionRepository.findPartitionNames()).thenReturn(List.of());
+        doThrow(new BadSqlGrammarException("create", "CREATE TABLE", null))
+                .when(partitionRepository)
+                .createPartition(eq("metrics_p2026_10"), any(), any());
+
+        partitionService.maintainPartitions();
+
+        verify(partitionRepository).createPartition(eq("metrics_p2026_11"), any(), any());
+        verify(partitionRepository).createPartition(eq("metrics_p2026_12"), any(), any());
+    }
+
+    @Test
+    void maintainPartitions_Disabled_DoesNothing() {
+        config.setEnabled(false);
+
+        partitionService.maintainPartitions();
+
+        verifyNoInteractions(partitionRepository);
+    }
+}
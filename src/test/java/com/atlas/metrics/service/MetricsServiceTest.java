@@ -1,34 +1,75 @@
 package com.atlas.metrics.service;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
+import com.atlas.metrics.config.MetricsIngestionConfig;
 import com.atlas.metrics.controller.model.MetricEventDTO;
 import com.atlas.metrics.controller.model.MetricEventType;
-import com.atlas.metrics.repository.MetricsRepository;
-import com.atlas.metrics.repository.model.MetricEventEntity;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.ExceptionTypes.MetricIngestionRejectedException;
+import com.atlas.metrics.service.model.MetricBatch;
+import com.atlas.metrics.service.model.MetricBatchItemError;
+import com.atlas.metrics.service.model.MetricBatchResult;
+import com.atlas.metrics.service.model.PendingMetricEvent;
 import com.atlas.testFactories.MetricEventTestFactory;
-import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
 import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
 
 @ExtendWith(MockitoExtension.class)
 class MetricsServiceTest {
 
-    @Mock MetricsRepository mockMetricsRepository;
+    @Mock MetricsIngestionBuffer mockIngestionBuffer;
 
-    @InjectMocks MetricsService metricsService;
+    @Mock MetricEventWriter mockMetricEventWriter;
 
-    @Test
-    @DisplayName("when a metric request is received, the repository is called")
-    void whenMetricEventDTOIsReceived_MetricRepositoryIsCalled_NoContentReturned() {
+    @Mock MetricsStreamPublisher mockStreamPublisher;
+
+    @Mock MetricsAdmissionControl mockAdmissionControl;
+
+    @Mock MetricEventDeduplicator mockDeduplicator;
+
+    @Mock MetricSketchService mockSketchService;
+
+    @Mock MetricLiveCounters mockLiveCounters;
+
+    MetricsIngestionConfig config;
 
+    MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsIngestionConfig();
+        metricsService =
+                new MetricsService(
+                        mockIngestionBuffer,
+                        mockMetricEventWriter,
+                        config,
+                        mockStreamPublisher,
+                        mockAdmissionControl,
+                        mockDeduplicator,
+                        mockSketchService,
+                        mockLiveCounters);
+        lenient().when(mockAdmissionControl.sample(anyString())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("when a metric request is received, the event is queued for ingestion")
+    void whenMetricEventDTOIsReceived_EventIsQueuedForIngestion() {
         JSONObject eventMetadata = new JSONObject();
         eventMetadata.put("buttonId", "submit");
         eventMetadata.put("screen", "login");
@@ -36,20 +77,233 @@ class MetricsServiceTest {
         MetricEventDTO metricEventDTO =
                 MetricEventTestFactory.createMockMetricEventDTO(
                         MetricEventType.BUTTON_CLICK, eventMetadata);
+        when(mockIngestionBuffer.offer(any(PendingMetricEvent.class))).thenReturn(true);
 
         metricsService.saveMetricEvent(metricEventDTO);
 
-        ArgumentCaptor<MetricEventEntity> captor = ArgumentCaptor.forClass(MetricEventEntity.class);
-        verify(mockMetricsRepository).save(captor.capture());
-
-        MetricEventEntity capturedEntity = captor.getValue();
+        ArgumentCaptor<PendingMetricEvent> captor =
+                ArgumentCaptor.forClass(PendingMetricEvent.class);
+        verify(mockIngestionBuffer).offer(captor.capture());
+        verifyNoInteractions(mockMetricEventWriter);
 
-        assertEquals(MetricEventType.BUTTON_CLICK.toString(), capturedEntity.getEvent());
-        assertEquals(eventMetadata.toString(), capturedEntity.getMetadata());
+        PendingMetricEvent captured = captor.getValue();
 
-        Timestamp now = new Timestamp(System.currentTimeMillis());
+        assertEquals(MetricEventType.BUTTON_CLICK.toString(), captured.event());
+        assertEquals(eventMetadata.toString(), captured.metadata());
         assertTrue(
-                Math.abs(capturedEntity.getEventTime().getTime() - now.getTime()) < 1000,
+                Duration.between(captured.eventTime(), Instant.now()).abs().toMillis() < 1000,
                 "Timestamp should be within 1 second of the current time");
     }
+
+    @Test
+    @DisplayName("when the ingestion buffer is full, the event is rejected")
+    void whenIngestionBufferIsFull_EventIsRejected() {
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.LOGIN, new JSONObject());
+        when(mockIngestionBuffer.offer(any(PendingMetricEvent.class))).thenReturn(false);
+
+        assertThrows(
+                MetricIngestionRejectedException.class,
+                () -> metricsService.saveMetricEvent(metricEventDTO));
+    }
+
+    @Test
+    @DisplayName("in synchronous mode, the event is written before returning")
+    void whenSynchronousMode_EventIsWrittenImmediately() {
+        config.setMode(MetricsIngestionConfig.Mode.SYNCHRONOUS);
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.LOGOUT, new JSONObject());
+        metricEventDTO.setUserId(7L);
+
+        metricsService.saveMetricEvent(metricEventDTO);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PendingMetricEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockMetricEventWriter).writeBatch(captor.capture());
+        verifyNoInteractions(mockIngestionBuffer);
+
+        assertEquals(1, captor.getValue().size());
+        assertEquals(7L, captor.getValue().get(0).userId());
+    }
+
+    @Test
+    @DisplayName("when a batch is received, valid events are queued together")
+    void whenBatchIsReceived_ValidEventsAreQueuedTogether() {
+        MetricBatch batch =
+                new MetricBatch(
+                        List.of(item(0), item(2)),
+                        List.of(new MetricBatchItemError(1, "event is required")));
+        when(mockIngestionBuffer.offerAll(anyList())).thenReturn(2);
+
+        MetricBatchResult result = metricsService.saveMetricEvents(batch);
+
+        assertEquals(2, result.accepted());
+        assertEquals(1, result.rejected());
+        assertEquals(List.of(new MetricBatchItemError(1, "event is required")), result.errors());
+        verify(mockIngestionBuffer)
+                .offerAll(List.of(batch.items().get(0).event(), batch.items().get(1).event()));
+    }
+
+    @Test
+    @DisplayName("when the buffer fills part way through a batch, the remainder is reported")
+    void whenBufferFillsDuringBatch_RemainderIsReported() {
+        MetricBatch batch =
+                new MetricBatch(
+                        List.of(item(0), item(2), item(3)),
+                        List.of(new MetricBatchItemError(1, "event is required")));
+        when(mockIngestionBuffer.offerAll(anyList())).thenReturn(1);
+
+        MetricBatchResult result = metricsService.saveMetricEvents(batch);
+
+        assertEquals(1, result.accepted());
+        assertEquals(3, result.rejected());
+        assertEquals(
+                List.of(1, 2, 3),
+                result.errors().stream().map(MetricBatchItemError::index).toList());
+    }
+
+    @Test
+    @DisplayName("when none of a batch can be queued, the batch is rejected")
+    void whenNoneOfBatchCanBeQueued_BatchIsRejected() {
+        MetricBatch batch = new MetricBatch(List.of(item(0)), List.of());
+        when(mockIngestionBuffer.offerAll(anyList())).thenReturn(0);
+
+        assertThrows(
+                MetricIngestionRejectedException.class,
+                () -> metricsService.saveMetricEvents(batch));
+    }
+
+    @Test
+    @DisplayName("in synchronous mode, a batch is written in one call")
+    void whenSynchronousMode_BatchIsWrittenInOneCall() {
+        config.setMode(MetricsIngestionConfig.Mode.SYNCHRONOUS);
+        MetricBatch batch = new MetricBatch(List.of(item(0), item(1)), List.of());
+
+        MetricBatchResult result = metricsService.saveMetricEvents(batch);
+
+        assertEquals(2, result.accepted());
+        verify(mockMetricEventWriter)
+                .writeBatch(List.of(batch.items().get(0).event(), batch.items().get(1).event()));
+        verifyNoInteractions(mockIngestionBuffer);
+    }
+
+    @Test
+    @DisplayName("in stream mode, the event is appended to the stream")
+    void whenStreamMode_EventIsPublished() {
+        config.setMode(MetricsIngestionConfig.Mode.STREAM);
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.LOGIN, new JSONObject());
+
+        metricsService.saveMetricEvent(metricEventDTO);
+
+        verify(mockStreamPublisher).publish(any(PendingMetricEvent.class));
+        verifyNoInteractions(mockIngestionBuffer, mockMetricEventWriter);
+    }
+
+    @Test
+    @DisplayName("in stream mode, a batch is appended in one call")
+    void whenStreamMode_BatchIsPublishedTogether() {
+        config.setMode(MetricsIngestionConfig.Mode.STREAM);
+        MetricBatch batch = new MetricBatch(List.of(item(0), item(1)), List.of());
+
+        MetricBatchResult result = metricsService.saveMetricEvents(batch);
+
+        assertEquals(2, result.accepted());
+        verify(mockStreamPublisher)
+                .publishAll(List.of(batch.items().get(0).event(), batch.items().get(1).event()));
+    }
+
+    @Test
+    @DisplayName("in stream mode, a Redis failure rejects the event")
+    void whenStreamIsUnavailable_EventIsRejected() {
+        config.setMode(MetricsIngestionConfig.Mode.STREAM);
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(mockStreamPublisher)
+                .publish(any(PendingMetricEvent.class));
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.LOGIN, new JSONObject());
+
+        assertThrows(
+                MetricIngestionRejectedException.class,
+                () -> metricsService.saveMetricEvent(metricEventDTO));
+    }
+
+    @Test
+    @DisplayName("an event sampled out is discarded before it is queued")
+    void whenEventIsSampledOut_NothingIsQueued() {
+        when(mockAdmissionControl.sample("LOGIN")).thenReturn(false);
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.LOGIN, new JSONObject());
+
+        metricsService.saveMetricEvent(metricEventDTO);
+
+        verifyNoInteractions(mockIngestionBuffer, mockMetricEventWriter, mockStreamPublisher);
+    }
+
+    @Test
+    @DisplayName("batch events sampled out are counted as accepted but not queued")
+    void whenBatchEventsAreSampledOut_TheyAreAcceptedButNotQueued() {
+        MetricBatch.Item kept = item(0);
+        MetricBatch.Item sampledOut =
+                new MetricBatch.Item(
+                        1, new PendingMetricEvent("PAGE_VIEW", Instant.now(), "{}", null));
+        when(mockAdmissionControl.sample("PAGE_VIEW")).thenReturn(false);
+        when(mockIngestionBuffer.offerAll(List.of(kept.event()))).thenReturn(1);
+
+        MetricBatchResult result =
+                metricsService.saveMetricEvents(
+                        new MetricBatch(List.of(kept, sampledOut), List.of()));
+
+        assertEquals(2, result.accepted());
+        assertEquals(0, result.rejected());
+    }
+
+    @Test
+    @DisplayName("a repeated event id is dropped without queueing")
+    void whenEventIdWasSeen_EventIsDropped() {
+        UUID eventId = UUID.randomUUID();
+        when(mockDeduplicator.isDuplicate(eventId)).thenReturn(true);
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.BUTTON_CLICK, new JSONObject());
+        metricEventDTO.setEventId(eventId);
+
+        metricsService.saveMetricEvent(metricEventDTO);
+
+        verifyNoInteractions(mockIngestionBuffer, mockMetricEventWriter);
+        verify(mockDeduplicator, never()).accepted(any());
+    }
+
+    @Test
+    @DisplayName("an event id is only remembered once the event was accepted")
+    void whenEventIsRejected_EventIdIsNotRemembered() {
+        UUID eventId = UUID.randomUUID();
+        MetricEventDTO metricEventDTO =
+                MetricEventTestFactory.createMockMetricEventDTO(
+                        MetricEventType.BUTTON_CLICK, new JSONObject());
+        metricEventDTO.setEventId(eventId);
+        when(mockIngestionBuffer.offer(any(PendingMetricEvent.class))).thenReturn(false, true);
+
+        assertThrows(
+                MetricIngestionRejectedException.class,
+                () -> metricsService.saveMetricEvent(metricEventDTO));
+        verify(mockDeduplicator, never()).accepted(any());
+
+        metricsService.saveMetricEvent(metricEventDTO);
+        verify(mockDeduplicator).accepted(eventId);
+        verify(mockSketchService).record(any(PendingMetricEvent.class));
+        verify(mockLiveCounters).record("BUTTON_CLICK");
+    }
+
+    private MetricBatch.Item item(int index) {
+        return new MetricBatch.Item(
+                index,
+                new PendingMetricEvent(
+                        MetricEventType.BUTTON_CLICK.name(), Instant.now(), "{}", null));
+    }
 }
@@ -0,0 +1,308 @@
+package com.atlas.metrics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.atlas.metrics.config.MetricsIngestionConfig;
+import com.atlas.metrics.repository.MetricEventWriter;
+import com.atlas.metrics.service.model.PendingMetricEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsStreamConsumerTest {
+
+    private static final String KEY = "metrics:events";
+    private static final String DEAD_LETTER_KEY = "metrics:events:dead";
+    private static final String GROUP = "metrics-writers";
+    private static final String OUTAGE_KEY = "metrics:events:outages";
+
+    @Mock private StringRedisTemplate redisTemplate;
+
+    @Mock private StreamOperations<String, String, String> streamOperations;
+
+    @Mock private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock private MetricEventWriter writer;
+
+    private MetricsIngestionConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private MetricsStreamConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        config = new MetricsIngestionConfig();
+        config.setMode(MetricsIngestionConfig.Mode.STREAM);
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().doReturn(streamOperations).when(redisTemplate).opsForStream();
+        lenient().doReturn(hashOperations).when(redisTemplate).opsForHash();
+        consumer = new MetricsStreamConsumer(redisTemplate, writer, config, meterRegistry);
+    }
+
+    @Test
+    void process_WritesBatchAndAcknowledgesAfterwards() {
+        MapRecord<String, String, String> first = record("1-0", event("LOGIN"));
+        MapRecord<String, String, String> second = record("2-0", event("LOGOUT"));
+
+        boolean processed = consumer.process(List.of(first, second));
+
+        assertThat(processed).isTrue();
+        var inOrder = inOrder(writer, streamOperations);
+        inOrder.verify(writer).writeBatch(List.of(event("LOGIN"), event("LOGOUT")));
+        inOrder.verify(streamOperations)
+                .acknowledge(KEY, GROUP, RecordId.of("1-0"), RecordId.of("2-0"));
+        assertThat(meterRegistry.get("metrics.ingestion.stream.written").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void process_DatabaseUnavailable_LeavesRecordsPending() {
+        doThrow(new QueryTimeoutException("timeout")).when(writer).writeBatch(anyList());
+
+        boolean processed = consumer.process(List.of(record("1-0", event("LOGIN"))));
+
+        assertThat(processed).isFalse();
+        verifyNoInteractions(streamOperations);
+        verify(writer, never()).writeOne(any());
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void process_BadRow_IsDeadLetteredAndTheRestWritten() {
+        PendingMetricEvent good = event("LOGIN");
+        PendingMetricEvent bad = event("NOT_AN_EVENT");
+        doThrow(new DataIntegrityViolationException("bad row")).when(writer).writeBatch(anyList());
+        doThrow(new DataIntegrityViolationException("bad row")).when(writer).writeOne(bad);
+
+        boolean processed = consumer.process(List.of(record("1-0", good), record("2-0", bad)));
+
+        assertThat(processed).isTrue();
+        verify(writer).writeOne(good);
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("2-0"));
+
+        ArgumentCaptor<MapRecord<String, String, String>> deadLetter = deadLetterCaptor();
+        verify(streamOperations).add(deadLetter.capture());
+        assertThat(deadLetter.getValue().getStream()).isEqualTo(DEAD_LETTER_KEY);
+        assertThat(deadLetter.getValue().getValue())
+                .containsEntry(MetricsStreamConsumer.SOURCE_ID_FIELD, "2-0")
+                .containsEntry(MetricsStreamConsumer.ERROR_FIELD, "bad row");
+        assertThat(meterRegistry.get("metrics.ingestion.stream.dead.lettered").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void process_MalformedEntry_IsDeadLetteredWithoutWriting() {
+        MapRecord<String, String, String> malformed =
+                StreamRecords.newRecord()
+                        .in(KEY)
+                        .withId(RecordId.of("1-0"))
+                        .ofMap(Map.of("event", "LOGIN"));
+
+        boolean processed = consumer.process(List.of(malformed));
+
+        assertThat(processed).isTrue();
+        verifyNoInteractions(writer);
+        verify(streamOperations).add(any(MapRecord.class));
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+    }
+
+    @Test
+    void reclaimPending_ClaimsIdleEntriesAndDeadLettersExhaustedOnes() {
+        PendingMessage exhausted =
+                new PendingMessage(
+                        RecordId.of("1-0"),
+                        Consumer.from(GROUP, "gone-0"),
+                        Duration.ofMinutes(5),
+                        config.getStream().getMaxDeliveries());
+        PendingMessage retryable =
+                new PendingMessage(
+                        RecordId.of("2-0"),
+                        Consumer.from(GROUP, "gone-0"),
+                        Duration.ofMinutes(5),
+                        1);
+        PendingMessage recent =
+                new PendingMessage(
+                        RecordId.of("3-0"),
+                        Consumer.from(GROUP, "busy-0"),
+                        Duration.ofSeconds(1),
+                        1);
+        doReturn(new PendingMessages(GROUP, List.of(exhausted, retryable, recent)))
+                .when(streamOperations)
+                .pending(eq(KEY), eq(GROUP), any(Range.class), anyLong());
+        doReturn(Arrays.asList(null, null))
+                .when(hashOperations)
+                .multiGet(OUTAGE_KEY, List.of("1-0", "2-0"));
+        doReturn(List.of(record("1-0", event("LOGIN"))))
+                .when(streamOperations)
+                .range(eq(KEY), any(Range.class));
+        doReturn(List.of(record("2-0", event("LOGOUT"))))
+                .when(streamOperations)
+                .claim(KEY, GROUP, "me-0", config.getStream().getClaimIdle(), RecordId.of("2-0"));
+
+        consumer.reclaimPending("me-0");
+
+        verify(streamOperations).add(any(MapRecord.class));
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+        verify(writer).writeBatch(List.of(event("LOGOUT")));
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("2-0"));
+        verify(hashOperations).delete(OUTAGE_KEY, "1-0");
+        verify(hashOperations).delete(OUTAGE_KEY, new Object[] {"2-0"});
+    }
+
+    @Test
+    void reclaimPending_DeliveriesDuringAnOutageDoNotCountTowardDeadLettering() {
+        PendingMessage redelivered =
+                new PendingMessage(
+                        RecordId.of("1-0"),
+                        Consumer.from(GROUP, "gone-0"),
+                        Duration.ofMinutes(5),
+                        config.getStream().getMaxDeliveries() + 3);
+        doReturn(new PendingMessages(GROUP, List.of(redelivered)))
+                .when(streamOperations)
+                .pending(eq(KEY), eq(GROUP), any(Range.class), anyLong());
+        doReturn(List.of("4")).when(hashOperations).multiGet(OUTAGE_KEY, List.of("1-0"));
+        doReturn(List.of(record("1-0", event("LOGIN"))))
+                .when(streamOperations)
+                .claim(KEY, GROUP, "me-0", config.getStream().getClaimIdle(), RecordId.of("1-0"));
+
+        consumer.reclaimPending("me-0");
+
+        verify(streamOperations, never()).add(any(MapRecord.class));
+        verify(writer).writeBatch(List.of(event("LOGIN")));
+        verify(streamOperations).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+    }
+
+    @Test
+    void reclaimPending_PagesThroughThePendingList() {
+        config.setBatchSize(1);
+        PendingMessage first =
+                new PendingMessage(
+                        RecordId.of("1-0"),
+                        Consumer.from(GROUP, "gone-0"),
+                        Duration.ofMinutes(5),
+                        1);
+        PendingMessage second =
+                new PendingMessage(
+                        RecordId.of("2-0"),
+                        Consumer.from(GROUP, "gone-0"),
+                        Duration.ofMinutes(5),
+                        1);
+        doReturn(
+                        new PendingMessages(GROUP, List.of(first)),
+                        new PendingMessages(GROUP, List.of(second)),
+                        new PendingMessages(GROUP, List.of()))
+                .when(streamOperations)
+                .pending(eq(KEY), eq(GROUP), any(Range.class), anyLong());
+        doReturn(Arrays.asList((Object) null)).when(hashOperations).multiGet(eq(OUTAGE_KEY), any());
+        doReturn(List.of(record("1-0", event("LOGIN"))))
+                .when(streamOperations)
+                .claim(KEY, GROUP, "me-0", config.getStream().getClaimIdle(), RecordId.of("1-0"));
+        doReturn(List.of(record("2-0", event("LOGOUT"))))
+                .when(streamOperations)
+                .claim(KEY, GROUP, "me-0", config.getStream().getClaimIdle(), RecordId.of("2-0"));
+
+        consumer.reclaimPending("me-0");
+
+        verify(writer).writeBatch(List.of(event("LOGIN")));
+        verify(writer).writeBatch(List.of(event("LOGOUT")));
+        verify(streamOperations, times(3))
+                .pending(eq(KEY), eq(GROUP), any(Range.class), anyLong());
+    }
+
+    @Test
+    void trimAcknowledged_KeepsTheOldestPendingEntry() {
+        doReturn(
+                        StreamInfo.XInfoGroups.fromList(
+                                List.of(
+                                        List.of(
+                                                "name", GROUP,
+                                                "consumers", 2L,
+                                                "pending", 3L,
+                                                "last-delivered-id", "9-0"))))
+                .when(streamOperations)
+                .groups(KEY);
+        doReturn(new PendingMessagesSummary(GROUP, 3, Range.closed("4-0", "9-0"), Map.of()))
+                .when(streamOperations)
+                .pending(KEY, GROUP);
+
+        consumer.trimAcknowledged();
+
+        ArgumentCaptor<RedisCallback<Object>> trim = trimCaptor();
+        verify(redisTemplate).execute(trim.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        trim.getValue().doInRedis(connection);
+        verify(connection)
+                .execute(
+                        eq("XTRIM"),
+                        aryEq(bytes(KEY)),
+                        aryEq(bytes("MINID")),
+                        aryEq(bytes("~")),
+                        aryEq(bytes("4-0")));
+    }
+
+    @Test
+    void earliest_ComparesTimestampThenSequence() {
+        assertThat(MetricsStreamConsumer.earliest(RecordId.of("10-0"), RecordId.of("9-5")))
+                .isEqualTo(RecordId.of("9-5"));
+        assertThat(MetricsStreamConsumer.earliest(RecordId.of("9-2"), RecordId.of("9-10")))
+                .isEqualTo(RecordId.of("9-2"));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<RedisCallback<Object>> trimCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(RedisCallback.class);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<MapRecord<String, String, String>> deadLetterCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(MapRecord.class);
+    }
+
+    private static MapRecord<String, String, String> record(String id, PendingMetricEvent event) {
+        return StreamRecords.newRecord()
+                .in(KEY)
+                .withId(RecordId.of(id))
+                .ofMap(MetricsStreamPublisher.toFields(event));
+    }
+
+    private static PendingMetricEvent event(String type) {
+        return new PendingMetricEvent(type, Instant.parse("2025-10-01T12:00:00Z"), "{}", 7L);
+    }
+}
@@ -2,6 +2,7 @@ package com.atlas.testFactories;
 
 import com.atlas.metrics.controller.model.MetricEventDTO;
 import com.atlas.metrics.controller.model.MetricEventType;
+import com.atlas.metrics.controller.model.RawJson;
 import com.atlas.metrics.repository.model.MetricEventEntity;
 import java.sql.Timestamp;
 import java.util.Date;
@@ -11,7 +12,10 @@ public class MetricEventTestFactory {
 
     public static MetricEventDTO createMockMetricEventDTO(
             MetricEventType metricEventType, JSONObject eventMetadata) {
-        return MetricEventDTO.builder().event(metricEventType).eventMetadata(eventMetadata).build();
+        return MetricEventDTO.builder()
+                .event(metricEventType)
+                .eventMetadata(RawJson.of(eventMetadata.toJSONString()))
+                .build();
     }
 
     public static MetricEventEntity convertMetricEventDTOTOMetricEventEntity(
@@ -20,7 +24,7 @@ public class MetricEventTestFactory {
                 .id(null)
                 .event(metricEventDTO.getEvent().toString())
                 .eventTime(new Timestamp(new Date().getTime()))
-                .metadata(metricEventDTO.getEventMetadata().toString())
+                .metadata(metricEventDTO.getEventMetadata().json())
                 .build();
     }
 }